@@ -40,10 +40,16 @@ public enum Group
     LOG_ROTATION( "LogRotation" ),
     /** Checkpoint and store flush. */
     CHECKPOINT( "CheckPoint" ),
+    /** Forces the transaction log for transactions committed with asynchronous durability. */
+    TRANSACTION_LOG_FORCE( "TransactionLogForce" ),
+    /** Reads the transaction log ahead of, and applies transactions that change disjoint records in parallel during, recovery. */
+    RECOVERY( "Recovery" ),
     /** Various little periodic tasks that need to be done on a regular basis to keep the store in good shape. */
     STORAGE_MAINTENANCE( "StorageMaintenance" ),
     /** Terminates kernel transactions that have timed out. */
     TRANSACTION_TIMEOUT_MONITOR( "TransactionTimeoutMonitor" ),
+    /** Detects deadlocks among the transactions waiting for locks of the community lock manager. */
+    DEADLOCK_DETECTION( "DeadlockDetection" ),
     /** Background index population. */
     INDEX_POPULATION( "IndexPopulation" ),
     /** Background index sampling */
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compatibility.v3_5
 
+import java.io.File
 import java.time.{Clock, Instant, ZoneOffset}
 
 import org.neo4j.cypher
@@ -58,7 +59,11 @@ class CypherCompilerAstCacheAcceptanceTest extends CypherFunSuite with GraphData
       csvBufferSize = CSVResources.DEFAULT_BUFFER_SIZE,
       nonIndexedLabelWarningThreshold = 10000L,
       planWithMinimumCardinalityEstimates = true,
-      lenientCreateRelationship = false
+      lenientCreateRelationship = false,
+      sortSpillThreshold = 0,
+      aggregationSpillThreshold = 0,
+      hashJoinSpillThreshold = 0,
+      spillDirectory = new File(System.getProperty("java.io.tmpdir"))
     )
   }
 
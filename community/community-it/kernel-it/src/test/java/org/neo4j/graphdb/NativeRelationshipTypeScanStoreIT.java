@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphdb;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.internal.kernel.api.Scan;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.test.rule.EmbeddedDatabaseRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NativeRelationshipTypeScanStoreIT
+{
+    private static final RelationshipType KNOWS = RelationshipType.withName( "KNOWS" );
+    private static final RelationshipType LIKES = RelationshipType.withName( "LIKES" );
+
+    @Rule
+    public final DatabaseRule dbRule = new EmbeddedDatabaseRule();
+
+    @Test
+    public void shouldSeeCreatedAndDeletedRelationshipsOfType()
+    {
+        // given
+        MutableLongSet knows = new LongHashSet();
+        MutableLongSet likes = new LongHashSet();
+        createRelationships( knows, likes );
+
+        // then
+        assertEquals( knows, relationshipsOfType( KNOWS ) );
+        assertEquals( likes, relationshipsOfType( LIKES ) );
+        assertEquals( knows, relationshipsOfTypeInBatches( KNOWS ) );
+        assertEquals( likes, relationshipsOfTypeInBatches( LIKES ) );
+    }
+
+    @Test
+    public void shouldRebuildMissingStoreOnStartup() throws Exception
+    {
+        // given
+        MutableLongSet knows = new LongHashSet();
+        MutableLongSet likes = new LongHashSet();
+        createRelationships( knows, likes );
+
+        // when
+        dbRule.restartDatabase( ( fs, databaseLayout ) -> fs.deleteFileOrThrow( databaseLayout.relationshipTypeScanStore() ) );
+
+        // then
+        assertTrue( dbRule.databaseLayout().relationshipTypeScanStore().exists() );
+        assertEquals( knows, relationshipsOfType( KNOWS ) );
+        assertEquals( likes, relationshipsOfType( LIKES ) );
+    }
+
+    private void createRelationships( MutableLongSet knows, MutableLongSet likes )
+    {
+        MutableLongSet deleted = new LongHashSet();
+        try ( Transaction tx = dbRule.beginTx() )
+        {
+            Node node = dbRule.createNode();
+            for ( int i = 0; i < 300; i++ )
+            {
+                Relationship relationship = node.createRelationshipTo( dbRule.createNode(), i % 3 == 0 ? LIKES : KNOWS );
+                (i % 3 == 0 ? likes : knows).add( relationship.getId() );
+                if ( i % 5 == 0 )
+                {
+                    deleted.add( relationship.getId() );
+                }
+            }
+            tx.success();
+        }
+        try ( Transaction tx = dbRule.beginTx() )
+        {
+            deleted.forEach( id -> dbRule.getRelationshipById( id ).delete() );
+            tx.success();
+        }
+        knows.removeAll( deleted );
+        likes.removeAll( deleted );
+    }
+
+    private MutableLongSet relationshipsOfType( RelationshipType type )
+    {
+        MutableLongSet ids = new LongHashSet();
+        try ( Transaction tx = dbRule.beginTx() )
+        {
+            KernelTransaction ktx = kernelTransaction();
+            int typeId = ktx.tokenRead().relationshipType( type.name() );
+            try ( RelationshipScanCursor cursor = ktx.cursors().allocateRelationshipScanCursor() )
+            {
+                ktx.dataRead().relationshipTypeScan( typeId, cursor );
+                while ( cursor.next() )
+                {
+                    assertEquals( typeId, cursor.type() );
+                    assertTrue( "should only see each relationship once", ids.add( cursor.relationshipReference() ) );
+                }
+            }
+            tx.success();
+        }
+        return ids;
+    }
+
+    private MutableLongSet relationshipsOfTypeInBatches( RelationshipType type )
+    {
+        MutableLongSet ids = new LongHashSet();
+        try ( Transaction tx = dbRule.beginTx() )
+        {
+            KernelTransaction ktx = kernelTransaction();
+            int typeId = ktx.tokenRead().relationshipType( type.name() );
+            try ( RelationshipScanCursor cursor = ktx.cursors().allocateRelationshipScanCursor() )
+            {
+                Scan<RelationshipScanCursor> scan = ktx.dataRead().relationshipTypeScan( typeId );
+                while ( scan.reserveBatch( cursor, 7 ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        assertEquals( typeId, cursor.type() );
+                        assertTrue( "should only see each relationship once", ids.add( cursor.relationshipReference() ) );
+                    }
+                }
+            }
+            tx.success();
+        }
+        return ids;
+    }
+
+    private KernelTransaction kernelTransaction()
+    {
+        return dbRule.getDependencyResolver().resolveDependency( ThreadToStatementContextBridge.class ).getKernelTransactionBoundToThisThread( true );
+    }
+}
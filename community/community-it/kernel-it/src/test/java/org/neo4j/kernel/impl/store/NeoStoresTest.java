@@ -66,7 +66,7 @@ import org.neo4j.kernel.impl.core.TokenNotFoundException;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.TransactionRecordState.PropertyReceiver;
 import org.neo4j.kernel.impl.store.MetaDataStore.Position;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.format.standard.DynamicRecordFormat;
@@ -761,7 +761,7 @@ public class NeoStoresTest
         NeoStores neoStore = factory.openAllNeoStores( true );
 
         // let's hack the counts store so it fails to rotate and hence it fails to close as well...
-        CountsTracker counts = neoStore.getCounts();
+        CountsStore counts = neoStore.getCounts();
         counts.start();
         long nextTxId = neoStore.getMetaDataStore().getLastCommittedTransactionId() + 1;
         AtomicReference<Throwable> exRef = new AtomicReference<>();
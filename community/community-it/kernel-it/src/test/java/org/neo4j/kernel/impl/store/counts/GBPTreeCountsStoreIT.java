@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.IOException;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.graphdb.mockfs.UncloseableDelegatingFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointer;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.SimpleTriggerInfo;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.TestGraphDatabaseFactory;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.internal.kernel.api.Read.ANY_LABEL;
+
+public class GBPTreeCountsStoreIT
+{
+    private static final Label LABEL = Label.label( "A" );
+    private static final RelationshipType TYPE = RelationshipType.withName( "R" );
+
+    private final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final TestDirectory testDir = TestDirectory.testDirectory( getClass(), fsRule.get() );
+
+    @Rule
+    public final RuleChain ruleChain = RuleChain.outerRule( fsRule ).around( testDir );
+
+    private GraphDatabaseAPI db;
+
+    @After
+    public void shutdown()
+    {
+        if ( db != null )
+        {
+            db.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldMigrateCountsToTreeAndBack()
+    {
+        // given a database with the key/value counts store
+        DatabaseLayout layout = testDir.databaseLayout();
+        db = startDatabase( fsRule.get(), false );
+        createNodes( 3 );
+        db.shutdown();
+        assertTrue( fsRule.get().fileExists( layout.countStoreA() ) );
+        assertFalse( fsRule.get().fileExists( layout.countStoreTree() ) );
+
+        // when started with the counts tree
+        db = startDatabase( fsRule.get(), true );
+
+        // then
+        assertCounts( 3 );
+
+        // when
+        createNodes( 2 );
+        db.shutdown();
+
+        // then
+        assertTrue( fsRule.get().fileExists( layout.countStoreTree() ) );
+        assertFalse( fsRule.get().fileExists( layout.countStoreA() ) );
+        assertFalse( fsRule.get().fileExists( layout.countStoreB() ) );
+
+        // when started with the key/value counts store again
+        db = startDatabase( fsRule.get(), false );
+
+        // then
+        assertCounts( 5 );
+        assertFalse( fsRule.get().fileExists( layout.countStoreTree() ) );
+    }
+
+    @Test
+    public void shouldApplyRecoveredTransactionsToTreeOnce() throws IOException
+    {
+        // given
+        db = startDatabase( fsRule.get(), true );
+        createNodes( 3 );
+        db.getDependencyResolver().resolveDependency( CheckPointer.class ).forceCheckPoint( new SimpleTriggerInfo( "test" ) );
+        createNodes( 4 );
+
+        // when
+        EphemeralFileSystemAbstraction crashed = fsRule.get().snapshot();
+        db.shutdown();
+        db = startDatabase( crashed, true );
+
+        // then
+        assertCounts( 7 );
+    }
+
+    private GraphDatabaseAPI startDatabase( FileSystemAbstraction fs, boolean countsTree )
+    {
+        return (GraphDatabaseAPI) new TestGraphDatabaseFactory()
+                .setFileSystem( new UncloseableDelegatingFileSystemAbstraction( fs ) )
+                .newImpermanentDatabaseBuilder( testDir.databaseDir() )
+                .setConfig( GraphDatabaseSettings.counts_store_gbptree, String.valueOf( countsTree ) )
+                .newGraphDatabase();
+    }
+
+    private void createNodes( int count )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                Node node = db.createNode( LABEL );
+                node.createRelationshipTo( db.createNode(), TYPE );
+            }
+            tx.success();
+        }
+    }
+
+    private void assertCounts( long labeledNodes )
+    {
+        try ( Transaction ignored = db.beginTx() )
+        {
+            KernelTransaction ktx = db.getDependencyResolver().resolveDependency( ThreadToStatementContextBridge.class )
+                    .getKernelTransactionBoundToThisThread( true );
+            int labelId = ktx.tokenRead().nodeLabel( LABEL.name() );
+            int typeId = ktx.tokenRead().relationshipType( TYPE.name() );
+            assertEquals( labeledNodes, ktx.dataRead().countsForNode( labelId ) );
+            assertEquals( labeledNodes * 2, ktx.dataRead().countsForNode( ANY_LABEL ) );
+            assertEquals( labeledNodes, ktx.dataRead().countsForRelationship( labelId, typeId, ANY_LABEL ) );
+        }
+    }
+}
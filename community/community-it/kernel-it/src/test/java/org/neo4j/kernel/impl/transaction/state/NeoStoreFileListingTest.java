@@ -124,6 +124,7 @@ public class NeoStoreFileListingTest
     {
         // Given
         LabelScanStore labelScanStore = mock( LabelScanStore.class );
+        LabelScanStore relationshipTypeScanStore = mock( LabelScanStore.class );
         IndexingService indexingService = mock( IndexingService.class );
         ExplicitIndexProvider explicitIndexes = mock( ExplicitIndexProvider.class );
         when( explicitIndexes.allIndexProviders() ).thenReturn( Collections.emptyList() );
@@ -133,10 +134,12 @@ public class NeoStoreFileListingTest
         filesInStoreDirAre( databaseLayout, STANDARD_STORE_DIR_FILES, STANDARD_STORE_DIR_DIRECTORIES );
         StorageEngine storageEngine = mock( StorageEngine.class );
         NeoStoreFileListing fileListing = new NeoStoreFileListing( databaseLayout, logFiles, labelScanStore,
-                indexingService, explicitIndexes, storageEngine );
+                relationshipTypeScanStore, indexingService, explicitIndexes, storageEngine );
 
         ResourceIterator<File> scanSnapshot = scanStoreFilesAre( labelScanStore,
                 new String[]{"blah/scan.store", "scan.more"} );
+        ResourceIterator<File> typeScanSnapshot = scanStoreFilesAre( relationshipTypeScanStore,
+                new String[]{"type.scan.store"} );
         ResourceIterator<File> indexSnapshot = indexFilesAre( indexingService, new String[]{"schema/index/my.index"} );
 
         ResourceIterator<StoreFileMetadata> result = fileListing.builder().excludeLogFiles().build();
@@ -146,6 +149,7 @@ public class NeoStoreFileListingTest
 
         // Then
         verify( scanSnapshot ).close();
+        verify( typeScanSnapshot ).close();
         verify( indexSnapshot ).close();
     }
 
@@ -130,7 +130,7 @@ public class KernelDiagnosticsIT
                 manuallyCountTotalMappedFileSize( file, result, nativeIndexFilter );
             }
             else if ( storeFiles.contains( file.getName() ) || file.getName().equals( DatabaseFile.LABEL_SCAN_STORE.getName() ) ||
-                    nativeIndexFilter.accept( file ) )
+                    file.getName().equals( DatabaseFile.RELATIONSHIP_TYPE_SCAN_STORE.getName() ) || nativeIndexFilter.accept( file ) )
             {
                 result.add( file.length() );
             }
@@ -50,7 +50,7 @@ import org.neo4j.kernel.impl.api.CountsAccessor;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.kernel.impl.store.RecordStore;
 import org.neo4j.kernel.impl.store.StoreAccess;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
@@ -124,15 +124,15 @@ public class FullCheck
         {
             CountsAccessor countsAccessor = stores.nativeStores().getCounts();
             boolean checkCounts = true;
-            if ( startCountsStore && countsAccessor instanceof CountsTracker )
+            if ( startCountsStore && countsAccessor instanceof CountsStore )
             {
-                CountsTracker tracker = (CountsTracker) countsAccessor;
+                CountsStore counts = (CountsStore) countsAccessor;
                 // Perhaps other read-only use cases thinks it's fine to just rebuild an in-memory counts store,
                 // but the consistency checker should instead prevent rebuild and report that the counts store is broken or missing
-                tracker.setInitializer( new RebuildPreventingCountsInitializer() );
+                counts.setInitializer( new RebuildPreventingCountsInitializer() );
                 try
                 {
-                    tracker.start();
+                    counts.start();
                 }
                 catch ( Exception e )
                 {
@@ -19,6 +19,8 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_5.planner
 
+import java.io.File
+
 import org.mockito.ArgumentMatchers._
 import org.mockito.Mockito._
 import org.mockito.invocation.InvocationOnMock
@@ -236,7 +238,11 @@ trait LogicalPlanningTestSupport extends CypherTestSupport with AstConstructionT
     csvBufferSize = Configuration.DEFAULT_BUFFER_SIZE_4MB,
     nonIndexedLabelWarningThreshold = 10000,
     planWithMinimumCardinalityEstimates = true,
-    lenientCreateRelationship = false
+    lenientCreateRelationship = false,
+    sortSpillThreshold = 0,
+    aggregationSpillThreshold = 0,
+    hashJoinSpillThreshold = 0,
+    spillDirectory = new File(System.getProperty("java.io.tmpdir"))
   )
 
   def buildPlannerQuery(query: String, lookup: Option[QualifiedName => ProcedureSignature] = None) = {
@@ -19,6 +19,8 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_5.planner
 
+import java.io.File
+
 import org.neo4j.csv.reader.Configuration
 import org.neo4j.cypher.internal.compiler.v3_5._
 import org.neo4j.cypher.internal.compiler.v3_5.phases._
@@ -73,7 +75,11 @@ trait LogicalPlanningTestSupport2 extends CypherTestSupport with AstConstruction
     csvBufferSize = Configuration.DEFAULT_BUFFER_SIZE_4MB,
     nonIndexedLabelWarningThreshold = 10000,
     planWithMinimumCardinalityEstimates = true,
-    lenientCreateRelationship = false
+    lenientCreateRelationship = false,
+    sortSpillThreshold = 0,
+    aggregationSpillThreshold = 0,
+    hashJoinSpillThreshold = 0,
+    spillDirectory = new File(System.getProperty("java.io.tmpdir"))
   )
   val realConfig = RealLogicalPlanningConfiguration(cypherCompilerConfig)
 
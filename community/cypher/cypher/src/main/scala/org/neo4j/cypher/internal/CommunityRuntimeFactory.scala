@@ -26,6 +26,7 @@ object CommunityRuntimeFactory {
 
   val interpreted = new FallbackRuntime[RuntimeContext](List(ProcedureCallOrSchemaCommandRuntime, InterpretedRuntime), CypherRuntimeOption.interpreted)
   val default = new FallbackRuntime[RuntimeContext](List(ProcedureCallOrSchemaCommandRuntime, InterpretedRuntime), CypherRuntimeOption.default)
+  val slotted = new FallbackRuntime[RuntimeContext](List(ProcedureCallOrSchemaCommandRuntime, SlottedRowsRuntime, InterpretedRuntime), CypherRuntimeOption.slotted)
 
   def getRuntime(cypherRuntime: CypherRuntimeOption, disallowFallback: Boolean): CypherRuntime[RuntimeContext] =
     cypherRuntime match {
@@ -33,6 +34,8 @@ object CommunityRuntimeFactory {
 
       case CypherRuntimeOption.default => default
 
+      case CypherRuntimeOption.slotted => slotted
+
       case unsupported if disallowFallback =>
         throw new InvalidArgumentException(s"This version of Neo4j does not support requested runtime: $unsupported")
 
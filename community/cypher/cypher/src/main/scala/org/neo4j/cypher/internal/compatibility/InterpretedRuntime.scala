@@ -26,7 +26,8 @@ import org.neo4j.cypher.internal.compiler.v3_5.phases.LogicalPlanState
 import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.internal.runtime.interpreted.UpdateCountingQueryContext
 import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.{CommunityExpressionConverter, ExpressionConverters}
-import org.neo4j.cypher.internal.runtime.interpreted.pipes.PipeExecutionBuilderContext
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{Pipe, PipeExecutionBuilderContext}
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillConfiguration
 import org.neo4j.cypher.internal.runtime.planDescription.Argument
 import org.neo4j.cypher.result.RuntimeResult
 import org.neo4j.values.virtual.MapValue
@@ -34,7 +35,19 @@ import org.neo4j.cypher.internal.v3_5.frontend.phases.InternalNotificationLogger
 import org.neo4j.cypher.internal.v3_5.util.{InternalNotification, PeriodicCommitInOpenTransactionException}
 
 object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
-  override def compileToExecutable(state: LogicalPlanState, context: RuntimeContext): ExecutionPlan = {
+  override def compileToExecutable(state: LogicalPlanState, context: RuntimeContext): ExecutionPlan =
+    compileToExecutable(state, context, InterpretedRuntimeName, _ => ())
+
+  /**
+    * Compiles the plan into interpreted pipes.
+    *
+    * @param runtimeName    name of the runtime reported for the compiled plan
+    * @param configurePipes applied to the built pipes, before they get wrapped in the executable plan
+    */
+  def compileToExecutable(state: LogicalPlanState,
+                          context: RuntimeContext,
+                          runtimeName: RuntimeName,
+                          configurePipes: Pipe => Unit): ExecutionPlan = {
     val cardinalities = state.planningAttributes.cardinalities
     val logicalPlan = state.logicalPlan
     val converters = new ExpressionConverters(CommunityExpressionConverter(context.tokenContext))
@@ -43,17 +56,22 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
       pipeBuilderFactory = InterpretedPipeBuilderFactory)
     val pipeBuildContext = PipeExecutionBuilderContext(state.semanticTable(), context.readOnly)
     val pipe = executionPlanBuilder.build(logicalPlan)(pipeBuildContext, context.tokenContext)
+    configurePipes(pipe)
     val periodicCommitInfo = state.periodicCommit.map(x => PeriodicCommitInfo(x.batchSize))
     val columns = state.statement().returnColumns
     val resultBuilderFactory = InterpretedExecutionResultBuilderFactory(pipe,
                                                                         context.readOnly,
                                                                         columns,
                                                                         logicalPlan,
-                                                                        context.config.lenientCreateRelationship)
+                                                                        context.config.lenientCreateRelationship,
+                                                                        SpillConfiguration(context.config.sortSpillThreshold,
+                                                                                           context.config.aggregationSpillThreshold,
+                                                                                           context.config.hashJoinSpillThreshold,
+                                                                                           context.config.spillDirectory))
 
     new InterpretedExecutionPlan(periodicCommitInfo,
                                  resultBuilderFactory,
-                                 InterpretedRuntimeName,
+                                 runtimeName,
                                  context.readOnly)
   }
 
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compatibility
+
+import org.neo4j.cypher.internal.compatibility.v3_5.runtime.SlottedRuntimeName
+import org.neo4j.cypher.internal.compatibility.v3_5.runtime.executionplan.ExecutionPlan
+import org.neo4j.cypher.internal.compiler.v3_5.phases.LogicalPlanState
+import org.neo4j.cypher.internal.compiler.v3_5.planner.CantCompileQueryException
+import org.neo4j.cypher.internal.runtime.interpreted.VariableSlots
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{Pipe, SlottedExecutionContextFactory}
+import org.neo4j.cypher.internal.v3_5.logical.plans.LogicalPlan
+import org.neo4j.cypher.internal.v3_5.util.Foldable._
+
+/**
+  * Runs read-only queries on the interpreted pipes, but with rows stored in arrays rather than in maps.
+  * Every variable of the query is assigned a slot at plan time, so that copying a row, e.g. for every expanded
+  * relationship, is a copy of an array rather than of a hash map. Updating queries are left to the [[InterpretedRuntime]].
+  */
+object SlottedRowsRuntime extends CypherRuntime[RuntimeContext] {
+  override def compileToExecutable(state: LogicalPlanState, context: RuntimeContext): ExecutionPlan = {
+    if (!context.readOnly) {
+      throw new CantCompileQueryException("Slotted rows are only supported for read-only queries")
+    }
+
+    val slots = VariableSlots(state.logicalPlan.fold(Set.empty[String]) {
+      case plan: LogicalPlan => acc => acc ++ plan.availableSymbols
+    })
+    val executionContextFactory = SlottedExecutionContextFactory(slots)
+    InterpretedRuntime.compileToExecutable(state, context, SlottedRuntimeName,
+      pipe => pipe.findByAllClass[Pipe].foreach(_.setExecutionContextFactory(executionContextFactory)))
+  }
+}
@@ -22,6 +22,7 @@ package org.neo4j.cypher.internal.compatibility.v3_5.runtime.executionplan
 import org.neo4j.cypher.internal.compatibility.v3_5.runtime._
 import org.neo4j.cypher.internal.runtime._
 import org.neo4j.cypher.internal.runtime.interpreted.pipes._
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillConfiguration
 import org.neo4j.cypher.internal.runtime.interpreted.{CSVResources, ExecutionContext}
 import org.neo4j.cypher.internal.v3_5.logical.plans.LogicalPlan
 import org.neo4j.cypher.result.{QueryProfile, RuntimeResult}
@@ -75,7 +76,8 @@ case class InterpretedExecutionResultBuilderFactory(pipe: Pipe,
                                                     readOnly: Boolean,
                                                     columns: List[String],
                                                     logicalPlan: LogicalPlan,
-                                                    lenientCreateRelationship: Boolean)
+                                                    lenientCreateRelationship: Boolean,
+                                                    spillConfiguration: SpillConfiguration)
   extends BaseExecutionResultBuilderFactory(pipe, readOnly, columns, logicalPlan) {
 
   override def create(queryContext: QueryContext): ExecutionResultBuilder = InterpretedExecutionWorkflowBuilder(queryContext: QueryContext)
@@ -88,7 +90,9 @@ case class InterpretedExecutionResultBuilderFactory(pipe: Pipe,
                      pipeDecorator,
                      triadicState = mutable.Map.empty,
                      repeatableReads = mutable.Map.empty,
-                     lenientCreateRelationship = lenientCreateRelationship)
+                     lenientCreateRelationship = lenientCreateRelationship,
+                     spillConfiguration = spillConfiguration,
+                     collectionsFactorySupplier = queryContext.transactionalContext.collectionsFactorySupplier)
     }
 
     override def buildResultIterator(results: Iterator[ExecutionContext], readOnly: Boolean): IteratorBasedResult = {
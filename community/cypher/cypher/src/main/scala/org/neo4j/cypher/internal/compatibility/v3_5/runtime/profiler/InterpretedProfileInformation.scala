@@ -29,7 +29,8 @@ class InterpretedProfileInformation extends QueryProfile {
   case class OperatorData(override val dbHits: Long,
                           override val rows: Long,
                           override val pageCacheHits: Long,
-                          override val pageCacheMisses: Long) extends OperatorProfile {
+                          override val pageCacheMisses: Long,
+                          override val spilledRows: Long) extends OperatorProfile {
 
     override def time: Long = OperatorProfile.NO_DATA
   }
@@ -37,14 +38,16 @@ class InterpretedProfileInformation extends QueryProfile {
   val pageCacheMap: mutable.Map[Id, PageCacheStats] = mutable.Map.empty
   val dbHitsMap: mutable.Map[Id, ProfilingPipeQueryContext] = mutable.Map.empty
   val rowMap: mutable.Map[Id, ProfilingIterator] = mutable.Map.empty
+  val spilledRowsMap: mutable.Map[Id, Long] = mutable.Map.empty
 
   def operatorProfile(operatorId: Int): OperatorProfile = {
     val id = Id(operatorId)
     val rows = rowMap.get(id).map(_.count).getOrElse(0L)
     val dbHits = dbHitsMap.get(id).map(_.count).getOrElse(0L)
     val pageCacheStats = pageCacheMap.getOrElse(id, PageCacheStats(0L, 0L))
+    val spilledRows = spilledRowsMap.getOrElse(id, OperatorProfile.NO_DATA)
 
-    OperatorData(dbHits, rows, pageCacheStats.hits, pageCacheStats.misses)
+    OperatorData(dbHits, rows, pageCacheStats.hits, pageCacheStats.misses, spilledRows)
   }
 }
 
@@ -60,6 +60,7 @@ class PlanDescriptionBuilder(logicalPlan: LogicalPlan,
           .addArgument(Arguments.PageCacheMisses, data.pageCacheMisses)
           .addArgument(Arguments.PageCacheHitRatio, data.pageCacheHitRatio())
           .addArgument(Arguments.Time, data.time())
+          .addArgument(Arguments.SpilledRows, data.spilledRows())
         .plan
     }
   }
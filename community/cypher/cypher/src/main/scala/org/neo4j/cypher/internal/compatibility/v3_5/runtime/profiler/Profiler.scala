@@ -64,6 +64,9 @@ class Profiler(databaseInfo: DatabaseInfo,
     state.withQueryContext(decoratedContext)
   }
 
+  override def spilled(pipe: Pipe, rows: Long): Unit =
+    stats.spilledRowsMap(pipe.id) = stats.spilledRowsMap.getOrElse(pipe.id, 0L) + rows
+
   private def updatePageCacheStatistics(pipeId: Id): Unit = {
     val context = stats.dbHitsMap(pipeId)
     val statisticProvider = context.transactionalContext.kernelStatisticProvider
@@ -30,10 +30,12 @@ import org.neo4j.graphdb.{Path, PropertyContainer}
 import org.neo4j.internal.kernel.api.helpers.RelationshipSelectionCursor
 import org.neo4j.internal.kernel.api.procs.ProcedureCallContext
 import org.neo4j.internal.kernel.api.{CursorFactory, IndexReference, Read, Write, _}
+import org.neo4j.io.fs.FileSystemAbstraction
 import org.neo4j.kernel.api.dbms.DbmsOperations
 import org.neo4j.kernel.impl.api.store.RelationshipIterator
 import org.neo4j.kernel.impl.core.EmbeddedProxySPI
 import org.neo4j.kernel.impl.factory.DatabaseInfo
+import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier
 import org.neo4j.values.AnyValue
 import org.neo4j.values.storable.{TextValue, Value}
 import org.neo4j.values.virtual.{ListValue, MapValue, NodeValue, RelationshipValue}
@@ -345,6 +347,10 @@ class DelegatingQueryTransactionalContext(val inner: QueryTransactionalContext)
 
   override def databaseInfo: DatabaseInfo = inner.databaseInfo
 
+  override def fileSystem: FileSystemAbstraction = inner.fileSystem
+
+  override def collectionsFactorySupplier: CollectionsFactorySupplier = inner.collectionsFactorySupplier
+
   override def transaction: Transaction = inner.transaction
 
   override def cursors: CursorFactory = inner.cursors
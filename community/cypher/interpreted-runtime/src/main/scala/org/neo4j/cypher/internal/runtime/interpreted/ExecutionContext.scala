@@ -75,6 +75,11 @@ trait ExecutionContext extends MutableMap[String, AnyValue] {
     */
   def getCachedPropertyAt(offset: Int): Value
 
+  /**
+    * Returns all cached node properties, with invalidated ones mapped to null.
+    */
+  def cachedPropertyEntries: Iterator[(CachedNodeProperty, Value)]
+
   /**
     * Invalidate all cached node properties for the given node id
     */
@@ -252,6 +257,9 @@ class MapExecutionContext(private val m: MutableMap[String, AnyValue], private v
 
   override def getCachedPropertyAt(offset: Int): Value = fail()
 
+  override def cachedPropertyEntries: Iterator[(CachedNodeProperty, Value)] =
+    if (cachedProperties == null) Iterator.empty else cachedProperties.iterator
+
   override def invalidateCachedProperties(node: Long): Unit = {
     if (cachedProperties != null)
       cachedProperties.keys.filter(cnp => apply(cnp.nodeVariableName) match {
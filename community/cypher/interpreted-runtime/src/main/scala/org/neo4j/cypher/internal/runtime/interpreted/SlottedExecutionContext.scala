@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted
+
+import java.util
+
+import org.neo4j.cypher.internal.runtime.EntityById
+import org.neo4j.cypher.internal.v3_5.logical.plans.CachedNodeProperty
+import org.neo4j.cypher.internal.v3_5.util.InternalException
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.{Value, Values}
+import org.neo4j.values.virtual._
+
+import scala.collection.mutable.{Map => MutableMap}
+import scala.collection.{Iterator, immutable}
+
+/**
+  * Assigns every variable of a query a fixed slot, i.e. an offset into the rows of [[SlottedExecutionContext]]s.
+  * Slots are assigned once at plan time and shared by all rows of all pipes in the query.
+  *
+  * All slots are ref slots. The interpreted pipes read nodes and relationships as [[NodeValue]]s and
+  * [[RelationshipValue]]s, so keeping them as ids in long slots would only move the materialization into every read.
+  *
+  * @param variables the variables to assign ref slots, in slot order
+  */
+class VariableSlots(variables: Seq[String]) {
+  private val names: Array[String] = variables.toArray
+  private val offsets: util.HashMap[String, Integer] = {
+    val map = new util.HashMap[String, Integer](names.length * 2)
+    var i = 0
+    while (i < names.length) {
+      map.put(names(i), i)
+      i += 1
+    }
+    map
+  }
+
+  def nRefs: Int = names.length
+
+  def nameAt(offset: Int): String = names(offset)
+
+  /**
+    * @return the ref slot of the variable, or -1 if it wasn't assigned a slot.
+    */
+  def offsetFor(variable: String): Int = {
+    val offset = offsets.get(variable)
+    if (offset == null) -1 else offset.intValue()
+  }
+
+  override def toString: String = s"VariableSlots(refs=${names.mkString("[", ", ", "]")})"
+}
+
+object VariableSlots {
+  def apply(variables: Iterable[String]): VariableSlots = new VariableSlots(variables.toSeq.distinct.sorted)
+}
+
+object SlottedExecutionContext {
+  def apply(slots: VariableSlots): SlottedExecutionContext =
+    new SlottedExecutionContext(slots, new Array[AnyValue](slots.nRefs), null, null)
+}
+
+/**
+  * Execution context storing its values in arrays, at the offsets given by its [[VariableSlots]], rather than in a map.
+  * Looking up a variable is a lookup of its offset in the slots shared by all rows, and copying a row is a copy of its arrays.
+  * Variables that were not assigned a slot at plan time are kept in a map next to the arrays, so that this context behaves
+  * exactly like a [[MapExecutionContext]] for the pipes using it.
+  */
+class SlottedExecutionContext(private val slots: VariableSlots,
+                              private val refs: Array[AnyValue],
+                              private var unslotted: MutableMap[String, AnyValue],
+                              private var cachedProperties: MutableMap[CachedNodeProperty, Value])
+  extends ExecutionContext {
+
+  override def copyTo(target: ExecutionContext,
+                      fromLongOffset: Int = 0,
+                      fromRefOffset: Int = 0,
+                      toLongOffset: Int = 0,
+                      toRefOffset: Int = 0): Unit = target match {
+    case other: SlottedExecutionContext if other.slots eq slots =>
+      var i = 0
+      while (i + fromRefOffset < refs.length && i + toRefOffset < other.refs.length) {
+        val value = refs(i + fromRefOffset)
+        if (value != null) {
+          other.refs(i + toRefOffset) = value
+        }
+        i += 1
+      }
+      if (unslotted != null) {
+        unslotted.foreach { case (k, v) => other.set(k, v) }
+      }
+    case _ =>
+      foreach { case (k, v) => target.set(k, v) }
+  }
+
+  override def copyFrom(input: ExecutionContext, nLongs: Int, nRefs: Int): Unit = input match {
+    case other: SlottedExecutionContext if (other.slots eq slots) && nLongs == 0 =>
+      System.arraycopy(other.refs, 0, refs, 0, nRefs)
+    case _ =>
+      fail()
+  }
+
+  override def copyCachedFrom(input: ExecutionContext): Unit = input match {
+    case context: SlottedExecutionContext =>
+      val oldCachedProperties = context.cachedProperties
+      if (oldCachedProperties == null) cachedProperties = null
+      else {
+        cachedProperties = oldCachedProperties.clone()
+        oldCachedProperties.foreach {
+          case (CachedNodeProperty(varName, _), _) =>
+            set(varName, context.getOrElse(varName, throw new IllegalStateException("The variable of a cached node property should be in the context.")))
+        }
+      }
+
+    case _ =>
+      fail()
+  }
+
+  override def setLongAt(offset: Int, value: Long): Unit = failLongSlot()
+  override def getLongAt(offset: Int): Long = failLongSlot()
+
+  override def setRefAt(offset: Int, value: AnyValue): Unit = refs(offset) = value
+  override def getRefAt(offset: Int): AnyValue = refs(offset)
+
+  private def fail(): Nothing = throw new InternalException("Tried mixing slotted and map contexts")
+
+  private def failLongSlot(): Nothing = throw new InternalException("Slotted rows of the interpreted runtime have no long slots")
+
+  override def get(key: String): Option[AnyValue] = {
+    val offset = slots.offsetFor(key)
+    if (offset >= 0) Option(refs(offset))
+    else if (unslotted == null) None
+    else unslotted.get(key)
+  }
+
+  override def contains(key: String): Boolean = {
+    val offset = slots.offsetFor(key)
+    if (offset >= 0) refs(offset) != null
+    else unslotted != null && unslotted.contains(key)
+  }
+
+  override def apply(key: String): AnyValue = {
+    val offset = slots.offsetFor(key)
+    val value = if (offset >= 0) refs(offset) else if (unslotted == null) null else unslotted.getOrElse(key, null)
+    if (value == null) default(key) else value
+  }
+
+  override def iterator: Iterator[(String, AnyValue)] = {
+    val slotted = refs.indices.iterator.filter(refs(_) != null).map(i => (slots.nameAt(i), refs(i)))
+    if (unslotted == null) slotted else slotted ++ unslotted.iterator
+  }
+
+  override def size: Int = {
+    var count = if (unslotted == null) 0 else unslotted.size
+    var i = 0
+    while (i < refs.length) {
+      if (refs(i) != null) count += 1
+      i += 1
+    }
+    count
+  }
+
+  override def mergeWith(other: ExecutionContext, entityById: EntityById): Unit = other match {
+    case otherSlotted: SlottedExecutionContext =>
+      otherSlotted.copyTo(this)
+      if (otherSlotted.cachedProperties != null) {
+        if (cachedProperties == null) {
+          cachedProperties = otherSlotted.cachedProperties.clone()
+        } else {
+          cachedProperties ++= otherSlotted.cachedProperties
+        }
+      }
+    case _ => fail()
+  }
+
+  override def +=(kv: (String, AnyValue)): SlottedExecutionContext.this.type = {
+    set(kv._1, kv._2)
+    this
+  }
+
+  override def toMap[T, U](implicit ev: (String, AnyValue) <:< (T, U)): immutable.Map[T, U] = iterator.toMap(ev)
+
+  override def set(newEntries: Seq[(String, AnyValue)]): Unit =
+    newEntries.foreach { case (k, v) => set(k, v) }
+
+  override def set(key: String, value: AnyValue): Unit = {
+    val offset = slots.offsetFor(key)
+    if (offset >= 0) {
+      refs(offset) = value
+    } else {
+      if (unslotted == null) {
+        unslotted = MutableMaps.empty
+      }
+      unslotted.put(key, value)
+    }
+  }
+
+  override def set(key1: String, value1: AnyValue, key2: String, value2: AnyValue): Unit = {
+    set(key1, value1)
+    set(key2, value2)
+  }
+
+  override def set(key1: String, value1: AnyValue, key2: String, value2: AnyValue, key3: String, value3: AnyValue): Unit = {
+    set(key1, value1)
+    set(key2, value2)
+    set(key3, value3)
+  }
+
+  override def copyWith(key: String, value: AnyValue): ExecutionContext = {
+    val copy = createClone()
+    copy.set(key, value)
+    copy
+  }
+
+  override def copyWith(key1: String, value1: AnyValue, key2: String, value2: AnyValue): ExecutionContext = {
+    val copy = createClone()
+    copy.set(key1, value1)
+    copy.set(key2, value2)
+    copy
+  }
+
+  override def copyWith(key1: String, value1: AnyValue,
+                        key2: String, value2: AnyValue,
+                        key3: String, value3: AnyValue): ExecutionContext = {
+    val copy = createClone()
+    copy.set(key1, value1)
+    copy.set(key2, value2)
+    copy.set(key3, value3)
+    copy
+  }
+
+  override def copyWith(newEntries: Seq[(String, AnyValue)]): ExecutionContext = {
+    val copy = createClone()
+    copy.set(newEntries)
+    copy
+  }
+
+  override def createClone(): SlottedExecutionContext =
+    new SlottedExecutionContext(slots,
+                                refs.clone(),
+                                if (unslotted == null) null else unslotted.clone(),
+                                if (cachedProperties == null) null else cachedProperties.clone())
+
+  override def -=(key: String): this.type = {
+    val offset = slots.offsetFor(key)
+    if (offset >= 0) {
+      refs(offset) = null
+    } else if (unslotted != null) {
+      unslotted.remove(key)
+    }
+    this
+  }
+
+  override def boundEntities(materializeNode: Long => AnyValue, materializeRelationship: Long => AnyValue): Map[String, AnyValue] =
+    iterator.collect {
+      case kv @ (_, _: NodeValue) =>
+        kv
+      case kv @ (_, _: RelationshipValue) =>
+        kv
+      case (k, v: NodeReference) =>
+        (k, materializeNode(v.id()))
+      case (k, v: RelationshipReference) =>
+        (k, materializeRelationship(v.id()))
+    }.toMap
+
+  override def isNull(key: String): Boolean = get(key) match {
+    case Some(Values.NO_VALUE) => true
+    case _ => false
+  }
+
+  override def setCachedProperty(key: CachedNodeProperty, value: Value): Unit = {
+    if (cachedProperties == null) {
+      cachedProperties = MutableMap.empty
+    }
+    cachedProperties.put(key, value)
+  }
+
+  override def setCachedPropertyAt(offset: Int, value: Value): Unit = fail()
+
+  override def getCachedProperty(key: CachedNodeProperty): Value = {
+    if (cachedProperties == null) {
+      throw new NoSuchElementException("key not found: " + key)
+    }
+    cachedProperties(key)
+  }
+
+  override def getCachedPropertyAt(offset: Int): Value = fail()
+
+  override def cachedPropertyEntries: Iterator[(CachedNodeProperty, Value)] =
+    if (cachedProperties == null) Iterator.empty else cachedProperties.iterator
+
+  override def invalidateCachedProperties(node: Long): Unit = {
+    if (cachedProperties != null)
+      cachedProperties.keys.filter(cnp => apply(cnp.nodeVariableName) match {
+        case n: VirtualNodeValue => n.id() == node
+        case _ => false
+      }).foreach(cnp => setCachedProperty(cnp, null))
+  }
+
+  override def toString(): String = s"SlottedExecutionContext(${iterator.mkString(", ")})"
+}
@@ -24,6 +24,7 @@ import org.neo4j.cypher.internal.runtime.QueryTransactionalContext
 import org.neo4j.graphdb.{Lock, PropertyContainer}
 import org.neo4j.internal.kernel.api._
 import org.neo4j.internal.kernel.api.security.SecurityContext
+import org.neo4j.io.fs.FileSystemAbstraction
 import org.neo4j.kernel.GraphDatabaseQueryService
 import org.neo4j.kernel.api.KernelTransaction.Revertable
 import org.neo4j.kernel.api.dbms.DbmsOperations
@@ -33,6 +34,7 @@ import org.neo4j.kernel.api.{KernelTransaction, ResourceTracker, Statement}
 import org.neo4j.kernel.impl.api.SchemaStateKey
 import org.neo4j.kernel.impl.factory.DatabaseInfo
 import org.neo4j.kernel.impl.query.TransactionalContext
+import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier
 
 case class TransactionalContextWrapper(tc: TransactionalContext) extends QueryTransactionalContext {
 
@@ -81,6 +83,11 @@ case class TransactionalContextWrapper(tc: TransactionalContext) extends QueryTr
 
   override def databaseInfo: DatabaseInfo = tc.graph().getDependencyResolver.resolveDependency(classOf[DatabaseInfo])
 
+  override def fileSystem: FileSystemAbstraction = tc.graph().getDependencyResolver.resolveDependency(classOf[FileSystemAbstraction])
+
+  override def collectionsFactorySupplier: CollectionsFactorySupplier =
+    tc.graph().getDependencyResolver.resolveDependency(classOf[CollectionsFactorySupplier])
+
   def resourceTracker: ResourceTracker = tc.resourceTracker
 
   def getOrCreateFromSchemaState[T](key: SchemaStateKey, f: => T): T = {
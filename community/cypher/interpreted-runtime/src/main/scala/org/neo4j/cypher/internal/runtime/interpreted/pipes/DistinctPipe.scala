@@ -19,18 +19,24 @@
  */
 package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
+import java.util
+
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
 import org.neo4j.cypher.internal.v3_5.util.Eagerly
 import org.neo4j.cypher.internal.v3_5.util.attribution.Id
+import org.neo4j.kernel.impl.util.collection.{CollectionsFactory, CollectionsFactorySupplier}
 import org.neo4j.values.AnyValue
-import org.neo4j.values.virtual.VirtualValues
+import org.neo4j.values.storable.{FloatingPointValue, IntegralValue}
+import org.neo4j.values.virtual.{VirtualNodeValue, VirtualRelationshipValue, VirtualValues}
 
 import scala.collection.mutable
 
 case class DistinctPipe(source: Pipe, expressions: Map[String, Expression])
                        (val id: Id = Id.INVALID_ID) extends PipeWithSource(source) {
 
+  import DistinctPipe._
+
   val keyNames: Seq[String] = expressions.keys.toIndexedSeq
 
   expressions.values.foreach(_.registerOwningPipe(this))
@@ -46,21 +52,91 @@ case class DistinctPipe(source: Pipe, expressions: Map[String, Expression])
       newCtx
     })
 
-    /*
-     * The filtering is done by extracting from the context the values of all return expressions, and keeping them
-     * in a set.
-     */
-    var seen = mutable.Set[AnyValue]()
+    if (keyNames.size == 1) {
+      distinctValues(result, keyNames.head, state)
+    } else {
+      /*
+       * The filtering is done by extracting from the context the values of all return expressions, and keeping them
+       * in a set.
+       */
+      var seen = mutable.Set[AnyValue]()
+
+      result.filter { ctx =>
+        val values = VirtualValues.list(keyNames.map(ctx): _*)
+
+        if (seen.contains(values)) {
+          false
+        } else {
+          seen += values
+          true
+        }
+      }
+    }
+  }
+
+  private def distinctValues(result: Iterator[ExecutionContext], keyName: String, state: QueryState): Iterator[ExecutionContext] = {
+    val seen = new DistinctValueSet(state.collectionsFactorySupplier.create())
+    val distinct = result.filter(row => seen.add(row(keyName)))
+
+    // on heap sets are left to the garbage collector, off heap sets are released when exhausted or when the query closes
+    if (state.collectionsFactorySupplier eq CollectionsFactorySupplier.ON_HEAP) {
+      distinct
+    } else {
+      state.query.resources.trace(seen)
+      new Iterator[ExecutionContext] {
+        private var released = false
+
+        override def hasNext: Boolean = {
+          val hasNext = distinct.hasNext
+          if (!hasNext && !released) {
+            released = true
+            state.query.resources.release(seen)
+          }
+          hasNext
+        }
 
-    result.filter { ctx =>
-      val values = VirtualValues.list(keyNames.map(ctx): _*)
+        override def next(): ExecutionContext = distinct.next()
+      }
+    }
+  }
+}
+
+object DistinctPipe {
 
-      if (seen.contains(values)) {
-        false
-      } else {
-        seen += values
-        true
+  private val MIN_LONG_AS_DOUBLE = Long.MinValue.toDouble
+
+  /*
+   * The values seen by a single column distinct. Node and relationship ids and integral numbers are kept in primitive
+   * long sets from the collections factory, which allocates them off heap when transaction state is off heap. All
+   * other values are kept in an on heap set.
+   */
+  private class DistinctValueSet(collections: CollectionsFactory) extends AutoCloseable {
+    private val nodes = collections.newLongSet()
+    private val relationships = collections.newLongSet()
+    private val integers = collections.newLongSet()
+    private val values = new util.HashSet[AnyValue]()
+    private var closed = false
+
+    /**
+      * Adds a value, and returns true if it was not seen before.
+      */
+    def add(value: AnyValue): Boolean = value match {
+      case node: VirtualNodeValue => nodes.add(node.id())
+      case relationship: VirtualRelationshipValue => relationships.add(relationship.id())
+      case integral: IntegralValue => integers.add(integral.longValue())
+      // floats equal integers of the same value, so floats that are whole and fit in a long are kept as longs
+      case float: FloatingPointValue if isLong(float.doubleValue()) => integers.add(float.doubleValue().toLong)
+      case _ => values.add(value)
+    }
+
+    override def close(): Unit = {
+      if (!closed) {
+        closed = true
+        collections.release()
       }
     }
+
+    private def isLong(value: Double): Boolean =
+      value == Math.floor(value) && value >= MIN_LONG_AS_DOUBLE && value < -MIN_LONG_AS_DOUBLE
   }
 }
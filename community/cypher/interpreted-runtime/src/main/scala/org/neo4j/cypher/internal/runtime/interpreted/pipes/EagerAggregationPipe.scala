@@ -19,15 +19,17 @@
  */
 package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap
 import org.neo4j.cypher.internal.runtime.interpreted.{ExecutionContext, MutableMaps}
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.{AggregationExpression, Expression}
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.aggregation.AggregationFunction
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpilledPartitions
 import org.neo4j.cypher.internal.v3_5.util.attribution.Id
 import org.neo4j.values.AnyValue
-import org.neo4j.values.virtual.{ListValue, MapValue, VirtualValues}
+import org.neo4j.values.virtual.{ListValue, MapValue, VirtualNodeValue, VirtualRelationshipValue, VirtualValues}
 
-import scala.collection.{immutable, mutable}
-import scala.collection.mutable.{Map => MutableMap}
+import scala.collection.immutable
+import scala.collection.mutable.{ArrayBuffer, Map => MutableMap}
 
 // Eager aggregation means that this pipe will eagerly load the whole resulting sub graphs before starting
 // to emit aggregated results.
@@ -35,6 +37,8 @@ import scala.collection.mutable.{Map => MutableMap}
 case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expression], aggregations: Map[String, AggregationExpression])
                                (val id: Id = Id.INVALID_ID) extends PipeWithSource(source) {
 
+  import EagerAggregationPipe._
+
   aggregations.values.foreach(_.registerOwningPipe(this))
   keyExpressions.values.foreach(_.registerOwningPipe(this))
 
@@ -88,7 +92,6 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
 
-    val result = mutable.LinkedHashMap[AnyValue, Seq[AggregationFunction]]()
     val keyNames = keyExpressions.keySet.toList
     val aggregationNames: IndexedSeq[String] = aggregations.keys.toIndexedSeq
     val keyNamesSize = keyNames.size
@@ -101,7 +104,7 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
 
       aggregationNamesAndFunctions.toMap
         .foreach { case (name, zeroValue) => newMap += name -> zeroValue}
-      Iterator.single(ExecutionContext(newMap))
+      Iterator.single(executionContextFactory.newExecutionContext(newMap))
     }
 
     // This code is not pretty. It's full of asInstanceOf calls and other things that might irk you.
@@ -112,24 +115,87 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
       val newMap = MutableMaps.create[String, AnyValue](mapSize)
       createResultFunction(newMap, groupingKey)
       (aggregationNames zip aggregator.map(_.result(state))).foreach(newMap += _)
-      ExecutionContext(newMap)
+      executionContextFactory.newExecutionContext(newMap)
     }
 
-    input.foreach(ctx => {
-      val groupingValue: AnyValue = groupingFunction(ctx, state)
-      val functions = result.getOrElseUpdate(groupingValue, {
-        val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toIndexedSeq
-        aggregateFunctions
+    val spillThreshold = state.spillConfiguration.aggregationThreshold
+
+    // Groups are kept in memory until there are spillThreshold of them. After that, rows of groups that are not
+    // already in memory are partitioned by grouping key and spilled, and each partition is aggregated on its own
+    // once the input is exhausted. Every group is thereby aggregated entirely at a single level.
+    def aggregate(input: Iterator[ExecutionContext], level: Int): Iterator[ExecutionContext] = {
+      val groups = new GroupTable
+      val mayAddGroup: Int => Boolean =
+        if (spillThreshold == 0 || level >= SpilledPartitions.MAX_LEVEL) _ => true else _ < spillThreshold
+      var spilled: SpilledPartitions = null
+
+      input.foreach(ctx => {
+        val groupingValue: AnyValue = groupingFunction(ctx, state)
+        var group = groups.get(groupingValue)
+        if (group == null && mayAddGroup(groups.size)) {
+          val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toIndexedSeq
+          group = groups.add(groupingValue, aggregateFunctions)
+        }
+        if (group != null) {
+          group.functions.foreach(func => func(ctx, state))
+        } else {
+          if (spilled == null) {
+            spilled = new SpilledPartitions(state, executionContextFactory, "aggregation")
+          }
+          spilled.write(SpilledPartitions.partitionOf(groupingValue.hashCode(), level), ctx)
+        }
       })
-      functions.foreach(func => func(ctx, state))
-    })
 
-    if (result.isEmpty && keyNames.isEmpty) {
-      createEmptyResult(state.params)
+      val results = groups.iterator.map(group => createResults(group.key, group.functions))
+      if (spilled == null) {
+        results
+      } else {
+        state.decorator.spilled(this, spilled.rows)
+        results ++ spilled.partitions().flatMap(partition => aggregate(partition, level + 1))
+      }
+    }
+
+    if (keyNames.isEmpty) {
+      val aggregated = aggregate(input, SpilledPartitions.MAX_LEVEL)
+      if (aggregated.hasNext) aggregated else createEmptyResult(state.params)
     } else {
-      result.map {
-        case (key, aggregator) => createResults(key, aggregator)
-      }.toIterator
+      aggregate(input, 0)
+    }
+  }
+}
+
+object EagerAggregationPipe {
+  private class Group(val key: AnyValue, val functions: Seq[AggregationFunction])
+
+  /**
+    * Groups by grouping key, in insertion order. Nodes and relationships, the most common single grouping keys, are
+    * looked up by id in primitive maps rather than through the hash code and equality of their values.
+    */
+  private class GroupTable {
+    private val groups = new ArrayBuffer[Group]
+    private val nodeGroups = new LongObjectHashMap[Group]()
+    private val relationshipGroups = new LongObjectHashMap[Group]()
+    private val valueGroups = new java.util.HashMap[AnyValue, Group]()
+
+    def size: Int = groups.size
+
+    def iterator: Iterator[Group] = groups.iterator
+
+    def get(key: AnyValue): Group = key match {
+      case node: VirtualNodeValue => nodeGroups.get(node.id())
+      case relationship: VirtualRelationshipValue => relationshipGroups.get(relationship.id())
+      case _ => valueGroups.get(key)
+    }
+
+    def add(key: AnyValue, functions: Seq[AggregationFunction]): Group = {
+      val group = new Group(key, functions)
+      key match {
+        case node: VirtualNodeValue => nodeGroups.put(node.id(), group)
+        case relationship: VirtualRelationshipValue => relationshipGroups.put(relationship.id(), group)
+        case _ => valueGroups.put(key, group)
+      }
+      groups += group
+      group
     }
   }
 }
@@ -19,18 +19,26 @@
  */
 package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
-import org.neo4j.cypher.internal.v3_5.util.CypherTypeException
+import java.util
+
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.spill.GraceHashJoin
+import org.neo4j.cypher.internal.runtime.interpreted.spill.GraceHashJoin.{JoinKeys, Table}
+import org.neo4j.cypher.internal.v3_5.util.CypherTypeException
 import org.neo4j.cypher.internal.v3_5.util.attribution.Id
 import org.neo4j.values.storable.Values
 import org.neo4j.values.virtual.VirtualNodeValue
 
-import scala.collection.mutable
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
 
 case class NodeHashJoinPipe(nodeVariables: Set[String], left: Pipe, right: Pipe)
                            (val id: Id = Id.INVALID_ID)
   extends PipeWithSource(left) {
 
+  import NodeHashJoinPipe._
+
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
     if (input.isEmpty)
       return Iterator.empty
@@ -40,50 +48,106 @@ case class NodeHashJoinPipe(nodeVariables: Set[String], left: Pipe, right: Pipe)
     if (rhsIterator.isEmpty)
       return Iterator.empty
 
-    val table = buildProbeTable(input)
+    val keys = new JoinKeys[Array[Long]] {
+      override def buildKey(row: ExecutionContext): Array[Long] = computeKey(row)
 
-    if (table.isEmpty)
-      return Iterator.empty
+      override def probeKey(row: ExecutionContext): Array[Long] = computeKey(row)
 
-    val result =
-      for {rhsRow <- rhsIterator
-           joinKey <- computeKey(rhsRow)}
-        yield {
-          val lhsRows = table.getOrElse(joinKey, mutable.MutableList.empty)
-          lhsRows.map { lhsRow =>
-            val output = lhsRow.createClone()
-            output.mergeWith(rhsRow, state.query)
-            output
-          }
-        }
-
-    result.flatten
-  }
+      override def hash(key: Array[Long]): Int = util.Arrays.hashCode(key)
 
-  private def buildProbeTable(input: Iterator[ExecutionContext]): mutable.HashMap[IndexedSeq[Long], mutable.MutableList[ExecutionContext]] = {
-    val table = new mutable.HashMap[IndexedSeq[Long], mutable.MutableList[ExecutionContext]]
+      override def newTable(): Table[Array[Long]] =
+        if (cachedVariables.length == 1) new SingleNodeTable else new MultipleNodeTable
 
-    for {context <- input
-         joinKey <- computeKey(context)} {
-      val seq = table.getOrElseUpdate(joinKey, mutable.MutableList.empty)
-      seq += context
+      override def join(buildRow: ExecutionContext, probeRow: ExecutionContext): ExecutionContext = {
+        val output = buildRow.createClone()
+        output.mergeWith(probeRow, state.query)
+        output
+      }
     }
-
-    table
+    val threshold = state.spillConfiguration.hashJoinThreshold
+    new GraceHashJoin(keys, if (threshold > 0) threshold else Int.MaxValue, state, executionContextFactory,
+      state.decorator.spilled(this, _)).join(input, rhsIterator)
   }
 
   private val cachedVariables = nodeVariables.toIndexedSeq
 
-  private def computeKey(context: ExecutionContext): Option[IndexedSeq[Long]] = {
+  private def computeKey(context: ExecutionContext): Array[Long] = {
     val key = new Array[Long](cachedVariables.length)
 
     for (idx <- cachedVariables.indices) {
       key(idx) = context(cachedVariables(idx)) match {
         case n: VirtualNodeValue => n.id()
-        case Values.NO_VALUE => return None
+        case Values.NO_VALUE => return null
         case _ => throw new CypherTypeException("Created a plan that uses non-nodes when expecting a node")
       }
     }
-    Some(key.toIndexedSeq)
+    key
+  }
+}
+
+object NodeHashJoinPipe {
+
+  /*
+   * Rows keyed on a single node id.
+   */
+  private class SingleNodeTable extends Table[Array[Long]] {
+    private val table = new LongObjectHashMap[ArrayBuffer[ExecutionContext]]()
+    private var _size = 0
+
+    override def add(key: Array[Long], row: ExecutionContext): Unit = {
+      var rows = table.get(key(0))
+      if (rows == null) {
+        rows = new ArrayBuffer[ExecutionContext]
+        table.put(key(0), rows)
+      }
+      rows += row
+      _size += 1
+    }
+
+    override def get(key: Array[Long]): Iterator[ExecutionContext] = {
+      val rows = table.get(key(0))
+      if (rows == null) Iterator.empty else rows.iterator
+    }
+
+    override def size: Int = _size
+
+    override def rows: Iterator[ExecutionContext] = table.values().iterator().asScala.flatMap(_.iterator)
+  }
+
+  /*
+   * Rows keyed on several node ids. The table is keyed on a hash of the ids, and every row keeps its ids, so that rows
+   * with colliding hashes can be told apart.
+   */
+  private class MultipleNodeTable extends Table[Array[Long]] {
+    private val table = new LongObjectHashMap[ArrayBuffer[(Array[Long], ExecutionContext)]]()
+    private var _size = 0
+
+    override def add(key: Array[Long], row: ExecutionContext): Unit = {
+      val hash = longHash(key)
+      var rows = table.get(hash)
+      if (rows == null) {
+        rows = new ArrayBuffer[(Array[Long], ExecutionContext)]
+        table.put(hash, rows)
+      }
+      rows += key -> row
+      _size += 1
+    }
+
+    override def get(key: Array[Long]): Iterator[ExecutionContext] = {
+      val rows = table.get(longHash(key))
+      if (rows == null) Iterator.empty else rows.iterator.collect { case (k, row) if util.Arrays.equals(k, key) => row }
+    }
+
+    override def size: Int = _size
+
+    override def rows: Iterator[ExecutionContext] = table.values().iterator().asScala.flatMap(_.iterator.map(_._2))
+
+    private def longHash(key: Array[Long]): Long = {
+      var hash = 1L
+      for (id <- key) {
+        hash = 31 * hash + id
+      }
+      hash
+    }
   }
 }
@@ -34,6 +34,11 @@ trait PipeDecorator {
    * where the `decorate` should refer to the parent pipe instead of the calling pipe.
    */
   def innerDecorator(pipe: Pipe): PipeDecorator
+
+  /*
+   * Called when a pipe had to spill rows to disk to stay within its memory limit.
+   */
+  def spilled(pipe: Pipe, rows: Long): Unit = {}
 }
 
 object NullPipeDecorator extends PipeDecorator {
@@ -22,8 +22,10 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 import org.eclipse.collections.api.set.primitive.LongSet
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.PathValueBuilder
 import org.neo4j.cypher.internal.runtime.interpreted.commands.predicates.{InCheckContainer, SingleThreadedLRUCache}
-import org.neo4j.cypher.internal.runtime.interpreted.{ExecutionContext, MapExecutionContext, MutableMaps}
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillConfiguration
+import org.neo4j.cypher.internal.runtime.interpreted.{ExecutionContext, MapExecutionContext, MutableMaps, SlottedExecutionContext, VariableSlots}
 import org.neo4j.cypher.internal.runtime.{QueryContext, QueryStatistics}
+import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier
 import org.neo4j.values.AnyValue
 import org.neo4j.values.virtual.MapValue
 import org.neo4j.cypher.internal.v3_5.util.ParameterNotFoundException
@@ -38,7 +40,9 @@ class QueryState(val query: QueryContext,
                  val triadicState: mutable.Map[String, LongSet] = mutable.Map.empty,
                  val repeatableReads: mutable.Map[Pipe, Seq[ExecutionContext]] = mutable.Map.empty,
                  val cachedIn: SingleThreadedLRUCache[Any, InCheckContainer] = new SingleThreadedLRUCache(maxSize = 16),
-                 val lenientCreateRelationship: Boolean = false) {
+                 val lenientCreateRelationship: Boolean = false,
+                 val spillConfiguration: SpillConfiguration = SpillConfiguration.DISABLED,
+                 val collectionsFactorySupplier: CollectionsFactorySupplier = CollectionsFactorySupplier.ON_HEAP) {
 
   private var _pathValueBuilder: PathValueBuilder = _
   private var _exFactory: ExecutionContextFactory = _
@@ -66,11 +70,13 @@ class QueryState(val query: QueryContext,
 
   def withDecorator(decorator: PipeDecorator) =
     new QueryState(query, resources, params, decorator, initialContext, triadicState,
-                   repeatableReads, cachedIn, lenientCreateRelationship)
+                   repeatableReads, cachedIn, lenientCreateRelationship, spillConfiguration,
+                   collectionsFactorySupplier)
 
   def withInitialContext(initialContext: ExecutionContext) =
     new QueryState(query, resources, params, decorator, Some(initialContext), triadicState,
-                   repeatableReads, cachedIn, lenientCreateRelationship)
+                   repeatableReads, cachedIn, lenientCreateRelationship, spillConfiguration,
+                   collectionsFactorySupplier)
 
   /**
     * When running on the RHS of an Apply, this method will fill an execution context with argument data
@@ -84,7 +90,8 @@ class QueryState(val query: QueryContext,
 
   def withQueryContext(query: QueryContext) =
     new QueryState(query, resources, params, decorator, initialContext, triadicState,
-                   repeatableReads, cachedIn, lenientCreateRelationship)
+                   repeatableReads, cachedIn, lenientCreateRelationship, spillConfiguration,
+                   collectionsFactorySupplier)
 
   def setExecutionContextFactory(exFactory: ExecutionContextFactory) = {
     _exFactory = exFactory
@@ -171,3 +178,64 @@ case class CommunityExecutionContextFactory() extends ExecutionContextFactory {
   }
 
 }
+
+/**
+  * Creates [[SlottedExecutionContext]]s, storing variables at the offsets assigned by the given slots.
+  */
+case class SlottedExecutionContextFactory(slots: VariableSlots) extends ExecutionContextFactory {
+
+  override def newExecutionContext(m: mutable.Map[String, AnyValue] = MutableMaps.empty): ExecutionContext = {
+    val context = SlottedExecutionContext(slots)
+    m.foreach { case (k, v) => context.set(k, v) }
+    context
+  }
+
+  override def newExecutionContext(): ExecutionContext = SlottedExecutionContext(slots)
+
+  // Not using polymorphism here, instead cast since the cost of being megamorhpic is too high
+  override def copyWith(init: ExecutionContext): ExecutionContext = init match {
+    case context: SlottedExecutionContext =>
+      context.createClone()
+    case _ =>
+      val context = SlottedExecutionContext(slots)
+      init.foreach { case (k, v) => context.set(k, v) }
+      context
+  }
+
+  // Not using polymorphism here, instead cast since the cost of being megamorhpic is too high
+  override def copyWith(row: ExecutionContext, newEntries: Seq[(String, AnyValue)]): ExecutionContext = row match {
+    case context: SlottedExecutionContext =>
+      context.copyWith(newEntries)
+    case _ =>
+      row.copyWith(newEntries)
+  }
+
+  // Not using polymorphism here, instead cast since the cost of being megamorhpic is too high
+  override def copyWith(row: ExecutionContext, key: String, value: AnyValue): ExecutionContext = row match {
+    case context: SlottedExecutionContext =>
+      context.copyWith(key, value)
+    case _ =>
+      row.copyWith(key, value)
+  }
+
+  // Not using polymorphism here, instead cast since the cost of being megamorhpic is too high
+  override def copyWith(row : ExecutionContext,
+                        key1: String, value1: AnyValue,
+                        key2: String, value2: AnyValue): ExecutionContext = row match {
+    case context: SlottedExecutionContext =>
+      context.copyWith(key1, value1, key2, value2)
+    case _ =>
+      row.copyWith(key1, value1, key2, value2)
+  }
+
+  // Not using polymorphism here, instead cast since the cost of being megamorhpic is too high
+  override def copyWith(row : ExecutionContext,
+                        key1: String, value1: AnyValue,
+                        key2: String, value2: AnyValue,
+                        key3: String, value3: AnyValue): ExecutionContext = row match {
+    case context: SlottedExecutionContext =>
+      context.copyWith(key1, value1, key2, value2, key3, value3)
+    case _ =>
+      row.copyWith(key1, value1, key2, value2, key3, value3)
+  }
+}
@@ -22,6 +22,7 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 import java.util.Comparator
 
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.spill.ExternalSorter
 import org.neo4j.cypher.internal.v3_5.util.attribution.Id
 import org.neo4j.values.{AnyValue, AnyValues}
 
@@ -33,9 +34,14 @@ case class SortPipe(source: Pipe, orderBy: Seq[ColumnOrder])
   private val comparator = ExecutionContextOrdering.asComparator(orderBy)
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
-    val array = input.toArray
-    java.util.Arrays.sort(array, comparator)
-    array.toIterator
+    val threshold = state.spillConfiguration.sortThreshold
+    if (threshold > 0) {
+      new ExternalSorter(comparator, threshold, state, executionContextFactory, state.decorator.spilled(this, _)).sort(input)
+    } else {
+      val array = input.toArray
+      java.util.Arrays.sort(array, comparator)
+      array.toIterator
+    }
   }
 }
 
@@ -24,6 +24,7 @@ import java.util.Comparator
 import org.neo4j.cypher.internal.DefaultComparatorTopTable
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.spill.ExternalSorter
 import org.neo4j.cypher.internal.v3_5.util.attribution.Id
 import org.neo4j.values.storable.NumberValue
 
@@ -48,9 +49,16 @@ case class TopNPipe(source: Pipe, countExpression: Expression, comparator: Compa
     else {
       val first = input.next()
       val longCount = countExpression(first, state).asInstanceOf[NumberValue].longValue()
+      val spillThreshold = state.spillConfiguration.sortThreshold
       if (longCount <= 0) {
         Iterator.empty
       }
+      else if (spillThreshold > 0 && longCount > spillThreshold) {
+        // The top table would hold more rows than we are allowed to keep in memory, so sort externally instead
+        val sorter = new ExternalSorter(comparator, spillThreshold, state, executionContextFactory, state.decorator.spilled(this, _))
+        var c: Long = 0
+        sorter.sort(Iterator.single(first) ++ input).takeWhile { _ => c = c + 1; c <= longCount }
+      }
       else if (longCount > Int.MaxValue) {
         // For count values larger than the maximum 32-bit integer we fallback on a full sort instead of allocating a huge top table
         // (Instead of throw new IllegalArgumentException(s"ORDER BY + LIMIT $longCount exceeds the maximum value of ${Int.MaxValue}"))
@@ -19,18 +19,25 @@
  */
 package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
+import java.util
+
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.spill.GraceHashJoin
+import org.neo4j.cypher.internal.runtime.interpreted.spill.GraceHashJoin.{JoinKeys, Table}
 import org.neo4j.cypher.internal.v3_5.util.attribution.Id
 import org.neo4j.values.AnyValue
 import org.neo4j.values.storable.Values
 
-import scala.collection.mutable
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
 
 case class ValueHashJoinPipe(lhsExpression: Expression, rhsExpression: Expression, left: Pipe, right: Pipe)
                             (val id: Id = Id.INVALID_ID)
   extends PipeWithSource(left) {
 
+  import ValueHashJoinPipe._
+
   lhsExpression.registerOwningPipe(this)
   rhsExpression.registerOwningPipe(this)
 
@@ -44,34 +51,53 @@ case class ValueHashJoinPipe(lhsExpression: Expression, rhsExpression: Expressio
     if (rhsIterator.isEmpty)
       return Iterator.empty
 
-    val table = buildProbeTable(input, state)
+    val keys = new JoinKeys[AnyValue] {
+      override def buildKey(row: ExecutionContext): AnyValue = joinKey(lhsExpression(row, state))
 
-    if (table.isEmpty)
-      return Iterator.empty
+      override def probeKey(row: ExecutionContext): AnyValue = joinKey(rhsExpression(row, state))
 
-    val result = for {rhsRow <- rhsIterator
-                      joinKey = rhsExpression(rhsRow, state) if joinKey != Values.NO_VALUE}
-      yield {
-        val lhsRows = table.getOrElse(joinKey, mutable.MutableList.empty)
-        lhsRows.map { lhsRow =>
-          val outputRow = lhsRow.createClone()
-          outputRow.mergeWith(rhsRow, state.query)
-          outputRow
-        }
-      }
+      override def hash(key: AnyValue): Int = key.hashCode()
 
-    result.flatten
+      override def newTable(): Table[AnyValue] = new ValueTable
+
+      override def join(buildRow: ExecutionContext, probeRow: ExecutionContext): ExecutionContext = {
+        val outputRow = buildRow.createClone()
+        outputRow.mergeWith(probeRow, state.query)
+        outputRow
+      }
+    }
+    val threshold = state.spillConfiguration.hashJoinThreshold
+    new GraceHashJoin(keys, if (threshold > 0) threshold else Int.MaxValue, state, executionContextFactory,
+      state.decorator.spilled(this, _)).join(input, rhsIterator)
   }
 
-  private def buildProbeTable(input: Iterator[ExecutionContext], state: QueryState) = {
-    val table = new mutable.HashMap[AnyValue, mutable.MutableList[ExecutionContext]]
+  // null never equals anything, so rows without a join value never join
+  private def joinKey(value: AnyValue): AnyValue = if (value == Values.NO_VALUE) null else value
+}
+
+object ValueHashJoinPipe {
 
-    for (context <- input;
-         joinKey = lhsExpression(context, state) if joinKey != null) {
-      val seq = table.getOrElseUpdate(joinKey, mutable.MutableList.empty)
-      seq += context
+  private class ValueTable extends Table[AnyValue] {
+    private val table = new util.HashMap[AnyValue, ArrayBuffer[ExecutionContext]]()
+    private var _size = 0
+
+    override def add(key: AnyValue, row: ExecutionContext): Unit = {
+      var rows = table.get(key)
+      if (rows == null) {
+        rows = new ArrayBuffer[ExecutionContext]
+        table.put(key, rows)
+      }
+      rows += row
+      _size += 1
     }
 
-    table
+    override def get(key: AnyValue): Iterator[ExecutionContext] = {
+      val rows = table.get(key)
+      if (rows == null) Iterator.empty else rows.iterator
+    }
+
+    override def size: Int = _size
+
+    override def rows: Iterator[ExecutionContext] = table.values().iterator().asScala.flatMap(_.iterator)
   }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.{DataInputStream, File}
+import java.util
+import java.util.Comparator
+
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{ExecutionContextFactory, QueryState}
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Sorts rows while holding at most `threshold` of them in memory.
+  *
+  * Rows are buffered until the threshold is reached, at which point the buffer is sorted and written to a spill file
+  * as a sorted run. When the input is exhausted, the runs and the rows left in memory are merged lazily as the result
+  * is consumed. Input that fits within the threshold is sorted in memory without touching the disk. The sort is stable,
+  * just like the in-memory sort.
+  *
+  * @param spilled called with the number of rows every time rows are spilled to disk
+  */
+class ExternalSorter(comparator: Comparator[ExecutionContext],
+                     threshold: Int,
+                     state: QueryState,
+                     factory: ExecutionContextFactory,
+                     spilled: Long => Unit) extends AutoCloseable {
+
+  import ExternalSorter._
+
+  private val serializer = new RowSerializer(state, factory)
+  private val openInputs = new ArrayBuffer[DataInputStream]
+  private var runs = Vector.empty[Run]
+  private var files: SpillFiles = _
+  private var closed = false
+
+  def sort(input: Iterator[ExecutionContext]): Iterator[ExecutionContext] = {
+    val buffer = new util.ArrayList[ExecutionContext]()
+    while (input.hasNext) {
+      buffer.add(input.next())
+      if (buffer.size() == threshold) {
+        buffer.sort(comparator)
+        val run = writeRun(buffer.iterator().asScala)
+        spilled(run.rows)
+        runs :+= run
+        buffer.clear()
+      }
+    }
+    buffer.sort(comparator)
+
+    if (runs.isEmpty) {
+      buffer.iterator().asScala
+    } else {
+      while (runs.size >= MAX_MERGE_WIDTH) {
+        val (merging, remaining) = runs.splitAt(MAX_MERGE_WIDTH)
+        runs = writeRun(merge(merging.map(readRun))) +: remaining
+      }
+      val merged = merge(runs.map(readRun) :+ buffer.iterator().asScala)
+      runs = Vector.empty
+      new Iterator[ExecutionContext] {
+        override def hasNext: Boolean = {
+          val hasNext = merged.hasNext
+          if (!hasNext) {
+            release()
+          }
+          hasNext
+        }
+
+        override def next(): ExecutionContext = merged.next()
+      }
+    }
+  }
+
+  override def close(): Unit = {
+    if (!closed) {
+      closed = true
+      openInputs.foreach(_.close())
+      openInputs.clear()
+      if (files != null) {
+        files.close()
+      }
+    }
+  }
+
+  private def release(): Unit = {
+    if (!closed) {
+      state.query.resources.release(this)
+    }
+  }
+
+  private def writeRun(rows: Iterator[ExecutionContext]): Run = {
+    if (files == null) {
+      files = SpillFiles(state, "sort")
+      state.query.resources.trace(this)
+    }
+    val file = files.newFile()
+    val out = files.openOutput(file)
+    var count = 0L
+    try {
+      rows.foreach { row =>
+        serializer.write(row, out)
+        count += 1
+      }
+    } finally {
+      out.close()
+    }
+    Run(file, count)
+  }
+
+  private def readRun(run: Run): Iterator[ExecutionContext] = new Iterator[ExecutionContext] {
+    private val in = files.openInput(run.file)
+    private var remaining = run.rows
+    openInputs += in
+
+    override def hasNext: Boolean = remaining > 0
+
+    override def next(): ExecutionContext = {
+      if (!hasNext) {
+        throw new NoSuchElementException("Spilled run is exhausted")
+      }
+      val row = serializer.read(in)
+      remaining -= 1
+      if (remaining == 0) {
+        in.close()
+        openInputs -= in
+        files.delete(run.file)
+      }
+      row
+    }
+  }
+
+  /*
+   * Merges sorted sources into one sorted iterator. Rows that compare as equal are returned in the order of their
+   * sources, which keeps the sort stable as long as earlier runs hold earlier rows.
+   */
+  private def merge(sources: Seq[Iterator[ExecutionContext]]): Iterator[ExecutionContext] = {
+    val queue = new util.PriorityQueue[MergeSource](math.max(1, sources.size), new Comparator[MergeSource] {
+      override def compare(a: MergeSource, b: MergeSource): Int = {
+        val comparison = comparator.compare(a.head, b.head)
+        if (comparison != 0) comparison else Integer.compare(a.index, b.index)
+      }
+    })
+    sources.zipWithIndex.foreach {
+      case (source, index) =>
+        val mergeSource = new MergeSource(index, source)
+        if (mergeSource.advance()) {
+          queue.add(mergeSource)
+        }
+    }
+
+    new Iterator[ExecutionContext] {
+      override def hasNext: Boolean = !queue.isEmpty
+
+      override def next(): ExecutionContext = {
+        val source = queue.poll()
+        if (source == null) {
+          throw new NoSuchElementException("Merge is exhausted")
+        }
+        val row = source.head
+        if (source.advance()) {
+          queue.add(source)
+        }
+        row
+      }
+    }
+  }
+}
+
+object ExternalSorter {
+  /**
+    * The maximum number of runs merged at once, which bounds the number of spill files open at the same time.
+    */
+  val MAX_MERGE_WIDTH = 64
+
+  private case class Run(file: File, rows: Long)
+
+  private class MergeSource(val index: Int, rows: Iterator[ExecutionContext]) {
+    var head: ExecutionContext = _
+
+    def advance(): Boolean = {
+      if (rows.hasNext) {
+        head = rows.next()
+        true
+      } else {
+        head = null
+        false
+      }
+    }
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.{DataInputStream, DataOutputStream, File}
+import java.util
+import java.util.Comparator
+
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{ExecutionContextFactory, QueryState}
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpilledPartitions.{MAX_LEVEL, PARTITION_COUNT, partitionOf}
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * A hash join that holds at most `threshold` build rows in memory.
+  *
+  * The build side is loaded into an in-memory table first. As long as it fits, the probe side is streamed through the
+  * table, just like an ordinary hash join. If it does not fit, both sides are partitioned on the hash of their join
+  * keys and written to disk, and each pair of partitions is joined on its own, partitioning again if a build partition
+  * is still too large. Output follows the order of the probe side in both cases, and probe rows with several matches
+  * produce them in build side order.
+  *
+  * @param spilled called with the number of rows every time rows are spilled to disk
+  */
+class GraceHashJoin[K](keys: GraceHashJoin.JoinKeys[K],
+                       threshold: Int,
+                       state: QueryState,
+                       factory: ExecutionContextFactory,
+                       spilled: Long => Unit) extends AutoCloseable {
+
+  import GraceHashJoin._
+
+  private val serializer = new RowSerializer(state, factory)
+  private val openInputs = new ArrayBuffer[DataInputStream]
+  private var files: SpillFiles = _
+  private var closed = false
+
+  /**
+    * Joins the build rows with the probe rows. The build side is consumed before this method returns, but the probe
+    * side is only consumed up front if the build side had to be spilled.
+    */
+  def join(build: Iterator[ExecutionContext], probe: Iterator[ExecutionContext]): Iterator[ExecutionContext] = {
+    val table = keys.newTable()
+    while (build.hasNext && table.size < threshold) {
+      add(table, build.next())
+    }
+
+    if (!build.hasNext) {
+      if (table.isEmpty) Iterator.empty else probe.flatMap(probeRow => probeTable(table, probeRow))
+    } else {
+      var ordinal = 0L
+      val joined = joinPartitioned(table.rows ++ build, probe.map { row => ordinal += 1; (ordinal, row) }, level = 0)
+      new Iterator[ExecutionContext] {
+        override def hasNext: Boolean = {
+          val hasNext = joined.hasNext
+          if (!hasNext) {
+            release()
+          }
+          hasNext
+        }
+
+        override def next(): ExecutionContext = joined.next()._2
+      }
+    }
+  }
+
+  override def close(): Unit = {
+    if (!closed) {
+      closed = true
+      openInputs.foreach(_.close())
+      openInputs.clear()
+      if (files != null) {
+        files.close()
+      }
+    }
+  }
+
+  private def add(table: Table[K], row: ExecutionContext): Unit = {
+    val key = keys.buildKey(row)
+    if (key != null) {
+      table.add(key, row)
+    }
+  }
+
+  private def probeTable(table: Table[K], probeRow: ExecutionContext): Iterator[ExecutionContext] = {
+    val key = keys.probeKey(probeRow)
+    if (key == null) Iterator.empty else table.get(key).map(buildRow => keys.join(buildRow, probeRow))
+  }
+
+  /*
+   * Partitions both sides to disk and joins the partitions one by one. The output of every partition is sorted on
+   * the ordinals of the probe rows, so merging the partition outputs on ordinal restores the order of the probe side.
+   * All but the last partition output are written to disk, since the build table of a partition is only held in
+   * memory while that partition is being joined.
+   */
+  private def joinPartitioned(build: Iterator[ExecutionContext], probe: Iterator[Tagged], level: Int): Iterator[Tagged] = {
+    val buildPartitions = new Partitions
+    val probePartitions = new Partitions
+    build.foreach { row =>
+      val key = keys.buildKey(row)
+      if (key != null) {
+        buildPartitions.write(partitionOf(keys.hash(key), level), 0L, row)
+      }
+    }
+    probe.foreach {
+      case (ordinal, row) =>
+        val key = keys.probeKey(row)
+        if (key != null) {
+          probePartitions.write(partitionOf(keys.hash(key), level), ordinal, row)
+        }
+    }
+    spilled(buildPartitions.rows + probePartitions.rows)
+
+    val joinable = (0 until PARTITION_COUNT).filter { partition =>
+      val joinable = buildPartitions.count(partition) > 0 && probePartitions.count(partition) > 0
+      if (!joinable) {
+        buildPartitions.discard(partition)
+        probePartitions.discard(partition)
+      }
+      joinable
+    }
+    if (joinable.isEmpty) {
+      Iterator.empty
+    } else {
+      def joinPartition(partition: Int): Iterator[Tagged] = {
+        val build = buildPartitions.read(partition).map(_._2)
+        val probe = probePartitions.read(partition)
+        if (buildPartitions.count(partition) <= threshold || level + 1 >= MAX_LEVEL) {
+          val table = keys.newTable()
+          build.foreach(add(table, _))
+          // output rows keep the ordinal of their probe row
+          probe.flatMap {
+            case (ordinal, probeRow) => probeTable(table, probeRow).map(row => (ordinal, row))
+          }
+        } else {
+          joinPartitioned(build, probe, level + 1)
+        }
+      }
+
+      val runs = joinable.init.map(partition => writeRun(joinPartition(partition)))
+      merge(runs.map(readRun) :+ joinPartition(joinable.last))
+    }
+  }
+
+  private def newFile(): File = {
+    if (files == null) {
+      files = SpillFiles(state, "join")
+      state.query.resources.trace(this)
+    }
+    files.newFile()
+  }
+
+  private def writeRun(rows: Iterator[Tagged]): Run = {
+    val file = newFile()
+    val out = files.openOutput(file)
+    var count = 0L
+    try {
+      rows.foreach {
+        case (ordinal, row) =>
+          out.writeLong(ordinal)
+          serializer.write(row, out)
+          count += 1
+      }
+    } finally {
+      out.close()
+    }
+    Run(file, count)
+  }
+
+  private def readRun(run: Run): Iterator[Tagged] = new Iterator[Tagged] {
+    private val in = files.openInput(run.file)
+    private var remaining = run.rows
+    openInputs += in
+
+    override def hasNext: Boolean = remaining > 0
+
+    override def next(): Tagged = {
+      if (!hasNext) {
+        throw new NoSuchElementException("Spilled run is exhausted")
+      }
+      val ordinal = in.readLong()
+      val row = serializer.read(in)
+      remaining -= 1
+      if (remaining == 0) {
+        in.close()
+        openInputs -= in
+        files.delete(run.file)
+      }
+      (ordinal, row)
+    }
+  }
+
+  /*
+   * Merges sources that are sorted on ordinal. Rows with the same ordinal all come from the same source, since every
+   * probe row belongs to exactly one partition.
+   */
+  private def merge(sources: Seq[Iterator[Tagged]]): Iterator[Tagged] = {
+    val queue = new util.PriorityQueue[MergeSource](sources.size, new Comparator[MergeSource] {
+      override def compare(a: MergeSource, b: MergeSource): Int = java.lang.Long.compare(a.head._1, b.head._1)
+    })
+    sources.foreach { source =>
+      val mergeSource = new MergeSource(source)
+      if (mergeSource.advance()) {
+        queue.add(mergeSource)
+      }
+    }
+
+    new Iterator[Tagged] {
+      override def hasNext: Boolean = !queue.isEmpty
+
+      override def next(): Tagged = {
+        val source = queue.poll()
+        if (source == null) {
+          throw new NoSuchElementException("Merge is exhausted")
+        }
+        val row = source.head
+        if (source.advance()) {
+          queue.add(source)
+        }
+        row
+      }
+    }
+  }
+
+  private def release(): Unit = {
+    if (!closed && files != null) {
+      state.query.resources.release(this)
+    }
+  }
+
+  /*
+   * Ordinal-tagged rows written to one file per partition.
+   */
+  private class Partitions {
+    private val partitionFiles = new Array[File](PARTITION_COUNT)
+    private val outputs = new Array[DataOutputStream](PARTITION_COUNT)
+    private val counts = new Array[Long](PARTITION_COUNT)
+    private var _rows = 0L
+
+    def rows: Long = _rows
+
+    def count(partition: Int): Long = counts(partition)
+
+    def write(partition: Int, ordinal: Long, row: ExecutionContext): Unit = {
+      var out = outputs(partition)
+      if (out == null) {
+        partitionFiles(partition) = newFile()
+        out = files.openOutput(partitionFiles(partition))
+        outputs(partition) = out
+      }
+      out.writeLong(ordinal)
+      serializer.write(row, out)
+      counts(partition) += 1
+      _rows += 1
+    }
+
+    def read(partition: Int): Iterator[Tagged] = {
+      finish(partition)
+      readRun(Run(partitionFiles(partition), counts(partition)))
+    }
+
+    def discard(partition: Int): Unit = {
+      finish(partition)
+      if (partitionFiles(partition) != null) {
+        files.delete(partitionFiles(partition))
+      }
+    }
+
+    private def finish(partition: Int): Unit = {
+      if (outputs(partition) != null) {
+        outputs(partition).close()
+        outputs(partition) = null
+      }
+    }
+  }
+}
+
+object GraceHashJoin {
+
+  /**
+    * How rows are keyed and joined. Keys are null for rows that cannot match any row on the other side.
+    */
+  trait JoinKeys[K] {
+    def buildKey(row: ExecutionContext): K
+
+    def probeKey(row: ExecutionContext): K
+
+    def hash(key: K): Int
+
+    def newTable(): Table[K]
+
+    def join(buildRow: ExecutionContext, probeRow: ExecutionContext): ExecutionContext
+  }
+
+  /**
+    * An in-memory hash table of build rows. Rows with the same key are kept in insertion order.
+    */
+  trait Table[K] {
+    def add(key: K, row: ExecutionContext): Unit
+
+    def get(key: K): Iterator[ExecutionContext]
+
+    /**
+      * The number of rows in the table.
+      */
+    def size: Int
+
+    def isEmpty: Boolean = size == 0
+
+    /**
+      * All rows in the table, with rows of the same key in insertion order.
+      */
+    def rows: Iterator[ExecutionContext]
+  }
+
+  private type Tagged = (Long, ExecutionContext)
+
+  private case class Run(file: File, rows: Long)
+
+  private class MergeSource(rows: Iterator[Tagged]) {
+    var head: Tagged = _
+
+    def advance(): Boolean = {
+      if (rows.hasNext) {
+        head = rows.next()
+        true
+      } else {
+        head = null
+        false
+      }
+    }
+  }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.{DataInput, DataOutput}
+import java.nio.charset.StandardCharsets.UTF_8
+import java.time._
+
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{ExecutionContextFactory, QueryState}
+import org.neo4j.cypher.internal.v3_5.logical.plans.CachedNodeProperty
+import org.neo4j.cypher.internal.v3_5.util.InternalException
+import org.neo4j.kernel.impl.util.{NodeProxyWrappingNodeValue, RelationshipProxyWrappingValue}
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.ValueWriter.ArrayType
+import org.neo4j.values.storable._
+import org.neo4j.values.virtual._
+
+import scala.collection.mutable
+
+/**
+  * Writes rows to, and reads them back from, spill files.
+  *
+  * Variable names and cached property keys are kept in dictionaries in memory, so only their indexes are written with
+  * the values of each row. Nodes and relationships that are backed by the database are written as ids and read back as
+  * new entity values, while values that only exist in the query, such as lists, maps, paths and virtual entities, are
+  * written in full.
+  */
+class RowSerializer(state: QueryState, factory: ExecutionContextFactory) {
+
+  import RowSerializer._
+
+  private val keys = new mutable.ArrayBuffer[String]
+  private val keyIds = new mutable.HashMap[String, Int]
+  private val cachedKeys = new mutable.ArrayBuffer[CachedNodeProperty]
+  private val cachedKeyIds = new mutable.HashMap[CachedNodeProperty, Int]
+
+  def write(row: ExecutionContext, out: DataOutput): Unit = {
+    row.foreach {
+      case (key, value) =>
+        out.writeInt(keyIds.getOrElseUpdate(key, { keys += key; keys.size - 1 }))
+        writeValue(value, out)
+    }
+    out.writeInt(END_OF_ROW)
+    row.cachedPropertyEntries.foreach {
+      case (key, value) =>
+        out.writeInt(cachedKeyIds.getOrElseUpdate(key, { cachedKeys += key; cachedKeys.size - 1 }))
+        if (value == null) {
+          out.writeBoolean(false)
+        } else {
+          out.writeBoolean(true)
+          writeValue(value, out)
+        }
+    }
+    out.writeInt(END_OF_ROW)
+  }
+
+  def read(in: DataInput): ExecutionContext = {
+    val row = factory.newExecutionContext()
+    var key = in.readInt()
+    while (key != END_OF_ROW) {
+      row.set(keys(key), readValue(in))
+      key = in.readInt()
+    }
+    key = in.readInt()
+    while (key != END_OF_ROW) {
+      val value = if (in.readBoolean()) readValue(in).asInstanceOf[Value] else null
+      row.setCachedProperty(cachedKeys(key), value)
+      key = in.readInt()
+    }
+    row
+  }
+
+  private def writeValue(value: AnyValue, out: DataOutput): Unit = value match {
+    case node: NodeProxyWrappingNodeValue =>
+      out.writeByte(NODE_BY_ID)
+      out.writeLong(node.id())
+
+    case node: NodeValue =>
+      out.writeByte(NODE)
+      out.writeLong(node.id())
+      writeValue(node.labels(), out)
+      writeValue(node.properties(), out)
+
+    case node: VirtualNodeValue =>
+      out.writeByte(NODE_REFERENCE)
+      out.writeLong(node.id())
+
+    case relationship: RelationshipProxyWrappingValue =>
+      out.writeByte(RELATIONSHIP_BY_ID)
+      out.writeLong(relationship.id())
+
+    case relationship: RelationshipValue =>
+      out.writeByte(RELATIONSHIP)
+      out.writeLong(relationship.id())
+      writeValue(relationship.startNode(), out)
+      writeValue(relationship.endNode(), out)
+      writeValue(relationship.`type`(), out)
+      writeValue(relationship.properties(), out)
+
+    case relationship: VirtualRelationshipValue =>
+      out.writeByte(RELATIONSHIP_REFERENCE)
+      out.writeLong(relationship.id())
+
+    case path: PathValue =>
+      out.writeByte(PATH)
+      val nodes = path.nodes()
+      val relationships = path.relationships()
+      out.writeInt(nodes.length)
+      nodes.foreach(writeValue(_, out))
+      relationships.foreach(writeValue(_, out))
+
+    case list: ListValue =>
+      out.writeByte(LIST)
+      out.writeInt(list.size())
+      val iterator = list.iterator()
+      while (iterator.hasNext) {
+        writeValue(iterator.next(), out)
+      }
+
+    case map: MapValue =>
+      out.writeByte(MAP)
+      out.writeInt(map.size())
+      val iterator = map.keySet().iterator()
+      while (iterator.hasNext) {
+        val key = iterator.next()
+        writeString(key, out)
+        writeValue(map.get(key), out)
+      }
+
+    case storable: Value =>
+      storable.writeTo(new StorableWriter(out))
+
+    case _ =>
+      throw new InternalException(s"Cannot spill value of type ${value.getClass.getSimpleName} to disk")
+  }
+
+  private def readValue(in: DataInput): AnyValue = in.readByte().toInt match {
+    case NODE_BY_ID => state.query.nodeOps.getById(in.readLong())
+    case NODE =>
+      val id = in.readLong()
+      val labels = readValue(in).asInstanceOf[TextArray]
+      val properties = readValue(in).asInstanceOf[MapValue]
+      VirtualValues.nodeValue(id, labels, properties)
+    case NODE_REFERENCE => VirtualValues.node(in.readLong())
+    case RELATIONSHIP_BY_ID => state.query.relationshipOps.getById(in.readLong())
+    case RELATIONSHIP =>
+      val id = in.readLong()
+      val startNode = readValue(in).asInstanceOf[NodeValue]
+      val endNode = readValue(in).asInstanceOf[NodeValue]
+      val relType = readValue(in).asInstanceOf[TextValue]
+      val properties = readValue(in).asInstanceOf[MapValue]
+      VirtualValues.relationshipValue(id, startNode, endNode, relType, properties)
+    case RELATIONSHIP_REFERENCE => VirtualValues.relationship(in.readLong())
+    case PATH =>
+      val length = in.readInt()
+      val nodes = Array.fill(length)(readValue(in).asInstanceOf[NodeValue])
+      val relationships = Array.fill(length - 1)(readValue(in).asInstanceOf[RelationshipValue])
+      VirtualValues.path(nodes, relationships)
+    case LIST =>
+      VirtualValues.list(Array.fill(in.readInt())(readValue(in)): _*)
+    case MAP =>
+      val size = in.readInt()
+      val keys = new Array[String](size)
+      val values = new Array[AnyValue](size)
+      var i = 0
+      while (i < size) {
+        keys(i) = readString(in)
+        values(i) = readValue(in)
+        i += 1
+      }
+      VirtualValues.map(keys, values)
+    case NO_VALUE => Values.NO_VALUE
+    case BOOLEAN => Values.booleanValue(in.readBoolean())
+    case BYTE => Values.byteValue(in.readByte())
+    case SHORT => Values.shortValue(in.readShort())
+    case INT => Values.intValue(in.readInt())
+    case LONG => Values.longValue(in.readLong())
+    case FLOAT => Values.floatValue(in.readFloat())
+    case DOUBLE => Values.doubleValue(in.readDouble())
+    case STRING => Values.stringValue(readString(in))
+    case CHAR => Values.charValue(in.readChar())
+    case BYTE_ARRAY =>
+      val bytes = new Array[Byte](in.readInt())
+      in.readFully(bytes)
+      Values.byteArray(bytes)
+    case ARRAY =>
+      val arrayType = ArrayType.values()(in.readByte())
+      readArray(arrayType, Array.fill(in.readInt())(readValue(in).asInstanceOf[Value]))
+    case POINT =>
+      val crs = CoordinateReferenceSystem.get(in.readInt(), in.readInt())
+      Values.pointValue(crs, Array.fill(in.readInt())(in.readDouble()): _*)
+    case DURATION => DurationValue.duration(in.readLong(), in.readLong(), in.readLong(), in.readInt())
+    case DATE => DateValue.epochDate(in.readLong())
+    case LOCAL_TIME => LocalTimeValue.localTime(in.readLong())
+    case TIME => TimeValue.time(OffsetTime.of(LocalTime.ofNanoOfDay(in.readLong()), ZoneOffset.ofTotalSeconds(in.readInt())))
+    case LOCAL_DATE_TIME => LocalDateTimeValue.localDateTime(in.readLong(), in.readInt())
+    case DATE_TIME_WITH_OFFSET => DateTimeValue.datetime(in.readLong(), in.readInt(), ZoneOffset.ofTotalSeconds(in.readInt()))
+    case DATE_TIME_WITH_ZONE_ID => DateTimeValue.datetime(in.readLong(), in.readInt(), ZoneId.of(readString(in)))
+    case tag => throw new InternalException(s"Unknown value type $tag in spill file")
+  }
+
+  private def readArray(arrayType: ArrayType, elements: Array[Value]): ArrayValue = arrayType match {
+    case ArrayType.SHORT => Values.shortArray(elements.map(_.asInstanceOf[ShortValue].value()))
+    case ArrayType.INT => Values.intArray(elements.map(_.asInstanceOf[IntValue].value()))
+    case ArrayType.LONG => Values.longArray(elements.map(_.asInstanceOf[LongValue].value()))
+    case ArrayType.FLOAT => Values.floatArray(elements.map(_.asInstanceOf[FloatValue].value()))
+    case ArrayType.DOUBLE => Values.doubleArray(elements.map(_.asInstanceOf[DoubleValue].value()))
+    case ArrayType.BOOLEAN => Values.booleanArray(elements.map(_.asInstanceOf[BooleanValue].booleanValue()))
+    case ArrayType.STRING => Values.stringArray(elements.map(_.asInstanceOf[TextValue].stringValue()): _*)
+    case ArrayType.CHAR => Values.charArray(elements.map(_.asInstanceOf[CharValue].value()))
+    case ArrayType.POINT => Values.pointArray(elements.map(_.asInstanceOf[PointValue]))
+    case ArrayType.ZONED_DATE_TIME => Values.dateTimeArray(elements.map(_.asObjectCopy().asInstanceOf[ZonedDateTime]))
+    case ArrayType.LOCAL_DATE_TIME => Values.localDateTimeArray(elements.map(_.asObjectCopy().asInstanceOf[LocalDateTime]))
+    case ArrayType.DATE => Values.dateArray(elements.map(_.asObjectCopy().asInstanceOf[LocalDate]))
+    case ArrayType.ZONED_TIME => Values.timeArray(elements.map(_.asObjectCopy().asInstanceOf[OffsetTime]))
+    case ArrayType.LOCAL_TIME => Values.localTimeArray(elements.map(_.asObjectCopy().asInstanceOf[LocalTime]))
+    case ArrayType.DURATION => Values.durationArray(elements.map(_.asInstanceOf[DurationValue]))
+    case ArrayType.BYTE => Values.byteArray(elements.map(_.asInstanceOf[ByteValue].value()))
+  }
+}
+
+object RowSerializer {
+  private val END_OF_ROW = -1
+
+  private final val NO_VALUE = 0
+  private final val BOOLEAN = 1
+  private final val BYTE = 2
+  private final val SHORT = 3
+  private final val INT = 4
+  private final val LONG = 5
+  private final val FLOAT = 6
+  private final val DOUBLE = 7
+  private final val STRING = 8
+  private final val CHAR = 9
+  private final val BYTE_ARRAY = 10
+  private final val ARRAY = 11
+  private final val POINT = 12
+  private final val DURATION = 13
+  private final val DATE = 14
+  private final val LOCAL_TIME = 15
+  private final val TIME = 16
+  private final val LOCAL_DATE_TIME = 17
+  private final val DATE_TIME_WITH_OFFSET = 18
+  private final val DATE_TIME_WITH_ZONE_ID = 19
+  private final val NODE_BY_ID = 20
+  private final val NODE = 21
+  private final val NODE_REFERENCE = 22
+  private final val RELATIONSHIP_BY_ID = 23
+  private final val RELATIONSHIP = 24
+  private final val RELATIONSHIP_REFERENCE = 25
+  private final val PATH = 26
+  private final val LIST = 27
+  private final val MAP = 28
+
+  private def writeString(value: String, out: DataOutput): Unit = {
+    val bytes = value.getBytes(UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  private def readString(in: DataInput): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, UTF_8)
+  }
+
+  /**
+    * Writes storable values, including the elements of arrays, each prefixed by its type.
+    */
+  private class StorableWriter(out: DataOutput) extends ValueWriter[RuntimeException] {
+
+    override def writeNull(): Unit = out.writeByte(NO_VALUE)
+
+    override def writeBoolean(value: Boolean): Unit = {
+      out.writeByte(BOOLEAN)
+      out.writeBoolean(value)
+    }
+
+    override def writeInteger(value: Byte): Unit = {
+      out.writeByte(BYTE)
+      out.writeByte(value)
+    }
+
+    override def writeInteger(value: Short): Unit = {
+      out.writeByte(SHORT)
+      out.writeShort(value)
+    }
+
+    override def writeInteger(value: Int): Unit = {
+      out.writeByte(INT)
+      out.writeInt(value)
+    }
+
+    override def writeInteger(value: Long): Unit = {
+      out.writeByte(LONG)
+      out.writeLong(value)
+    }
+
+    override def writeFloatingPoint(value: Float): Unit = {
+      out.writeByte(FLOAT)
+      out.writeFloat(value)
+    }
+
+    override def writeFloatingPoint(value: Double): Unit = {
+      out.writeByte(DOUBLE)
+      out.writeDouble(value)
+    }
+
+    override def writeString(value: String): Unit = {
+      out.writeByte(STRING)
+      RowSerializer.writeString(value, out)
+    }
+
+    override def writeString(value: Char): Unit = {
+      out.writeByte(CHAR)
+      out.writeChar(value)
+    }
+
+    override def beginArray(size: Int, arrayType: ArrayType): Unit = {
+      out.writeByte(ARRAY)
+      out.writeByte(arrayType.ordinal())
+      out.writeInt(size)
+    }
+
+    override def endArray(): Unit = {}
+
+    override def writeByteArray(value: Array[Byte]): Unit = {
+      out.writeByte(BYTE_ARRAY)
+      out.writeInt(value.length)
+      out.write(value)
+    }
+
+    override def writePoint(crs: CoordinateReferenceSystem, coordinate: Array[Double]): Unit = {
+      out.writeByte(POINT)
+      out.writeInt(crs.getTable.getTableId)
+      out.writeInt(crs.getCode)
+      out.writeInt(coordinate.length)
+      coordinate.foreach(out.writeDouble)
+    }
+
+    override def writeDuration(months: Long, days: Long, seconds: Long, nanos: Int): Unit = {
+      out.writeByte(DURATION)
+      out.writeLong(months)
+      out.writeLong(days)
+      out.writeLong(seconds)
+      out.writeInt(nanos)
+    }
+
+    override def writeDate(localDate: LocalDate): Unit = {
+      out.writeByte(DATE)
+      out.writeLong(localDate.toEpochDay)
+    }
+
+    override def writeLocalTime(localTime: LocalTime): Unit = {
+      out.writeByte(LOCAL_TIME)
+      out.writeLong(localTime.toNanoOfDay)
+    }
+
+    override def writeTime(offsetTime: OffsetTime): Unit = {
+      out.writeByte(TIME)
+      out.writeLong(offsetTime.toLocalTime.toNanoOfDay)
+      out.writeInt(offsetTime.getOffset.getTotalSeconds)
+    }
+
+    override def writeLocalDateTime(localDateTime: LocalDateTime): Unit = {
+      out.writeByte(LOCAL_DATE_TIME)
+      out.writeLong(localDateTime.toEpochSecond(ZoneOffset.UTC))
+      out.writeInt(localDateTime.getNano)
+    }
+
+    override def writeDateTime(zonedDateTime: ZonedDateTime): Unit = zonedDateTime.getZone match {
+      case offset: ZoneOffset =>
+        out.writeByte(DATE_TIME_WITH_OFFSET)
+        out.writeLong(zonedDateTime.toEpochSecond)
+        out.writeInt(zonedDateTime.getNano)
+        out.writeInt(offset.getTotalSeconds)
+      case zone =>
+        out.writeByte(DATE_TIME_WITH_ZONE_ID)
+        out.writeLong(zonedDateTime.toEpochSecond)
+        out.writeInt(zonedDateTime.getNano)
+        RowSerializer.writeString(zone.getId, out)
+    }
+  }
+}
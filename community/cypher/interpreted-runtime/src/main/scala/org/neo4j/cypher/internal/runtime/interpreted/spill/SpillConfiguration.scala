@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.File
+
+/**
+  * Limits on how much operators may hold in memory before spilling to disk. A limit of 0 means never spill.
+  *
+  * @param sortThreshold the number of rows a sort may hold in memory
+  * @param aggregationThreshold the number of groups an aggregation may hold in memory
+  * @param hashJoinThreshold the number of build side rows a hash join may hold in memory
+  * @param directory the directory to create spill files in
+  */
+case class SpillConfiguration(sortThreshold: Int, aggregationThreshold: Int, hashJoinThreshold: Int, directory: File)
+
+object SpillConfiguration {
+  val DISABLED = SpillConfiguration(sortThreshold = 0, aggregationThreshold = 0, hashJoinThreshold = 0,
+                                    directory = new File(System.getProperty("java.io.tmpdir")))
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io._
+import java.util.UUID
+
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+import org.neo4j.io.fs.FileSystemAbstraction
+
+/**
+  * Temporary files for rows spilled to disk by a single operator. The files are created lazily in a directory of their
+  * own, which is removed together with all remaining files when closed.
+  */
+class SpillFiles(fs: FileSystemAbstraction, parent: File, prefix: String) extends AutoCloseable {
+
+  private var directory: File = _
+  private var fileCount = 0
+
+  def newFile(): File = {
+    if (directory == null) {
+      directory = new File(parent, s"$prefix-${UUID.randomUUID()}")
+      fs.mkdirs(directory)
+    }
+    fileCount += 1
+    new File(directory, s"$prefix-$fileCount")
+  }
+
+  def openOutput(file: File): DataOutputStream =
+    new DataOutputStream(new BufferedOutputStream(fs.openAsOutputStream(file, false), SpillFiles.BUFFER_SIZE))
+
+  def openInput(file: File): DataInputStream =
+    new DataInputStream(new BufferedInputStream(fs.openAsInputStream(file), SpillFiles.BUFFER_SIZE))
+
+  def delete(file: File): Unit = fs.deleteFile(file)
+
+  override def close(): Unit = {
+    if (directory != null) {
+      fs.deleteRecursively(directory)
+      directory = null
+    }
+  }
+}
+
+object SpillFiles {
+  private val BUFFER_SIZE = 64 * 1024
+
+  /**
+    * Spill files of an operator of the query of the given state, in the configured spill directory.
+    */
+  def apply(state: QueryState, prefix: String): SpillFiles =
+    new SpillFiles(state.query.transactionalContext.fileSystem, state.spillConfiguration.directory, prefix)
+}
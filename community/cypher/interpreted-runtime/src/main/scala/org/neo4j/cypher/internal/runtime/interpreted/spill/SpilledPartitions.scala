@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.{DataOutputStream, File}
+
+import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContext
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{ExecutionContextFactory, QueryState}
+
+/**
+  * Rows spilled to disk in a fixed number of partitions, so that each partition can be processed on its own once all
+  * rows have been written. Callers decide which partition a row belongs to, typically using [[SpilledPartitions.partitionOf]]
+  * on the hash of some key, so that all rows with the same key end up in the same partition.
+  *
+  * Partitions are read back in order, and each partition file is deleted as soon as it has been read.
+  */
+class SpilledPartitions(state: QueryState, factory: ExecutionContextFactory, prefix: String) extends AutoCloseable {
+
+  import SpilledPartitions._
+
+  private val serializer = new RowSerializer(state, factory)
+  private val files = SpillFiles(state, prefix)
+  private val partitionFiles = new Array[File](PARTITION_COUNT)
+  private val outputs = new Array[DataOutputStream](PARTITION_COUNT)
+  private val counts = new Array[Long](PARTITION_COUNT)
+  private var _rows = 0L
+  private var closed = false
+
+  state.query.resources.trace(this)
+
+  /**
+    * The total number of rows written to all partitions.
+    */
+  def rows: Long = _rows
+
+  def write(partition: Int, row: ExecutionContext): Unit = {
+    var out = outputs(partition)
+    if (out == null) {
+      partitionFiles(partition) = files.newFile()
+      out = files.openOutput(partitionFiles(partition))
+      outputs(partition) = out
+    }
+    serializer.write(row, out)
+    counts(partition) += 1
+    _rows += 1
+  }
+
+  /**
+    * Finishes writing and returns the rows of each non-empty partition. Only one partition is open at a time, so each
+    * partition must be consumed before moving on to the next one. The spill files are released when the last partition
+    * has been read.
+    */
+  def partitions(): Iterator[Iterator[ExecutionContext]] = {
+    closeOutputs()
+    val nonEmpty = (0 until PARTITION_COUNT).filter(counts(_) > 0)
+    if (nonEmpty.isEmpty) {
+      release()
+    }
+    nonEmpty.iterator.map(index => readPartition(index, isLast = index == nonEmpty.last))
+  }
+
+  override def close(): Unit = {
+    if (!closed) {
+      closed = true
+      closeOutputs()
+      files.close()
+    }
+  }
+
+  private def readPartition(index: Int, isLast: Boolean): Iterator[ExecutionContext] = new Iterator[ExecutionContext] {
+    private val in = files.openInput(partitionFiles(index))
+    private var remaining = counts(index)
+
+    override def hasNext: Boolean = remaining > 0
+
+    override def next(): ExecutionContext = {
+      if (!hasNext) {
+        throw new NoSuchElementException("Spilled partition is exhausted")
+      }
+      val row = serializer.read(in)
+      remaining -= 1
+      if (remaining == 0) {
+        in.close()
+        files.delete(partitionFiles(index))
+        if (isLast) {
+          release()
+        }
+      }
+      row
+    }
+  }
+
+  private def closeOutputs(): Unit = {
+    for (i <- outputs.indices if outputs(i) != null) {
+      outputs(i).close()
+      outputs(i) = null
+    }
+  }
+
+  private def release(): Unit = {
+    if (!closed) {
+      state.query.resources.release(this)
+    }
+  }
+}
+
+object SpilledPartitions {
+  /**
+    * The number of partitions rows are spread over. Kept small, since every partition holds a buffered output stream
+    * while rows are being written.
+    */
+  val PARTITION_COUNT = 16
+
+  /**
+    * The number of times spilled rows may be repartitioned. Operators keep everything in memory at the last level,
+    * which bounds the work spent on keys that keep colliding.
+    */
+  val MAX_LEVEL = 3
+
+  /**
+    * Picks the partition for a key hash. Each level of repartitioning mixes the hash differently, so that keys sharing
+    * a partition at one level are spread out again at the next.
+    */
+  def partitionOf(hash: Int, level: Int): Int = {
+    var h = hash + level * 0x9E3779B9
+    h ^= h >>> 16
+    h *= 0x85EBCA6B
+    h ^= h >>> 13
+    h *= 0xC2B2AE35
+    h ^= h >>> 16
+    h & (PARTITION_COUNT - 1)
+  }
+}
@@ -22,16 +22,19 @@ package org.neo4j.cypher.internal.runtime.interpreted
 import org.mockito.invocation.InvocationOnMock
 import org.mockito.stubbing.Answer
 import org.mockito.{ArgumentMatchers, Mockito}
-import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.{QueryContext, QueryTransactionalContext, ResourceManager}
 import org.neo4j.cypher.internal.runtime.interpreted.TransactionBoundQueryContext.IndexSearchMonitor
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.{ExternalCSVResource, NullPipeDecorator, PipeDecorator, QueryState}
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillConfiguration
 import org.neo4j.graphdb.spatial.Point
 import org.neo4j.graphdb.{Node, Relationship}
+import org.neo4j.io.fs.FileSystemAbstraction
 import org.neo4j.kernel.GraphDatabaseQueryService
 import org.neo4j.kernel.impl.coreapi.{InternalTransaction, PropertyContainerLocker}
 import org.neo4j.kernel.impl.query.Neo4jTransactionalContextFactory
 import org.neo4j.kernel.impl.query.clientconnection.ClientConnectionInfo
 import org.neo4j.kernel.impl.util.BaseToObjectValueWriter
+import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier
 import org.neo4j.kernel.monitoring.{Monitors => KernelMonitors}
 import org.neo4j.values.AnyValue
 import org.neo4j.values.storable.CoordinateReferenceSystem
@@ -48,10 +51,25 @@ object QueryStateHelper {
                 resources: ExternalCSVResource = null,
                 params: MapValue = EMPTY_MAP,
                 decorator: PipeDecorator = NullPipeDecorator,
-                initialContext: Option[ExecutionContext] = None
+                initialContext: Option[ExecutionContext] = None,
+                spillConfiguration: SpillConfiguration = SpillConfiguration.DISABLED,
+                collectionsFactorySupplier: CollectionsFactorySupplier = CollectionsFactorySupplier.ON_HEAP
                ):QueryState =
     new QueryState(query, resources, params, decorator,
-      triadicState = mutable.Map.empty, repeatableReads = mutable.Map.empty, initialContext = initialContext)
+      triadicState = mutable.Map.empty, repeatableReads = mutable.Map.empty, initialContext = initialContext,
+      spillConfiguration = spillConfiguration, collectionsFactorySupplier = collectionsFactorySupplier)
+
+  def emptyWithSpilling(spillConfiguration: SpillConfiguration,
+                        resources: ResourceManager,
+                        fs: FileSystemAbstraction,
+                        decorator: PipeDecorator = NullPipeDecorator): QueryState = {
+    val query = Mockito.mock(classOf[QueryContext])
+    val transactionalContext = Mockito.mock(classOf[QueryTransactionalContext])
+    Mockito.when(query.resources).thenReturn(resources)
+    Mockito.when(query.transactionalContext).thenReturn(transactionalContext)
+    Mockito.when(transactionalContext.fileSystem).thenReturn(fs)
+    emptyWith(query = query, decorator = decorator, spillConfiguration = spillConfiguration)
+  }
 
   private val locker: PropertyContainerLocker = new PropertyContainerLocker
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted
+
+import org.neo4j.cypher.internal.v3_5.expressions.PropertyKeyName
+import org.neo4j.cypher.internal.v3_5.logical.plans.CachedNodeProperty
+import org.neo4j.cypher.internal.v3_5.util.{InputPosition, InternalException}
+import org.neo4j.cypher.internal.v3_5.util.test_helpers.CypherFunSuite
+import org.neo4j.values.storable.BooleanValue
+
+class SlottedExecutionContextTest extends CypherFunSuite {
+
+  private val slots = VariableSlots(Seq("key1", "key2", "n"))
+
+  private def newContext = SlottedExecutionContext(slots)
+
+  test("should assign slots in variable order") {
+    slots.nRefs should equal(3)
+    slots.offsetFor("key1") should equal(0)
+    slots.offsetFor("key2") should equal(1)
+    slots.offsetFor("n") should equal(2)
+    slots.offsetFor("unknown") should equal(-1)
+  }
+
+  test("should not have long slots") {
+    val ctx = newContext
+
+    an[InternalException] should be thrownBy ctx.setLongAt(0, 42L)
+    an[InternalException] should be thrownBy ctx.getLongAt(0)
+  }
+
+  test("should set and get both slotted and unslotted keys") {
+    // given
+    val ctx = newContext
+
+    // when
+    ctx.set("key1", BooleanValue.FALSE, "unslotted", BooleanValue.TRUE)
+
+    // then
+    ctx.contains("key1") should equal(true)
+    ctx.contains("unslotted") should equal(true)
+    ctx.contains("key2") should equal(false)
+    ctx("key1") should equal(BooleanValue.FALSE)
+    ctx("unslotted") should equal(BooleanValue.TRUE)
+    ctx.get("key2") should equal(None)
+    a[NoSuchElementException] should be thrownBy ctx("key2")
+    ctx.getRefAt(slots.offsetFor("key1")) should equal(BooleanValue.FALSE)
+    ctx.size should equal(2)
+    ctx.toMap should equal(Map("key1" -> BooleanValue.FALSE, "unslotted" -> BooleanValue.TRUE))
+  }
+
+  test("should remove both slotted and unslotted keys") {
+    // given
+    val ctx = newContext
+    ctx.set("key1", BooleanValue.FALSE, "unslotted", BooleanValue.TRUE)
+
+    // when
+    ctx -= "key1"
+    ctx -= "unslotted"
+
+    // then
+    ctx.contains("key1") should equal(false)
+    ctx.contains("unslotted") should equal(false)
+    ctx.isEmpty should equal(true)
+  }
+
+  test("create clone") {
+    // given
+    val ctx = newContext.copyWith("key1", BooleanValue.FALSE, "unslotted", BooleanValue.TRUE)
+
+    // when
+    val ctxClone = ctx.createClone()
+
+    // then
+    ctxClone("key1") should equal(BooleanValue.FALSE)
+    ctxClone("unslotted") should equal(BooleanValue.TRUE)
+    ctxClone should not be theSameInstanceAs(ctx)
+
+    mutatingLeftDoesNotAffectRight(ctx, ctxClone)
+  }
+
+  test("copy with should not modify the original") {
+    // given
+    val lhsCtx = newContext.copyWith("key1", BooleanValue.FALSE)
+
+    // when
+    val rhsCtx = lhsCtx.copyWith("key1", BooleanValue.TRUE, "key2", BooleanValue.TRUE, "unslotted", BooleanValue.TRUE)
+
+    // then
+    lhsCtx("key1") should equal(BooleanValue.FALSE)
+    lhsCtx.contains("key2") should equal(false)
+    lhsCtx.contains("unslotted") should equal(false)
+    rhsCtx("key1") should equal(BooleanValue.TRUE)
+    rhsCtx("key2") should equal(BooleanValue.TRUE)
+    rhsCtx("unslotted") should equal(BooleanValue.TRUE)
+
+    mutatingLeftDoesNotAffectRight(lhsCtx, rhsCtx)
+  }
+
+  test("mergeWith should keep keys missing in other") {
+    // given
+    val cachedPropertyKey = prop("n", "key")
+    val lhsCtx = newContext.copyWith("key1", BooleanValue.FALSE)
+    val rhsCtx = newContext.copyWith("key2", BooleanValue.TRUE, "unslotted", BooleanValue.TRUE)
+    rhsCtx.setCachedProperty(cachedPropertyKey, BooleanValue.TRUE)
+
+    // when
+    lhsCtx.mergeWith(rhsCtx, null)
+
+    // then
+    lhsCtx("key1") should equal(BooleanValue.FALSE)
+    lhsCtx("key2") should equal(BooleanValue.TRUE)
+    lhsCtx("unslotted") should equal(BooleanValue.TRUE)
+    lhsCtx.getCachedProperty(cachedPropertyKey) should equal(BooleanValue.TRUE)
+
+    mutatingLeftDoesNotAffectRight(rhsCtx, lhsCtx)
+  }
+
+  test("copyTo should copy into map context") {
+    // given
+    val ctx = newContext.copyWith("key1", BooleanValue.FALSE, "unslotted", BooleanValue.TRUE)
+    val target = ExecutionContext.empty
+
+    // when
+    ctx.copyTo(target)
+
+    // then
+    target.toMap should equal(ctx.toMap)
+  }
+
+  test("slotted factory should copy map context") {
+    // given
+    val factory = pipes.SlottedExecutionContextFactory(slots)
+    val init = ExecutionContext.from("key2" -> BooleanValue.TRUE, "unslotted" -> BooleanValue.FALSE)
+
+    // when
+    val ctx = factory.copyWith(init)
+
+    // then
+    ctx shouldBe a[SlottedExecutionContext]
+    ctx.toMap should equal(init.toMap)
+  }
+
+  private def mutatingLeftDoesNotAffectRight(left: ExecutionContext, right: ExecutionContext): Unit = {
+    // given
+    left should not be theSameInstanceAs(right)
+    val slottedKey = "n"
+    val newKey = "this key should not yet exist in left or right"
+    val newCachedPropertyKey = prop("n", newKey)
+    left.contains(newKey) should equal(false)
+    right.contains(newKey) should equal(false)
+    an[NoSuchElementException] should be thrownBy left.getCachedProperty(newCachedPropertyKey)
+    an[NoSuchElementException] should be thrownBy right.getCachedProperty(newCachedPropertyKey)
+    val rightSlotted = right.get(slottedKey)
+
+    // when (left is modified)
+    left.set(slottedKey, BooleanValue.TRUE)
+    left.set(newKey, BooleanValue.TRUE)
+    left.setCachedProperty(newCachedPropertyKey, BooleanValue.FALSE)
+
+    // then (only left should be modified)
+    left(newKey) should equal(BooleanValue.TRUE)
+    left.getCachedProperty(newCachedPropertyKey) should equal(BooleanValue.FALSE)
+    right.contains(newKey) should equal(false)
+    right.get(slottedKey) should equal(rightSlotted)
+    an[NoSuchElementException] should be thrownBy right.getCachedProperty(newCachedPropertyKey)
+  }
+
+  private def prop(node: String, prop: String) =
+    CachedNodeProperty(node, PropertyKeyName(prop)(InputPosition.NONE))(InputPosition.NONE)
+}
@@ -19,13 +19,16 @@
  */
 package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
+import org.mockito.Mockito.when
+import org.neo4j.cypher.internal.runtime.{QueryContext, ResourceManager}
 import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper
 import org.neo4j.cypher.internal.runtime.interpreted.ValueComparisonHelper._
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.{Expression, Literal, Multiply, Variable}
 import org.neo4j.cypher.internal.v3_5.util.symbols._
 import org.neo4j.cypher.internal.v3_5.util.test_helpers.CypherFunSuite
+import org.neo4j.kernel.impl.util.collection.{CachingOffHeapBlockAllocator, CollectionsFactory, CollectionsFactorySupplier, OffHeapCollectionsFactory}
 import org.neo4j.values.storable.Values.stringArray
-import org.neo4j.values.virtual.MapValue
+import org.neo4j.values.virtual.{MapValue, VirtualValues}
 
 import scala.collection.JavaConverters._
 
@@ -79,6 +82,52 @@ class DistinctPipeTest extends CypherFunSuite {
     result.head("x").asInstanceOf[MapValue].get("prop") should equal(stringArray("a", "b"))
   }
 
+  test("distinct on nodes compares ids") {
+    //GIVEN
+    val pipe = createDistinctPipe(List(
+      Map("x" -> VirtualValues.node(1)),
+      Map("x" -> VirtualValues.node(2)),
+      Map("x" -> VirtualValues.node(1))))
+
+    //WHEN
+    val result = pipe.createResults(QueryStateHelper.empty).toList
+
+    //THEN
+    result.map(_("x")) should equal(List(VirtualValues.node(1), VirtualValues.node(2)))
+  }
+
+  test("distinct treats whole floats as equal to integers") {
+    //GIVEN
+    val pipe = createDistinctPipe(List(Map("x" -> 1), Map("x" -> 1.0), Map("x" -> 1.5), Map("x" -> 1.5), Map("x" -> "1")))
+
+    //WHEN
+    val result = pipe.createResults(QueryStateHelper.empty).toList
+
+    //THEN
+    result should beEquivalentTo(List(Map("x" -> 1), Map("x" -> 1.5), Map("x" -> "1")))
+  }
+
+  test("distinct releases off heap collections when exhausted") {
+    //GIVEN
+    val resources = new ResourceManager
+    val query = mock[QueryContext]
+    when(query.resources).thenReturn(resources)
+    val offHeap = new CollectionsFactorySupplier {
+      override def create(): CollectionsFactory = new OffHeapCollectionsFactory(new CachingOffHeapBlockAllocator)
+    }
+    val state = QueryStateHelper.emptyWith(query = query, collectionsFactorySupplier = offHeap)
+    val pipe = createDistinctPipe((1 to 100).map(i => Map[String, Any]("x" -> i % 10)).toList)
+
+    //WHEN
+    val result = pipe.createResults(state)
+    result.next()
+
+    //THEN
+    resources.allResources should have size 1
+    result.toList should have size 9
+    resources.allResources shouldBe empty
+  }
+
   def createDistinctPipe(input: List[Map[String, Any]], expressions: Map[String, Expression] = Map("x" -> Variable("x"))) = {
     val source = new FakePipe(input, "x" -> CTNumber)
     DistinctPipe(source, expressions)()
@@ -22,6 +22,7 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions._
 import org.neo4j.cypher.internal.runtime.interpreted.commands.values.TokenType.PropertyKey
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillConfiguration
 import org.neo4j.cypher.internal.v3_5.util.symbols._
 import org.neo4j.cypher.internal.v3_5.util.test_helpers.CypherFunSuite
 import org.neo4j.values.AnyValue
@@ -29,7 +30,7 @@ import org.neo4j.values.storable.Values
 import org.neo4j.values.storable.Values.{intValue, longValue, stringValue}
 import org.neo4j.values.virtual.VirtualValues
 
-class EagerAggregationPipeTest extends CypherFunSuite {
+class EagerAggregationPipeTest extends CypherFunSuite with SpillingPipeTestSupport {
 
   private def createReturnItemsFor(names: String*): Map[String, Variable] = names.map(k => k -> Variable(k)).toMap
 
@@ -144,6 +145,39 @@ class EagerAggregationPipeTest extends CypherFunSuite {
     getResults(aggregationPipe) should equal(List(Map("count(name)" -> longValue(3))))
   }
 
+  test("should spill groups beyond the threshold and aggregate them afterwards") {
+    val rows = for (i <- 0 until 3; j <- 0 until 100) yield Map[String, Any]("name" -> s"n$j", "age" -> (i + j))
+    val source = new FakePipe(rows, createSymbolTableFor("name"))
+
+    val grouping = createReturnItemsFor("name")
+    val aggregation = Map("count(*)" -> CountStar(), "sum(age)" -> Sum(Variable("age")))
+    val aggregationPipe = EagerAggregationPipe(source, grouping, aggregation)()
+
+    val (results, spilled) = getSpilledResults(aggregationPipe, SpillConfiguration.DISABLED.copy(aggregationThreshold = 10))
+
+    results.toSet should equal((0 until 100).map(j =>
+      Map[String, AnyValue]("name" -> stringValue(s"n$j"), "count(*)" -> longValue(3), "sum(age)" -> longValue(3 * j + 3))
+    ).toSet)
+    results.take(10).map(_("name")) should equal((0 until 10).map(j => stringValue(s"n$j")))
+    spilled should equal(270)
+  }
+
+  test("should aggregate on node and relationship grouping keys") {
+    val nodes = (0 until 20).map(i => VirtualValues.node(i))
+    val relationship = VirtualValues.relationship(0)
+    val rows = (nodes ++ nodes ++ Seq(relationship, relationship, null)).map(n => Map[String, Any]("n" -> n))
+
+    val grouping = createReturnItemsFor("n")
+    val aggregation = Map("count(*)" -> CountStar())
+    def aggregationPipe = EagerAggregationPipe(new FakePipe(rows, createSymbolTableFor("n")), grouping, aggregation)()
+
+    val expected = nodes.map(n => Map[String, AnyValue]("n" -> n, "count(*)" -> longValue(2))) ++ Seq(
+      Map[String, AnyValue]("n" -> relationship, "count(*)" -> longValue(2)),
+      Map[String, AnyValue]("n" -> Values.NO_VALUE, "count(*)" -> longValue(1)))
+    getResults(aggregationPipe) should equal(expected)
+    getSpilledResults(aggregationPipe, SpillConfiguration.DISABLED.copy(aggregationThreshold = 3))._1.toSet should equal(expected.toSet)
+  }
+
   private def createSymbolTableFor(name: String): (String, CypherType) = name -> CTNode
 
   private def getResults(p: Pipe) = p.createResults(QueryStateHelper.empty).map(_.toMap).toList
@@ -23,6 +23,7 @@ import org.mockito.ArgumentMatchers._
 import org.mockito.invocation.InvocationOnMock
 import org.mockito.stubbing.Answer
 import org.neo4j.cypher.internal.runtime.ImplicitValueConversion._
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillConfiguration
 import org.neo4j.cypher.internal.runtime.interpreted.symbols.SymbolTable
 import org.neo4j.cypher.internal.runtime.interpreted.{ExecutionContext, QueryStateHelper, TestableIterator}
 import org.neo4j.cypher.internal.v3_5.util.symbols._
@@ -31,8 +32,9 @@ import org.neo4j.graphdb.Node
 import org.neo4j.kernel.impl.util.ValueUtils.fromNodeProxy
 import org.neo4j.values.AnyValue
 import org.neo4j.values.storable.Values.{NO_VALUE, intValue}
+import org.neo4j.values.virtual.VirtualValues
 
-class NodeHashJoinPipeTest extends CypherFunSuite {
+class NodeHashJoinPipeTest extends CypherFunSuite with SpillingPipeTestSupport {
 
   import org.mockito.Mockito._
 
@@ -242,6 +244,38 @@ class NodeHashJoinPipeTest extends CypherFunSuite {
     lhsIterator.fetched should equal(0)
   }
 
+  test("should spill both sides when the build side is too large and keep the order of the right hand side") {
+    // given
+    val lhsRows = for (i <- 0 until 50; j <- 0 until 2) yield Map[String, Any]("b" -> VirtualValues.node(i), "a" -> (2 * i + j))
+    val rhsRows = for (i <- 0 until 100) yield Map[String, Any]("b" -> VirtualValues.node(i * 37 % 100), "c" -> i)
+    def pipe = NodeHashJoinPipe(Set("b"), new FakePipe(lhsRows, "b" -> CTNode), new FakePipe(rhsRows, "b" -> CTNode))()
+
+    // when
+    val (result, spilled) = getSpilledResults(pipe, SpillConfiguration.DISABLED.copy(hashJoinThreshold = 7))
+
+    // then
+    result should equal(pipe.createResults(QueryStateHelper.empty).map(_.toMap).toList)
+    result.map(_("c")) should equal((0 until 100).filter(i => i * 37 % 100 < 50).flatMap(i => Seq(intValue(i), intValue(i))))
+    spilled should be >= 200L
+  }
+
+  test("should spill when joining on two different variables") {
+    // given
+    val lhsRows = for (i <- 0 until 30) yield
+      Map[String, Any]("a" -> VirtualValues.node(i % 3), "b" -> VirtualValues.node(i % 5), "c" -> i)
+    val rhsRows = for (i <- 0 until 15) yield
+      Map[String, Any]("a" -> VirtualValues.node(i % 3), "b" -> (if (i == 7) null else VirtualValues.node(i % 5)), "d" -> i)
+    def pipe = NodeHashJoinPipe(Set("a", "b"), new FakePipe(lhsRows, "a" -> CTNode, "b" -> CTNode),
+      new FakePipe(rhsRows, "a" -> CTNode, "b" -> CTNode))()
+
+    // when
+    val (result, _) = getSpilledResults(pipe, SpillConfiguration.DISABLED.copy(hashJoinThreshold = 4))
+
+    // then
+    result should have size 28
+    result should equal(pipe.createResults(QueryStateHelper.empty).map(_.toMap).toList)
+  }
+
   private def row(values: (String, AnyValue)*) = ExecutionContext.from(values: _*)
 
   private def newMockedNode(id: Int) = {
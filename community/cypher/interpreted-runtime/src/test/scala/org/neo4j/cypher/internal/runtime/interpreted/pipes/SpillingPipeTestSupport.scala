@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes
+
+import org.neo4j.cypher.internal.runtime.ResourceManager
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillConfiguration
+import org.neo4j.cypher.internal.runtime.interpreted.{ExecutionContext, QueryStateHelper}
+import org.neo4j.cypher.internal.v3_5.util.test_helpers.CypherFunSuite
+import org.neo4j.io.fs.DefaultFileSystemAbstraction
+import org.neo4j.values.AnyValue
+
+trait SpillingPipeTestSupport {
+  self: CypherFunSuite =>
+
+  /**
+    * Runs the pipe with spilling enabled, and checks that all spill files are gone once the results are consumed.
+    *
+    * @return the results, and the number of rows the pipe spilled to disk
+    */
+  protected def getSpilledResults(pipe: Pipe, spillConfiguration: SpillConfiguration): (List[Map[String, AnyValue]], Long) = {
+    val resources = new ResourceManager
+    val fs = new DefaultFileSystemAbstraction
+    var spilledRows = 0L
+    val decorator = new PipeDecorator {
+      override def decorate(pipe: Pipe, state: QueryState): QueryState = state
+      override def decorate(pipe: Pipe, iter: Iterator[ExecutionContext]): Iterator[ExecutionContext] = iter
+      override def innerDecorator(pipe: Pipe): PipeDecorator = this
+      override def spilled(pipe: Pipe, rows: Long): Unit = spilledRows += rows
+    }
+    try {
+      val state = QueryStateHelper.emptyWithSpilling(spillConfiguration, resources, fs, decorator)
+      val results = pipe.createResults(state).map(_.toMap).toList
+      resources.allResources shouldBe empty
+      (results, spilledRows)
+    } finally {
+      resources.close(success = true)
+      fs.close()
+    }
+  }
+}
@@ -23,6 +23,7 @@ import org.mockito.ArgumentMatchers._
 import org.neo4j.cypher.internal.runtime.ImplicitValueConversion._
 import org.neo4j.cypher.internal.runtime.interpreted.ValueComparisonHelper.beEquivalentTo
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Variable
+import org.neo4j.cypher.internal.runtime.interpreted.spill.SpillConfiguration
 import org.neo4j.cypher.internal.runtime.interpreted.symbols.SymbolTable
 import org.neo4j.cypher.internal.runtime.interpreted.{ExecutionContext, QueryStateHelper, TestableIterator}
 import org.neo4j.cypher.internal.v3_5.util.symbols._
@@ -30,7 +31,7 @@ import org.neo4j.cypher.internal.v3_5.util.test_helpers.CypherFunSuite
 import org.neo4j.values.AnyValue
 import org.neo4j.values.storable.Values.{doubleArray, intArray, intValue}
 
-class ValueHashJoinPipeTest extends CypherFunSuite {
+class ValueHashJoinPipeTest extends CypherFunSuite with SpillingPipeTestSupport {
 
   import org.mockito.Mockito._
 
@@ -180,6 +181,21 @@ class ValueHashJoinPipeTest extends CypherFunSuite {
     result.toList should equal(List(Map("a" -> ints, "b" ->  doubles)))
   }
 
+  test("should spill both sides when the build side is too large and keep the order of the right hand side") {
+    // given
+    val lhsRows = (0 until 60).map(i => Map[String, Any]("a" -> i % 20, "c" -> i)) :+ Map[String, Any]("a" -> null)
+    val rhsRows = (0 until 40).reverse.map(i => Map[String, Any]("b" -> i.toDouble)) :+ Map[String, Any]("b" -> null)
+    def pipe = ValueHashJoinPipe(Variable("a"), Variable("b"), new FakePipe(lhsRows, "a" -> CTInteger),
+      new FakePipe(rhsRows, "b" -> CTFloat))()
+
+    // when
+    val (result, spilled) = getSpilledResults(pipe, SpillConfiguration.DISABLED.copy(hashJoinThreshold = 5))
+
+    // then
+    result should equal(pipe.createResults(QueryStateHelper.empty).map(_.toMap).toList)
+    result.map(_("c")) should equal((0 until 20).reverse.flatMap(i => Seq(intValue(i), intValue(i + 20), intValue(i + 40))))
+    spilled should be >= 100L
+  }
 
   private def row(values: (String, AnyValue)*) = ExecutionContext.from(values: _*)
 
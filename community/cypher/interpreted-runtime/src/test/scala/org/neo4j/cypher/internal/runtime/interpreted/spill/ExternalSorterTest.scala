@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.spill
+
+import java.io.File
+import java.nio.file.Files
+
+import org.neo4j.cypher.internal.runtime.ResourceManager
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.{Ascending, CommunityExecutionContextFactory, ExecutionContextOrdering}
+import org.neo4j.cypher.internal.runtime.interpreted.{ExecutionContext, QueryStateHelper}
+import org.neo4j.cypher.internal.v3_5.util.test_helpers.CypherFunSuite
+import org.neo4j.io.fs.DefaultFileSystemAbstraction
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Values._
+import org.neo4j.values.virtual.VirtualValues
+
+import scala.collection.mutable.ArrayBuffer
+
+class ExternalSorterTest extends CypherFunSuite {
+
+  private val fs = new DefaultFileSystemAbstraction
+  private val resources = new ResourceManager
+  private val comparator = ExecutionContextOrdering.asComparator(Seq(Ascending("x")))
+
+  override protected def afterEach(): Unit = {
+    resources.close(success = true)
+    fs.close()
+    super.afterEach()
+  }
+
+  test("should sort in memory when input fits within the threshold") {
+    val spilled = ArrayBuffer.empty[Long]
+    val sorter = newSorter(threshold = 10, spilled)
+
+    val result = sorter.sort(rows(3, 1, 2)).toList
+
+    result.map(_.getOrElse("x", null)) should equal(List(intValue(1), intValue(2), intValue(3)))
+    spilled shouldBe empty
+  }
+
+  test("should spill runs to disk and merge them in order") {
+    val spilled = ArrayBuffer.empty[Long]
+    val sorter = newSorter(threshold = 4, spilled)
+    val input = scala.util.Random.shuffle((1 to 23).toList)
+
+    val result = sorter.sort(rows(input: _*)).toList
+
+    result.map(_.getOrElse("x", null)) should equal((1 to 23).map(intValue))
+    spilled should equal(Seq(4L, 4L, 4L, 4L, 4L))
+  }
+
+  test("should keep rows that compare as equal in input order") {
+    val sorter = newSorter(threshold = 2, ArrayBuffer.empty[Long])
+    val input = (0 until 9).map(i => row("x" -> intValue(i % 3), "y" -> intValue(i)))
+
+    val result = sorter.sort(input.iterator).toList
+
+    result.map(_.getOrElse("y", null)) should equal(Seq(0, 3, 6, 1, 4, 7, 2, 5, 8).map(intValue))
+  }
+
+  test("should preserve values when rows are read back from disk") {
+    val sorter = newSorter(threshold = 1, ArrayBuffer.empty[Long])
+    val list = VirtualValues.list(stringValue("a"), longArray(Array(1L, 2L)), NO_VALUE)
+    val map = VirtualValues.map(Array("k"), Array[AnyValue](doubleValue(1.5)))
+    val input = Seq(
+      row("x" -> intValue(2), "y" -> map),
+      row("x" -> intValue(1), "y" -> list, "z" -> NO_VALUE))
+
+    val result = sorter.sort(input.iterator).toList
+
+    result.map(_.getOrElse("y", null)) should equal(Seq(list, map))
+    result.head.getOrElse("z", null) should equal(NO_VALUE)
+  }
+
+  test("should release spill files once the result is exhausted") {
+    val sorter = newSorter(threshold = 2, ArrayBuffer.empty[Long])
+
+    val result = sorter.sort(rows(5, 4, 3, 2, 1))
+    resources.allResources.toList should equal(List(sorter))
+    result.toList
+
+    resources.allResources shouldBe empty
+  }
+
+  test("should spill to the configured directory") {
+    val directory = Files.createTempDirectory("spill").toFile
+    try {
+      val sorter = newSorter(threshold = 2, ArrayBuffer.empty[Long], directory)
+
+      val result = sorter.sort(rows(5, 4, 3, 2, 1))
+      val operatorDirectories = directory.listFiles()
+      operatorDirectories should have size 1
+      operatorDirectories.head.listFiles() should not be empty
+      result.toList
+
+      directory.listFiles() shouldBe empty
+    } finally {
+      fs.deleteRecursively(directory)
+    }
+  }
+
+  private def newSorter(threshold: Int, spilled: ArrayBuffer[Long],
+                        directory: File = SpillConfiguration.DISABLED.directory): ExternalSorter = {
+    val spillConfiguration = SpillConfiguration.DISABLED.copy(sortThreshold = threshold, directory = directory)
+    val state = QueryStateHelper.emptyWithSpilling(spillConfiguration, resources, fs)
+    new ExternalSorter(comparator, threshold, state, CommunityExecutionContextFactory(), spilled += _)
+  }
+
+  private def rows(values: Int*): Iterator[ExecutionContext] = values.map(v => row("x" -> intValue(v))).iterator
+
+  private def row(entries: (String, AnyValue)*): ExecutionContext = ExecutionContext.from(entries: _*)
+}
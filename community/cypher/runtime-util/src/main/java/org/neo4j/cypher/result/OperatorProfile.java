@@ -52,6 +52,14 @@ public interface OperatorProfile
      */
     long pageCacheMisses();
 
+    /**
+     * Number of rows this operator had to spill to disk to stay within its memory limit.
+     */
+    default long spilledRows()
+    {
+        return NO_DATA;
+    }
+
     default double pageCacheHitRatio()
     {
         return ( pageCacheHits() == NO_DATA || pageCacheMisses() == NO_DATA ) ?
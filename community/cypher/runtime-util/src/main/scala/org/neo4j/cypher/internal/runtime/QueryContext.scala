@@ -30,10 +30,12 @@ import org.neo4j.graphdb.{Path, PropertyContainer}
 import org.neo4j.internal.kernel.api._
 import org.neo4j.internal.kernel.api.helpers.RelationshipSelectionCursor
 import org.neo4j.internal.kernel.api.procs.ProcedureCallContext
+import org.neo4j.io.fs.FileSystemAbstraction
 import org.neo4j.kernel.api.dbms.DbmsOperations
 import org.neo4j.kernel.impl.api.store.RelationshipIterator
 import org.neo4j.kernel.impl.core.EmbeddedProxySPI
 import org.neo4j.kernel.impl.factory.DatabaseInfo
+import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier
 import org.neo4j.values.AnyValue
 import org.neo4j.values.storable.{TextValue, Value}
 import org.neo4j.values.virtual.{NodeValue, RelationshipValue}
@@ -308,6 +310,13 @@ trait QueryTransactionalContext extends CloseableResource {
   def kernelStatisticProvider: KernelStatisticProvider
 
   def databaseInfo: DatabaseInfo
+
+  def fileSystem: FileSystemAbstraction
+
+  /**
+    * Supplies collections for operators that keep large sets of ids, allocated off heap when transaction state is.
+    */
+  def collectionsFactorySupplier: CollectionsFactorySupplier
 }
 
 trait KernelPredicate[T] {
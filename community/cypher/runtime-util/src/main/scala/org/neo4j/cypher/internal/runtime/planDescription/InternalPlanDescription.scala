@@ -148,6 +148,8 @@ object InternalPlanDescription {
 
     case class PageCacheHitRatio(value: Double) extends Argument
 
+    case class SpilledRows(value: Long) extends Argument
+
     case class ColumnsLeft(value: Seq[String]) extends Argument
 
     case class Expression(value: ast.Expression) extends Argument
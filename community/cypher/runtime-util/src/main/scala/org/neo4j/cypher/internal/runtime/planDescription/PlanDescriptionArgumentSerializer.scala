@@ -60,6 +60,7 @@ object PlanDescriptionArgumentSerializer {
       case PageCacheHits(value) => Long.box(value)
       case PageCacheMisses(value) => Long.box(value)
       case PageCacheHitRatio(value) => Double.box(value)
+      case SpilledRows(value) => Long.box(value)
       case _: EntityByIdRhs => arg.toString
       case Rows(value) => Long.box(value)
       case Time(value) => Long.box(value)
@@ -35,12 +35,13 @@ object renderAsTreeTable extends (InternalPlanDescription => String) {
   private val PAGE_CACHE_MISSES = "Page Cache Misses"
   private val PAGE_CACHE_HIT_RATIO = "Page Cache Hit Ratio"
   private val TIME = "Time (ms)"
+  private val SPILLED_ROWS = "Spilled Rows"
   private val ORDER = "Order"
   val VARIABLES = "Variables"
   val MAX_VARIABLE_COLUMN_WIDTH = 100
   private val OTHER = "Other"
   private val HEADERS = Seq(OPERATOR, ESTIMATED_ROWS, ROWS, HITS, PAGE_CACHE_HITS, PAGE_CACHE_MISSES, PAGE_CACHE_HIT_RATIO, TIME,
-    ORDER, VARIABLES, OTHER)
+    SPILLED_ROWS, ORDER, VARIABLES, OTHER)
   private val newLine = System.lineSeparator()
 
   def apply(plan: InternalPlanDescription): String = {
@@ -151,6 +152,7 @@ object renderAsTreeTable extends (InternalPlanDescription => String) {
     case PageCacheMisses(count) => mapping(PAGE_CACHE_MISSES, Right(count.toString), columns)
     case PageCacheHitRatio(ratio) => mapping(PAGE_CACHE_HIT_RATIO, Right("%.4f".format(ratio)), columns)
     case Time(nanos) => mapping(TIME, Right("%.3f".format(nanos/1000000.0)), columns)
+    case SpilledRows(count) => mapping(SPILLED_ROWS, Right(count.toString), columns)
     case Order(providedOrder) => mapping(ORDER, Left(PlanDescriptionArgumentSerializer.serializeProvidedOrder(providedOrder)), columns)
     case _ => None
   }.toMap + (
@@ -182,6 +184,7 @@ object renderAsTreeTable extends (InternalPlanDescription => String) {
         !x.isInstanceOf[SourceCode] &&
         !x.isInstanceOf[ByteCode] &&
         !x.isInstanceOf[Time] &&
+        !x.isInstanceOf[SpilledRows] &&
         !x.isInstanceOf[RuntimeImpl] &&
         !x.isInstanceOf[Version] => PlanDescriptionArgumentSerializer.serialize(x)
     }
@@ -42,13 +42,16 @@ import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.impl.store.MetaDataStore;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.format.standard.StandardCompressedV3_5;
 import org.neo4j.kernel.impl.store.format.standard.StandardV2_3;
+import org.neo4j.kernel.impl.store.format.standard.StandardV3_4;
 import org.neo4j.test.mockito.matcher.RootCauseMatcher;
 import org.neo4j.test.rule.PageCacheRule;
 import org.neo4j.test.rule.TestDirectory;
 import org.neo4j.test.rule.fs.DefaultFileSystemRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -173,6 +176,28 @@ public class StoreInfoCommandTest
                 outCaptor.getAllValues() );
     }
 
+    @Test
+    public void readsCompressedStoreVersionWithoutSuccessor() throws Exception
+    {
+        prepareNeoStoreFile( StandardCompressedV3_5.RECORD_FORMATS.storeVersion() );
+
+        execute( databaseDirectory.toString() );
+
+        verify( out, times( 2 ) ).accept( outCaptor.capture() );
+
+        assertEquals(
+                Arrays.asList(
+                        "Store format version:         v0.A.9c",
+                        "Store format introduced in:   3.5.10" ),
+                outCaptor.getAllValues() );
+    }
+
+    @Test
+    public void compressedFormatIsNotSuccessorOfStandardFormat()
+    {
+        assertFalse( RecordFormatSelector.findSuccessor( StandardV3_4.RECORD_FORMATS ).isPresent() );
+    }
+
     @Test
     public void throwsOnUnknownVersion() throws Exception
     {
@@ -29,6 +29,11 @@ import java.nio.ByteBuffer;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -50,8 +55,14 @@ import static org.neo4j.index.internal.gbptree.Generation.unstableGeneration;
 import static org.neo4j.index.internal.gbptree.GenerationSafePointer.MIN_GENERATION;
 import static org.neo4j.index.internal.gbptree.Header.CARRY_OVER_PREVIOUS_HEADER;
 import static org.neo4j.index.internal.gbptree.Header.replace;
+import static org.neo4j.index.internal.gbptree.KeySearch.isHit;
+import static org.neo4j.index.internal.gbptree.KeySearch.positionOf;
 import static org.neo4j.index.internal.gbptree.PageCursorUtil.checkOutOfBounds;
 import static org.neo4j.index.internal.gbptree.PointerChecking.assertNoSuccessor;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.NO_NEED_DEFRAG;
+import static org.neo4j.index.internal.gbptree.TreeNode.Overflow.YES;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.INTERNAL;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
 
 /**
  * A generation-aware B+tree (GB+Tree) implementation directly atop a {@link PageCache} with no caching in between.
@@ -77,6 +88,7 @@ import static org.neo4j.index.internal.gbptree.PointerChecking.assertNoSuccessor
  * <p>
  * A single writer w/ multiple concurrent readers is supported. Assuming usage adheres to this
  * constraint neither writer nor readers are blocking. Readers are virtually garbage-free.
+ * Alternatively multiple {@link #parallelWriter() parallel writers} can modify the tree concurrently, see {@link ParallelWriter}.
  * <p>
  * An reader of GB+Tree is a {@link SeekCursor} that returns result as it finds them.
  * As the cursor move over keys/values, returned results are considered "behind" it
@@ -319,6 +331,25 @@ public class GBPTree<KEY,VALUE> implements Closeable
      */
     private final GBPTreeLock lock = new GBPTreeLock();
 
+    /**
+     * Coordinates {@link ParallelWriter parallel writers}. Changes contained within a single leaf are made holding the read lock
+     * and the {@link #leafLatches latch} of that leaf, whereas structural changes, i.e. anything else, are made holding the write lock.
+     */
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+
+    /**
+     * Striped latches guarding leaves modified by {@link ParallelWriter parallel writers} holding the read lock of
+     * {@link #structureLock}. A writer holds at most one such latch at any given time and so striping can't cause deadlocks.
+     */
+    private final Lock[] leafLatches = newLeafLatches( 128 );
+
+    /**
+     * Number of open {@link ParallelWriter parallel writers} of each thread. A thread that opens another parallel writer
+     * while holding one must not wait for a writer waiting for the {@link #lock writer lock}, since that writer in turn waits
+     * for the parallel writer the thread already holds.
+     */
+    private final ThreadLocal<AtomicInteger> parallelWritersOfThread = ThreadLocal.withInitial( AtomicInteger::new );
+
     /**
      * Page size, i.e. tree node size, of the tree nodes in this tree. The page size is determined on
      * tree creation, stored in meta page and read when opening tree later.
@@ -500,7 +531,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
             }
             this.bTreeNode = format.create( pageSize, layout );
             this.freeList = new FreeListIdProvider( pagedFile, pageSize, rootId, FreeListIdProvider.NO_MONITOR );
-            this.writer = new SingleWriter( new InternalTreeLogic<>( freeList, bTreeNode, layout, monitor ) );
+            this.writer = new SingleWriter();
 
             // Create or load state
             if ( created )
@@ -1094,6 +1125,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
     /**
      * Returns a {@link Writer} able to modify the index, i.e. insert and remove keys/values.
      * After usage the returned writer must be closed, typically by using try-with-resource clause.
+     * Callers wanting to modify the index from multiple threads concurrently should use {@link #parallelWriter()} instead.
      *
      * @param ratioToKeepInLeftOnSplit Decide how much to keep in left node on split, 0=keep nothing, 0.5=split 50-50, 1=keep everything.
      * @return the single {@link Writer} for this index. The returned writer must be
@@ -1111,6 +1143,47 @@ public class GBPTree<KEY,VALUE> implements Closeable
         return writer;
     }
 
+    /**
+     * Use default value for ratioToKeepInLeftOnSplit
+     * @see GBPTree#parallelWriter(double)
+     */
+    public Writer<KEY,VALUE> parallelWriter() throws IOException
+    {
+        return parallelWriter( InternalTreeLogic.DEFAULT_SPLIT_RATIO );
+    }
+
+    /**
+     * Returns a new {@link Writer} able to modify the index, concurrently with other writers returned from this method.
+     * Writers modifying different leaves don't block each other, see {@link ParallelWriter}.
+     * After usage the returned writer must be closed, typically by using try-with-resource clause.
+     * A parallel writer can not be acquired while the {@link #writer() single writer} is acquired and vice versa,
+     * the caller will then block until the other writer(s) are closed. A thread already holding a parallel writer
+     * can acquire more of them without blocking, even while a {@link #checkpoint(IOLimiter) checkpoint} waits for the writers to close.
+     *
+     * @param ratioToKeepInLeftOnSplit Decide how much to keep in left node on split, 0=keep nothing, 0.5=split 50-50, 1=keep everything.
+     * @return a new {@link Writer} for this index, used by a single thread.
+     * @throws IOException on error accessing the index.
+     */
+    public Writer<KEY,VALUE> parallelWriter( double ratioToKeepInLeftOnSplit ) throws IOException
+    {
+        assertNotReadOnly( "Open tree writer." );
+        assertRecoveryCleanSuccessful();
+        ParallelWriter parallelWriter = new ParallelWriter();
+        parallelWriter.initialize( ratioToKeepInLeftOnSplit );
+        changesSinceLastCheckpoint = true;
+        return parallelWriter;
+    }
+
+    private static Lock[] newLeafLatches( int stripes )
+    {
+        Lock[] latches = new Lock[stripes];
+        for ( int i = 0; i < stripes; i++ )
+        {
+            latches[i] = new ReentrantLock();
+        }
+        return latches;
+    }
+
     private void setRoot( long rootId, long rootGeneration )
     {
         this.root = new Root( rootId, rootGeneration );
@@ -1288,29 +1361,103 @@ public class GBPTree<KEY,VALUE> implements Closeable
         Exceptions.withMessage( e, e.getMessage() + " | " + toString() );
     }
 
-    private class SingleWriter implements Writer<KEY,VALUE>
+    /**
+     * Applies changes using the {@link InternalTreeLogic}, which assumes that no other writer is making changes to the tree at the same time.
+     */
+    private abstract class TreeWriter implements Writer<KEY,VALUE>
     {
-        /**
-         * Currently an index only supports one concurrent writer and so this boolean will act as
-         * guard so that only one writer ever exist.
-         */
-        private final AtomicBoolean writerTaken = new AtomicBoolean();
-        private final InternalTreeLogic<KEY,VALUE> treeLogic;
-        private final StructurePropagation<KEY> structurePropagation;
-        private PageCursor cursor;
+        final InternalTreeLogic<KEY,VALUE> treeLogic;
+        final StructurePropagation<KEY> structurePropagation;
+        PageCursor cursor;
 
         // Writer can't live past a checkpoint because of the mutex with checkpoint,
         // therefore safe to locally cache these generation fields from the volatile generation in the tree
-        private long stableGeneration;
-        private long unstableGeneration;
-        private double ratioToKeepInLeftOnSplit;
+        long stableGeneration;
+        long unstableGeneration;
+        double ratioToKeepInLeftOnSplit;
 
-        SingleWriter( InternalTreeLogic<KEY,VALUE> treeLogic )
+        TreeWriter()
         {
             this.structurePropagation = new StructurePropagation<>( layout.newKey(), layout.newKey(), layout.newKey() );
-            this.treeLogic = treeLogic;
+            this.treeLogic = new InternalTreeLogic<>( freeList, bTreeNode, layout, monitor );
+        }
+
+        void initializeCursor( double ratioToKeepInLeftOnSplit ) throws IOException
+        {
+            cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK );
+            stableGeneration = stableGeneration( generation );
+            unstableGeneration = unstableGeneration( generation );
+            this.ratioToKeepInLeftOnSplit = ratioToKeepInLeftOnSplit;
+            assert assertNoSuccessor( cursor, stableGeneration, unstableGeneration );
+            treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+        }
+
+        void doMerge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger ) throws IOException
+        {
+            treeLogic.insert( cursor, structurePropagation, key, value, valueMerger,
+                    stableGeneration, unstableGeneration );
+
+            handleStructureChanges();
+        }
+
+        VALUE doRemove( KEY key ) throws IOException
+        {
+            VALUE result = treeLogic.remove( cursor, structurePropagation, key, layout.newValue(),
+                    stableGeneration, unstableGeneration );
+
+            handleStructureChanges();
+            return result;
+        }
+
+        private void setRoot( long rootPointer )
+        {
+            long rootId = GenerationSafePointerPair.pointer( rootPointer );
+            GBPTree.this.setRoot( rootId, unstableGeneration );
+            treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+        }
+
+        private void handleStructureChanges() throws IOException
+        {
+            if ( structurePropagation.hasRightKeyInsert )
+            {
+                // New root
+                long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration );
+                PageCursorUtil.goTo( cursor, "new root", newRootId );
+
+                bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+                bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
+                        stableGeneration, unstableGeneration );
+                bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
+                        stableGeneration, unstableGeneration );
+                TreeNode.setKeyCount( cursor, 1 );
+                setRoot( newRootId );
+                monitor.treeGrowth();
+            }
+            else if ( structurePropagation.hasMidChildUpdate )
+            {
+                setRoot( structurePropagation.midChild );
+            }
+            structurePropagation.clear();
         }
 
+        void closeCursor()
+        {
+            if ( cursor != null )
+            {
+                cursor.close();
+                cursor = null;
+            }
+        }
+    }
+
+    private class SingleWriter extends TreeWriter
+    {
+        /**
+         * Currently an index only supports one concurrent writer and so this boolean will act as
+         * guard so that only one writer ever exist.
+         */
+        private final AtomicBoolean writerTaken = new AtomicBoolean();
+
         /**
          * When leaving initialize, writer should be in a fully consistent state.
          * <p>
@@ -1343,12 +1490,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
             try
             {
                 lock.writerLock();
-                cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK );
-                stableGeneration = stableGeneration( generation );
-                unstableGeneration = unstableGeneration( generation );
-                this.ratioToKeepInLeftOnSplit = ratioToKeepInLeftOnSplit;
-                assert assertNoSuccessor( cursor, stableGeneration, unstableGeneration );
-                treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+                initializeCursor( ratioToKeepInLeftOnSplit );
                 success = true;
             }
             catch ( Throwable e )
@@ -1376,10 +1518,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
         {
             try
             {
-                treeLogic.insert( cursor, structurePropagation, key, value, valueMerger,
-                        stableGeneration, unstableGeneration );
-
-                handleStructureChanges();
+                doMerge( key, value, valueMerger );
             }
             catch ( IOException e )
             {
@@ -1395,23 +1534,161 @@ public class GBPTree<KEY,VALUE> implements Closeable
             checkOutOfBounds( cursor );
         }
 
-        private void setRoot( long rootPointer )
+        @Override
+        public VALUE remove( KEY key )
         {
-            long rootId = GenerationSafePointerPair.pointer( rootPointer );
-            GBPTree.this.setRoot( rootId, unstableGeneration );
-            treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+            VALUE result;
+            try
+            {
+                result = doRemove( key );
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+
+            checkOutOfBounds( cursor );
+            return result;
+        }
+
+        @Override
+        public void close()
+        {
+            if ( !writerTaken.compareAndSet( true, false ) )
+            {
+                throw new IllegalStateException( "Tried to close writer of " + GBPTree.this +
+                        ", but writer is already closed." );
+            }
+            closeCursor();
+            lock.writerUnlock();
+        }
+    }
+
+    /**
+     * One of possibly many concurrent writers, each used by a single thread. Changes are first tried optimistically:
+     * the writer descends the tree to the leaf where the change belongs, without any latches since internal nodes
+     * are only changed under the write lock of {@link #structureLock}, and latches that leaf only. If the change fits in the leaf,
+     * i.e. it doesn't split or underflow the leaf and the leaf is of the unstable generation so that no successor needs to be
+     * created, it's made right there. Otherwise the writer takes the write lock of {@link #structureLock}, excluding all other
+     * writers, and makes the change the same way the {@link SingleWriter} does.
+     * <p>
+     * Value mergers may be invoked more than once for the same change, if the merged value doesn't fit in place of the existing value.
+     */
+    private class ParallelWriter extends TreeWriter
+    {
+        private final KEY readKey = layout.newKey();
+        private final VALUE readValue = layout.newValue();
+        private VALUE removedValue;
+        private boolean closed = true;
+        private AtomicInteger parallelWritersOfOwner;
+
+        void initialize( double ratioToKeepInLeftOnSplit ) throws IOException
+        {
+            parallelWritersOfOwner = parallelWritersOfThread.get();
+            if ( parallelWritersOfOwner.get() > 0 )
+            {
+                lock.additionalParallelWriterLock();
+            }
+            else
+            {
+                lock.parallelWriterLock();
+            }
+            parallelWritersOfOwner.incrementAndGet();
+            closed = false;
+            boolean success = false;
+            try
+            {
+                initializeCursor( ratioToKeepInLeftOnSplit );
+                success = true;
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void put( KEY key, VALUE value )
+        {
+            merge( key, value, ValueMergers.overwrite() );
+        }
+
+        @Override
+        public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger )
+        {
+            assertOpen();
+            try
+            {
+                bTreeNode.validateKeyValueSize( key, value );
+                if ( !tryMergeInLeaf( key, value, valueMerger ) )
+                {
+                    Lock structureWriteLock = structureLock.writeLock();
+                    structureWriteLock.lock();
+                    try
+                    {
+                        moveToRoot();
+                        doMerge( key, value, valueMerger );
+                    }
+                    finally
+                    {
+                        structureWriteLock.unlock();
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable t )
+            {
+                appendTreeInformation( t );
+                throw t;
+            }
+
+            checkOutOfBounds( cursor );
         }
 
         @Override
         public VALUE remove( KEY key )
         {
+            assertOpen();
             VALUE result;
             try
             {
-                result = treeLogic.remove( cursor, structurePropagation, key, layout.newValue(),
-                        stableGeneration, unstableGeneration );
-
-                handleStructureChanges();
+                if ( tryRemoveFromLeaf( key ) )
+                {
+                    result = removedValue;
+                    removedValue = null;
+                }
+                else
+                {
+                    Lock structureWriteLock = structureLock.writeLock();
+                    structureWriteLock.lock();
+                    try
+                    {
+                        moveToRoot();
+                        result = doRemove( key );
+                    }
+                    finally
+                    {
+                        structureWriteLock.unlock();
+                    }
+                }
             }
             catch ( IOException e )
             {
@@ -1428,50 +1705,179 @@ public class GBPTree<KEY,VALUE> implements Closeable
             return result;
         }
 
-        private void handleStructureChanges() throws IOException
+        /**
+         * @return {@code true} if the change could be made in the leaf, otherwise {@code false} and nothing has been changed.
+         */
+        private boolean tryMergeInLeaf( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger ) throws IOException
         {
-            if ( structurePropagation.hasRightKeyInsert )
+            Lock structureReadLock = structureLock.readLock();
+            structureReadLock.lock();
+            try
             {
-                // New root
-                long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration );
-                PageCursorUtil.goTo( cursor, "new root", newRootId );
+                moveToLeaf( key );
+                Lock leafLatch = leafLatch( cursor.getCurrentPageId() );
+                leafLatch.lock();
+                try
+                {
+                    if ( TreeNode.generation( cursor ) != unstableGeneration )
+                    {
+                        // Needs a successor
+                        return false;
+                    }
+
+                    int keyCount = TreeNode.keyCount( cursor );
+                    int search = search( key, LEAF, keyCount );
+                    int pos = positionOf( search );
+                    if ( isHit( search ) )
+                    {
+                        bTreeNode.valueAt( cursor, readValue, pos );
+                        VALUE mergedValue = valueMerger.merge( readKey, key, readValue, value );
+                        return mergedValue == null || bTreeNode.setValueAt( cursor, mergedValue, pos );
+                    }
+
+                    TreeNode.Overflow overflow = bTreeNode.leafOverflow( cursor, keyCount, key, value );
+                    if ( overflow == YES )
+                    {
+                        // Needs a split
+                        return false;
+                    }
+                    if ( overflow == NO_NEED_DEFRAG )
+                    {
+                        bTreeNode.defragmentLeaf( cursor );
+                    }
+                    bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount );
+                    TreeNode.setKeyCount( cursor, keyCount + 1 );
+                    return true;
+                }
+                finally
+                {
+                    leafLatch.unlock();
+                }
+            }
+            finally
+            {
+                structureReadLock.unlock();
+            }
+        }
 
-                bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
-                bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
-                        stableGeneration, unstableGeneration );
-                bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild, 0, 0,
-                        stableGeneration, unstableGeneration );
-                TreeNode.setKeyCount( cursor, 1 );
-                setRoot( newRootId );
-                monitor.treeGrowth();
+        /**
+         * @return {@code true} if the change could be made in the leaf, with the removed value, if any, in {@link #removedValue},
+         * otherwise {@code false} and nothing has been changed.
+         */
+        private boolean tryRemoveFromLeaf( KEY key ) throws IOException
+        {
+            Lock structureReadLock = structureLock.readLock();
+            structureReadLock.lock();
+            try
+            {
+                boolean isRoot = moveToLeaf( key );
+                Lock leafLatch = leafLatch( cursor.getCurrentPageId() );
+                leafLatch.lock();
+                try
+                {
+                    int keyCount = TreeNode.keyCount( cursor );
+                    int search = search( key, LEAF, keyCount );
+                    if ( !isHit( search ) )
+                    {
+                        removedValue = null;
+                        return true;
+                    }
+
+                    int pos = positionOf( search );
+                    if ( TreeNode.generation( cursor ) != unstableGeneration ||
+                            (!isRoot && bTreeNode.leafUnderflowAfterRemove( cursor, keyCount, pos )) )
+                    {
+                        // Needs a successor or rebalancing/merging with a sibling
+                        return false;
+                    }
+
+                    VALUE into = layout.newValue();
+                    bTreeNode.valueAt( cursor, into, pos );
+                    bTreeNode.removeKeyValueAt( cursor, pos, keyCount );
+                    TreeNode.setKeyCount( cursor, keyCount - 1 );
+                    removedValue = into;
+                    return true;
+                }
+                finally
+                {
+                    leafLatch.unlock();
+                }
             }
-            else if ( structurePropagation.hasMidChildUpdate )
+            finally
             {
-                setRoot( structurePropagation.midChild );
+                structureReadLock.unlock();
             }
-            structurePropagation.clear();
         }
 
-        @Override
-        public void close()
+        /**
+         * Moves the cursor from the root down to the leaf where {@code key} belongs. Internal nodes can't change while
+         * holding the read lock of {@link #structureLock}, so no latches are needed on the way down.
+         *
+         * @return whether or not the leaf is also the root.
+         */
+        private boolean moveToLeaf( KEY key ) throws IOException
         {
-            if ( !writerTaken.compareAndSet( true, false ) )
+            root.goTo( cursor );
+            boolean isRoot = true;
+            while ( TreeNode.isInternal( cursor ) )
             {
-                throw new IllegalStateException( "Tried to close writer of " + GBPTree.this +
-                        ", but writer is already closed." );
+                int keyCount = TreeNode.keyCount( cursor );
+                int search = search( key, INTERNAL, keyCount );
+                int childPos = positionOf( search );
+                if ( isHit( search ) )
+                {
+                    childPos++;
+                }
+                long childId = bTreeNode.childAt( cursor, childPos, stableGeneration, unstableGeneration );
+                PointerChecking.checkPointer( childId, false );
+                TreeNode.goTo( cursor, "child", childId );
+                isRoot = false;
             }
-            closeCursor();
-            lock.writerUnlock();
+            return isRoot;
         }
 
-        private void closeCursor()
+        private int search( KEY key, TreeNode.Type type, int keyCount )
         {
-            if ( cursor != null )
+            int searchResult = KeySearch.search( cursor, bTreeNode, type, key, readKey, keyCount );
+            KeySearch.assertSuccess( searchResult );
+            return searchResult;
+        }
+
+        /**
+         * Other writers may have changed the tree since this writer last held the write lock, so start over from the root.
+         */
+        private void moveToRoot() throws IOException
+        {
+            root.goTo( cursor );
+            treeLogic.initialize( cursor, ratioToKeepInLeftOnSplit );
+        }
+
+        private Lock leafLatch( long leafId )
+        {
+            return leafLatches[(int) (leafId & (leafLatches.length - 1))];
+        }
+
+        private void assertOpen()
+        {
+            if ( closed )
             {
-                cursor.close();
-                cursor = null;
+                throw new IllegalStateException( "Writer of " + GBPTree.this + " is already closed." );
             }
         }
+
+        @Override
+        public void close()
+        {
+            if ( closed )
+            {
+                throw new IllegalStateException( "Tried to close writer of " + GBPTree.this +
+                        ", but writer is already closed." );
+            }
+            closed = true;
+            closeCursor();
+            parallelWritersOfOwner.decrementAndGet();
+            lock.parallelWriterUnlock();
+        }
     }
 
     public boolean wasDirtyOnStartup()
@@ -29,6 +29,13 @@ class GBPTreeLock
     private static final long stateOffset = UnsafeUtil.getFieldOffset( GBPTreeLock.class, "state" );
     private static final long writerLockBit = 0x00000000_00000001L;
     private static final long cleanerLockBit = 0x00000000_00000002L;
+    // Set while someone waits for the writer lock. New parallel writers wait for it to be cleared, so that a steady
+    // stream of overlapping parallel writers can't starve e.g. a checkpoint waiting for the writer lock.
+    private static final long writerWaitingBit = 0x00000000_00000004L;
+    // Remaining bits count the number of parallel writers holding the lock, which is shared between them
+    // but mutually exclusive with the writer lock.
+    private static final long parallelWriterUnit = 0x00000000_00000008L;
+    private static final long parallelWritersMask = ~(writerLockBit | cleanerLockBit | writerWaitingBit);
     private volatile long state;
 
     // Used for testing
@@ -49,6 +56,57 @@ class GBPTreeLock
         doUnlock( writerLockBit );
     }
 
+    /**
+     * Acquires the lock shared between parallel writers. Waits while the writer lock is either held or waited for,
+     * so a thread that already holds a parallel writer lock must use {@link #additionalParallelWriterLock()} instead.
+     */
+    void parallelWriterLock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            while ( (currentState & (writerLockBit | writerWaitingBit)) != 0 )
+            {
+                sleep();
+                currentState = state;
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState + parallelWriterUnit ) );
+    }
+
+    /**
+     * Acquires the lock shared between parallel writers for a thread that already holds it. Doesn't wait for a waiting
+     * writer, which can't get the writer lock before this thread releases the parallel writer lock it already holds.
+     */
+    void additionalParallelWriterLock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            if ( (currentState & parallelWritersMask) == 0 )
+            {
+                throw new IllegalStateException( "Can not lock additional parallel writer when no parallel writer is locked" );
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState + parallelWriterUnit ) );
+    }
+
+    void parallelWriterUnlock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            if ( (currentState & parallelWritersMask) == 0 )
+            {
+                throw new IllegalStateException( "Can not unlock lock that is already locked" );
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState - parallelWriterUnit ) );
+    }
+
     void cleanerLock()
     {
         doLock( cleanerLockBit );
@@ -78,11 +136,17 @@ class GBPTreeLock
             currentState = state;
             while ( !canLock( currentState, targetLockBit ) )
             {
+                if ( (targetLockBit & writerLockBit) != 0 && (currentState & parallelWritersMask) != 0 && (currentState & writerWaitingBit) == 0 )
+                {
+                    // Failing to set it is fine, it will be set in the next round unless someone else has
+                    UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState | writerWaitingBit );
+                }
                 // sleep
                 sleep();
                 currentState = state;
             }
-            newState = currentState | targetLockBit;
+            // Any other waiting writer sets the waiting bit again in its next round
+            newState = (currentState | targetLockBit) & ~writerWaitingBit;
         } while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, newState ) );
     }
 
@@ -104,7 +168,8 @@ class GBPTreeLock
 
     private boolean canLock( long state, long targetLockBit )
     {
-        return (state & targetLockBit) == 0;
+        boolean blockedByParallelWriters = (targetLockBit & writerLockBit) != 0 && (state & parallelWritersMask) != 0;
+        return (state & targetLockBit) == 0 && !blockedByParallelWriters;
     }
 
     private boolean canUnlock( long state, long targetLockBit )
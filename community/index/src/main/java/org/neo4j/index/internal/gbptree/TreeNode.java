@@ -346,6 +346,12 @@ abstract class TreeNode<KEY,VALUE>
 
     abstract boolean leafUnderflow( PageCursor cursor, int keyCount );
 
+    /**
+     * Would removing the key/value at {@code pos} make this leaf underflow? Same as calling {@link #leafUnderflow(PageCursor, int)}
+     * after the removal, but without modifying the leaf.
+     */
+    abstract boolean leafUnderflowAfterRemove( PageCursor cursor, int keyCount, int pos );
+
     /**
      * How do we best rebalance left and right leaf?
      * Can we move keys from underflowing left to right so that none of them underflow?
@@ -591,6 +591,14 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return availableSpace > halfSpace;
     }
 
+    @Override
+    boolean leafUnderflowAfterRemove( PageCursor cursor, int keyCount, int pos )
+    {
+        // Removing frees up the offset array slot and turns the key/value into dead space
+        int availableSpace = getAllocSpace( cursor, keyCount, LEAF ) + getDeadSpace( cursor ) + totalSpaceOfKeyValue( cursor, pos );
+        return availableSpace > halfSpace;
+    }
+
     @Override
     int canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
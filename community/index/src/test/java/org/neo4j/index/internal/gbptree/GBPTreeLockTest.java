@@ -31,6 +31,7 @@ import org.neo4j.helpers.collection.Pair;
 import org.neo4j.test.Race;
 import org.neo4j.test.rule.concurrent.OtherThreadRule;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -50,6 +51,8 @@ public class GBPTreeLockTest
 
     @Rule
     public final OtherThreadRule<Void> executor = new OtherThreadRule<>();
+    @Rule
+    public final OtherThreadRule<Void> secondExecutor = new OtherThreadRule<>();
 
     @Test
     public void test_UU_UL_UU() throws Exception
@@ -161,6 +164,135 @@ public class GBPTreeLockTest
         assertOnlyOneSucceeds( lock::writerAndCleanerLock, lock::writerAndCleanerLock );
     }
 
+    @Test
+    public void parallelWritersMustNotBlockEachOther() throws Throwable
+    {
+        assertBothSucceeds( lock::parallelWriterLock, lock::parallelWriterLock );
+    }
+
+    @Test
+    public void parallelWriterMustNotBlockCleaner() throws Throwable
+    {
+        assertBothSucceeds( lock::cleanerLock, lock::parallelWriterLock );
+    }
+
+    @Test( timeout = 10_000 )
+    public void test_race_LUvsParallelWriter() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::writerLock, lock::parallelWriterLock );
+    }
+
+    @Test( timeout = 10_000 )
+    public void test_race_LLvsParallelWriter() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::writerAndCleanerLock, lock::parallelWriterLock );
+    }
+
+    @Test
+    public void parallelWritersMustBlockWriterUntilAllUnlocked() throws Exception
+    {
+        // given
+        lock.parallelWriterLock();
+        lock.parallelWriterLock();
+
+        // then
+        copy = lock.copy();
+        assertBlock( copy::writerLock, () ->
+        {
+            copy.parallelWriterUnlock();
+            copy.parallelWriterUnlock();
+        } );
+        copy = lock.copy();
+        assertBlock( copy::writerAndCleanerLock, () ->
+        {
+            copy.parallelWriterUnlock();
+            copy.parallelWriterUnlock();
+        } );
+    }
+
+    @Test
+    public void writerMustBlockParallelWriter() throws Exception
+    {
+        // given
+        lock.writerLock();
+
+        // then
+        copy = lock.copy();
+        assertBlock( copy::parallelWriterLock, copy::writerUnlock, "parallelWriterLock" );
+        copy.parallelWriterUnlock();
+        assertThrow( copy::parallelWriterUnlock );
+    }
+
+    @Test
+    public void waitingWriterMustBlockNewParallelWriters() throws Exception
+    {
+        // given
+        lock.parallelWriterLock();
+        Future<Object> checkpoint = executor.execute( state ->
+        {
+            lock.writerAndCleanerLock();
+            return null;
+        } );
+        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "doLock" ) );
+
+        // when
+        Future<Object> parallelWriter = secondExecutor.execute( state ->
+        {
+            lock.parallelWriterLock();
+            return null;
+        } );
+        secondExecutor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "parallelWriterLock" ) );
+
+        // then
+        lock.parallelWriterUnlock();
+        checkpoint.get();
+        assertFalse( parallelWriter.isDone() );
+        lock.writerAndCleanerUnlock();
+        parallelWriter.get();
+        lock.parallelWriterUnlock();
+        assertUU();
+    }
+
+    @Test
+    public void additionalParallelWriterLockMustNotBlockOnWaitingWriter() throws Exception
+    {
+        // given
+        lock.parallelWriterLock();
+        Future<Object> checkpoint = executor.execute( state ->
+        {
+            lock.writerAndCleanerLock();
+            return null;
+        } );
+        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "doLock" ) );
+
+        // when
+        lock.additionalParallelWriterLock();
+
+        // then
+        lock.parallelWriterUnlock();
+        assertFalse( checkpoint.isDone() );
+        lock.parallelWriterUnlock();
+        checkpoint.get();
+        lock.writerAndCleanerUnlock();
+        assertUU();
+    }
+
+    @Test
+    public void additionalParallelWriterLockMustThrowIfNoParallelWriterLocked()
+    {
+        assertThrow( lock::additionalParallelWriterLock );
+        lock.writerLock();
+        assertThrow( lock::additionalParallelWriterLock );
+    }
+
+    @Test
+    public void parallelWriterUnlockMustThrowIfNotLocked()
+    {
+        assertThrow( lock::parallelWriterUnlock );
+        lock.writerLock();
+        assertThrow( lock::parallelWriterUnlock );
+    }
+
     private void assertOnlyOneSucceeds( Runnable lockAction1, Runnable lockAction2 ) throws Throwable
     {
         assertUU();
@@ -260,13 +392,18 @@ public class GBPTreeLockTest
     }
 
     private void assertBlock( Runnable runLock, Runnable runUnlock ) throws Exception
+    {
+        assertBlock( runLock, runUnlock, "doLock" );
+    }
+
+    private void assertBlock( Runnable runLock, Runnable runUnlock, String lockMethod ) throws Exception
     {
         Future<Object> future = executor.execute( state ->
         {
             runLock.run();
             return null;
         } );
-        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "doLock" ) );
+        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, lockMethod ) );
         runUnlock.run();
         future.get();
     }
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.test.Race.throwing;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+/**
+ * Lets a number of {@link GBPTree#parallelWriter() parallel writers} modify the same tree concurrently, for a range of
+ * thread counts, and verifies that the tree contains exactly the expected entries and is consistent afterwards.
+ * Writers either work in disjoint key ranges, mostly touching different leaves, or on interleaved keys, mostly contending
+ * for the same leaves.
+ */
+public abstract class GBPTreeParallelWriterITBase<KEY,VALUE>
+{
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int KEYS_PER_THREAD = 2_000;
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final RandomRule random = new RandomRule();
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule ).around( random );
+
+    private TestLayout<KEY,VALUE> layout;
+    private PageCache pageCache;
+
+    protected abstract TestLayout<KEY,VALUE> getLayout( RandomRule random );
+
+    @Test
+    public void shouldInsertAndRemoveInDisjointRangesConcurrently() throws Throwable
+    {
+        for ( int threads : THREAD_COUNTS )
+        {
+            shouldInsertAndRemoveConcurrently( threads, false );
+        }
+    }
+
+    @Test
+    public void shouldInsertAndRemoveInterleavedKeysConcurrently() throws Throwable
+    {
+        for ( int threads : THREAD_COUNTS )
+        {
+            shouldInsertAndRemoveConcurrently( threads, true );
+        }
+    }
+
+    @Test
+    public void shouldMergeIntoSameKeysConcurrently() throws Throwable
+    {
+        for ( int threads : THREAD_COUNTS )
+        {
+            // given
+            int keys = 100;
+            int rounds = 50;
+            try ( GBPTree<KEY,VALUE> index = createIndex( "merge-" + threads ) )
+            {
+                ValueMerger<KEY,VALUE> adder = ( existingKey, newKey, existingValue, newValue ) ->
+                        layout.value( layout.valueSeed( existingValue ) + layout.valueSeed( newValue ) );
+
+                // when
+                Race race = new Race();
+                race.addContestants( threads, throwing( () ->
+                {
+                    try ( Writer<KEY,VALUE> writer = index.parallelWriter() )
+                    {
+                        for ( int round = 0; round < rounds; round++ )
+                        {
+                            for ( long seed = 0; seed < keys; seed++ )
+                            {
+                                writer.merge( layout.key( seed ), layout.value( 1 ), adder );
+                            }
+                        }
+                    }
+                } ) );
+                race.go();
+
+                // then
+                Map<Long,Long> expected = new TreeMap<>();
+                for ( long seed = 0; seed < keys; seed++ )
+                {
+                    expected.put( seed, (long) threads * rounds );
+                }
+                assertContents( index, expected );
+            }
+        }
+    }
+
+    @Test
+    public void singleWriterShouldSeeChangesFromClosedParallelWriters() throws Throwable
+    {
+        // given
+        try ( GBPTree<KEY,VALUE> index = createIndex( "index" ) )
+        {
+            Race race = new Race();
+            for ( int i = 0; i < 4; i++ )
+            {
+                long base = i * KEYS_PER_THREAD;
+                race.addContestant( throwing( () ->
+                {
+                    try ( Writer<KEY,VALUE> writer = index.parallelWriter() )
+                    {
+                        for ( long seed = base; seed < base + KEYS_PER_THREAD; seed++ )
+                        {
+                            writer.put( layout.key( seed ), layout.value( seed ) );
+                        }
+                    }
+                } ) );
+            }
+            race.go();
+
+            // when
+            Map<Long,Long> expected = new TreeMap<>();
+            try ( Writer<KEY,VALUE> writer = index.writer() )
+            {
+                for ( long seed = 0; seed < 4 * KEYS_PER_THREAD; seed++ )
+                {
+                    if ( seed % 2 == 0 )
+                    {
+                        writer.remove( layout.key( seed ) );
+                    }
+                    else
+                    {
+                        expected.put( seed, seed );
+                    }
+                }
+            }
+
+            // then
+            assertContents( index, expected );
+        }
+    }
+
+    private void shouldInsertAndRemoveConcurrently( int threads, boolean interleaved ) throws Throwable
+    {
+        try ( GBPTree<KEY,VALUE> index = createIndex( (interleaved ? "interleaved-" : "disjoint-") + threads ) )
+        {
+            // given
+            long totalKeys = (long) threads * KEYS_PER_THREAD;
+            Race race = new Race();
+            for ( int i = 0; i < threads; i++ )
+            {
+                int thread = i;
+                race.addContestant( throwing( () ->
+                {
+                    try ( Writer<KEY,VALUE> writer = index.parallelWriter() )
+                    {
+                        // when
+                        for ( int j = 0; j < KEYS_PER_THREAD; j++ )
+                        {
+                            long seed = seed( thread, j, threads, interleaved );
+                            writer.put( layout.key( seed ), layout.value( seed ) );
+                        }
+                        for ( int j = 0; j < KEYS_PER_THREAD; j += 3 )
+                        {
+                            long seed = seed( thread, j, threads, interleaved );
+                            VALUE removed = writer.remove( layout.key( seed ) );
+                            assertEquals( seed, layout.valueSeed( removed ) );
+                        }
+                    }
+                } ) );
+            }
+            race.go();
+
+            // then
+            Map<Long,Long> expected = new TreeMap<>();
+            for ( int thread = 0; thread < threads; thread++ )
+            {
+                for ( int j = 0; j < KEYS_PER_THREAD; j++ )
+                {
+                    if ( j % 3 != 0 )
+                    {
+                        long seed = seed( thread, j, threads, interleaved );
+                        expected.put( seed, seed );
+                    }
+                }
+            }
+            assertTrue( expected.size() < totalKeys );
+            assertContents( index, expected );
+        }
+    }
+
+    private static long seed( int thread, int j, int threads, boolean interleaved )
+    {
+        return interleaved ? (long) j * threads + thread : (long) thread * KEYS_PER_THREAD + j;
+    }
+
+    private GBPTree<KEY,VALUE> createIndex( String name ) throws IOException
+    {
+        if ( pageCache == null )
+        {
+            int pageSize = 512;
+            layout = getLayout( random );
+            pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( pageSize ).withAccessChecks( true ) );
+        }
+        return new GBPTreeBuilder<>( pageCache, directory.file( name ), layout ).build();
+    }
+
+    private void assertContents( GBPTree<KEY,VALUE> index, Map<Long,Long> expected ) throws IOException
+    {
+        index.consistencyCheck();
+        try ( RawCursor<Hit<KEY,VALUE>,IOException> seek = index.seek( layout.key( Long.MIN_VALUE ), layout.key( Long.MAX_VALUE ) ) )
+        {
+            for ( Map.Entry<Long,Long> entry : expected.entrySet() )
+            {
+                assertTrue( "Expected key " + entry.getKey(), seek.next() );
+                assertEquals( entry.getKey().longValue(), layout.keySeed( seek.get().key() ) );
+                assertEquals( entry.getValue().longValue(), layout.valueSeed( seek.get().value() ) );
+            }
+            assertFalse( seek.next() );
+        }
+    }
+}
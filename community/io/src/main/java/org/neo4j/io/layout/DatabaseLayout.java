@@ -97,6 +97,11 @@ public class DatabaseLayout
         return file( DatabaseFile.LABEL_SCAN_STORE.getName() );
     }
 
+    public File relationshipTypeScanStore()
+    {
+        return file( DatabaseFile.RELATIONSHIP_TYPE_SCAN_STORE.getName() );
+    }
+
     public File countStoreA()
     {
         return file( DatabaseFile.COUNTS_STORE_A.getName() );
@@ -107,6 +112,11 @@ public class DatabaseLayout
         return file( DatabaseFile.COUNTS_STORE_B.getName() );
     }
 
+    public File countStoreTree()
+    {
+        return file( DatabaseFile.COUNTS_STORE_TREE.getName() );
+    }
+
     public File propertyStringStore()
     {
         return file( DatabaseFile.PROPERTY_STRING_STORE.getName() );
@@ -28,11 +28,18 @@ import org.neo4j.memory.MemoryAllocationTracker;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.io.ByteUnit.kibiBytes;
+import static org.neo4j.io.ByteUnit.mebiBytes;
 import static org.neo4j.util.FeatureToggles.getInteger;
 
 /**
  * This memory allocator is allocating memory in large segments, called "grabs", and the memory returned by the memory
  * manager is page aligned, and plays well with transparent huge pages and other operating system optimisations.
+ * <p>
+ * In huge page mode, the grabs are much larger, and aligned to the size of transparent huge pages, so that the
+ * operating system can back all of them with huge pages. Whether it does so depends on the transparent huge page
+ * mode of the kernel, and on the memory that is available. Likewise, the NUMA placement of the grabs is left to the
+ * memory policy of the process, e.g. as set by {@code numactl --interleave=all}. What was actually obtained is
+ * {@link #describeAllocatedMemory() described} for diagnostics.
  */
 public final class GrabAllocator implements MemoryAllocator
 {
@@ -52,7 +59,20 @@ public final class GrabAllocator implements MemoryAllocator
      */
     GrabAllocator( long expectedMaxMemory, MemoryAllocationTracker memoryTracker )
     {
-        this.grabs = new Grabs( expectedMaxMemory, memoryTracker );
+        this( expectedMaxMemory, false, memoryTracker );
+    }
+
+    /**
+     * Create a new GrabAllocator that will allocate the given amount of memory, optionally in huge page mode.
+     * @param expectedMaxMemory The maximum amount of memory that this memory manager is expected to allocate.
+     * @param hugePages {@code true} to grab memory in large regions that are aligned to the huge page size.
+     * @param memoryTracker memory usage tracker
+     */
+    GrabAllocator( long expectedMaxMemory, boolean hugePages, MemoryAllocationTracker memoryTracker )
+    {
+        this.grabs = hugePages
+                     ? new Grabs( expectedMaxMemory, Grabs.HUGE_PAGE_GRAB_SIZE, Grabs.HUGE_PAGE_SIZE, memoryTracker )
+                     : new Grabs( expectedMaxMemory, Grabs.GRAB_SIZE, 1, memoryTracker );
         try
         {
             CleanerHandles handles = findCleanerHandles();
@@ -83,6 +103,12 @@ public final class GrabAllocator implements MemoryAllocator
         return grabs.allocateAligned( bytes, alignment );
     }
 
+    @Override
+    public synchronized String describeAllocatedMemory()
+    {
+        return grabs.describe();
+    }
+
     @Override
     public void close()
     {
@@ -99,30 +125,37 @@ public final class GrabAllocator implements MemoryAllocator
     private static class Grab
     {
         public final Grab next;
+        private final long allocatedAddress;
+        private final long allocatedSize;
         private final long address;
         private final long limit;
         private final MemoryAllocationTracker memoryTracker;
         private long nextPointer;
 
-        Grab( Grab next, long size, MemoryAllocationTracker memoryTracker )
+        Grab( Grab next, long size, long grabAlignment, MemoryAllocationTracker memoryTracker )
         {
             this.next = next;
-            this.address = UnsafeUtil.allocateMemory( size, memoryTracker );
+            // Over-allocate so that the usable part of the grab can start at the grab alignment.
+            this.allocatedSize = grabAlignment == 1 ? size : size + grabAlignment;
+            this.allocatedAddress = UnsafeUtil.allocateMemory( allocatedSize, memoryTracker );
+            this.address = nextAligned( allocatedAddress, grabAlignment );
             this.limit = address + size;
             this.memoryTracker = memoryTracker;
             nextPointer = address;
         }
 
-        Grab( Grab next, long address, long limit, long nextPointer, MemoryAllocationTracker memoryTracker )
+        Grab( Grab next, Grab grab )
         {
             this.next = next;
-            this.address = address;
-            this.limit = limit;
-            this.nextPointer = nextPointer;
-            this.memoryTracker = memoryTracker;
+            this.allocatedAddress = grab.allocatedAddress;
+            this.allocatedSize = grab.allocatedSize;
+            this.address = grab.address;
+            this.limit = grab.limit;
+            this.nextPointer = grab.nextPointer;
+            this.memoryTracker = grab.memoryTracker;
         }
 
-        private long nextAligned( long pointer, long alignment )
+        private static long nextAligned( long pointer, long alignment )
         {
             if ( alignment == 1 )
             {
@@ -145,7 +178,7 @@ public final class GrabAllocator implements MemoryAllocator
 
         void free()
         {
-            UnsafeUtil.free( address, limit - address, memoryTracker );
+            UnsafeUtil.free( allocatedAddress, allocatedSize, memoryTracker );
         }
 
         boolean canAllocate( long bytes, long alignment )
@@ -155,7 +188,7 @@ public final class GrabAllocator implements MemoryAllocator
 
         Grab setNext( Grab grab )
         {
-            return new Grab( grab, address, limit, nextPointer, memoryTracker );
+            return new Grab( grab, this );
         }
 
         @Override
@@ -174,14 +207,26 @@ public final class GrabAllocator implements MemoryAllocator
          * The amount of memory, in bytes, to grab in each Grab.
          */
         private static final long GRAB_SIZE = getInteger( GrabAllocator.class, "GRAB_SIZE", (int) kibiBytes( 512 ) );
+        /**
+         * The amount of memory, in bytes, to grab in each Grab in huge page mode.
+         */
+        private static final long HUGE_PAGE_GRAB_SIZE = getInteger( GrabAllocator.class, "HUGE_PAGE_GRAB_SIZE", (int) mebiBytes( 32 ) );
+        /**
+         * The size of transparent huge pages, which the grabs are aligned to in huge page mode.
+         */
+        private static final long HUGE_PAGE_SIZE = getInteger( GrabAllocator.class, "HUGE_PAGE_SIZE", (int) mebiBytes( 2 ) );
 
         private final MemoryAllocationTracker memoryTracker;
+        private final long grabSize;
+        private final long grabAlignment;
         private long expectedMaxMemory;
         private Grab head;
 
-        Grabs( long expectedMaxMemory, MemoryAllocationTracker memoryTracker )
+        Grabs( long expectedMaxMemory, long grabSize, long grabAlignment, MemoryAllocationTracker memoryTracker )
         {
             this.expectedMaxMemory = expectedMaxMemory;
+            this.grabSize = grabSize;
+            this.grabAlignment = grabAlignment;
             this.memoryTracker = memoryTracker;
         }
 
@@ -208,6 +253,25 @@ public final class GrabAllocator implements MemoryAllocator
             return Math.max( expectedMaxMemory, 0L ) + availableInCurrentGrab;
         }
 
+        String describe()
+        {
+            int count = 0;
+            for ( Grab grab = head; grab != null; grab = grab.next )
+            {
+                count++;
+            }
+            long[] starts = new long[count];
+            long[] ends = new long[count];
+            int i = 0;
+            for ( Grab grab = head; grab != null; grab = grab.next, i++ )
+            {
+                starts[i] = grab.address;
+                ends[i] = grab.limit;
+            }
+            return String.format( "%d grabs of up to %d bytes aligned to %d bytes, %d bytes used, %s",
+                    count, grabSize, grabAlignment, usedMemory(), MemoryPlacement.of( starts, ends ) );
+        }
+
         public void close()
         {
             Grab current = head;
@@ -226,18 +290,18 @@ public final class GrabAllocator implements MemoryAllocator
             {
                 throw new IllegalArgumentException( "Invalid alignment: " + alignment + ". Alignment must be positive." );
             }
-            long grabSize = Math.min( GRAB_SIZE, expectedMaxMemory );
-            if ( bytes > GRAB_SIZE )
+            long grabSize = Math.min( this.grabSize, expectedMaxMemory );
+            if ( bytes > this.grabSize )
             {
                 // This is a huge allocation. Put it in its own grab and keep any existing grab at the head.
                 grabSize = bytes;
                 Grab nextGrab = head == null ? null : head.next;
-                Grab allocationGrab = new Grab( nextGrab, grabSize, memoryTracker );
+                Grab allocationGrab = new Grab( nextGrab, grabSize, grabAlignment, memoryTracker );
                 if ( !allocationGrab.canAllocate( bytes, alignment ) )
                 {
                     allocationGrab.free();
                     grabSize = bytes + alignment;
-                    allocationGrab = new Grab( nextGrab, grabSize, memoryTracker );
+                    allocationGrab = new Grab( nextGrab, grabSize, grabAlignment, memoryTracker );
                 }
                 long allocation = allocationGrab.allocate( bytes, alignment );
                 head = head == null ? allocationGrab : head.setNext( allocationGrab );
@@ -250,7 +314,7 @@ public final class GrabAllocator implements MemoryAllocator
                 if ( grabSize < bytes )
                 {
                     grabSize = bytes;
-                    Grab grab = new Grab( head, grabSize, memoryTracker );
+                    Grab grab = new Grab( head, grabSize, grabAlignment, memoryTracker );
                     if ( grab.canAllocate( bytes, alignment ) )
                     {
                         expectedMaxMemory -= grabSize;
@@ -260,7 +324,7 @@ public final class GrabAllocator implements MemoryAllocator
                     grab.free();
                     grabSize = bytes + alignment;
                 }
-                head = new Grab( head, grabSize, memoryTracker );
+                head = new Grab( head, grabSize, grabAlignment, memoryTracker );
                 expectedMaxMemory -= grabSize;
             }
             return head.allocate( bytes, alignment );
@@ -32,6 +32,16 @@ public interface MemoryAllocator
         return new GrabAllocator( ByteUnit.parse( expectedMemory ), memoryTracker );
     }
 
+    /**
+     * Create an allocator that grabs memory in large regions, aligned to the size of transparent huge pages.
+     *
+     * @see GrabAllocator
+     */
+    static MemoryAllocator createHugePageAllocator( String expectedMemory, MemoryAllocationTracker memoryTracker )
+    {
+        return new GrabAllocator( ByteUnit.parse( expectedMemory ), true, memoryTracker );
+    }
+
     /**
      * @return The sum, in bytes, of all the memory currently allocating through this allocator.
      */
@@ -51,6 +61,14 @@ public interface MemoryAllocator
      */
     long allocateAligned( long bytes, long alignment );
 
+    /**
+     * @return A description of the memory allocated so far, and how the operating system has backed it, for diagnostics.
+     */
+    default String describeAllocatedMemory()
+    {
+        return usedMemory() + " bytes used";
+    }
+
     /**
      * Close all allocated resources and free all allocated memory.
      * Closing can happen by calling close explicitly or by GC as soon as allocator will become phantom reachable.
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.mem;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.neo4j.io.ByteUnit.kibiBytes;
+
+/**
+ * How a set of native memory ranges is backed by the operating system: how much of it is resident, how much is
+ * backed by transparent huge pages, and how it is spread over the NUMA nodes.
+ * <p>
+ * This is read from {@code /proc/self/smaps} and {@code /proc/self/numa_maps}, so it is only available on Linux.
+ * Elsewhere, nothing is known about the memory, and the placement is {@link #isKnown() unknown}.
+ */
+public final class MemoryPlacement
+{
+    private static final File SMAPS = new File( "/proc/self/smaps" );
+    private static final File NUMA_MAPS = new File( "/proc/self/numa_maps" );
+    private static final File TRANSPARENT_HUGE_PAGES = new File( "/sys/kernel/mm/transparent_hugepage/enabled" );
+    private static final File NUMA_NODES = new File( "/sys/devices/system/node" );
+    private static final Pattern SMAPS_MAPPING = Pattern.compile( "^([0-9a-f]+)-([0-9a-f]+) .*" );
+    private static final Pattern SMAPS_FIELD = Pattern.compile( "^(\\w+):\\s+(\\d+) kB" );
+    private static final Pattern NUMA_NODE_PAGES = Pattern.compile( "N(\\d+)=(\\d+)" );
+    private static final Pattern NUMA_PAGE_SIZE = Pattern.compile( "kernelpagesize_kB=(\\d+)" );
+
+    private final boolean known;
+    private long residentBytes;
+    private long hugePageBytes;
+    private final Map<Integer,Long> bytesPerNode = new TreeMap<>();
+
+    private MemoryPlacement( boolean known )
+    {
+        this.known = known;
+    }
+
+    /**
+     * Find out how the given ranges of memory are backed. Mappings of the process that overlap a range count in full,
+     * since that is the granularity the operating system reports at.
+     *
+     * @param starts the start addresses of the ranges.
+     * @param ends the end addresses, exclusive, of the ranges.
+     * @return the placement of the memory, which is unknown if it could not be read from the operating system.
+     */
+    public static MemoryPlacement of( long[] starts, long[] ends )
+    {
+        if ( !SMAPS.canRead() )
+        {
+            return new MemoryPlacement( false );
+        }
+        MemoryPlacement placement = new MemoryPlacement( true );
+        try
+        {
+            Set<Long> mappings = placement.readSmaps( starts, ends );
+            if ( NUMA_MAPS.canRead() )
+            {
+                placement.readNumaMaps( mappings );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            return new MemoryPlacement( false );
+        }
+        return placement;
+    }
+
+    /**
+     * @return the transparent huge page mode of the kernel, e.g. "always", "madvise" or "never", or {@code null} if it
+     * is not known.
+     */
+    public static String transparentHugePageMode()
+    {
+        try ( BufferedReader reader = new BufferedReader( new FileReader( TRANSPARENT_HUGE_PAGES ) ) )
+        {
+            String line = reader.readLine();
+            int start = line == null ? -1 : line.indexOf( '[' );
+            int end = line == null ? -1 : line.indexOf( ']' );
+            return start != -1 && end > start ? line.substring( start + 1, end ) : null;
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of NUMA nodes of the machine, or zero if it is not known.
+     */
+    public static int numaNodeCount()
+    {
+        String[] nodes = NUMA_NODES.list( ( dir, name ) -> name.matches( "node\\d+" ) );
+        return nodes == null ? 0 : nodes.length;
+    }
+
+    public boolean isKnown()
+    {
+        return known;
+    }
+
+    public long residentBytes()
+    {
+        return residentBytes;
+    }
+
+    public long hugePageBytes()
+    {
+        return hugePageBytes;
+    }
+
+    public Map<Integer,Long> bytesPerNode()
+    {
+        return bytesPerNode;
+    }
+
+    /**
+     * @return the start addresses of the mappings that overlap the given ranges.
+     */
+    private Set<Long> readSmaps( long[] starts, long[] ends ) throws IOException
+    {
+        Set<Long> mappings = new HashSet<>();
+        try ( BufferedReader reader = new BufferedReader( new FileReader( SMAPS ) ) )
+        {
+            boolean inRange = false;
+            String line;
+            while ( (line = reader.readLine()) != null )
+            {
+                Matcher mapping = SMAPS_MAPPING.matcher( line );
+                if ( mapping.matches() )
+                {
+                    long start = Long.parseUnsignedLong( mapping.group( 1 ), 16 );
+                    inRange = overlaps( start, Long.parseUnsignedLong( mapping.group( 2 ), 16 ), starts, ends );
+                    if ( inRange )
+                    {
+                        mappings.add( start );
+                    }
+                    continue;
+                }
+                Matcher field = SMAPS_FIELD.matcher( line );
+                if ( inRange && field.find() )
+                {
+                    String name = field.group( 1 );
+                    long bytes = kibiBytes( Long.parseLong( field.group( 2 ) ) );
+                    if ( name.equals( "Rss" ) )
+                    {
+                        residentBytes += bytes;
+                    }
+                    else if ( name.equals( "AnonHugePages" ) )
+                    {
+                        hugePageBytes += bytes;
+                    }
+                }
+            }
+        }
+        return mappings;
+    }
+
+    private void readNumaMaps( Set<Long> mappings ) throws IOException
+    {
+        try ( BufferedReader reader = new BufferedReader( new FileReader( NUMA_MAPS ) ) )
+        {
+            String line;
+            while ( (line = reader.readLine()) != null )
+            {
+                int space = line.indexOf( ' ' );
+                if ( space == -1 )
+                {
+                    continue;
+                }
+                // numa_maps only gives the start of each mapping, so we match them up with the mappings found in smaps.
+                if ( !mappings.contains( Long.parseUnsignedLong( line.substring( 0, space ), 16 ) ) )
+                {
+                    continue;
+                }
+                Matcher pageSize = NUMA_PAGE_SIZE.matcher( line );
+                long bytesPerPage = pageSize.find() ? kibiBytes( Long.parseLong( pageSize.group( 1 ) ) ) : kibiBytes( 4 );
+                Matcher nodePages = NUMA_NODE_PAGES.matcher( line );
+                while ( nodePages.find() )
+                {
+                    int node = Integer.parseInt( nodePages.group( 1 ) );
+                    long bytes = Long.parseLong( nodePages.group( 2 ) ) * bytesPerPage;
+                    bytesPerNode.merge( node, bytes, Long::sum );
+                }
+            }
+        }
+    }
+
+    private static boolean overlaps( long start, long end, long[] starts, long[] ends )
+    {
+        for ( int i = 0; i < starts.length; i++ )
+        {
+            if ( start < ends[i] && starts[i] < end )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        if ( !known )
+        {
+            return "unknown placement";
+        }
+        return String.format( "%d bytes resident, %d bytes in transparent huge pages, bytes per NUMA node %s",
+                residentBytes, hugePageBytes, bytesPerNode );
+    }
+}
@@ -137,4 +137,13 @@ public interface PageCache extends AutoCloseable
      * tracer, and reporting the events collected within it.
      */
     void reportEvents();
+
+    /**
+     * Set the barrier that is called before this page cache writes modified pages to their files, replacing any
+     * barrier set before. Pages are written without a barrier until one is set, or after it's reset to
+     * {@link PageWriteBarrier#NONE}.
+     *
+     * @param barrier the barrier to call before writing pages.
+     */
+    void setWriteBarrier( PageWriteBarrier barrier );
 }
@@ -38,5 +38,12 @@ public enum PageCacheOpenOptions implements OpenOption
     /**
      * Mapped file will only use a single channel, overriding the otherwise configured striping amount, e.g. one channel per core.
      */
-    NO_CHANNEL_STRIPING
+    NO_CHANNEL_STRIPING,
+
+    /**
+     * Read the pages of the mapped file from a memory mapping of the file, instead of through file channel IO.
+     * This makes page faults cheaper for read-mostly files that fit in the memory of the operating system.
+     * Page swappers that cannot memory map files ignore this option.
+     */
+    MEMORY_MAPPED
 }
@@ -84,6 +84,26 @@ public interface PageSwapperFactory
             boolean createIfNotExist,
             boolean noChannelStriping ) throws IOException;
 
+    /**
+     * Create a PageSwapper for the given file, that reads the file through a memory mapping rather than through
+     * file channel IO, if this factory and its file system support that.
+     * <p>
+     * Factories that cannot memory map files create an ordinary PageSwapper with
+     * {@link #createPageSwapper(File, int, PageEvictionCallback, boolean, boolean)}.
+     *
+     * @see #createPageSwapper(File, int, PageEvictionCallback, boolean, boolean)
+     * @see PageCacheOpenOptions#MEMORY_MAPPED
+     */
+    default PageSwapper createMemoryMappedPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist,
+            boolean noChannelStriping ) throws IOException
+    {
+        return createPageSwapper( file, filePageSize, onEviction, createIfNotExist, noChannelStriping );
+    }
+
     /**
      * Forces all prior writes made through all non-closed PageSwappers that this factory has created, to all the
      * relevant devices, such that the writes are durable when this call returns.
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache;
+
+import java.io.IOException;
+
+/**
+ * Called by the page cache before it writes modified pages to their files, whether they are flushed or evicted.
+ * <p>
+ * A database that only forces its transaction log now and then uses this to make sure the log reaches the disk before
+ * the store changes it describes, so that recovery can always redo them.
+ * <p>
+ * The barrier is called while the pages are locked, so it must not wait for anything that could itself be waiting to
+ * access a page.
+ */
+@FunctionalInterface
+public interface PageWriteBarrier
+{
+    PageWriteBarrier NONE = () ->
+    {
+    };
+
+    /**
+     * Make whatever must be durable before pages are written, durable.
+     *
+     * @throws IOException if that could not be done, in which case the pages are not written.
+     */
+    void beforePageWrite() throws IOException;
+}
@@ -60,8 +60,12 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * Once a cursor with this flag has pinned a few consecutive pages, its page faults will also fault in a number of
+     * the pages that follow, with a single vectored read. The number of pages read ahead grows while the access stays
+     * sequential, and is reset by random access. Cursors that only ever pin single pages are not affected.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
      * Do not load in the page if it is not loaded already. The methods {@link PageCursor#next()} and
      * {@link PageCursor#next(long)} will always return {@code true} for pages that are within the range of the file,
@@ -73,9 +77,13 @@ public interface PagedFile extends AutoCloseable
      */
     int PF_NO_FAULT = 1 << 4;
     /**
-     * Do not update page access statistics.
+     * Scan hint: do not update page access statistics.
+     * <p>
+     * Pages that are only touched by cursors with this flag are not considered recently used, and will be the first
+     * to be evicted. Use this for cursors that scan through large parts of a file, so the scan does not push the hot
+     * pages of other workloads out of the page cache.
      */
-    int PF_TRANSIENT = 1 << 5; // TBD
+    int PF_TRANSIENT = 1 << 5;
     /**
      * Flush pages more aggressively, after they have been dirtied by a write cursor.
      */
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.io.fs.StoreFileChannelUnwrapper;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A {@link SingleFilePageSwapper} that reads pages from memory mapped segments of the file, instead of reading them
+ * through the file channel.
+ * <p>
+ * A page fault then costs a copy out of the OS page cache, instead of a system call and a copy. This pays off for
+ * read-mostly files that fit in memory. Writes still go through the file channel, and become visible in the mappings
+ * through the OS page cache.
+ * <p>
+ * The file is mapped in segments of whole file pages. A segment that does not cover the end of its part of the file,
+ * because the file has grown since it was mapped, is mapped again once the file has grown to at least twice the mapped
+ * size, or the segment has been filled. Pages that are not covered by a mapping are read through the file channel.
+ * Mappings are only released when the swapper is closed or truncated, since concurrent page faults may still be
+ * copying out of a mapping that has been replaced.
+ * <p>
+ * If the file system does not give us a real file channel, then nothing is mapped, and the swapper behaves exactly
+ * like a {@link SingleFilePageSwapper}.
+ */
+public class MappedFilePageSwapper extends SingleFilePageSwapper
+{
+    private static final long SEGMENT_SIZE_TARGET = Math.min( Integer.MAX_VALUE, Long.getLong(
+            "org.neo4j.io.pagecache.impl.MappedFilePageSwapper.segmentSize", 1L << 30 ) );
+
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final int filePageSize;
+    private final long pagesPerSegment;
+    private final long segmentSize;
+    private final List<MappedByteBuffer> retiredSegments = new ArrayList<>();
+    private StoreChannel mappingChannel;
+    private boolean closed;
+    private volatile boolean mappingUnsupported;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    public MappedFilePageSwapper( File file, FileSystemAbstraction fs, int filePageSize, PageEvictionCallback onEviction,
+            boolean noChannelStriping ) throws IOException
+    {
+        super( file, fs, filePageSize, onEviction, noChannelStriping );
+        this.fs = fs;
+        this.file = file;
+        this.filePageSize = filePageSize;
+        this.pagesPerSegment = Math.max( 1, SEGMENT_SIZE_TARGET / filePageSize );
+        this.segmentSize = pagesPerSegment * filePageSize;
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress, int bufferSize ) throws IOException
+    {
+        long pageAddress = mappedPageAddress( filePageId );
+        if ( pageAddress == 0 )
+        {
+            return super.read( filePageId, bufferAddress, bufferSize );
+        }
+        UnsafeUtil.copyMemory( pageAddress, bufferAddress, filePageSize );
+        return filePageSize;
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length ) throws IOException
+    {
+        long bytesRead = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageAddress = mappedPageAddress( startFilePageId + i );
+            if ( pageAddress == 0 )
+            {
+                // The rest of the pages are beyond what we have mapped, so read them through the channel in one go.
+                return bytesRead + super.read( startFilePageId + i, bufferAddresses, bufferSize, arrayOffset + i, length - i );
+            }
+            UnsafeUtil.copyMemory( pageAddress, bufferAddresses[arrayOffset + i], filePageSize );
+            bytesRead += filePageSize;
+        }
+        return bytesRead;
+    }
+
+    /**
+     * @return the address of the given file page in a mapping of the file, or zero if the page is not mapped.
+     */
+    private long mappedPageAddress( long filePageId ) throws IOException
+    {
+        if ( mappingUnsupported || filePageId > getLastPageId() )
+        {
+            return 0;
+        }
+        int segmentId = (int) (filePageId / pagesPerSegment);
+        long offsetInSegment = (filePageId % pagesPerSegment) * filePageSize;
+        long requiredSize = offsetInSegment + filePageSize;
+        MappedByteBuffer[] segments = this.segments;
+        MappedByteBuffer segment = segmentId < segments.length ? segments[segmentId] : null;
+        if ( segment == null || segment.capacity() < requiredSize )
+        {
+            long mappedSize = segment == null ? 0 : segment.capacity();
+            long availableSize = Math.min( segmentSize, (getLastPageId() + 1 - segmentId * pagesPerSegment) * filePageSize );
+            if ( !shouldRemap( mappedSize, availableSize ) )
+            {
+                return 0;
+            }
+            segment = remap( segmentId, requiredSize );
+            if ( segment == null )
+            {
+                return 0;
+            }
+        }
+        return UnsafeUtil.getDirectByteBufferAddress( segment ) + offsetInSegment;
+    }
+
+    private boolean shouldRemap( long mappedSize, long availableSize )
+    {
+        return availableSize >= mappedSize * 2 || availableSize == segmentSize;
+    }
+
+    private synchronized MappedByteBuffer remap( int segmentId, long requiredSize ) throws IOException
+    {
+        MappedByteBuffer[] segments = this.segments;
+        MappedByteBuffer segment = segmentId < segments.length ? segments[segmentId] : null;
+        if ( segment != null && segment.capacity() >= requiredSize )
+        {
+            // Someone got ahead of us.
+            return segment;
+        }
+        if ( closed || mappingUnsupported )
+        {
+            return null;
+        }
+        if ( mappingChannel == null )
+        {
+            // The mapping channel is opened lazily, so swappers that never read from the file never open it.
+            StoreChannel channel = fs.open( file, OpenMode.READ );
+            if ( channel.getClass() != StoreFileChannel.class )
+            {
+                channel.close();
+                mappingUnsupported = true;
+                return null;
+            }
+            mappingChannel = channel;
+        }
+
+        long mappedSize = segment == null ? 0 : segment.capacity();
+        long segmentStart = segmentId * segmentSize;
+        try
+        {
+            // Only map whole file pages, since the file might have a partially written last page.
+            long fileSize = mappingChannel.size();
+            long availableSize = Math.min( segmentSize, (fileSize - segmentStart) / filePageSize * filePageSize );
+            if ( availableSize < requiredSize || !shouldRemap( mappedSize, availableSize ) )
+            {
+                return null;
+            }
+            FileChannel channel = StoreFileChannelUnwrapper.unwrap( mappingChannel );
+            MappedByteBuffer newSegment = channel.map( FileChannel.MapMode.READ_ONLY, segmentStart, availableSize );
+            if ( segment != null )
+            {
+                retiredSegments.add( segment );
+            }
+            MappedByteBuffer[] newSegments = segmentId < segments.length ? segments.clone() : Arrays.copyOf( segments, segmentId + 1 );
+            newSegments[segmentId] = newSegment;
+            this.segments = newSegments;
+            return newSegment;
+        }
+        catch ( ClosedChannelException e )
+        {
+            // The channel was closed by an interrupt. Existing mappings are still valid, so we just reopen the channel
+            // and let this page be read through the file channel of the swapper instead.
+            mappingChannel = fs.open( file, OpenMode.READ );
+            return null;
+        }
+    }
+
+    /**
+     * Releases all mappings. This must not race with any reads, since the memory that they might be copying from is
+     * unmapped.
+     */
+    private void unmapAll()
+    {
+        for ( MappedByteBuffer segment : segments )
+        {
+            unmap( segment );
+        }
+        for ( MappedByteBuffer segment : retiredSegments )
+        {
+            unmap( segment );
+        }
+        segments = new MappedByteBuffer[0];
+        retiredSegments.clear();
+    }
+
+    private static void unmap( MappedByteBuffer segment )
+    {
+        if ( segment != null )
+        {
+            UnsafeUtil.invokeCleaner( segment );
+        }
+    }
+
+    @Override
+    public synchronized void truncate() throws IOException
+    {
+        // Accessing a mapping beyond the end of the file is a fatal error, so the mappings must go before the file does.
+        unmapAll();
+        super.truncate();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        closed = true;
+        unmapAll();
+        try
+        {
+            if ( mappingChannel != null )
+            {
+                mappingChannel.close();
+                mappingChannel = null;
+            }
+        }
+        finally
+        {
+            super.close();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedFilePageSwapper{" +
+                "filePageSize=" + filePageSize +
+                ", file=" + file +
+                '}';
+    }
+}
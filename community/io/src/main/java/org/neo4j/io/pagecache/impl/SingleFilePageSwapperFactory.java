@@ -30,9 +30,10 @@ import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 
 /**
- * A factory for SingleFilePageSwapper instances.
+ * A factory for SingleFilePageSwapper instances, and for MappedFilePageSwapper instances when memory mapping is asked for.
  *
  * @see org.neo4j.io.pagecache.impl.SingleFilePageSwapper
+ * @see org.neo4j.io.pagecache.impl.MappedFilePageSwapper
  */
 public class SingleFilePageSwapperFactory implements PageSwapperFactory
 {
@@ -51,6 +52,24 @@ public class SingleFilePageSwapperFactory implements PageSwapperFactory
             PageEvictionCallback onEviction,
             boolean createIfNotExist,
             boolean noChannelStriping ) throws IOException
+    {
+        createIfNotExist( file, createIfNotExist );
+        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, noChannelStriping );
+    }
+
+    @Override
+    public PageSwapper createMemoryMappedPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist,
+            boolean noChannelStriping ) throws IOException
+    {
+        createIfNotExist( file, createIfNotExist );
+        return new MappedFilePageSwapper( file, fs, filePageSize, onEviction, noChannelStriping );
+    }
+
+    private void createIfNotExist( File file, boolean createIfNotExist ) throws IOException
     {
         if ( !fs.fileExists( file ) )
         {
@@ -63,7 +82,6 @@ public class SingleFilePageSwapperFactory implements PageSwapperFactory
                 throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
             }
         }
-        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, noChannelStriping );
     }
 
     @Override
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The eviction policy decides how page accesses update the usage counters of the pages, and which pages the clock
+ * arm of the eviction sweep picks as victims. The policy of a page cache is chosen with the
+ * {@code MuninnPageCache.evictionPolicy} feature toggle.
+ * <p>
+ * Cursors opened with {@link org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT} never update the usage counters, under
+ * any policy, so the pages they fault in are the first to go.
+ */
+enum EvictionPolicy
+{
+    /**
+     * The classic clock sweep. Every pin increments the usage counter of the page, including the pin that faulted it
+     * in, and every pass of the clock arm decrements it. The arm evicts a page when it finds its counter at one or
+     * zero.
+     */
+    CLOCK
+    {
+        @Override
+        void faulted( PageList pages, long pageRef )
+        {
+            pages.incrementUsage( pageRef );
+        }
+
+        @Override
+        boolean sweep( PageList pages, long pageRef, boolean ageHotPages )
+        {
+            return pages.decrementUsage( pageRef );
+        }
+    },
+    /**
+     * A 2Q-style admission policy on top of the clock sweep. Pages are admitted on probation: the pin that faults a
+     * page in does not count, so the page stays cold, with a usage counter of zero, until it is referenced again.
+     * The clock arm evicts cold pages on sight, but only ages the hot pages, the ones with a non-zero counter, on
+     * the sweeps where cold pages were scarce. A full scan thus only churns through the cold part of the cache,
+     * instead of pushing out the working set.
+     */
+    SCAN_RESISTANT
+    {
+        @Override
+        void faulted( PageList pages, long pageRef )
+        {
+        }
+
+        @Override
+        boolean sweep( PageList pages, long pageRef, boolean ageHotPages )
+        {
+            if ( pages.getUsageCounter( pageRef ) == 0 )
+            {
+                return true;
+            }
+            if ( ageHotPages )
+            {
+                pages.decrementUsage( pageRef );
+            }
+            return false;
+        }
+    };
+
+    // When the clock arm finds less than this fraction of the cache to be evictable, over a full sweep, the next sweep
+    // will also age the hot pages.
+    private static final int COLD_FRACTION = 4;
+
+    /**
+     * Called when the given page has been faulted in by a cursor that counts its accesses.
+     */
+    abstract void faulted( PageList pages, long pageRef );
+
+    /**
+     * Called when the given page was already in memory, and got pinned by a cursor that counts its accesses.
+     */
+    void hit( PageList pages, long pageRef )
+    {
+        pages.incrementUsage( pageRef );
+    }
+
+    /**
+     * Called when the clock arm passes the given loaded page.
+     *
+     * @param ageHotPages {@code true} if the hot pages should be aged on this sweep. Ignored by {@link #CLOCK}, which
+     * ages every page it passes.
+     * @return {@code true} if the page should be evicted.
+     */
+    abstract boolean sweep( PageList pages, long pageRef, boolean ageHotPages );
+
+    /**
+     * Decide if the next sweep of the clock arm should age the hot pages.
+     *
+     * @param evictablePages the number of pages that the last full sweep found to be evictable.
+     * @param pageCount the number of pages in the cache.
+     */
+    boolean shouldAgeHotPages( int evictablePages, int pageCount )
+    {
+        return evictablePages < pageCount / COLD_FRACTION;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A contiguous range of pages in the page list, with its own freelist and its own background eviction thread.
+ * <p>
+ * The freelist of a stripe is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null.
+ * Initially, the field is an AtomicInteger that counts from the first page id of the stripe to the end of the stripe,
+ * at which point all of the pages of the stripe have been put in use. Once this happens, the field is set to null to
+ * allow the eviction thread of the stripe to start its work. From that point on, the field will operate as a
+ * concurrent stack of FreePage objects. The eviction thread pushes newly freed FreePage objects onto the stack, and
+ * page faulting threads pops FreePage objects from the stack. The FreePage objects are single-use, to avoid running
+ * into the ABA-problem.
+ */
+final class EvictionStripe
+{
+    // The field offset to unsafely access the freelist field.
+    private static final long freelistOffset = UnsafeUtil.getFieldOffset( EvictionStripe.class, "freelist" );
+
+    final int index;
+    // The page id of the first page in this stripe.
+    final int firstPageId;
+    // The page id of the first page after this stripe.
+    final int endPageId;
+    // Keep this many pages of this stripe free and ready for use in faulting.
+    final int keepFree;
+
+    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
+    private volatile Object freelist;
+
+    // The thread that runs the eviction algorithm for this stripe. We unpark this when we've run out of free pages to
+    // grab from this stripe.
+    volatile Thread evictionThread;
+    // True if the eviction thread is currently parked, without someone having signalled it to wake up. This is used as
+    // a weak guard for unparking the eviction thread, because calling unpark too much (from many page faulting
+    // threads) can cause contention on the locks protecting that threads scheduling meta-data in the OS kernel.
+    volatile boolean evictorParked;
+
+    // Only used by the eviction thread, in MuninnPageCache.evictPages: the number of evictable pages the clock arm has
+    // found in its current sweep of this stripe, and whether or not the current sweep ages the hot pages.
+    int evictablePagesInSweep;
+    boolean ageHotPagesInSweep;
+
+    EvictionStripe( int index, int firstPageId, int endPageId, int keepFree )
+    {
+        this.index = index;
+        this.firstPageId = firstPageId;
+        this.endPageId = endPageId;
+        this.keepFree = keepFree;
+        setFreelistHead( new AtomicInteger( firstPageId ) );
+    }
+
+    int pageCount()
+    {
+        return endPageId - firstPageId;
+    }
+
+    Object getFreelistHead()
+    {
+        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
+    }
+
+    boolean compareAndSetFreelistHead( Object expected, Object update )
+    {
+        return UnsafeUtil.compareAndSwapObject( this, freelistOffset, expected, update );
+    }
+
+    void setFreelistHead( Object newFreelistHead )
+    {
+        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
+    }
+}
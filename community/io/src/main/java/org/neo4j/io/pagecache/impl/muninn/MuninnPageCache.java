@@ -40,6 +40,7 @@ import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCacheOpenOptions;
 import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.PageWriteBarrier;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
@@ -122,6 +123,12 @@ public class MuninnPageCache implements PageCache
     private static final int pagesToKeepFree = getInteger(
             MuninnPageCache.class, "pagesToKeepFree", 30 );
 
+    // When the number of eviction threads is decided automatically, each thread gets at least this many pages, and
+    // there is at most one thread for this many processors.
+    private static final int minPagesPerEvictionThread = getInteger(
+            MuninnPageCache.class, "minPagesPerEvictionThread", 1 << 20 );
+    private static final int processorsPerEvictionThread = 4;
+
     // This is how many times that, during cooperative eviction, we'll iterate through the entire set of pages looking
     // for a page to evict, before we give up and throw CacheLiveLockException. This MUST be greater than 1.
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
@@ -132,10 +139,6 @@ public class MuninnPageCache implements PageCache
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
-
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
@@ -157,37 +160,24 @@ public class MuninnPageCache implements PageCache
     private final int pageCacheId;
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
-    private final int keepFree;
     private final PageCacheTracer pageCacheTracer;
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
     private final VersionContextSupplier versionContextSupplier;
+    final EvictionPolicy evictionPolicy;
     final PageList pages;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
     // accesses to take place without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null.
-    // Initially, the field is an AtomicInteger that counts from zero to the max page count, at which point all of the
-    // pages have been put in use. Once this happens, the field is set to null to allow the background eviction thread
-    // to start its work. From that point on, the field will operate as a concurrent stack of FreePage objects. The
-    // eviction thread pushes newly freed FreePage objects onto the stack, and page faulting threads pops FreePage
-    // objects from the stack. The FreePage objects are single-use, to avoid running into the ABA-problem.
-    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    // The page list is divided into stripes of consecutive pages. Each stripe has its own freelist, and its own
+    // eviction thread. All stripes have the same size, except the last one, which also gets the remainder.
+    private final EvictionStripe[] stripes;
+    private final int pagesPerStripe;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
     private volatile IOException evictorException;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
@@ -284,17 +274,39 @@ public class MuninnPageCache implements PageCache
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
         this.pageCacheTracer = pageCacheTracer;
         this.pageCursorTracerSupplier = pageCursorTracerSupplier;
         this.versionContextSupplier = versionContextSupplier;
+        this.evictionPolicy = flag( MuninnPageCache.class, "evictionPolicy", EvictionPolicy.CLOCK );
         this.printExceptionsOnClose = true;
         long alignment = swapperFactory.getRequiredBufferAlignment();
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize, memoryTracker );
         this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, alignment );
         this.scheduler = jobScheduler;
+        int stripeCount = evictionStripeCount( maxPages );
+        this.pagesPerStripe = maxPages / stripeCount;
+        this.stripes = new EvictionStripe[stripeCount];
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            int firstPageId = i * pagesPerStripe;
+            int endPageId = i == stripeCount - 1 ? maxPages : firstPageId + pagesPerStripe;
+            int keepFree = Math.min( pagesToKeepFree, (endPageId - firstPageId) / 2 );
+            stripes[i] = new EvictionStripe( i, firstPageId, endPageId, keepFree );
+        }
+    }
 
-        setFreelistHead( new AtomicInteger() );
+    private static int evictionStripeCount( int maxPages )
+    {
+        // The number of background eviction threads, and thus stripes. Zero means that the number is decided from the
+        // size of the page cache, and the number of processors.
+        int stripeCount = getInteger( MuninnPageCache.class, "evictionThreads", 0 );
+        if ( stripeCount <= 0 )
+        {
+            stripeCount = Math.min( maxPages / minPagesPerEvictionThread,
+                    Runtime.getRuntime().availableProcessors() / processorsPerEvictionThread );
+        }
+        // Every stripe must have at least two pages, since it keeps up to half of its pages free.
+        return Math.max( 1, Math.min( stripeCount, maxPages / 2 ) );
     }
 
     private static void verifyHacks()
@@ -345,6 +357,7 @@ public class MuninnPageCache implements PageCache
         boolean deleteOnClose = false;
         boolean anyPageSize = false;
         boolean noChannelStriping = false;
+        boolean memoryMapped = false;
         for ( OpenOption option : openOptions )
         {
             if ( option.equals( StandardOpenOption.CREATE ) )
@@ -367,6 +380,10 @@ public class MuninnPageCache implements PageCache
             {
                 noChannelStriping = true;
             }
+            else if ( option.equals( PageCacheOpenOptions.MEMORY_MAPPED ) )
+            {
+                memoryMapped = true;
+            }
             else if ( !ignoredOpenOptions.contains( option ) )
             {
                 throw new UnsupportedOperationException( "Unsupported OpenOption: " + option );
@@ -419,7 +436,8 @@ public class MuninnPageCache implements PageCache
                 versionContextSupplier,
                 createIfNotExists,
                 truncateExisting,
-                noChannelStriping );
+                noChannelStriping,
+                memoryMapped );
         pagedFile.incrementRefCount();
         pagedFile.markDeleteOnClose( deleteOnClose );
         current = new FileMapping( file, pagedFile );
@@ -496,7 +514,10 @@ public class MuninnPageCache implements PageCache
 
         try
         {
-            scheduler.schedule( Group.PAGE_CACHE, new EvictionTask( this ) );
+            for ( EvictionStripe stripe : stripes )
+            {
+                scheduler.schedule( Group.PAGE_CACHE, new EvictionTask( this, stripe ) );
+            }
         }
         catch ( Exception e )
         {
@@ -705,8 +726,11 @@ public class MuninnPageCache implements PageCache
 
         closed = true;
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( EvictionStripe stripe : stripes )
+        {
+            interrupt( stripe.evictionThread );
+            stripe.evictionThread = null;
+        }
 
         // Close the page swapper factory last. If this fails then we will still consider ourselves closed.
         swapperFactory.close();
@@ -763,6 +787,17 @@ public class MuninnPageCache implements PageCache
         pageCursorTracerSupplier.get().reportEvents();
     }
 
+    @Override
+    public void setWriteBarrier( PageWriteBarrier barrier )
+    {
+        pages.setWriteBarrier( barrier );
+    }
+
+    int getEvictionStripeCount()
+    {
+        return stripes.length;
+    }
+
     int getPageCacheId()
     {
         return pageCacheId;
@@ -770,52 +805,89 @@ public class MuninnPageCache implements PageCache
 
     long grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
-        // this part of the code.
+        // We prefer the freelist of the stripe that is local to our thread, so that the faulting threads spread their
+        // CAS operations over the freelists of all the stripes. If the local freelist is empty, then we wake up the
+        // eviction thread of that stripe, and try to grab a page from the other stripes before we do our own eviction
+        // to get a free page.
+        EvictionStripe localStripe = localStripe();
+        for (;;)
+        {
+            assertHealthy();
+            long pageRef = grabFreePage( localStripe );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+            unparkEvictor( localStripe );
+            for ( int i = 1; i < stripes.length; i++ )
+            {
+                pageRef = grabFreePage( stripes[(localStripe.index + i) % stripes.length] );
+                if ( pageRef != 0 )
+                {
+                    return pageRef;
+                }
+            }
+            pageRef = cooperativelyEvict( localStripe, faultEvent );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+        }
+    }
+
+    private EvictionStripe localStripe()
+    {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+    }
+
+    private EvictionStripe stripeOf( long pageId )
+    {
+        return stripes[(int) Math.min( pageId / pagesPerStripe, stripes.length - 1 )];
+    }
+
+    /**
+     * Grab a page from the freelist of the given stripe.
+     *
+     * @return the grabbed page, or zero if the freelist is empty.
+     */
+    private long grabFreePage( EvictionStripe stripe )
+    {
+        // Review the comment on the EvictionStripe class before making changes
+        // to this part of the code.
         // Whatever the case, we're going to the head-pointer of the freelist,
         // and in doing so, we can discover a number of things.
-        // We can discover a MuninnPage object, in which case we can try to
-        // CAS the freelist pointer to the value of the MuninnPage.nextFree
-        // pointer, and if this succeeds then we've grabbed that page.
-        // We can discover a FreePage object, in which case we'll do a similar
-        // dance by attempting to CAS the freelist to the FreePage objects next
-        // pointer, and again, if we succeed then we've grabbed the MuninnPage
-        // given by the FreePage object.
+        // We can discover an AtomicInteger, in which case we try to take the
+        // next never-used page of the stripe from it, or set the freelist to
+        // null if all of those pages have already been taken.
+        // We can discover a FreePage object, in which case we attempt to CAS
+        // the freelist to the FreePage objects next pointer, and if we succeed
+        // then we've grabbed the page given by the FreePage object.
         // We can discover a null-pointer, in which case the freelist has just
         // been emptied for whatever it contained before. New FreePage objects
         // are eventually going to be added to the freelist, but we are not
-        // going to wait around for that to happen. If the freelist is empty,
-        // then we do our own eviction to get a free page.
+        // going to wait around for that to happen.
         // If we find a FreePage object on the freelist, then it is important
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
-        Object current;
         for (;;)
         {
-            assertHealthy();
-            current = getFreelistHead();
+            Object current = stripe.getFreelistHead();
             if ( current == null )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
-                if ( pageRef != 0 )
-                {
-                    return pageRef;
-                }
+                return 0;
             }
             else if ( current instanceof AtomicInteger )
             {
-                int pageCount = pages.getPageCount();
                 AtomicInteger counter = (AtomicInteger) current;
                 int pageId = counter.get();
-                if ( pageId < pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
+                if ( pageId < stripe.endPageId && counter.compareAndSet( pageId, pageId + 1 ) )
                 {
                     return pages.deref( pageId );
                 }
-                if ( pageId >= pageCount )
+                if ( pageId >= stripe.endPageId )
                 {
-                    compareAndSetFreelistHead( current, null );
+                    stripe.compareAndSetFreelistHead( current, null );
                 }
             }
             else if ( current instanceof FreePage )
@@ -826,7 +898,7 @@ public class MuninnPageCache implements PageCache
                     throw new IllegalStateException( "The PageCache has been shut down." );
                 }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( stripe.compareAndSetFreelistHead( freePage, freePage.next ) )
                 {
                     return freePage.pageRef;
                 }
@@ -834,17 +906,30 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private long cooperativelyEvict( PageFaultEvent faultEvent ) throws IOException
+    private boolean hasFreePages()
+    {
+        for ( EvictionStripe stripe : stripes )
+        {
+            if ( stripe.getFreelistHead() != null )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long cooperativelyEvict( EvictionStripe localStripe, PageFaultEvent faultEvent ) throws IOException
     {
+        // The clock arm starts in our local stripe, but may sweep through all of the pages if it has to.
         int iterations = 0;
         int pageCount = pages.getPageCount();
-        int clockArm = ThreadLocalRandom.current().nextInt( pageCount );
+        int clockArm = localStripe.firstPageId + ThreadLocalRandom.current().nextInt( localStripe.pageCount() );
         boolean evicted = false;
         long pageRef;
         do
         {
             assertHealthy();
-            if ( getFreelistHead() != null )
+            if ( hasFreePages() )
             {
                 return 0;
             }
@@ -860,7 +945,8 @@ public class MuninnPageCache implements PageCache
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            // Until the clock arm wraps around, we only look for cold pages. After that, we also age the hot pages.
+            if ( pages.isLoaded( pageRef ) && evictionPolicy.sweep( pages, pageRef, iterations > 0 ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -885,79 +971,63 @@ public class MuninnPageCache implements PageCache
                 "your database." );
     }
 
-    private void unparkEvictor()
+    private void unparkEvictor( EvictionStripe stripe )
     {
-        if ( evictorParked )
+        if ( stripe.evictorParked )
         {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
+            stripe.evictorParked = false;
+            LockSupport.unpark( stripe.evictionThread );
         }
     }
 
-    private void parkEvictor( long parkNanos )
+    private void parkEvictor( EvictionStripe stripe, long parkNanos )
     {
-        // Only called from the background eviction thread!
-        evictorParked = true;
+        // Only called from the background eviction thread of the stripe!
+        stripe.evictorParked = true;
         LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
-    }
-
-    private Object getFreelistHead()
-    {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
-    }
-
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
-    {
-        return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
-    }
-
-    private void setFreelistHead( Object newFreelistHead )
-    {
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, newFreelistHead );
+        stripe.evictorParked = false;
     }
 
     /**
-     * Scan through all the pages, one by one, and decrement their usage stamps.
+     * Scan through all the pages of the given stripe, one by one, and decrement their usage stamps.
      * If a usage reaches zero, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( EvictionStripe stripe )
     {
-        evictionThread = Thread.currentThread();
-        int clockArm = 0;
+        stripe.evictionThread = Thread.currentThread();
+        int clockArm = stripe.firstPageId;
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
+            int pageCountToEvict = parkUntilEvictionRequired( stripe );
             try ( EvictionRunEvent evictionRunEvent = pageCacheTracer.beginPageEvictions( pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                clockArm = evictPages( stripe, pageCountToEvict, clockArm, evictionRunEvent );
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
         // the freelist. This signal is looked out for in grabFreePage.
-        setFreelistHead( shutdownSignal );
+        stripe.setFreelistHead( shutdownSignal );
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private int parkUntilEvictionRequired( EvictionStripe stripe )
     {
         // Park until we're either interrupted, or the number of free pages drops
         // bellow keepFree.
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            parkEvictor( stripe, parkNanos );
             if ( Thread.interrupted() || closed )
             {
                 return 0;
             }
 
-            int availablePages = tryGetNumberOfAvailablePages( keepFree );
+            int availablePages = tryGetNumberOfAvailablePages( stripe );
             if ( availablePages != UNKNOWN_AVAILABLE_PAGES )
             {
                 return availablePages;
@@ -965,9 +1035,10 @@ public class MuninnPageCache implements PageCache
         }
     }
 
-    private int tryGetNumberOfAvailablePages( int keepFree )
+    private static int tryGetNumberOfAvailablePages( EvictionStripe stripe )
     {
-        Object freelistHead = getFreelistHead();
+        Object freelistHead = stripe.getFreelistHead();
+        int keepFree = stripe.keepFree;
 
         if ( freelistHead == null )
         {
@@ -984,7 +1055,7 @@ public class MuninnPageCache implements PageCache
         else if ( freelistHead.getClass() == AtomicInteger.class )
         {
             AtomicInteger counter = (AtomicInteger) freelistHead;
-            long count = pages.getPageCount() - counter.get();
+            long count = stripe.endPageId - counter.get();
             if ( count < keepFree )
             {
                 return count < 0 ? keepFree : (int) (keepFree - count);
@@ -993,13 +1064,24 @@ public class MuninnPageCache implements PageCache
         return UNKNOWN_AVAILABLE_PAGES;
     }
 
+    /**
+     * Evict pages from the stripe that the given clock arm points into, see
+     * {@link #evictPages(EvictionStripe, int, int, EvictionRunEvent)}.
+     */
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        return evictPages( stripeOf( clockArm ), pageCountToEvict, clockArm, evictionRunEvent );
+    }
+
+    private int evictPages( EvictionStripe stripe, int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.getPageCount() )
+            if ( clockArm == stripe.endPageId )
             {
-                clockArm = 0;
+                clockArm = stripe.firstPageId;
+                stripe.ageHotPagesInSweep = evictionPolicy.shouldAgeHotPages( stripe.evictablePagesInSweep, stripe.pageCount() );
+                stripe.evictablePagesInSweep = 0;
             }
 
             if ( closed )
@@ -1009,8 +1091,9 @@ public class MuninnPageCache implements PageCache
             }
 
             long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && evictionPolicy.sweep( pages, pageRef, stripe.ageHotPagesInSweep ) )
             {
+                stripe.evictablePagesInSweep++;
                 try
                 {
                     pageCountToEvict--;
@@ -1041,20 +1124,24 @@ public class MuninnPageCache implements PageCache
         return clockArm;
     }
 
+    /**
+     * Put the given page on the freelist of the stripe it belongs to.
+     */
     void addFreePageToFreelist( long pageRef )
     {
+        EvictionStripe stripe = stripeOf( pages.toId( pageRef ) );
         Object current;
         FreePage freePage = new FreePage( pageRef );
         do
         {
-            current = getFreelistHead();
-            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > pages.getPageCount() )
+            current = stripe.getFreelistHead();
+            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > stripe.endPageId )
             {
                 current = null;
             }
             freePage.setNext( current );
         }
-        while ( !compareAndSetFreelistHead( current, freePage ) );
+        while ( !stripe.compareAndSetFreelistHead( current, freePage ) );
     }
 
     void clearEvictorException()
@@ -1068,14 +1155,36 @@ public class MuninnPageCache implements PageCache
     @Override
     public String toString()
     {
-        int availablePages = tryGetNumberOfAvailablePages( keepFree );
+        long availablePages = 0;
+        for ( EvictionStripe stripe : stripes )
+        {
+            int stripeAvailablePages = tryGetNumberOfAvailablePages( stripe );
+            if ( stripeAvailablePages == UNKNOWN_AVAILABLE_PAGES )
+            {
+                availablePages = UNKNOWN_AVAILABLE_PAGES;
+                break;
+            }
+            availablePages += stripeAvailablePages;
+        }
         return format( "%s[pageCacheId:%d, pageSize:%d, pages:%d, availablePages:%s]", getClass().getSimpleName(),
                 pageCacheId, cachePageSize, pages.getPageCount(), availablePages != UNKNOWN_AVAILABLE_PAGES ? String.valueOf( availablePages ) : "N/A" );
     }
 
+    private boolean hasNeverUsedPages()
+    {
+        for ( EvictionStripe stripe : stripes )
+        {
+            if ( stripe.getFreelistHead() instanceof AtomicInteger )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     void vacuum( SwapperSet swappers )
     {
-        if ( getFreelistHead() instanceof AtomicInteger && swappers.countAvailableIds() > 200 )
+        if ( hasNeverUsedPages() && swappers.countAvailableIds() > 200 )
         {
             return; // We probably still have plenty of free pages left. Don't bother vacuuming just yet.
         }
@@ -31,6 +31,7 @@ import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.PrefetchEvent;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContext;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
@@ -38,7 +39,9 @@ import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.util.FeatureToggles.flag;
 
@@ -49,6 +52,12 @@ abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    // A cursor with PF_READ_AHEAD starts reading ahead once it has pinned this many consecutive pages.
+    private static final int readAheadSequentialPins = 2;
+    // The number of pages read ahead by the first page fault after sequential access has been detected. Every page
+    // fault that follows while the access stays sequential doubles it, up to the maximum of the paged file.
+    private static final int readAheadInitialPages = 4;
+
     // Size of the respective primitive types in bytes.
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
@@ -78,6 +87,15 @@ abstract class MuninnPageCursor extends PageCursor
     private int mark;
     private boolean outOfBounds;
     private boolean isLinkedCursor;
+    private boolean countAccesses;
+    private EvictionPolicy evictionPolicy;
+    private boolean readAhead;
+    private long readAheadLastPinnedPageId;
+    private int readAheadSequentialPinCount;
+    private int readAheadPages;
+    private long[] readAheadPageRefs;
+    private long[] readAheadBufferAddresses;
+    private LatchMap.Latch[] readAheadLatches;
     // This is a String with the exception message if usePreciseCursorErrorStackTraces is false, otherwise it is a
     // CursorExceptionWithPreciseStackTrace with the message and stack trace pointing more or less directly at the
     // offending code.
@@ -102,6 +120,12 @@ abstract class MuninnPageCursor extends PageCursor
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
         this.noGrow = noFault | isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
+        this.countAccesses = !isFlagRaised( pf_flags, PF_TRANSIENT );
+        this.evictionPolicy = pagedFile.pageCache.evictionPolicy;
+        this.readAhead = !noFault && isFlagRaised( pf_flags, PF_READ_AHEAD ) && pagedFile.maxReadAheadPages > 1;
+        this.readAheadLastPinnedPageId = UNBOUND_PAGE_ID;
+        this.readAheadSequentialPinCount = 0;
+        this.readAheadPages = 0;
     }
 
     private boolean isFlagRaised( int flagSet, int flag )
@@ -265,6 +289,10 @@ abstract class MuninnPageCursor extends PageCursor
     protected void pin( long filePageId, boolean writeLock ) throws IOException
     {
         pinEvent = tracer.beginPin( writeLock, filePageId, swapper );
+        if ( readAhead )
+        {
+            trackSequentialAccess( filePageId );
+        }
         int chunkId = MuninnPagedFile.computeChunkId( filePageId );
         // The chunkOffset is the addressing offset into the chunk array object for the relevant array slot. Using
         // this, we can access the array slot with Unsafe.
@@ -296,6 +324,10 @@ abstract class MuninnPageCursor extends PageCursor
                 if ( locked & pagedFile.isBoundTo( pageRef, swapperId, filePageId ) )
                 {
                     pinCursorToPage( pageRef, filePageId, swapper );
+                    if ( countAccesses )
+                    {
+                        evictionPolicy.hit( pagedFile, pageRef );
+                    }
                     pinEvent.hit();
                     return;
                 }
@@ -340,6 +372,10 @@ abstract class MuninnPageCursor extends PageCursor
                 // Sweet, we didn't race with any other fault on this translation table entry.
                 long pageRef = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
                 pinCursorToPage( pageRef, filePageId, swapper );
+                if ( countAccesses )
+                {
+                    evictionPolicy.faulted( pagedFile, pageRef );
+                }
                 return true;
             }
             // Oops, looks like we raced with another page fault on this file page.
@@ -387,9 +423,17 @@ abstract class MuninnPageCursor extends PageCursor
             // here, so the unmapping would have already happened. We do this
             // check before page.fault(), because that would otherwise reopen
             // the file channel.
-            assertPagedFileStillMappedAndGetIdOfLastPage();
+            long lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
             pagedFile.initBuffer( pageRef );
-            pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            int pagesToReadAhead = readAhead ? grabReadAheadPages( filePageId, lastPageId, faultEvent ) : 0;
+            if ( pagesToReadAhead == 0 )
+            {
+                pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            }
+            else
+            {
+                faultWithReadAhead( pageRef, filePageId, pagesToReadAhead, faultEvent );
+            }
         }
         catch ( Throwable throwable )
         {
@@ -410,6 +454,174 @@ abstract class MuninnPageCursor extends PageCursor
         return pageRef;
     }
 
+    private void trackSequentialAccess( long filePageId )
+    {
+        if ( filePageId == readAheadLastPinnedPageId + 1 )
+        {
+            readAheadSequentialPinCount++;
+        }
+        else if ( filePageId != readAheadLastPinnedPageId )
+        {
+            // Random access; start over. Pinning the same page again, like when retrying a read, changes nothing.
+            readAheadSequentialPinCount = 0;
+            readAheadPages = 0;
+        }
+        readAheadLastPinnedPageId = filePageId;
+    }
+
+    /**
+     * Latch and grab free pages for the file pages that follow the given faulted file page, if this cursor is reading
+     * sequentially. The grabbed pages are put in {@link #readAheadPageRefs}, and their latches in
+     * {@link #readAheadLatches}, starting at index 1. Index 0 is reserved for the page of the faulted file page.
+     * <p>
+     * Grabbing stops at the first file page that is already in memory, or whose latch is taken, so that the grabbed
+     * pages are always consecutive and can be read in with a single vectored read.
+     *
+     * @return the number of pages grabbed for reading ahead.
+     */
+    private int grabReadAheadPages( long filePageId, long lastPageId, PageFaultEvent faultEvent ) throws IOException
+    {
+        if ( readAheadSequentialPinCount < readAheadSequentialPins )
+        {
+            return 0;
+        }
+        readAheadPages = readAheadPages == 0 ? readAheadInitialPages : Math.min( readAheadPages * 2, pagedFile.maxReadAheadPages );
+        int pagesWanted = (int) Math.min( readAheadPages, lastPageId - filePageId );
+        if ( pagesWanted <= 0 )
+        {
+            return 0;
+        }
+        if ( readAheadPageRefs == null || readAheadPageRefs.length <= pagesWanted )
+        {
+            int length = pagedFile.maxReadAheadPages + 1;
+            readAheadPageRefs = new long[length];
+            readAheadBufferAddresses = new long[length];
+            readAheadLatches = new LatchMap.Latch[length];
+        }
+
+        int pagesGrabbed = 0;
+        try
+        {
+            while ( pagesGrabbed < pagesWanted )
+            {
+                long readAheadPageId = filePageId + pagesGrabbed + 1;
+                int chunkId = MuninnPagedFile.computeChunkId( readAheadPageId );
+                long chunkOffset = MuninnPagedFile.computeChunkOffset( readAheadPageId );
+                int[][] tt = pagedFile.translationTable;
+                if ( tt.length <= chunkId )
+                {
+                    tt = expandTranslationTableCapacity( chunkId );
+                }
+                int[] chunk = tt[chunkId];
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    break;
+                }
+                // We already hold the latch for the faulted page, so we must never wait for a latch here.
+                LatchMap.Latch latch = pagedFile.pageFaultLatches.tryTakeLatch( readAheadPageId );
+                if ( latch == null )
+                {
+                    break;
+                }
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    latch.release();
+                    break;
+                }
+                long pageRef;
+                try
+                {
+                    pageRef = pagedFile.grabFreeAndExclusivelyLockedPage( faultEvent );
+                }
+                catch ( Throwable throwable )
+                {
+                    latch.release();
+                    throw throwable;
+                }
+                pagedFile.initBuffer( pageRef );
+                pagesGrabbed++;
+                readAheadPageRefs[pagesGrabbed] = pageRef;
+                readAheadLatches[pagesGrabbed] = latch;
+            }
+        }
+        catch ( Throwable throwable )
+        {
+            abortReadAhead( pagesGrabbed, false );
+            throw throwable;
+        }
+        return pagesGrabbed;
+    }
+
+    /**
+     * Fault in the given page together with the grabbed read-ahead pages, using a single vectored read, and publish
+     * the read-ahead pages to the translation table. The given page is published by the caller, as for a single page
+     * fault.
+     */
+    private void faultWithReadAhead( long pageRef, long filePageId, int pagesToReadAhead, PageFaultEvent faultEvent )
+            throws IOException
+    {
+        readAheadPageRefs[0] = pageRef;
+        try ( PrefetchEvent prefetchEvent = pagedFile.pageCacheTracer.beginPrefetch( filePageId + 1, swapper ) )
+        {
+            long bytesRead;
+            try
+            {
+                bytesRead = pagedFile.fault( readAheadPageRefs, readAheadBufferAddresses, pagesToReadAhead + 1,
+                        swapper, pagedFile.swapperId, filePageId );
+            }
+            catch ( IOException e )
+            {
+                prefetchEvent.threwException( e );
+                abortReadAhead( pagesToReadAhead, true );
+                throw e;
+            }
+            catch ( Throwable throwable )
+            {
+                abortReadAhead( pagesToReadAhead, true );
+                throw throwable;
+            }
+            long faultedPageBytes = Math.min( bytesRead, pagedFile.getCachePageSize() );
+            faultEvent.addBytesRead( faultedPageBytes );
+            faultEvent.setCachePageId( pagedFile.toId( pageRef ) );
+            prefetchEvent.addBytesRead( bytesRead - faultedPageBytes );
+            prefetchEvent.addPagesPrefetched( pagesToReadAhead );
+        }
+
+        int[][] tt = pagedFile.translationTable;
+        for ( int i = 1; i <= pagesToReadAhead; i++ )
+        {
+            long readAheadPageId = filePageId + i;
+            int[] chunk = tt[MuninnPagedFile.computeChunkId( readAheadPageId )];
+            long chunkOffset = MuninnPagedFile.computeChunkOffset( readAheadPageId );
+            long readAheadPageRef = readAheadPageRefs[i];
+            // Publish before unlocking, for the same reason as in pageFault.
+            UnsafeUtil.putIntVolatile( chunk, chunkOffset, pagedFile.toId( readAheadPageRef ) );
+            pagedFile.unlockExclusive( readAheadPageRef );
+            readAheadLatches[i].release();
+            readAheadLatches[i] = null;
+        }
+    }
+
+    private void abortReadAhead( int pagesGrabbed, boolean pagesLoaded )
+    {
+        // The pages were never published to the translation table. Pages that we tried to fault in are considered
+        // loaded, so unlocking them lets the eviction thread pick them up. Pages that are still unbound go straight
+        // back to the freelist, exclusively locked, as the eviction thread would never find them.
+        for ( int i = 1; i <= pagesGrabbed; i++ )
+        {
+            if ( pagesLoaded )
+            {
+                pagedFile.unlockExclusive( readAheadPageRefs[i] );
+            }
+            else
+            {
+                pagedFile.pageCache.addFreePageToFreelist( readAheadPageRefs[i] );
+            }
+            readAheadLatches[i].release();
+            readAheadLatches[i] = null;
+        }
+    }
+
     private void abortPageFault( Throwable throwable, int[] chunk, long chunkOffset,
                                  LatchMap.Latch latch,
                                  PageFaultEvent faultEvent )
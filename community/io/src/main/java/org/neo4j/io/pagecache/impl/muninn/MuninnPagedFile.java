@@ -40,6 +40,7 @@ import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+import org.neo4j.util.FeatureToggles;
 
 final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 {
@@ -58,11 +59,16 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     private static final long headerStateRefCountMask = 0x7FFF_0000_0000_0000L;
     private static final long headerStateLastPageIdMask = 0x8000_FFFF_FFFF_FFFFL;
     private static final int PF_LOCK_MASK = PF_SHARED_WRITE_LOCK | PF_SHARED_READ_LOCK;
+    // The largest number of pages that a page fault will read ahead of the faulted page, on cursors with PF_READ_AHEAD.
+    private static final int readAheadMaxPages = FeatureToggles.getInteger( MuninnPagedFile.class, "readAheadMaxPages", 64 );
+    // Never read ahead more than this fraction of the page cache, so that reading ahead does not evict its own pages.
+    private static final int readAheadCacheFraction = 32;
 
     final MuninnPageCache pageCache;
     final int filePageSize;
-    private final PageCacheTracer pageCacheTracer;
+    final PageCacheTracer pageCacheTracer;
     final LatchMap pageFaultLatches;
+    final int maxReadAheadPages;
 
     // This is the table where we translate file-page-ids to cache-page-ids. Only one thread can perform a resize at
     // a time, and we ensure this mutual exclusion using the monitor lock on this MuninnPagedFile object.
@@ -115,12 +121,13 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
      * @param truncateExisting should truncate file if it exists
      * @param noChannelStriping when true, overrides channel striping behaviour,
      * setting it to a single channel per mapped file.
+     * @param memoryMapped when true, reads the file through a memory mapping if the swapper factory supports that.
      * @throws IOException If the {@link PageSwapper} could not be created.
      */
     MuninnPagedFile( File file, MuninnPageCache pageCache, int filePageSize, PageSwapperFactory swapperFactory,
             PageCacheTracer pageCacheTracer, PageCursorTracerSupplier pageCursorTracerSupplier,
             VersionContextSupplier versionContextSupplier, boolean createIfNotExists, boolean truncateExisting,
-            boolean noChannelStriping ) throws IOException
+            boolean noChannelStriping, boolean memoryMapped ) throws IOException
     {
         super( pageCache.pages );
         this.pageCache = pageCache;
@@ -128,6 +135,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         this.cursorFactory = new CursorFactory( this, pageCursorTracerSupplier, pageCacheTracer, versionContextSupplier );
         this.pageCacheTracer = pageCacheTracer;
         this.pageFaultLatches = new LatchMap();
+        this.maxReadAheadPages = (int) Math.min( readAheadMaxPages, pageCache.maxCachedPages() / readAheadCacheFraction );
 
         // The translation table is an array of arrays of integers that are either UNMAPPED_TTE, or the id of a page in
         // the page list. The table only grows the outer array, and all the inner "chunks" all stay the same size. This
@@ -146,7 +154,9 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         // filled with UNMAPPED_TTE values, and then finally assigns the new outer array to the translationTable field
         // and releases the resize lock.
         PageEvictionCallback onEviction = this::evictPage;
-        swapper = swapperFactory.createPageSwapper( file, filePageSize, onEviction, createIfNotExists, noChannelStriping );
+        swapper = memoryMapped
+                ? swapperFactory.createMemoryMappedPageSwapper( file, filePageSize, onEviction, createIfNotExists, noChannelStriping )
+                : swapperFactory.createPageSwapper( file, filePageSize, onEviction, createIfNotExists, noChannelStriping );
         if ( truncateExisting )
         {
             swapper.truncate();
@@ -453,6 +463,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             long firstPageRef = pages[0];
             long startFilePageId = getFilePageId( firstPageRef );
             flush = flushOpportunity.beginFlush( startFilePageId, toId( firstPageRef ), swapper );
+            beforePageWrite();
             long bytesWritten = swapper.write( startFilePageId, bufferAddresses, 0, pagesGrabbed );
 
             // Update the flush event
@@ -505,6 +516,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             long address = getAddress( pageRef );
             try
             {
+                beforePageWrite();
                 long bytesWritten = swapper.write( filePageId, address );
                 flush.addBytesWritten( bytesWritten );
                 flush.addPagesFlushed( 1 );
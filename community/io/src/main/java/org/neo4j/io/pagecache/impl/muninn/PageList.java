@@ -20,10 +20,12 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageWriteBarrier;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionEventOpportunity;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
@@ -84,6 +86,7 @@ class PageList
     private final long victimPageAddress;
     private final long baseAddress;
     private final long bufferAlignment;
+    private final AtomicReference<PageWriteBarrier> writeBarrier;
 
     PageList( int pageCount, int cachePageSize, MemoryAllocator memoryAllocator, SwapperSet swappers,
               long victimPageAddress, long bufferAlignment )
@@ -96,6 +99,7 @@ class PageList
         long bytes = ((long) pageCount) * META_DATA_BYTES_PER_PAGE;
         this.baseAddress = memoryAllocator.allocateAligned( bytes, Long.BYTES );
         this.bufferAlignment = bufferAlignment;
+        this.writeBarrier = new AtomicReference<>( PageWriteBarrier.NONE );
         clearMemory( baseAddress, pageCount );
     }
 
@@ -116,6 +120,20 @@ class PageList
         this.victimPageAddress = pageList.victimPageAddress;
         this.baseAddress = pageList.baseAddress;
         this.bufferAlignment = pageList.bufferAlignment;
+        this.writeBarrier = pageList.writeBarrier;
+    }
+
+    void setWriteBarrier( PageWriteBarrier barrier )
+    {
+        writeBarrier.set( barrier );
+    }
+
+    /**
+     * Must be called before any modified page is written to its file.
+     */
+    void beforePageWrite() throws IOException
+    {
+        writeBarrier.get().beforePageWrite();
     }
 
     private void clearMemory( long baseAddress, long pageCount )
@@ -301,7 +319,7 @@ class PageList
         }
     }
 
-    private byte getUsageCounter( long pageRef )
+    byte getUsageCounter( long pageRef )
     {
         return (byte) (UnsafeUtil.getLongVolatile( offPageBinding( pageRef ) ) & MASK_USAGE_COUNT);
     }
@@ -437,6 +455,43 @@ class PageList
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
     }
 
+    /**
+     * Fault in a run of consecutive file pages with a single vectored read. The first given page is faulted in with
+     * the given startFilePageId, and the following pages with the following file page ids. All the pages must be
+     * exclusively locked and unbound, just like for a single page {@link #fault(long, PageSwapper, int, long,
+     * PageFaultEvent) fault}.
+     *
+     * @return the number of bytes read into all of the pages.
+     */
+    long fault( long[] pageRefs, long[] bufferAddresses, int length, PageSwapper swapper, int swapperId,
+            long startFilePageId ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( !isExclusivelyLocked( pageRef ) || currentSwapper != 0 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+            // As with a single page fault, the file page ids are assigned before we swap in, and the swapper after.
+            setFilePageId( pageRef, filePageId );
+            bufferAddresses[i] = getAddress( pageRef );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, cachePageSize, 0, length );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId );
+        }
+        return bytesRead;
+    }
+
     private static IllegalArgumentException swapperCannotBeNull()
     {
         return new IllegalArgumentException( "swapper cannot be null" );
@@ -504,6 +559,7 @@ class PageList
         FlushEvent flushEvent = evictionEvent.flushEventOpportunity().beginFlush( filePageId, pageRef, swapper );
         try
         {
+            beforePageWrite();
             long address = getAddress( pageRef );
             long bytesWritten = swapper.write( filePageId, address );
             explicitlyMarkPageUnmodifiedUnderExclusiveLock( pageRef );
@@ -43,6 +43,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesMapped = new LongAdder();
     protected final LongAdder filesUnmapped = new LongAdder();
     protected final LongAdder evictionExceptions = new LongAdder();
+    protected final LongAdder prefetches = new LongAdder();
     protected final AtomicLong maxPages = new AtomicLong();
 
     private final FlushEvent flushEvent = new FlushEvent()
@@ -137,6 +138,33 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         }
     };
 
+    private final PrefetchEvent prefetchEvent = new PrefetchEvent()
+    {
+        @Override
+        public void addBytesRead( long bytes )
+        {
+            bytesRead.add( bytes );
+        }
+
+        @Override
+        public void addPagesPrefetched( int pageCount )
+        {
+            // Prefetched pages take up cache pages just like faulted pages, so they count towards the usage ratio.
+            faults.add( pageCount );
+            prefetches.add( pageCount );
+        }
+
+        @Override
+        public void threwException( IOException exception )
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    };
+
     @Override
     public void mappedFile( File file )
     {
@@ -167,6 +195,20 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return majorFlushEvent;
     }
 
+    @Override
+    public PrefetchEvent beginPrefetch( long startFilePageId, PageSwapper swapper )
+    {
+        return prefetchEvent;
+    }
+
+    /**
+     * @return the number of pages that have been faulted in by reading ahead of page faults.
+     */
+    public long prefetches()
+    {
+        return prefetches.sum();
+    }
+
     @Override
     public long faults()
     {
@@ -64,6 +64,12 @@ public interface PageCacheTracer extends PageCacheCounters
             return MajorFlushEvent.NULL;
         }
 
+        @Override
+        public PrefetchEvent beginPrefetch( long startFilePageId, PageSwapper swapper )
+        {
+            return PrefetchEvent.NULL;
+        }
+
         @Override
         public long faults()
         {
@@ -228,6 +234,11 @@ public interface PageCacheTracer extends PageCacheCounters
      */
     MajorFlushEvent beginCacheFlush();
 
+    /**
+     * A page fault is reading ahead the pages of the given file that follow the given file page id.
+     */
+    PrefetchEvent beginPrefetch( long startFilePageId, PageSwapper swapper );
+
     /**
      * Report number of observed pins
      * @param pins number of pins
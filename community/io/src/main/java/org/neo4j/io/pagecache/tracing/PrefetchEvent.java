@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.tracing;
+
+import java.io.IOException;
+
+/**
+ * A page fault on a cursor that reads sequentially is reading ahead, faulting in the pages that follow the faulted
+ * page with the same vectored read.
+ */
+public interface PrefetchEvent extends AutoCloseablePageCacheTracerEvent
+{
+    /**
+     * A PrefetchEvent that does nothing.
+     */
+    PrefetchEvent NULL = new PrefetchEvent()
+    {
+        @Override
+        public void addBytesRead( long bytes )
+        {
+        }
+
+        @Override
+        public void addPagesPrefetched( int pageCount )
+        {
+        }
+
+        @Override
+        public void threwException( IOException exception )
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    };
+
+    /**
+     * Add up a number of bytes that have been read from the backing file into the prefetched pages.
+     */
+    void addBytesRead( long bytes );
+
+    /**
+     * Add up a number of pages that have been faulted in ahead of the faulted page.
+     */
+    void addPagesPrefetched( int pageCount );
+
+    /**
+     * The read of the prefetched pages failed, and none of them were faulted in.
+     */
+    void threwException( IOException exception );
+}
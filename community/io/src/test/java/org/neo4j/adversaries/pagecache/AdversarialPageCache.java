@@ -33,6 +33,7 @@ import java.util.Optional;
 import org.neo4j.adversaries.Adversary;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageWriteBarrier;
 import org.neo4j.io.pagecache.PagedFile;
 
 /**
@@ -127,4 +128,10 @@ public class AdversarialPageCache implements PageCache
     {
         delegate.reportEvents();
     }
+
+    @Override
+    public void setWriteBarrier( PageWriteBarrier barrier )
+    {
+        delegate.setWriteBarrier( barrier );
+    }
 }
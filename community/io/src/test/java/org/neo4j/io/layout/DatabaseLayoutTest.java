@@ -120,6 +120,7 @@ class DatabaseLayoutTest
         assertEquals( "neostore.relationshipstore.db", layout.relationshipStore().getName() );
         assertEquals( "neostore.relationshiptypestore.db", layout.relationshipTypeTokenStore().getName() );
         assertEquals( "neostore.relationshiptypestore.db.names", layout.relationshipTypeTokenNamesStore().getName() );
+        assertEquals( "neostore.relationshiptypescanstore.db", layout.relationshipTypeScanStore().getName() );
         assertEquals( "neostore.schemastore.db", layout.schemaStore().getName() );
     }
 
@@ -164,6 +165,7 @@ class DatabaseLayoutTest
         assertThat( files, hasItem( "neostore.propertystore.db.strings" ) );
         assertThat( files, hasItem( "neostore.relationshipgroupstore.db" ) );
         assertThat( files, hasItem( "neostore.relationshipstore.db" ) );
+        assertThat( files, hasItem( "neostore.relationshiptypescanstore.db" ) );
         assertThat( files, hasItem( "neostore.relationshiptypestore.db" ) );
         assertThat( files, hasItem( "neostore.relationshiptypestore.db.names" ) );
         assertThat( files, hasItem( "neostore.schemastore.db" ) );
@@ -28,6 +28,7 @@ import org.neo4j.memory.LocalMemoryTracker;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -175,6 +176,20 @@ class MemoryAllocatorTest
         assertEquals( 0, memoryTracker.usedDirectMemory() );
     }
 
+    @Test
+    void hugePageAllocatorMustAlignGrabsToHugePageSize()
+    {
+        closeAllocator();
+        allocator = MemoryAllocator.createHugePageAllocator( "64 MiB", new LocalMemoryTracker() );
+        for ( int i = 0; i < 3; i++ )
+        {
+            // Each allocation is larger than half a grab, so each of them starts a new grab.
+            long address = allocator.allocateAligned( ByteUnit.mebiBytes( 20 ), 1 );
+            assertThat( address % ByteUnit.mebiBytes( 2 ), is( 0L ) );
+        }
+        assertThat( allocator.describeAllocatedMemory(), containsString( "3 grabs" ) );
+    }
+
     private void closeAllocator()
     {
         if ( allocator != null )
@@ -76,6 +76,12 @@ public class DelegatingPageCache implements PageCache
         delegate.reportEvents();
     }
 
+    @Override
+    public void setWriteBarrier( PageWriteBarrier barrier )
+    {
+        delegate.setWriteBarrier( barrier );
+    }
+
     @Override
     public void flushAndForce( IOLimiter limiter ) throws IOException
     {
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Runs the page swapper tests against {@link MappedFilePageSwapper}, and checks that it reads the pages written
+ * through {@link SingleFilePageSwapper}.
+ */
+public class MappedFilePageSwapperWithRealFileSystemIT extends SingleFilePageSwapperWithRealFileSystemIT
+{
+    private static final int RANDOM_READ_PAGE_SIZE = 8192;
+    private static final int RANDOM_READ_FILE_PAGES = 1024;
+    private static final int RANDOM_READS = 10_000;
+
+    @Override
+    protected PageSwapperFactory swapperFactory()
+    {
+        SingleFilePageSwapperFactory factory = new SingleFilePageSwapperFactory()
+        {
+            @Override
+            public PageSwapper createPageSwapper( File file, int filePageSize, PageEvictionCallback onEviction,
+                    boolean createIfNotExist, boolean noChannelStriping ) throws IOException
+            {
+                return createMemoryMappedPageSwapper( file, filePageSize, onEviction, createIfNotExist, noChannelStriping );
+            }
+        };
+        factory.open( getFs(), Configuration.EMPTY );
+        return factory;
+    }
+
+    @Test
+    void mustReadPagesWrittenAfterTheFileWasMapped() throws Exception
+    {
+        int pageSize = 32;
+        PageSwapper swapper = createSwapper( createSwapperFactory(), getFile(), pageSize, NO_CALLBACK, true, false );
+        assertThat( swapper, instanceOf( MappedFilePageSwapper.class ) );
+        long page = createPage( pageSize );
+
+        // Growing the file one page at a time makes the swapper map the file again a number of times.
+        for ( int i = 0; i < 100; i++ )
+        {
+            putLong( page, 0, i );
+            swapper.write( i, page );
+            putLong( page, 0, -1 );
+            assertThat( swapper.read( i, page, pageSize ), is( (long) pageSize ) );
+            assertThat( getLong( page, 0 ), is( (long) i ) );
+        }
+
+        // Overwrites of pages that are already mapped are visible through the mapping.
+        putLong( page, 0, 1000 );
+        swapper.write( 3, page );
+        putLong( page, 0, -1 );
+        assertThat( swapper.read( 3, page, pageSize ), is( (long) pageSize ) );
+        assertThat( getLong( page, 0 ), is( 1000L ) );
+
+        long[] pages = new long[10];
+        for ( int i = 0; i < pages.length; i++ )
+        {
+            pages[i] = createPage( pageSize );
+        }
+        assertThat( swapper.read( 95, pages, pageSize, 0, pages.length ), is( 5L * pageSize ) );
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertThat( getLong( pages[i], 0 ), is( 95L + i ) );
+        }
+        for ( int i = 5; i < pages.length; i++ )
+        {
+            assertThat( getLong( pages[i], 0 ), is( 0L ) );
+        }
+    }
+
+    @Test
+    void mustNotReadThroughStaleMappingsAfterTruncate() throws Exception
+    {
+        int pageSize = 32;
+        PageSwapper swapper = createSwapper( createSwapperFactory(), getFile(), pageSize, NO_CALLBACK, true, false );
+        long page = createPage( pageSize );
+        for ( int i = 0; i < 10; i++ )
+        {
+            putLong( page, 0, i + 1 );
+            swapper.write( i, page );
+            swapper.read( i, page, pageSize );
+        }
+
+        swapper.truncate();
+
+        putLong( page, 0, -1 );
+        assertThat( swapper.read( 5, page, pageSize ), is( 0L ) );
+        assertThat( getLong( page, 0 ), is( 0L ) );
+
+        putLong( page, 0, 42 );
+        swapper.write( 0, page );
+        putLong( page, 0, -1 );
+        assertThat( swapper.read( 0, page, pageSize ), is( (long) pageSize ) );
+        assertThat( getLong( page, 0 ), is( 42L ) );
+    }
+
+    @Test
+    void mustReadPagesWrittenByChannelSwapper() throws Exception
+    {
+        File file = getFile();
+        SingleFilePageSwapperFactory channelFactory = new SingleFilePageSwapperFactory();
+        channelFactory.open( getFs(), Configuration.EMPTY );
+        long page = createPage( RANDOM_READ_PAGE_SIZE );
+        PageSwapper writer = createSwapper( channelFactory, file, RANDOM_READ_PAGE_SIZE, NO_CALLBACK, true, false );
+        for ( int i = 0; i < RANDOM_READ_FILE_PAGES; i++ )
+        {
+            putLong( page, 0, i );
+            writer.write( i, page );
+        }
+        writer.force();
+        writer.close();
+
+        // Only one swapper can have the file open at a time, since they lock it.
+        PageSwapper mappedSwapper = createSwapper( createSwapperFactory(), file, RANDOM_READ_PAGE_SIZE, NO_CALLBACK, false, false );
+        assertThat( mappedSwapper, instanceOf( MappedFilePageSwapper.class ) );
+        SplittableRandom rng = new SplittableRandom( 13 );
+        for ( int i = 0; i < RANDOM_READS; i++ )
+        {
+            long filePageId = rng.nextInt( RANDOM_READ_FILE_PAGES );
+            putLong( page, 0, -1 );
+            assertThat( mappedSwapper.read( filePageId, page, RANDOM_READ_PAGE_SIZE ), is( (long) RANDOM_READ_PAGE_SIZE ) );
+            assertThat( getLong( page, 0 ), is( filePageId ) );
+        }
+        mappedSwapper.close();
+    }
+}
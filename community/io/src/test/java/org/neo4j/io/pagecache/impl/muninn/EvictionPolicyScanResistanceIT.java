@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.TestDirectoryExtension;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.util.FeatureToggles;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+
+/**
+ * Verifies that the scan resistant eviction policy keeps a hot working set in memory while full scans go through the
+ * page cache, where the classic clock sweep lets the scans push it out.
+ * <p>
+ * A single thread interleaves point lookups in a hot set of pages, a quarter of the size of the page cache, with
+ * full scans of a file that is ten times the size of the page cache. The lookups are made at fixed points of the
+ * scans, and pick their pages from a seeded random, so every policy sees the same sequence of page accesses.
+ */
+@ExtendWith( TestDirectoryExtension.class )
+class EvictionPolicyScanResistanceIT
+{
+    private static final int CACHE_PAGES = 1000;
+    private static final int FILE_PAGES = CACHE_PAGES * 10;
+    private static final int HOT_PAGES = CACHE_PAGES / 4;
+    private static final int FILE_PAGE_SIZE = 64;
+    private static final int SCANS = 10;
+    private static final int SCANNED_PAGES_PER_LOOKUP = 8;
+    private static final long SEED = 42;
+
+    @Inject
+    TestDirectory testDirectory;
+
+    @Test
+    void scanResistantPolicyWithScanHintMustKeepMoreHotPagesInMemoryThanClock() throws Exception
+    {
+        File file = testDirectory.file( "pages" );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              JobScheduler jobScheduler = new ThreadPoolJobScheduler() )
+        {
+            try ( MuninnPageCache pageCache = createPageCache( fs, jobScheduler, EvictionPolicy.CLOCK );
+                  PagedFile pagedFile = pageCache.map( file, FILE_PAGE_SIZE );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( long pageId = 0; pageId < FILE_PAGES; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( pageId );
+                }
+            }
+
+            double clock = hitRatioOfLookups( fs, jobScheduler, file, EvictionPolicy.CLOCK, 0 );
+            double scanResistantWithHint = hitRatioOfLookups( fs, jobScheduler, file, EvictionPolicy.SCAN_RESISTANT, PF_TRANSIENT );
+
+            assertThat( scanResistantWithHint, greaterThan( clock ) );
+        }
+    }
+
+    private static double hitRatioOfLookups( FileSystemAbstraction fs, JobScheduler jobScheduler, File file,
+            EvictionPolicy policy, int scanFlags ) throws IOException
+    {
+        Random random = new Random( SEED );
+        PageCursorTracer tracer = DefaultPageCursorTracerSupplier.INSTANCE.get();
+        long hits = 0;
+        long faults = 0;
+        try ( MuninnPageCache pageCache = createPageCache( fs, jobScheduler, policy );
+              PagedFile pagedFile = pageCache.map( file, FILE_PAGE_SIZE );
+              PageCursor lookupCursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            // Reference every hot page twice, so that the hot set starts out in memory, and hot, under every policy.
+            for ( int i = 0; i < 2; i++ )
+            {
+                for ( long pageId = 0; pageId < HOT_PAGES; pageId++ )
+                {
+                    assertTrue( lookupCursor.next( pageId ) );
+                    readPage( lookupCursor );
+                }
+            }
+
+            for ( int scan = 0; scan < SCANS; scan++ )
+            {
+                try ( PageCursor scanCursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | scanFlags ) )
+                {
+                    for ( long pageId = 0; pageId < FILE_PAGES; pageId++ )
+                    {
+                        assertTrue( scanCursor.next() );
+                        readPage( scanCursor );
+                        if ( pageId % SCANNED_PAGES_PER_LOOKUP == 0 )
+                        {
+                            long hitsBefore = tracer.accumulatedHits();
+                            long faultsBefore = tracer.accumulatedFaults();
+                            assertTrue( lookupCursor.next( random.nextInt( HOT_PAGES ) ) );
+                            readPage( lookupCursor );
+                            hits += tracer.accumulatedHits() - hitsBefore;
+                            faults += tracer.accumulatedFaults() - faultsBefore;
+                        }
+                    }
+                }
+            }
+        }
+        assertThat( hits + faults, greaterThan( 0L ) );
+        return (double) hits / (hits + faults);
+    }
+
+    private static void readPage( PageCursor cursor ) throws IOException
+    {
+        do
+        {
+            cursor.getLong();
+        }
+        while ( cursor.shouldRetry() );
+    }
+
+    private static MuninnPageCache createPageCache( FileSystemAbstraction fs, JobScheduler jobScheduler,
+            EvictionPolicy policy )
+    {
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        FeatureToggles.set( MuninnPageCache.class, "evictionPolicy", policy );
+        try
+        {
+            return new MuninnPageCache( swapperFactory, CACHE_PAGES, PageCacheTracer.NULL,
+                    DefaultPageCursorTracerSupplier.INSTANCE, EmptyVersionContextSupplier.EMPTY, jobScheduler );
+        }
+        finally
+        {
+            FeatureToggles.clear( MuninnPageCache.class, "evictionPolicy" );
+        }
+    }
+}
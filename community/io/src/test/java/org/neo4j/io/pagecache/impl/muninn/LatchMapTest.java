@@ -81,6 +81,18 @@ class LatchMapTest
         latch.release();
     }
 
+    @Test
+    void tryTakeLatchMustReturnNullIfLatchIsTaken()
+    {
+        BinaryLatch latch = latches.takeOrAwaitLatch( 42 );
+        assertThat( latch, is( notNullValue() ) );
+        assertThat( latches.tryTakeLatch( 42 ), is( nullValue() ) );
+        latch.release();
+        BinaryLatch secondLatch = latches.tryTakeLatch( 42 );
+        assertThat( secondLatch, is( notNullValue() ) );
+        secondLatch.release();
+    }
+
     @Test
     void latchMustBeAvailableAfterRelease()
     {
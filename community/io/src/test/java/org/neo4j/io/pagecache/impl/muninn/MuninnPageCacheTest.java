@@ -20,6 +20,7 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
@@ -49,6 +50,7 @@ import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContext;
@@ -56,9 +58,11 @@ import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
+import org.neo4j.util.FeatureToggles;
 
 import static java.time.Duration.ofMillis;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -66,9 +70,12 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTimeout;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
 
 public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
@@ -215,6 +222,47 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test
+    void mustCallWriteBarrierBeforeWritingPages() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        RecordingPageCacheTracer tracer = new RecordingPageCacheTracer();
+        RecordingPageCursorTracer cursorTracer = new RecordingPageCursorTracer();
+        ConfigurablePageCursorTracerSupplier<RecordingPageCursorTracer> cursorTracerSupplier = new ConfigurablePageCursorTracerSupplier<>( cursorTracer );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 2, blockCacheFlush( tracer ), cursorTracerSupplier );
+                PagedFile pagedFile = map( pageCache, file( "a" ), 8 ) )
+        {
+            MutableInt barrierCalls = new MutableInt();
+            pageCache.setWriteBarrier( () ->
+            {
+                // Nothing has been written to the file yet
+                ByteBuffer buf = readIntoBuffer( "a" );
+                assertThat( buf.getLong(), is( x ) );
+                assertThat( buf.getLong(), is( y ) );
+                barrierCalls.increment();
+            } );
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( 0L );
+            }
+
+            pageCache.evictPages( 1, 0, tracer.beginPageEvictions( 1 ) );
+            assertEquals( 1, barrierCalls.intValue() );
+            assertThat( readIntoBuffer( "a" ).getLong(), is( 0L ) );
+
+            pageCache.setWriteBarrier( barrierCalls::increment );
+            try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( 0L );
+            }
+            pagedFile.flushAndForce();
+            assertEquals( 2, barrierCalls.intValue() );
+        }
+    }
+
     @Test
     void mustFlushDirtyPagesOnEvictingAllPages() throws Exception
     {
@@ -251,6 +299,113 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test
+    void transientCursorsMustNotPromotePages() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        RecordingPageCacheTracer tracer = new RecordingPageCacheTracer();
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, blockCacheFlush( tracer ), PageCursorTracerSupplier.NULL );
+                PagedFile pagedFile = map( pageCache, file( "a" ), 8 ) )
+        {
+            for ( int i = 0; i < 2; i++ )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+                {
+                    assertTrue( cursor.next() );
+                }
+                try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK | PF_TRANSIENT ) )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+
+            long clockArm = pageCache.evictPages( 1, 0, tracer.beginPageEvictions( 1 ) );
+            assertThat( clockArm, is( 2L ) );
+            assertNotNull( tracer.observe( Evict.class ) );
+            assertTrue( isInMemory( pagedFile, 0 ) );
+            assertFalse( isInMemory( pagedFile, 1 ) );
+        }
+    }
+
+    @Test
+    void scanResistantPolicyMustNotAgeHotPagesWhileThereAreColdPages() throws Exception
+    {
+        try ( StoreChannel channel = fs.create( file( "a" ) ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( 4 * 8 ) );
+        }
+        RecordingPageCacheTracer tracer = new RecordingPageCacheTracer();
+        FeatureToggles.set( MuninnPageCache.class, "evictionPolicy", EvictionPolicy.SCAN_RESISTANT );
+        try ( MuninnPageCache pageCache = createPageCache( fs, 8, blockCacheFlush( tracer ), PageCursorTracerSupplier.NULL );
+                PagedFile pagedFile = map( pageCache, file( "a" ), 8 ) )
+        {
+            assertThat( pageCache.evictionPolicy, is( EvictionPolicy.SCAN_RESISTANT ) );
+            // Page 0 is referenced twice, and is promoted. The other pages are only referenced by the page faults.
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( int i = 0; i < 4; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            long clockArm = pageCache.evictPages( 3, 0, tracer.beginPageEvictions( 3 ) );
+            assertThat( clockArm, is( 4L ) );
+            assertThat( pageCache.pages.getUsageCounter( pageCache.pages.deref( 0 ) ), is( (byte) 1 ) );
+            assertTrue( isInMemory( pagedFile, 0 ) );
+            assertFalse( isInMemory( pagedFile, 1 ) );
+            assertFalse( isInMemory( pagedFile, 2 ) );
+            assertFalse( isInMemory( pagedFile, 3 ) );
+        }
+        finally
+        {
+            FeatureToggles.clear( MuninnPageCache.class, "evictionPolicy" );
+        }
+    }
+
+    @Test
+    void mustFaultAndEvictPagesWithMultipleEvictionStripes() throws Exception
+    {
+        int pageCount = 100;
+        FeatureToggles.set( MuninnPageCache.class, "evictionThreads", 2 );
+        try ( MuninnPageCache pageCache = createPageCache( fs, 8, PageCacheTracer.NULL, PageCursorTracerSupplier.NULL );
+                PagedFile pagedFile = map( pageCache, file( "a" ), 8 ) )
+        {
+            assertThat( pageCache.getEvictionStripeCount(), is( 2 ) );
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( long i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( long i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong();
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertEquals( i, value );
+                }
+            }
+        }
+        finally
+        {
+            FeatureToggles.clear( MuninnPageCache.class, "evictionThreads" );
+        }
+    }
+
     @Test
     void trackPageModificationTransactionId() throws Exception
     {
@@ -711,6 +866,46 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         } );
     }
 
+    @Test
+    void sequentialReadAheadCursorMustPrefetchFollowingPages() throws IOException
+    {
+        int pageCount = 100;
+        try ( StoreChannel channel = fs.create( file( "a" ) ) )
+        {
+            ByteBuffer buf = ByteBuffer.allocate( pageCount * Long.BYTES );
+            for ( long i = 0; i < pageCount; i++ )
+            {
+                buf.putLong( i );
+            }
+            buf.flip();
+            channel.writeAll( buf );
+        }
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        DefaultPageCursorTracer cursorTracer = new DefaultPageCursorTracer();
+        ConfigurablePageCursorTracerSupplier<DefaultPageCursorTracer> cursorTracerSupplier = new ConfigurablePageCursorTracerSupplier<>( cursorTracer );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 1024, tracer, cursorTracerSupplier );
+              PagedFile pagedFile = map( pageCache, file( "a" ), Long.BYTES );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            for ( long i = 0; i < pageCount; i++ )
+            {
+                assertTrue( cursor.next() );
+                long value;
+                do
+                {
+                    value = cursor.getLong();
+                }
+                while ( cursor.shouldRetry() );
+                assertEquals( i, value );
+            }
+            assertFalse( cursor.next() );
+        }
+
+        assertThat( tracer.prefetches(), greaterThan( 0L ) );
+        assertEquals( pageCount, cursorTracer.faults() + tracer.prefetches() );
+    }
+
     private static class FlushRendezvousTracer extends DefaultPageCacheTracer
     {
         private final CountDownLatch latch;
@@ -754,6 +949,14 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    private static boolean isInMemory( PagedFile pagedFile, long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+        {
+            return cursor.next() && cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID;
+        }
+    }
+
     private void writeInitialDataTo( File file ) throws IOException
     {
         try ( StoreChannel channel = fs.create( file ) )
@@ -79,6 +79,12 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.beginCacheFlush();
     }
 
+    @Override
+    public PrefetchEvent beginPrefetch( long startFilePageId, PageSwapper swapper )
+    {
+        return delegate.beginPrefetch( startFilePageId, swapper );
+    }
+
     @Override
     public long bytesWritten()
     {
@@ -25,6 +25,7 @@ import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PrefetchEvent;
 
 import static org.neo4j.io.pagecache.tracing.linear.HEvents.EvictionRunHEvent;
 import static org.neo4j.io.pagecache.tracing.linear.HEvents.MajorFlushHEvent;
@@ -78,6 +79,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return tracer.add( new MajorFlushHEvent( tracer, null ) );
     }
 
+    @Override
+    public PrefetchEvent beginPrefetch( long startFilePageId, PageSwapper swapper )
+    {
+        return PrefetchEvent.NULL;
+    }
+
     @Override
     public long faults()
     {
@@ -29,6 +29,7 @@ import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PrefetchEvent;
 
 public class RecordingPageCacheTracer extends RecordingTracer implements PageCacheTracer
 {
@@ -83,6 +84,12 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
         return MajorFlushEvent.NULL;
     }
 
+    @Override
+    public PrefetchEvent beginPrefetch( long startFilePageId, PageSwapper swapper )
+    {
+        return PrefetchEvent.NULL;
+    }
+
     @Override
     public long faults()
     {
@@ -44,6 +44,7 @@ import org.neo4j.util.VisibleForTesting;
 import static java.util.Objects.requireNonNull;
 import static org.neo4j.io.layout.DatabaseFile.COUNTS_STORE_A;
 import static org.neo4j.io.layout.DatabaseFile.COUNTS_STORE_B;
+import static org.neo4j.io.layout.DatabaseFile.COUNTS_STORE_TREE;
 import static org.neo4j.io.layout.DatabaseFile.LABEL_TOKEN_NAMES_STORE;
 import static org.neo4j.io.layout.DatabaseFile.LABEL_TOKEN_STORE;
 import static org.neo4j.io.layout.DatabaseFile.NODE_LABEL_STORE;
@@ -323,7 +324,7 @@ public final class StoreSizeBean extends ManagementBeanProvider
         @Override
         public long getCountStoreSize()
         {
-            return sizeOfStoreFiles( COUNTS_STORE_A, COUNTS_STORE_B );
+            return sizeOfStoreFiles( COUNTS_STORE_A, COUNTS_STORE_B, COUNTS_STORE_TREE );
         }
 
         @Override
@@ -217,6 +217,8 @@ class StoreSizeBeanTest
         assertEquals( getExpected( 29, 29 ), storeSizeBean.getCountStoreSize() );
         createFileOfSize( testDirectory.databaseLayout().countStoreA(), 30 );
         assertEquals( getExpected( 29, 30 ), storeSizeBean.getCountStoreSize() );
+        createFileOfSize( testDirectory.databaseLayout().countStoreTree(), 31 );
+        assertEquals( getExpected( 29, 31 ), storeSizeBean.getCountStoreSize() );
     }
 
     @Test
@@ -27,5 +27,27 @@ package org.neo4j.internal.kernel.api;
  */
 public interface Scan<Cursor extends org.neo4j.internal.kernel.api.Cursor>
 {
-    void initialize( Cursor cursor );
+    /**
+     * Reserves the next batch of this scan and initializes the given cursor to read it. Batches reserved by
+     * different calls are disjoint, so several cursors, typically used from different threads, can drain
+     * a single scan in parallel.
+     * <p>
+     * Typical usage is:
+     * <pre><code>
+     * while ( scan.reserveBatch( cursor, sizeHint ) )
+     * {
+     *     while ( cursor.next() )
+     *     {
+     *         ...
+     *     }
+     * }
+     * </code></pre>
+     *
+     * @param cursor the cursor to initialize for reading the reserved batch.
+     * @param sizeHint the approximate number of entities the batch should cover, must be positive.
+     * The actual batch size may differ, e.g. due to alignment with the underlying storage.
+     * @return {@code true} if a batch was reserved and the cursor is ready to read it, or {@code false} if
+     * there are no more batches to reserve, in which case the cursor will not return any entities.
+     */
+    boolean reserveBatch( Cursor cursor, int sizeHint );
 }
@@ -24,6 +24,16 @@ package org.neo4j.storageengine.api;
  */
 public interface StorageNodeCursor extends StorageEntityScanCursor
 {
+    /**
+     * Reserves the next batch of the given {@code scan} and initializes this cursor so that it will read the nodes in that batch.
+     *
+     * @param scan the shared scan to reserve the batch from.
+     * @param sizeHint approximate number of nodes to reserve, the actual batch may be aligned to how nodes are laid out in storage.
+     * A hint of zero or less will not reserve anything and leaves this cursor without nodes to read.
+     * @return {@code true} if a batch was reserved, otherwise {@code false} if the scan has been exhausted.
+     */
+    boolean scanBatch( AllNodeScan scan, int sizeHint );
+
     /**
      * @return label ids of the node this cursor currently is placed at.
      */
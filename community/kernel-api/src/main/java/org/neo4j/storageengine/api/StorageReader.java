@@ -256,6 +256,11 @@ public interface StorageReader extends AutoCloseable, StorageSchemaReader
      */
     StorageNodeCursor allocateNodeCursor();
 
+    /**
+     * @return a new {@link AllNodeScan} which can be shared between multiple {@link StorageNodeCursor cursors}, reading disjoint batches of it.
+     */
+    AllNodeScan allNodeScan();
+
     /**
      * @return a new {@link StoragePropertyCursor} capable of reading property data from the underlying storage.
      */
@@ -276,6 +281,19 @@ public interface StorageReader extends AutoCloseable, StorageSchemaReader
      */
     StorageRelationshipScanCursor allocateRelationshipScanCursor();
 
+    /**
+     * @return a new {@link AllRelationshipsScan} which can be shared between multiple {@link StorageRelationshipScanCursor cursors},
+     * reading disjoint batches of it.
+     */
+    AllRelationshipsScan allRelationshipScan();
+
+    /**
+     * @param type relationship type to scan.
+     * @return a new {@link RelationshipTypeScan} over the relationships of the given type, which can be shared between multiple
+     * {@link StorageRelationshipScanCursor cursors}, reading disjoint batches of it.
+     */
+    RelationshipTypeScan relationshipTypeScan( int type );
+
     /**
      * Get a lock-free snapshot of the current schema, for inspecting the current schema when no mutations are intended.
      * <p>
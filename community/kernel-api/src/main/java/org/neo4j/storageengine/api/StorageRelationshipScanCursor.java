@@ -31,4 +31,26 @@ public interface StorageRelationshipScanCursor extends StorageRelationshipCursor
      * @param type relationship type to scan over, or -1 for all relationships regardless of type.
      */
     void scan( int type );
+
+    /**
+     * Reserves the next batch of the given {@code scan} and initializes this cursor so that it will read the relationships in that batch.
+     *
+     * @param scan the shared scan to reserve the batch from.
+     * @param sizeHint approximate number of relationships to reserve, the actual batch may be aligned to how relationships are laid out in storage.
+     * A hint of zero or less will not reserve anything and leaves this cursor without relationships to read.
+     * @return {@code true} if a batch was reserved, otherwise {@code false} if the scan has been exhausted.
+     */
+    boolean scanBatch( AllRelationshipsScan scan, int sizeHint );
+
+    /**
+     * Reserves the next batch of the given {@code scan} and initializes this cursor so that it will read the relationships
+     * of the scanned type in that batch.
+     *
+     * @param scan the shared scan to reserve the batch from.
+     * @param sizeHint approximate number of relationship ids the batch should cover, the actual batch may be aligned to how
+     * the relationship type index is laid out. A hint of zero or less will not reserve anything and leaves this cursor without
+     * relationships to read.
+     * @return {@code true} if a batch was reserved, otherwise {@code false} if the scan has been exhausted.
+     */
+    boolean scanBatch( RelationshipTypeScan scan, int sizeHint );
 }
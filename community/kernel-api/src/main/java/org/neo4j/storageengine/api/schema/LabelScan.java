@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.storageengine.api.schema;
+
+/**
+ * Scan over the nodes of a label which can be split into disjoint batches, read in parallel by several clients.
+ * Instances are created by {@link LabelScanReader#nodeLabelScan(int)} and are safe to share between threads.
+ */
+public interface LabelScan
+{
+    /**
+     * Reserves the next batch of this scan and returns an {@link IndexProgressor} feeding the nodes of that batch
+     * to the given {@code client}. Unlike the other label scan methods, this does not call
+     * {@link IndexProgressor.NodeLabelClient#scan(IndexProgressor, boolean, int)} on the client, it is up to the caller to
+     * initialize the client with the returned progressor.
+     *
+     * @param client the client to feed the nodes of the batch to.
+     * @param sizeHint approximate number of node ids the batch should cover, the actual batch may be aligned to how the index is laid out.
+     * @return progressor for the reserved batch, or {@link IndexProgressor#EMPTY} if the scan has been exhausted or {@code sizeHint} isn't positive.
+     */
+    IndexProgressor initializeBatch( IndexProgressor.NodeLabelClient client, int sizeHint );
+}
@@ -46,6 +46,15 @@ public interface LabelScanReader extends Resource
      */
     void nodesWithLabel( IndexProgressor.NodeLabelClient client, int labelId );
 
+    /**
+     * Creates a {@link LabelScan} over the nodes with the given label, which can be read in disjoint batches by multiple clients in parallel.
+     * Any batch left unfinished when this reader is closed will be closed as well.
+     *
+     * @param labelId label token id.
+     * @return a {@link LabelScan} over the nodes with the given label.
+     */
+    LabelScan nodeLabelScan( int labelId );
+
     /**
      * @param labelIds label token ids.
      * @return node ids with any of the given label ids.
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.kernel.api;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public abstract class ParallelNodeCursorTestBase<G extends KernelAPIReadTestSupport> extends KernelAPIReadTestBase<G>
+{
+    private static final int NUMBER_OF_NODES = 1024;
+    private static MutableLongSet NODE_IDS;
+
+    @Override
+    public void createTestGraph( GraphDatabaseService graphDb )
+    {
+        List<Node> deleted = new ArrayList<>();
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            for ( int i = 0; i < NUMBER_OF_NODES; i++ )
+            {
+                Node node = graphDb.createNode();
+                if ( i % 7 == 0 )
+                {
+                    deleted.add( node );
+                }
+            }
+            tx.success();
+        }
+
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            for ( Node node : deleted )
+            {
+                node.delete();
+            }
+            tx.success();
+        }
+
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            NODE_IDS = new LongHashSet();
+            for ( Node node : graphDb.getAllNodes() )
+            {
+                NODE_IDS.add( node.getId() );
+            }
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldScanASubsetOfNodes()
+    {
+        try ( NodeCursor nodes = cursors.allocateNodeCursor() )
+        {
+            // when
+            Scan<NodeCursor> scan = read.allNodesScan();
+            assertTrue( scan.reserveBatch( nodes, 3 ) );
+
+            // then
+            assertTrue( nodes.next() );
+            assertTrue( NODE_IDS.contains( nodes.nodeReference() ) );
+        }
+    }
+
+    @Test
+    public void shouldFailForSizeHintZero()
+    {
+        try ( NodeCursor nodes = cursors.allocateNodeCursor() )
+        {
+            Scan<NodeCursor> scan = read.allNodesScan();
+            try
+            {
+                scan.reserveBatch( nodes, 0 );
+                fail( "should have failed for size hint 0" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanAllNodesInBatches()
+    {
+        // given
+        MutableLongSet ids = new LongHashSet();
+        try ( NodeCursor nodes = cursors.allocateNodeCursor() )
+        {
+            // when
+            Scan<NodeCursor> scan = read.allNodesScan();
+            while ( scan.reserveBatch( nodes, 3 ) )
+            {
+                while ( nodes.next() )
+                {
+                    assertTrue( "should only see each node once", ids.add( nodes.nodeReference() ) );
+                }
+            }
+            assertFalse( nodes.next() );
+        }
+
+        // then
+        assertEquals( NODE_IDS, ids );
+    }
+
+    @Test
+    public void shouldScanAllNodesInOneBatchIfSizeHintIsLarge()
+    {
+        // given
+        MutableLongSet ids = new LongHashSet();
+        try ( NodeCursor nodes = cursors.allocateNodeCursor() )
+        {
+            // when
+            Scan<NodeCursor> scan = read.allNodesScan();
+            assertTrue( scan.reserveBatch( nodes, Integer.MAX_VALUE ) );
+            while ( nodes.next() )
+            {
+                ids.add( nodes.nodeReference() );
+            }
+            assertFalse( scan.reserveBatch( nodes, Integer.MAX_VALUE ) );
+        }
+
+        // then
+        assertEquals( NODE_IDS, ids );
+    }
+
+    @Test
+    public void shouldScanAllNodesFromMultipleThreads() throws Exception
+    {
+        for ( int threads = 1; threads <= 8; threads *= 2 )
+        {
+            // given
+            ExecutorService service = Executors.newFixedThreadPool( threads );
+            Scan<NodeCursor> scan = read.allNodesScan();
+            List<NodeCursor> workerCursors = new ArrayList<>();
+            List<Future<MutableLongSet>> futures = new ArrayList<>();
+            try
+            {
+                // when
+                for ( int i = 0; i < threads; i++ )
+                {
+                    NodeCursor nodes = cursors.allocateNodeCursor();
+                    workerCursors.add( nodes );
+                    futures.add( service.submit( () ->
+                    {
+                        MutableLongSet batchIds = new LongHashSet();
+                        while ( scan.reserveBatch( nodes, 32 ) )
+                        {
+                            while ( nodes.next() )
+                            {
+                                assertTrue( batchIds.add( nodes.nodeReference() ) );
+                            }
+                        }
+                        return batchIds;
+                    } ) );
+                }
+
+                // then
+                MutableLongSet ids = new LongHashSet();
+                int expectedSize = 0;
+                for ( Future<MutableLongSet> future : futures )
+                {
+                    MutableLongSet batchIds = future.get();
+                    expectedSize += batchIds.size();
+                    ids.addAll( batchIds );
+                }
+                assertEquals( "batches should be disjoint", expectedSize, ids.size() );
+                assertEquals( NODE_IDS, ids );
+            }
+            finally
+            {
+                service.shutdown();
+                workerCursors.forEach( NodeCursor::close );
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.kernel.api;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public abstract class ParallelNodeCursorTransactionStateTestBase<G extends KernelAPIWriteTestSupport> extends KernelAPIWriteTestBase<G>
+{
+    @Test
+    public void shouldHandleEmptyDatabase() throws Exception
+    {
+        try ( Transaction tx = beginTransaction() )
+        {
+            try ( NodeCursor cursor = tx.cursors().allocateNodeCursor() )
+            {
+                Scan<NodeCursor> scan = tx.dataRead().allNodesScan();
+                while ( scan.reserveBatch( cursor, 23 ) )
+                {
+                    assertFalse( cursor.next() );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scanShouldSeeAddedNodes() throws Exception
+    {
+        MutableLongSet existing = createNodes( 100 );
+        MutableLongSet added = new LongHashSet();
+
+        try ( Transaction tx = beginTransaction() )
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                added.add( tx.dataWrite().nodeCreate() );
+            }
+
+            try ( NodeCursor cursor = tx.cursors().allocateNodeCursor() )
+            {
+                Scan<NodeCursor> scan = tx.dataRead().allNodesScan();
+                MutableLongSet seen = new LongHashSet();
+                while ( scan.reserveBatch( cursor, 17 ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        long id = cursor.nodeReference();
+                        assertTrue( "should only see each node once", seen.add( id ) );
+                        assertTrue( existing.contains( id ) || added.contains( id ) );
+                    }
+                }
+
+                assertEquals( existing.size() + added.size(), seen.size() );
+            }
+        }
+    }
+
+    @Test
+    public void scanShouldNotSeeDeletedNodes() throws Exception
+    {
+        MutableLongSet created = createNodes( 100 );
+        MutableLongSet deleted = new LongHashSet();
+        try ( Transaction tx = beginTransaction() )
+        {
+            for ( long id : created.toArray() )
+            {
+                if ( id % 3 == 0 )
+                {
+                    tx.dataWrite().nodeDelete( id );
+                    deleted.add( id );
+                }
+            }
+
+            try ( NodeCursor cursor = tx.cursors().allocateNodeCursor() )
+            {
+                Scan<NodeCursor> scan = tx.dataRead().allNodesScan();
+                MutableLongSet seen = new LongHashSet();
+                while ( scan.reserveBatch( cursor, 17 ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        long id = cursor.nodeReference();
+                        assertTrue( "should only see each node once", seen.add( id ) );
+                        assertFalse( "should not see deleted node", deleted.contains( id ) );
+                    }
+                }
+
+                assertEquals( created.size() - deleted.size(), seen.size() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanAllNodesFromMultipleThreadsWithTransactionState() throws Exception
+    {
+        // given
+        int threads = 4;
+        MutableLongSet expected = createNodes( 1000 );
+        ExecutorService service = Executors.newFixedThreadPool( threads );
+        try ( Transaction tx = beginTransaction() )
+        {
+            for ( int i = 0; i < 250; i++ )
+            {
+                expected.add( tx.dataWrite().nodeCreate() );
+            }
+            Scan<NodeCursor> scan = tx.dataRead().allNodesScan();
+            List<NodeCursor> workerCursors = new ArrayList<>();
+            List<Future<MutableLongSet>> futures = new ArrayList<>();
+            try
+            {
+                // when
+                for ( int i = 0; i < threads; i++ )
+                {
+                    NodeCursor cursor = tx.cursors().allocateNodeCursor();
+                    workerCursors.add( cursor );
+                    futures.add( service.submit( () ->
+                    {
+                        MutableLongSet ids = new LongHashSet();
+                        while ( scan.reserveBatch( cursor, 50 ) )
+                        {
+                            while ( cursor.next() )
+                            {
+                                ids.add( cursor.nodeReference() );
+                            }
+                        }
+                        return ids;
+                    } ) );
+                }
+
+                // then
+                MutableLongSet seen = new LongHashSet();
+                int total = 0;
+                for ( Future<MutableLongSet> future : futures )
+                {
+                    MutableLongSet ids = future.get();
+                    total += ids.size();
+                    seen.addAll( ids );
+                }
+                assertEquals( "batches should be disjoint", total, seen.size() );
+                assertEquals( expected, seen );
+            }
+            finally
+            {
+                workerCursors.forEach( NodeCursor::close );
+            }
+        }
+        finally
+        {
+            service.shutdown();
+        }
+    }
+
+    private MutableLongSet createNodes( int size ) throws Exception
+    {
+        MutableLongSet nodes = new LongHashSet();
+        try ( Transaction tx = beginTransaction() )
+        {
+            Write write = tx.dataWrite();
+            for ( int i = 0; i < size; i++ )
+            {
+                nodes.add( write.nodeCreate() );
+            }
+            tx.success();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.kernel.api;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.graphdb.Label.label;
+
+public abstract class ParallelNodeLabelScanTestBase<G extends KernelAPIReadTestSupport> extends KernelAPIReadTestBase<G>
+{
+    private static final int NUMBER_OF_NODES = 1000;
+    private static MutableLongSet FOO_NODES;
+    private static MutableLongSet BAR_NODES;
+
+    @Override
+    public void createTestGraph( GraphDatabaseService graphDb )
+    {
+        FOO_NODES = new LongHashSet();
+        BAR_NODES = new LongHashSet();
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            for ( int i = 0; i < NUMBER_OF_NODES; i++ )
+            {
+                Node node = graphDb.createNode();
+                if ( i % 2 == 0 )
+                {
+                    node.addLabel( label( "Foo" ) );
+                    FOO_NODES.add( node.getId() );
+                }
+                else
+                {
+                    node.addLabel( label( "Bar" ) );
+                    BAR_NODES.add( node.getId() );
+                }
+            }
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldScanASubsetOfNodes()
+    {
+        int label = token.nodeLabel( "Foo" );
+        try ( NodeLabelIndexCursor nodes = cursors.allocateNodeLabelIndexCursor() )
+        {
+            // when
+            Scan<NodeLabelIndexCursor> scan = read.nodeLabelScan( label );
+            assertTrue( scan.reserveBatch( nodes, 11 ) );
+
+            // then
+            assertTrue( nodes.next() );
+            assertTrue( FOO_NODES.contains( nodes.nodeReference() ) );
+        }
+    }
+
+    @Test
+    public void shouldFailForSizeHintZero()
+    {
+        try ( NodeLabelIndexCursor nodes = cursors.allocateNodeLabelIndexCursor() )
+        {
+            Scan<NodeLabelIndexCursor> scan = read.nodeLabelScan( token.nodeLabel( "Foo" ) );
+            try
+            {
+                scan.reserveBatch( nodes, 0 );
+                fail( "should have failed for size hint 0" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanAllNodesInBatches()
+    {
+        assertEquals( FOO_NODES, scanInBatches( token.nodeLabel( "Foo" ), 11 ) );
+        assertEquals( BAR_NODES, scanInBatches( token.nodeLabel( "Bar" ), 100 ) );
+    }
+
+    @Test
+    public void shouldScanAllNodesInOneBatchIfSizeHintIsLarge()
+    {
+        // given
+        MutableLongSet ids = new LongHashSet();
+        try ( NodeLabelIndexCursor nodes = cursors.allocateNodeLabelIndexCursor() )
+        {
+            // when
+            Scan<NodeLabelIndexCursor> scan = read.nodeLabelScan( token.nodeLabel( "Bar" ) );
+            assertTrue( scan.reserveBatch( nodes, Integer.MAX_VALUE ) );
+            while ( nodes.next() )
+            {
+                ids.add( nodes.nodeReference() );
+            }
+            assertFalse( scan.reserveBatch( nodes, Integer.MAX_VALUE ) );
+        }
+
+        // then
+        assertEquals( BAR_NODES, ids );
+    }
+
+    @Test
+    public void shouldScanAllNodesFromMultipleThreads() throws Exception
+    {
+        int label = token.nodeLabel( "Foo" );
+        for ( int threads = 1; threads <= 8; threads *= 2 )
+        {
+            // given
+            ExecutorService service = Executors.newFixedThreadPool( threads );
+            Scan<NodeLabelIndexCursor> scan = read.nodeLabelScan( label );
+            List<NodeLabelIndexCursor> workerCursors = new ArrayList<>();
+            List<Future<MutableLongSet>> futures = new ArrayList<>();
+            try
+            {
+                // when
+                for ( int i = 0; i < threads; i++ )
+                {
+                    NodeLabelIndexCursor nodes = cursors.allocateNodeLabelIndexCursor();
+                    workerCursors.add( nodes );
+                    futures.add( service.submit( () ->
+                    {
+                        MutableLongSet batchIds = new LongHashSet();
+                        while ( scan.reserveBatch( nodes, 64 ) )
+                        {
+                            while ( nodes.next() )
+                            {
+                                assertTrue( batchIds.add( nodes.nodeReference() ) );
+                            }
+                        }
+                        return batchIds;
+                    } ) );
+                }
+
+                // then
+                MutableLongSet ids = new LongHashSet();
+                int expectedSize = 0;
+                for ( Future<MutableLongSet> future : futures )
+                {
+                    MutableLongSet batchIds = future.get();
+                    expectedSize += batchIds.size();
+                    ids.addAll( batchIds );
+                }
+                assertEquals( "batches should be disjoint", expectedSize, ids.size() );
+                assertEquals( FOO_NODES, ids );
+            }
+            finally
+            {
+                service.shutdown();
+                workerCursors.forEach( NodeLabelIndexCursor::close );
+            }
+        }
+    }
+
+    private MutableLongSet scanInBatches( int label, int sizeHint )
+    {
+        MutableLongSet ids = new LongHashSet();
+        try ( NodeLabelIndexCursor nodes = cursors.allocateNodeLabelIndexCursor() )
+        {
+            Scan<NodeLabelIndexCursor> scan = read.nodeLabelScan( label );
+            while ( scan.reserveBatch( nodes, sizeHint ) )
+            {
+                while ( nodes.next() )
+                {
+                    assertTrue( "should only see each node once", ids.add( nodes.nodeReference() ) );
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.kernel.api;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.graphdb.RelationshipType.withName;
+
+public abstract class ParallelRelationshipCursorTestBase<G extends KernelAPIReadTestSupport> extends KernelAPIReadTestBase<G>
+{
+    private static final int NUMBER_OF_RELATIONSHIPS = 2048;
+    private static MutableLongSet RELATIONSHIP_IDS;
+    private static MutableLongSet RED_RELATIONSHIP_IDS;
+
+    @Override
+    public void createTestGraph( GraphDatabaseService graphDb )
+    {
+        List<Relationship> deleted = new ArrayList<>();
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            Node node = graphDb.createNode();
+            for ( int i = 0; i < NUMBER_OF_RELATIONSHIPS; i++ )
+            {
+                Relationship relationship = node.createRelationshipTo( graphDb.createNode(), withName( i % 3 == 0 ? "RED" : "BLUE" ) );
+                if ( i % 5 == 0 )
+                {
+                    deleted.add( relationship );
+                }
+            }
+            tx.success();
+        }
+
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            for ( Relationship relationship : deleted )
+            {
+                relationship.delete();
+            }
+            tx.success();
+        }
+
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            RELATIONSHIP_IDS = new LongHashSet();
+            RED_RELATIONSHIP_IDS = new LongHashSet();
+            for ( Relationship relationship : graphDb.getAllRelationships() )
+            {
+                RELATIONSHIP_IDS.add( relationship.getId() );
+                if ( relationship.isType( withName( "RED" ) ) )
+                {
+                    RED_RELATIONSHIP_IDS.add( relationship.getId() );
+                }
+            }
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldScanASubsetOfRelationships()
+    {
+        try ( RelationshipScanCursor relationships = cursors.allocateRelationshipScanCursor() )
+        {
+            // when
+            Scan<RelationshipScanCursor> scan = read.allRelationshipsScan();
+            assertTrue( scan.reserveBatch( relationships, 23 ) );
+
+            // then
+            assertTrue( relationships.next() );
+            assertTrue( RELATIONSHIP_IDS.contains( relationships.relationshipReference() ) );
+        }
+    }
+
+    @Test
+    public void shouldFailForSizeHintZero()
+    {
+        try ( RelationshipScanCursor relationships = cursors.allocateRelationshipScanCursor() )
+        {
+            Scan<RelationshipScanCursor> scan = read.allRelationshipsScan();
+            try
+            {
+                scan.reserveBatch( relationships, 0 );
+                fail( "should have failed for size hint 0" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanAllRelationshipsInBatches()
+    {
+        assertEquals( RELATIONSHIP_IDS, scanInBatches( read.allRelationshipsScan(), 23 ) );
+    }
+
+    @Test
+    public void shouldScanAllRelationshipsOfTypeInBatches()
+    {
+        assertEquals( RED_RELATIONSHIP_IDS, scanInBatches( read.relationshipTypeScan( token.relationshipType( "RED" ) ), 23 ) );
+    }
+
+    @Test
+    public void shouldScanAllRelationshipsInOneBatchIfSizeHintIsLarge()
+    {
+        // given
+        MutableLongSet ids = new LongHashSet();
+        try ( RelationshipScanCursor relationships = cursors.allocateRelationshipScanCursor() )
+        {
+            // when
+            Scan<RelationshipScanCursor> scan = read.allRelationshipsScan();
+            assertTrue( scan.reserveBatch( relationships, Integer.MAX_VALUE ) );
+            while ( relationships.next() )
+            {
+                ids.add( relationships.relationshipReference() );
+            }
+            assertFalse( scan.reserveBatch( relationships, Integer.MAX_VALUE ) );
+        }
+
+        // then
+        assertEquals( RELATIONSHIP_IDS, ids );
+    }
+
+    @Test
+    public void shouldScanAllRelationshipsFromMultipleThreads() throws Exception
+    {
+        assertScanFromMultipleThreads( r -> r.allRelationshipsScan(), RELATIONSHIP_IDS );
+    }
+
+    @Test
+    public void shouldScanAllRelationshipsOfTypeFromMultipleThreads() throws Exception
+    {
+        int red = token.relationshipType( "RED" );
+        assertScanFromMultipleThreads( r -> r.relationshipTypeScan( red ), RED_RELATIONSHIP_IDS );
+    }
+
+    private void assertScanFromMultipleThreads( Function<Read,Scan<RelationshipScanCursor>> scanFactory, MutableLongSet expected ) throws Exception
+    {
+        for ( int threads = 1; threads <= 8; threads *= 2 )
+        {
+            // given
+            ExecutorService service = Executors.newFixedThreadPool( threads );
+            Scan<RelationshipScanCursor> scan = scanFactory.apply( read );
+            List<RelationshipScanCursor> workerCursors = new ArrayList<>();
+            List<Future<MutableLongSet>> futures = new ArrayList<>();
+            try
+            {
+                // when
+                for ( int i = 0; i < threads; i++ )
+                {
+                    RelationshipScanCursor relationships = cursors.allocateRelationshipScanCursor();
+                    workerCursors.add( relationships );
+                    futures.add( service.submit( () ->
+                    {
+                        MutableLongSet batchIds = new LongHashSet();
+                        while ( scan.reserveBatch( relationships, 100 ) )
+                        {
+                            while ( relationships.next() )
+                            {
+                                assertTrue( batchIds.add( relationships.relationshipReference() ) );
+                            }
+                        }
+                        return batchIds;
+                    } ) );
+                }
+
+                // then
+                MutableLongSet ids = new LongHashSet();
+                int expectedSize = 0;
+                for ( Future<MutableLongSet> future : futures )
+                {
+                    MutableLongSet batchIds = future.get();
+                    expectedSize += batchIds.size();
+                    ids.addAll( batchIds );
+                }
+                assertEquals( "batches should be disjoint", expectedSize, ids.size() );
+                assertEquals( expected, ids );
+            }
+            finally
+            {
+                service.shutdown();
+                workerCursors.forEach( RelationshipScanCursor::close );
+            }
+        }
+    }
+
+    private MutableLongSet scanInBatches( Scan<RelationshipScanCursor> scan, int sizeHint )
+    {
+        MutableLongSet ids = new LongHashSet();
+        try ( RelationshipScanCursor relationships = cursors.allocateRelationshipScanCursor() )
+        {
+            while ( scan.reserveBatch( relationships, sizeHint ) )
+            {
+                while ( relationships.next() )
+                {
+                    assertTrue( "should only see each relationship once", ids.add( relationships.relationshipReference() ) );
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.kernel.api;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public abstract class ParallelRelationshipCursorTransactionStateTestBase<G extends KernelAPIWriteTestSupport>
+        extends KernelAPIWriteTestBase<G>
+{
+    @Test
+    public void shouldHandleEmptyDatabase() throws Exception
+    {
+        try ( Transaction tx = beginTransaction() )
+        {
+            try ( RelationshipScanCursor cursor = tx.cursors().allocateRelationshipScanCursor() )
+            {
+                Scan<RelationshipScanCursor> scan = tx.dataRead().allRelationshipsScan();
+                while ( scan.reserveBatch( cursor, 23 ) )
+                {
+                    assertFalse( cursor.next() );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scanShouldSeeAddedRelationships() throws Exception
+    {
+        int type = relationshipType( "R" );
+        MutableLongSet existing = createRelationships( type, 100 );
+        MutableLongSet added = new LongHashSet();
+
+        try ( Transaction tx = beginTransaction() )
+        {
+            Write write = tx.dataWrite();
+            for ( int i = 0; i < 100; i++ )
+            {
+                added.add( write.relationshipCreate( write.nodeCreate(), type, write.nodeCreate() ) );
+            }
+
+            try ( RelationshipScanCursor cursor = tx.cursors().allocateRelationshipScanCursor() )
+            {
+                MutableLongSet seen = new LongHashSet();
+                Scan<RelationshipScanCursor> scan = tx.dataRead().allRelationshipsScan();
+                while ( scan.reserveBatch( cursor, 17 ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        long id = cursor.relationshipReference();
+                        assertTrue( "should only see each relationship once", seen.add( id ) );
+                        assertTrue( existing.contains( id ) || added.contains( id ) );
+                    }
+                }
+
+                assertEquals( existing.size() + added.size(), seen.size() );
+            }
+        }
+    }
+
+    @Test
+    public void typeScanShouldOnlySeeAddedRelationshipsOfType() throws Exception
+    {
+        int red = relationshipType( "RED" );
+        int blue = relationshipType( "BLUE" );
+        MutableLongSet expected = createRelationships( red, 50 );
+        createRelationships( blue, 50 );
+
+        try ( Transaction tx = beginTransaction() )
+        {
+            Write write = tx.dataWrite();
+            for ( int i = 0; i < 50; i++ )
+            {
+                expected.add( write.relationshipCreate( write.nodeCreate(), red, write.nodeCreate() ) );
+                write.relationshipCreate( write.nodeCreate(), blue, write.nodeCreate() );
+            }
+
+            try ( RelationshipScanCursor cursor = tx.cursors().allocateRelationshipScanCursor() )
+            {
+                MutableLongSet seen = new LongHashSet();
+                Scan<RelationshipScanCursor> scan = tx.dataRead().relationshipTypeScan( red );
+                while ( scan.reserveBatch( cursor, 17 ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        assertEquals( red, cursor.type() );
+                        assertTrue( "should only see each relationship once", seen.add( cursor.relationshipReference() ) );
+                    }
+                }
+
+                assertEquals( expected, seen );
+            }
+        }
+    }
+
+    @Test
+    public void scanShouldNotSeeDeletedRelationships() throws Exception
+    {
+        int type = relationshipType( "R" );
+        MutableLongSet created = createRelationships( type, 100 );
+        MutableLongSet deleted = new LongHashSet();
+        try ( Transaction tx = beginTransaction() )
+        {
+            for ( long id : created.toArray() )
+            {
+                if ( id % 2 == 0 )
+                {
+                    assertTrue( tx.dataWrite().relationshipDelete( id ) );
+                    deleted.add( id );
+                }
+            }
+
+            try ( RelationshipScanCursor cursor = tx.cursors().allocateRelationshipScanCursor() )
+            {
+                MutableLongSet seen = new LongHashSet();
+                Scan<RelationshipScanCursor> scan = tx.dataRead().allRelationshipsScan();
+                while ( scan.reserveBatch( cursor, 17 ) )
+                {
+                    while ( cursor.next() )
+                    {
+                        long id = cursor.relationshipReference();
+                        assertTrue( "should only see each relationship once", seen.add( id ) );
+                        assertFalse( "should not see deleted relationship", deleted.contains( id ) );
+                    }
+                }
+
+                assertEquals( created.size() - deleted.size(), seen.size() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanAllRelationshipsFromMultipleThreadsWithTransactionState() throws Exception
+    {
+        // given
+        int threads = 4;
+        int type = relationshipType( "R" );
+        MutableLongSet expected = createRelationships( type, 1000 );
+        ExecutorService service = Executors.newFixedThreadPool( threads );
+        try ( Transaction tx = beginTransaction() )
+        {
+            Write write = tx.dataWrite();
+            for ( int i = 0; i < 250; i++ )
+            {
+                expected.add( write.relationshipCreate( write.nodeCreate(), type, write.nodeCreate() ) );
+            }
+            Scan<RelationshipScanCursor> scan = tx.dataRead().relationshipTypeScan( type );
+            List<RelationshipScanCursor> workerCursors = new ArrayList<>();
+            List<Future<MutableLongSet>> futures = new ArrayList<>();
+            try
+            {
+                // when
+                for ( int i = 0; i < threads; i++ )
+                {
+                    RelationshipScanCursor cursor = tx.cursors().allocateRelationshipScanCursor();
+                    workerCursors.add( cursor );
+                    futures.add( service.submit( () ->
+                    {
+                        MutableLongSet ids = new LongHashSet();
+                        while ( scan.reserveBatch( cursor, 50 ) )
+                        {
+                            while ( cursor.next() )
+                            {
+                                ids.add( cursor.relationshipReference() );
+                            }
+                        }
+                        return ids;
+                    } ) );
+                }
+
+                // then
+                MutableLongSet seen = new LongHashSet();
+                int total = 0;
+                for ( Future<MutableLongSet> future : futures )
+                {
+                    MutableLongSet ids = future.get();
+                    total += ids.size();
+                    seen.addAll( ids );
+                }
+                assertEquals( "batches should be disjoint", total, seen.size() );
+                assertEquals( expected, seen );
+            }
+            finally
+            {
+                workerCursors.forEach( RelationshipScanCursor::close );
+            }
+        }
+        finally
+        {
+            service.shutdown();
+        }
+    }
+
+    private int relationshipType( String name ) throws KernelException
+    {
+        try ( Transaction tx = beginTransaction() )
+        {
+            int type = tx.tokenWrite().relationshipTypeGetOrCreateForName( name );
+            tx.success();
+            return type;
+        }
+    }
+
+    private MutableLongSet createRelationships( int type, int size ) throws KernelException
+    {
+        MutableLongSet relationships = new LongHashSet();
+        try ( Transaction tx = beginTransaction() )
+        {
+            Write write = tx.dataWrite();
+            for ( int i = 0; i < size; i++ )
+            {
+                relationships.add( write.relationshipCreate( write.nodeCreate(), type, write.nodeCreate() ) );
+            }
+            tx.success();
+        }
+        return relationships;
+    }
+}
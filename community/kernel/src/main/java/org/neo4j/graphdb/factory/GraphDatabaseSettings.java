@@ -146,6 +146,12 @@ public class GraphDatabaseSettings implements LoadableConfig
     @Internal
     public static final Setting<String> lock_manager = setting( "unsupported.dbms.lock_manager", STRING, "" );
 
+    @Internal
+    @Description( "How often the community lock manager looks for deadlocks among the transactions that wait for locks. " +
+            "Transactions that wait for a lock for less than this never take part in deadlock detection." )
+    public static final Setting<Duration> community_lock_manager_deadlock_detection_interval =
+            setting( "unsupported.dbms.lock_manager.community.deadlock_detection_interval", DURATION, "10ms" );
+
     @Internal
     public static final Setting<String> tracer = setting( "unsupported.dbms.tracer", STRING, NO_DEFAULT );
 
@@ -243,6 +249,34 @@ public class GraphDatabaseSettings implements LoadableConfig
             "simply not performed and execution continues." )
     public static final Setting<Boolean> cypher_lenient_create_relationship = setting( "cypher.lenient_create_relationship", BOOLEAN, FALSE );
 
+    @Description( "The number of rows a Cypher `ORDER BY` is allowed to hold in memory. When more rows than this need " +
+            "to be sorted, sorted runs are spilled to temporary files and merged back when the result is consumed. " +
+            "Setting this to 0 disables spilling, and all rows are sorted in memory." )
+    @Internal
+    public static final Setting<Integer> cypher_sort_spill_threshold =
+            buildSetting( "unsupported.cypher.sort_spill_threshold", INTEGER, "0" ).constraint( min( 0 ) ).build();
+
+    @Description( "The number of groups a Cypher aggregation is allowed to hold in memory. Rows of groups beyond this " +
+            "are partitioned by grouping key and spilled to temporary files, and each partition is aggregated on its " +
+            "own once the input is exhausted. Setting this to 0 disables spilling, and all groups are kept in memory." )
+    @Internal
+    public static final Setting<Integer> cypher_aggregation_spill_threshold =
+            buildSetting( "unsupported.cypher.aggregation_spill_threshold", INTEGER, "0" ).constraint( min( 0 ) ).build();
+
+    @Description( "The number of build side rows a Cypher hash join is allowed to hold in memory. When the build side " +
+            "has more rows than this, both sides of the join are partitioned by join key and spilled to temporary " +
+            "files, and each partition is joined on its own. Setting this to 0 disables spilling, and the whole build " +
+            "side is kept in memory." )
+    @Internal
+    public static final Setting<Integer> cypher_hash_join_spill_threshold =
+            buildSetting( "unsupported.cypher.hash_join_spill_threshold", INTEGER, "0" ).constraint( min( 0 ) ).build();
+
+    @Description( "Path of the directory Cypher queries spill sorted runs, aggregation groups and hash join partitions " +
+            "to, when they have more rows than the spill thresholds allow. Each operator that spills creates a " +
+            "directory of its own below this one, and removes it when the query is done with it." )
+    @Internal
+    public static final Setting<File> cypher_spill_directory = pathSetting( "unsupported.dbms.directories.cypher_spill", "spill", data_directory );
+
     @Description( "Set this to specify the default runtime for the default language version." )
     @Internal
     public static final Setting<String> cypher_runtime = setting(
@@ -512,6 +546,13 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Duration> counts_store_rotation_timeout =
             setting( "unsupported.dbms.counts_store_rotation_timeout", DURATION, "10m" );
 
+    @Description( "Keep the counts store in a GBPTree, which only writes the counts that changed when checkpointing, " +
+            "instead of in a key/value store that is rewritten as a whole. An existing counts store is migrated when " +
+            "the database is started with this enabled, and rebuilt when it is started with this disabled again." )
+    @Internal
+    public static final Setting<Boolean> counts_store_gbptree =
+            setting( "unsupported.dbms.counts_store.gbptree", BOOLEAN, FALSE );
+
     @Description( "Minimum time interval after last rotation of the user log before it may be rotated again." )
     public static final Setting<Duration> store_user_log_rotation_delay =
             setting( "dbms.logs.user.rotation.delay", DURATION, "300s" );
@@ -729,18 +770,82 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Long> logical_log_rotation_threshold =
             buildSetting( "dbms.tx_log.rotation.size", BYTES, "250M" ).constraint( min( ByteUnit.mebiBytes( 1 ) ) ).build();
 
+    public enum TransactionLogCompression
+    {
+        NONE,
+        ZSTD
+    }
+
+    @Description( "Compress the commands of each transaction written to the transaction log. This costs some CPU time " +
+            "when committing, but makes the transaction logs smaller, which pays off when the disk bandwidth of " +
+            "writing the logs is the bottleneck. Small transactions are not compressed. Transaction logs with " +
+            "compressed transactions can not be read by versions of Neo4j that don't support compression." )
+    @Internal
+    public static final Setting<TransactionLogCompression> tx_log_compression = buildSetting(
+            "unsupported.dbms.tx_log.compression", optionsIgnoreCase( TransactionLogCompression.class ),
+            TransactionLogCompression.NONE.name() ).build();
+
+    @Description( "If `true`, transactions are acknowledged as committed as soon as they have been written to the " +
+            "transaction log, without waiting for the log to be forced to disk. The log is instead forced in the " +
+            "background, every `unsupported.dbms.tx_log.async_durability.force_interval`, or as soon as " +
+            "`unsupported.dbms.tx_log.async_durability.force_threshold` bytes have been written since the last force. This gives " +
+            "higher commit throughput, but transactions committed since the last force can be lost if the operating " +
+            "system crashes or the machine loses power. A crash of the database process alone does not lose them." )
+    @Internal
+    public static final Setting<Boolean> tx_log_async_durability =
+            setting( "unsupported.dbms.tx_log.async_durability.enabled", BOOLEAN, FALSE );
+
+    @Description( "The longest time that transactions committed with asynchronous durability wait for the transaction " +
+            "log to be forced to disk." )
+    @Internal
+    public static final Setting<Duration> tx_log_async_durability_force_interval =
+            buildSetting( "unsupported.dbms.tx_log.async_durability.force_interval", DURATION, "10ms" )
+                    .constraint( min( Duration.ofMillis( 1 ) ) ).build();
+
+    @Description( "The amount of transaction log written with asynchronous durability, after which the committing " +
+            "transaction forces the log to disk instead of leaving it to the background force." )
+    @Internal
+    public static final Setting<Long> tx_log_async_durability_force_threshold =
+            buildSetting( "unsupported.dbms.tx_log.async_durability.force_threshold", BYTES, "4M" )
+                    .constraint( min( ByteUnit.kibiBytes( 4 ) ) ).build();
+
     @Description( "If `true`, Neo4j will abort recovery if any errors are encountered in the logical log. Setting " +
             "this to `false` will allow Neo4j to restore as much as possible from the corrupted log files and ignore " +
             "the rest, but, the integrity of the database might be compromised." )
     @Internal
     public static final Setting<Boolean> fail_on_corrupted_log_files = setting("unsupported.dbms.tx_log.fail_on_corrupted_log_files", BOOLEAN, TRUE );
 
+    @Description( "Recover the database from the transaction log in a pipelined way. Transactions are read and " +
+            "decoded from the log on a separate thread, and applied to the store in batches, such that index and label " +
+            "scan store updates are made once per batch. Transactions within a batch that change disjoint records are " +
+            "applied in parallel." )
+    @Internal
+    public static final Setting<Boolean> recovery_pipelined =
+            setting( "unsupported.dbms.recovery.pipelined.enabled", BOOLEAN, FALSE );
+
+    @Description( "The maximum number of transactions that pipelined recovery applies to the store as one batch." )
+    @Internal
+    public static final Setting<Integer> recovery_pipelined_batch_size =
+            buildSetting( "unsupported.dbms.recovery.pipelined.batch_size", INTEGER, "1000" ).constraint( min( 1 ) ).build();
+
+    @Description( "The number of threads that pipelined recovery applies transactions on, when the transactions " +
+            "change disjoint records." )
+    @Internal
+    public static final Setting<Integer> recovery_pipelined_apply_threads =
+            buildSetting( "unsupported.dbms.recovery.pipelined.apply_threads", INTEGER, "4" ).constraint( min( 1 ) ).build();
+
     @Description( "Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities." )
     @Internal
     public static final Setting<Boolean> rebuild_idgenerators_fast =
             setting( "unsupported.dbms.id_generator_fast_rebuild_enabled", BOOLEAN, TRUE );
 
+    @Description( "Use id generators that let concurrent transactions allocate ids without contending on a single " +
+            "monitor, and that keep track of reusable ids across an unclean shutdown." )
+    @Internal
+    public static final Setting<Boolean> concurrent_id_generator =
+            setting( "unsupported.dbms.id_generator.concurrent", BOOLEAN, FALSE );
+
     @Description( "Specifies if engine should run cypher query based on a snapshot of accessed data. " +
             "Query will be restarted in case if concurrent modification of data will be detected." )
     @Internal
@@ -775,18 +880,25 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, null );
 
+    @Internal
+    @Description( "Allocate the page cache memory in large regions that are aligned to the size of transparent huge " +
+                  "pages, so that the operating system can back the page cache with huge pages. This requires " +
+                  "transparent huge pages to be enabled in the 'always' mode. The page cache memory is placed on the " +
+                  "NUMA nodes by the memory policy of the process, so start Neo4j with 'numactl --interleave=all' to " +
+                  "interleave it over all nodes. The memory that was obtained is reported in the diagnostics." )
+    public static final Setting<Boolean> pagecache_huge_pages =
+            setting( "unsupported.dbms.memory.pagecache.huge_pages", BOOLEAN, FALSE );
+
     @Internal
     @Description( "The profiling frequency for the page cache. Accurate profiles allow the page cache to do active " +
-                  "warmup after a restart, reducing the mean time to performance. " +
-                  "This feature available in Neo4j Enterprise Edition." )
+                  "warmup after a restart, reducing the mean time to performance." )
     public static final Setting<Duration> pagecache_warmup_profiling_interval =
             setting( "unsupported.dbms.memory.pagecache.warmup.profile.interval", DURATION, "1m" );
 
     @Internal
     @Description( "Page cache can be configured to perform usage sampling of loaded pages that can be used to construct active load profile. " +
             "According to that profile pages can be reloaded on the restart, replication, etc. " +
-            "This setting allows disabling that behavior. " +
-            "This feature available in Neo4j Enterprise Edition." )
+            "This setting allows disabling that behavior." )
     public static final Setting<Boolean> pagecache_warmup_enabled = setting( "unsupported.dbms.memory.pagecache.warmup.enable", BOOLEAN, TRUE );
 
     @Description( "Allows the enabling or disabling of the file watcher service." +
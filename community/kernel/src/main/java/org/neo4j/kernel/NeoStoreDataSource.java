@@ -31,6 +31,7 @@ import java.util.function.Supplier;
 import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings.TransactionLogCompression;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.internal.diagnostics.DiagnosticsManager;
 import org.neo4j.internal.kernel.api.Kernel;
@@ -81,6 +82,7 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ReentrantLockService;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.query.QueryEngineProvider;
 import org.neo4j.kernel.impl.query.QueryExecutionEngine;
@@ -98,6 +100,7 @@ import org.neo4j.kernel.impl.storemigration.participant.StoreMigrator;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.LogForceWindow;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.LogVersionUpgradeChecker;
 import org.neo4j.kernel.impl.transaction.log.LoggingLogFileMonitor;
@@ -112,6 +115,7 @@ import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerImpl;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.SimpleTriggerInfo;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.StoreCopyCheckPointMutex;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompression;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.files.LogFileCreationMonitor;
@@ -353,7 +357,7 @@ public class NeoStoreDataSource extends LifecycleAdapter
         upgradeStore( formats, tailScanner );
 
         // Build all modules and their services
-        StorageEngine storageEngine = null;
+        RecordStorageEngine storageEngine = null;
         try
         {
             DatabaseSchemaState databaseSchemaState = new DatabaseSchemaState( logProvider );
@@ -395,6 +399,7 @@ public class NeoStoreDataSource extends LifecycleAdapter
                     dataSourceDependencies.resolveDependency( IndexingService.class ),
                     databaseSchemaState,
                     dataSourceDependencies.resolveDependency( LabelScanStore.class ),
+                    storageEngine.relationshipTypeScanStore(),
                     storageEngine,
                     indexConfigStore,
                     transactionIdStore, databaseAvailabilityGuard,
@@ -435,6 +440,13 @@ public class NeoStoreDataSource extends LifecycleAdapter
         }
 
         life.add( new DatabaseDiagnostics( dataSourceDependencies.resolveDependency( DiagnosticsManager.class ), this, databaseInfo ) );
+        if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) && !readOnly )
+        {
+            // Added just before the availability, so that the profiled pages are loaded before the database is available.
+            life.add( new PageCacheWarmer( fs, pageCache, scheduler, databaseLayout.databaseDirectory(),
+                    config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval ).toMillis(),
+                    monitors.newMonitor( PageCacheWarmer.Monitor.class ), logService.getInternalLog( PageCacheWarmer.class ) ) );
+        }
         life.add( databaseAvailability );
         life.setLast( lifecycleToTriggerCheckPointOnShutdown() );
 
@@ -505,7 +517,7 @@ public class NeoStoreDataSource extends LifecycleAdapter
                 format, tailScanner, scheduler ).migrate( databaseLayout );
     }
 
-    private StorageEngine buildStorageEngine(
+    private RecordStorageEngine buildStorageEngine(
             ExplicitIndexProvider explicitIndexProviderLookup, IndexConfigStore indexConfigStore,
             SchemaState schemaState, SynchronizedArrayIdOrderingQueue explicitIndexTransactionOrdering,
             OperationalMode operationalMode, VersionContextSupplier versionContextSupplier )
@@ -546,7 +558,10 @@ public class NeoStoreDataSource extends LifecycleAdapter
 
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
-                databaseHealth ) );
+                databaseHealth, config.get( GraphDatabaseSettings.tx_log_async_durability ) ? scheduler : null, pageCache,
+                config.get( GraphDatabaseSettings.tx_log_async_durability_force_interval ).toMillis(),
+                config.get( GraphDatabaseSettings.tx_log_async_durability_force_threshold ),
+                logEntryCompression( config ), logProvider, monitors.newMonitor( LogForceWindow.Monitor.class ) ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFiles, transactionMetadataCache, logEntryReader, monitors,
                         failOnCorruptedLogFiles );
@@ -568,6 +583,12 @@ public class NeoStoreDataSource extends LifecycleAdapter
                 logRotation, checkPointer, appender, explicitIndexTransactionOrdering );
     }
 
+    private static LogEntryCompression logEntryCompression( Config config )
+    {
+        TransactionLogCompression compression = config.get( GraphDatabaseSettings.tx_log_compression );
+        return compression == TransactionLogCompression.NONE ? null : LogEntryCompression.valueOf( compression.name() );
+    }
+
     private void buildRecovery(
             final FileSystemAbstraction fileSystemAbstraction,
             TransactionIdStore transactionIdStore,
@@ -579,8 +600,11 @@ public class NeoStoreDataSource extends LifecycleAdapter
             LogicalTransactionStore logicalTransactionStore,
             LogVersionRepository logVersionRepository )
     {
+        boolean pipelined = config.get( GraphDatabaseSettings.recovery_pipelined );
         RecoveryService recoveryService = new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                logicalTransactionStore, logVersionRepository, positionMonitor );
+                logicalTransactionStore, logVersionRepository, positionMonitor, scheduler,
+                pipelined ? config.get( GraphDatabaseSettings.recovery_pipelined_batch_size ) : 0,
+                config.get( GraphDatabaseSettings.recovery_pipelined_apply_threads ) );
         CorruptedLogsTruncator logsTruncator = new CorruptedLogsTruncator( databaseLayout.databaseDirectory(), logFiles, fileSystemAbstraction );
         ProgressReporter progressReporter = new LogProgressReporter( logService.getInternalLog( Recovery.class ) );
         Lifecycle schemaLife = storageEngine.schemaAndTokensLifecycle();
@@ -590,7 +614,7 @@ public class NeoStoreDataSource extends LifecycleAdapter
 
     private NeoStoreKernelModule buildKernel( LogFiles logFiles, TransactionAppender appender,
             IndexingService indexingService, DatabaseSchemaState databaseSchemaState, LabelScanStore labelScanStore,
-            StorageEngine storageEngine, IndexConfigStore indexConfigStore, TransactionIdStore transactionIdStore,
+            LabelScanStore relationshipTypeScanStore, StorageEngine storageEngine, IndexConfigStore indexConfigStore, TransactionIdStore transactionIdStore,
             AvailabilityGuard databaseAvailabilityGuard, SystemNanoClock clock, NodePropertyAccessor nodePropertyAccessor )
     {
         AtomicReference<CpuClock> cpuClockRef = setupCpuClockAtomicReference();
@@ -632,7 +656,7 @@ public class NeoStoreDataSource extends LifecycleAdapter
         life.add( kernel );
 
         final NeoStoreFileListing fileListing = new NeoStoreFileListing( databaseLayout, logFiles, labelScanStore,
-                indexingService, explicitIndexProvider, storageEngine );
+                relationshipTypeScanStore, indexingService, explicitIndexProvider, storageEngine );
         dataSourceDependencies.satisfyDependency( fileListing );
 
         return new NeoStoreKernelModule( transactionCommitProcess, kernel, kernelTransactions, fileListing );
@@ -34,52 +34,66 @@ import static org.neo4j.helpers.Format.duration;
 public class LoggingMonitor extends Monitor.Adaptor
 {
     private final Log log;
+    private final String indexName;
+    private final String entityName;
 
     public LoggingMonitor( Log log )
+    {
+        this( log, "Label index", "nodes" );
+    }
+
+    /**
+     * @param log {@link Log} to log the events to.
+     * @param indexName capitalized name of the index, e.g. {@code "Label index"}, used in the logged messages.
+     * @param entityName plural name of the entities in the index, e.g. {@code "nodes"}, used in the logged messages.
+     */
+    public LoggingMonitor( Log log, String indexName, String entityName )
     {
         this.log = log;
+        this.indexName = indexName;
+        this.entityName = entityName;
     }
 
     @Override
     public void noIndex()
     {
-        log.info( "No label index found, this might just be first use. Preparing to rebuild." );
+        log.info( "No " + indexName.toLowerCase() + " found, this might just be first use. Preparing to rebuild." );
     }
 
     @Override
     public void notValidIndex()
     {
-        log.warn( "Label index could not be read. Preparing to rebuild." );
+        log.warn( indexName + " could not be read. Preparing to rebuild." );
     }
 
     @Override
     public void rebuilding()
     {
-        log.info( "Rebuilding label index, this may take a while" );
+        log.info( "Rebuilding " + indexName.toLowerCase() + ", this may take a while" );
     }
 
     @Override
     public void rebuilt( long roughNodeCount )
     {
-        log.info( "Label index rebuilt (roughly " + roughNodeCount + " nodes)" );
+        log.info( indexName + " rebuilt (roughly " + roughNodeCount + " " + entityName + ")" );
     }
 
     @Override
     public void recoveryCleanupRegistered()
     {
-        log.info( "Label index cleanup job registered" );
+        log.info( indexName + " cleanup job registered" );
     }
 
     @Override
     public void recoveryCleanupStarted()
     {
-        log.info( "Label index cleanup job started" );
+        log.info( indexName + " cleanup job started" );
     }
 
     @Override
     public void recoveryCleanupFinished( long numberOfPagesVisited, long numberOfCleanedCrashPointers, long durationMillis )
     {
-        StringJoiner joiner = new StringJoiner( ", ", "Label index cleanup job finished: ", "" );
+        StringJoiner joiner = new StringJoiner( ", ", indexName + " cleanup job finished: ", "" );
         joiner.add( "Number of pages visited: " + numberOfPagesVisited );
         joiner.add( "Number of cleaned crashed pointers: " + numberOfCleanedCrashPointers );
         joiner.add( "Time spent: " + duration( durationMillis ) );
@@ -89,12 +103,12 @@ public class LoggingMonitor extends Monitor.Adaptor
     @Override
     public void recoveryCleanupClosed()
     {
-        log.info( "Label index cleanup job closed" );
+        log.info( indexName + " cleanup job closed" );
     }
 
     @Override
     public void recoveryCleanupFailed( Throwable throwable )
     {
-        log.info( String.format( "Label index cleanup job failed.%nCaused by: %s", ExceptionUtils.getStackTrace( throwable ) ) );
+        log.info( String.format( "%s cleanup job failed.%nCaused by: %s", indexName, ExceptionUtils.getStackTrace( throwable ) ) );
     }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.scan;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.api.labelscan.LabelScanWriter;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+
+import static org.neo4j.collection.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+
+/**
+ * {@link FullStoreChangeStream} reading all relationships from a {@link RelationshipStore}, producing one update per relationship
+ * which adds its type.
+ */
+public class FullRelationshipTypeStream implements FullStoreChangeStream
+{
+    private final RelationshipStore relationshipStore;
+
+    public FullRelationshipTypeStream( RelationshipStore relationshipStore )
+    {
+        this.relationshipStore = relationshipStore;
+    }
+
+    @Override
+    public long applyTo( LabelScanWriter writer ) throws IOException
+    {
+        long[] count = new long[1];
+        relationshipStore.scanAllRecords( record ->
+        {
+            writer.write( NodeLabelUpdate.labelChanges( record.getId(), EMPTY_LONG_ARRAY, new long[]{record.getType()} ) );
+            count[0]++;
+            return false;
+        } );
+        return count[0];
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.storageengine.api.schema.IndexProgressor;
+import org.neo4j.storageengine.api.schema.LabelScan;
+
+import static java.lang.Math.min;
+import static org.neo4j.kernel.impl.index.labelscan.LabelScanValue.RANGE_SIZE;
+
+/**
+ * {@link LabelScan} over the {@link LabelScanKey#idRange ranges} of a single label in {@link NativeLabelScanStore}.
+ * Each batch is a number of consecutive ranges, reserved through a shared counter, so batches never overlap
+ * and each one can be read by its own {@link GBPTree#seek(Object, Object) seek}.
+ * <p>
+ * The highest range of the label is determined when this scan is created, nodes getting the label in ranges above it
+ * after that point will not be seen by this scan.
+ */
+class NativeLabelScan implements LabelScan
+{
+    private final GBPTree<LabelScanKey,LabelScanValue> index;
+    private final int labelId;
+    private final long highestRange;
+    private final AtomicLong nextRange = new AtomicLong();
+    /**
+     * Cursors of batches which haven't been exhausted or closed yet, closed by {@link #close()}.
+     */
+    private final Set<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> openCursors = ConcurrentHashMap.newKeySet();
+
+    NativeLabelScan( GBPTree<LabelScanKey,LabelScanValue> index, int labelId )
+    {
+        this.index = index;
+        this.labelId = labelId;
+        this.highestRange = highestRange( index, labelId );
+    }
+
+    @Override
+    public IndexProgressor initializeBatch( IndexProgressor.NodeLabelClient client, int sizeHint )
+    {
+        if ( sizeHint <= 0 )
+        {
+            return IndexProgressor.EMPTY;
+        }
+
+        long ranges = ((long) sizeHint + RANGE_SIZE - 1) / RANGE_SIZE;
+        long start = nextRange.getAndAdd( ranges );
+        if ( start > highestRange )
+        {
+            return IndexProgressor.EMPTY;
+        }
+        long stop = min( start + ranges, highestRange + 1 );
+
+        try
+        {
+            RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor =
+                    index.seek( new LabelScanKey( labelId, start ), new LabelScanKey( labelId, stop ) );
+            openCursors.add( cursor );
+            return new LabelScanValueIndexProgressor( cursor, openCursors, client );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    void close() throws IOException
+    {
+        for ( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor : openCursors )
+        {
+            cursor.close();
+        }
+        openCursors.clear();
+    }
+
+    private static long highestRange( GBPTree<LabelScanKey,LabelScanValue> index, int labelId )
+    {
+        // Seek backwards from the very end of this label to find its highest range
+        try ( RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor =
+                index.seek( new LabelScanKey( labelId, Long.MAX_VALUE ), new LabelScanKey( labelId, -1 ) ) )
+        {
+            return cursor.next() ? cursor.get().key().idRange : -1;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+}
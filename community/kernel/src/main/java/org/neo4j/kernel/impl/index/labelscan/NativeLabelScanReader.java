@@ -34,6 +34,7 @@ import org.neo4j.graphdb.index.Index;
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Hit;
 import org.neo4j.storageengine.api.schema.IndexProgressor;
+import org.neo4j.storageengine.api.schema.LabelScan;
 import org.neo4j.storageengine.api.schema.LabelScanReader;
 
 import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanWriter.rangeOf;
@@ -59,10 +60,16 @@ class NativeLabelScanReader implements LabelScanReader
      */
     private final Set<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> openCursors;
 
+    /**
+     * {@link NativeLabelScan Label scans} created by this reader, which may still have open cursors. Closed when {@link #close() closing} this reader.
+     */
+    private final List<NativeLabelScan> labelScans;
+
     NativeLabelScanReader( GBPTree<LabelScanKey,LabelScanValue> index )
     {
         this.index = index;
         this.openCursors = new HashSet<>();
+        this.labelScans = new ArrayList<>();
     }
 
     /**
@@ -74,6 +81,11 @@ class NativeLabelScanReader implements LabelScanReader
         try
         {
             ensureOpenCursorsClosed();
+            for ( NativeLabelScan labelScan : labelScans )
+            {
+                labelScan.close();
+            }
+            labelScans.clear();
         }
         catch ( IOException e )
         {
@@ -129,6 +141,14 @@ class NativeLabelScanReader implements LabelScanReader
         client.scan( new LabelScanValueIndexProgressor( cursor, openCursors, client ), false, labelId );
     }
 
+    @Override
+    public LabelScan nodeLabelScan( int labelId )
+    {
+        NativeLabelScan labelScan = new NativeLabelScan( index, labelId );
+        labelScans.add( labelScan );
+        return labelScan;
+    }
+
     private List<PrimitiveLongResourceIterator> iteratorsForLabels( long fromId, int[] labelIds )
     {
         List<PrimitiveLongResourceIterator> iterators = new ArrayList<>();
@@ -191,16 +191,27 @@ public class NativeLabelScanStore implements LabelScanStore
     NativeLabelScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs,
                 FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Monitors monitors,
                 RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, int pageSize )
+    {
+        this( pageCache, directoryStructure, getLabelScanStoreFile( directoryStructure ), fs, fullStoreChangeStream, readOnly, monitors,
+                monitors.newMonitor( Monitor.class ), recoveryCleanupWorkCollector, pageSize );
+    }
+
+    /*
+     * Access for stores sharing the layout and mechanics of this label scan store, but backed by another store file.
+     */
+    NativeLabelScanStore( PageCache pageCache, DatabaseLayout directoryStructure, File storeFile, FileSystemAbstraction fs,
+            FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Monitors monitors, Monitor monitor,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, int pageSize )
     {
         this.pageCache = pageCache;
         this.fs = fs;
         this.pageSize = pageSize;
         this.fullStoreChangeStream = fullStoreChangeStream;
         this.directoryStructure = directoryStructure;
-        this.storeFile = getLabelScanStoreFile( directoryStructure );
+        this.storeFile = storeFile;
         this.readOnly = readOnly;
         this.monitors = monitors;
-        this.monitor = monitors.newMonitor( Monitor.class );
+        this.monitor = monitor;
         this.recoveryCleanupWorkCollector = recoveryCleanupWorkCollector;
         this.fileSystem = fs;
     }
@@ -230,11 +241,12 @@ public class NativeLabelScanStore implements LabelScanStore
 
     /**
      * Returns {@link LabelScanWriter} capable of making changes to this {@link LabelScanStore}.
-     * Only a single writer is allowed at any given point in time.
+     * Multiple writers can be used concurrently, unless writes are monitored, in which case only a single writer
+     * is allowed at any given point in time since the {@link LabelScanWriteMonitor} isn't thread-safe.
      *
      * @return {@link LabelScanWriter} capable of making changes to this {@link LabelScanStore}.
-     * @throws IllegalStateException if someone else has already acquired a writer and hasn't yet
-     * called {@link LabelScanWriter#close()}.
+     * @throws IllegalStateException if writes are monitored and someone else has already acquired a writer
+     * and hasn't yet called {@link LabelScanWriter#close()}.
      */
     @Override
     public LabelScanWriter newWriter()
@@ -246,6 +258,10 @@ public class NativeLabelScanStore implements LabelScanStore
 
         try
         {
+            if ( writeMonitor == NativeLabelScanWriter.EMPTY )
+            {
+                return new NativeLabelScanWriter( 1_000, writeMonitor ).initialize( index.parallelWriter() );
+            }
             return writer();
         }
         catch ( IOException e )
@@ -339,7 +355,7 @@ public class NativeLabelScanStore implements LabelScanStore
             isDirty = true;
         }
 
-        writeMonitor = LabelScanWriteMonitor.ENABLED ? new LabelScanWriteMonitor( fs, directoryStructure ) : NativeLabelScanWriter.EMPTY;
+        writeMonitor = newWriteMonitor();
         singleWriter = new NativeLabelScanWriter( 1_000, writeMonitor );
 
         if ( isDirty )
@@ -354,6 +370,19 @@ public class NativeLabelScanStore implements LabelScanStore
         }
     }
 
+    NativeLabelScanWriter.WriteMonitor newWriteMonitor()
+    {
+        return LabelScanWriteMonitor.ENABLED ? new LabelScanWriteMonitor( fs, directoryStructure ) : NativeLabelScanWriter.EMPTY;
+    }
+
+    /**
+     * @return name of this store, as used in messages about it.
+     */
+    String storeName()
+    {
+        return "Label scan store";
+    }
+
     @Override
     public boolean hasStore()
     {
@@ -385,7 +414,7 @@ public class NativeLabelScanStore implements LabelScanStore
         catch ( TreeFileNotFoundException e )
         {
             throw new IllegalStateException(
-                    "Label scan store file could not be found, most likely this database needs to be recovered, file:" + storeFile, e );
+                    storeName() + " file could not be found, most likely this database needs to be recovered, file:" + storeFile, e );
         }
     }
 
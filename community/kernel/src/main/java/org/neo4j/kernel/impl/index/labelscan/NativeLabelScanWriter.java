@@ -73,7 +73,7 @@ class NativeLabelScanWriter implements LabelScanWriter
 
     /**
      * {@link Writer} acquired when acquiring this {@link NativeLabelScanWriter},
-     * acquired from {@link GBPTree#writer()}.
+     * acquired from {@link GBPTree#writer()} or {@link GBPTree#parallelWriter()}.
      */
     private Writer<LabelScanKey,LabelScanValue> writer;
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.labelscan.LoggingMonitor;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.scan.FullStoreChangeStream;
+import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.logging.Log;
+import org.neo4j.storageengine.api.schema.LabelScanReader;
+
+import static org.neo4j.helpers.collection.Iterators.emptyResourceIterator;
+
+/**
+ * Relationship type scan store, mapping relationship type ids to the ids of relationships of that type.
+ * It is a {@link NativeLabelScanStore} in everything but name, using the same {@link GBPTree} and {@link LabelScanLayout bitmap range layout},
+ * with relationship type ids in place of label ids and relationship ids in place of node ids. Updates are written as
+ * {@link NodeLabelUpdate} where the "labels" of a relationship is its single type, being added when the relationship is created
+ * and removed when it's deleted.
+ * <p>
+ * The store is backed by the single store file "neostore.relationshiptypescanstore.db". If the file is missing, e.g. for a database
+ * created by an earlier version, the store will be rebuilt from the {@link FullStoreChangeStream} on {@link #start()}. In read-only mode
+ * the store can't be rebuilt, so it's instead left {@link #isAvailable() unavailable} and relationships of a type are found by scanning
+ * the relationship store.
+ */
+public class NativeRelationshipTypeScanStore extends NativeLabelScanStore
+{
+    private final Log log;
+    private boolean available = true;
+
+    /**
+     * @param log {@link Log} to log events such as rebuilding the store to.
+     */
+    public NativeRelationshipTypeScanStore( PageCache pageCache, DatabaseLayout directoryStructure, FileSystemAbstraction fs,
+            FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Log log, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+    {
+        // Monitors of this store are kept separate from the ones of the label scan store, which would otherwise pick up events from this store too
+        super( pageCache, directoryStructure, getRelationshipTypeScanStoreFile( directoryStructure ), fs, fullStoreChangeStream, readOnly, new Monitors(),
+                new LoggingMonitor( log, "Relationship type index", "relationships" ), recoveryCleanupWorkCollector, /*means no opinion about page size*/ 0 );
+        this.log = log;
+    }
+
+    /**
+     * Returns the file backing the relationship type scan store.
+     *
+     * @param directoryStructure The store directory to use.
+     * @return the file backing the relationship type scan store
+     */
+    public static File getRelationshipTypeScanStoreFile( DatabaseLayout directoryStructure )
+    {
+        return directoryStructure.relationshipTypeScanStore();
+    }
+
+    @Override
+    NativeLabelScanWriter.WriteMonitor newWriteMonitor()
+    {
+        // The write log is a debugging aid for the label scan store only
+        return NativeLabelScanWriter.EMPTY;
+    }
+
+    @Override
+    String storeName()
+    {
+        return "Relationship type scan store";
+    }
+
+    @Override
+    public void init() throws IOException
+    {
+        if ( isReadOnly() && !hasStore() )
+        {
+            log.warn( "Relationship type scan store file %s could not be found and can't be rebuilt in read-only mode, " +
+                    "relationships of a type will be found by scanning the relationship store", getLabelScanStoreFile() );
+            available = false;
+            return;
+        }
+        super.init();
+    }
+
+    /**
+     * @return whether or not this store can be read from. It's unavailable only in read-only mode, when its file is missing.
+     */
+    public boolean isAvailable()
+    {
+        return available;
+    }
+
+    @Override
+    public LabelScanReader newReader()
+    {
+        if ( !available )
+        {
+            throw new IllegalStateException( storeName() + " file " + getLabelScanStoreFile() + " could not be found" );
+        }
+        return super.newReader();
+    }
+
+    @Override
+    public void force( IOLimiter limiter )
+    {
+        if ( available )
+        {
+            super.force( limiter );
+        }
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotStoreFiles()
+    {
+        return available ? super.snapshotStoreFiles() : emptyResourceIterator();
+    }
+}
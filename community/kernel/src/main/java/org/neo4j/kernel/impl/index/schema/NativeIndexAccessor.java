@@ -45,14 +45,12 @@ import static org.neo4j.kernel.impl.index.schema.NativeIndexPopulator.BYTE_ONLIN
 public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE extends NativeIndexValue> extends NativeIndex<KEY,VALUE>
         implements IndexAccessor
 {
-    private final NativeIndexUpdater<KEY,VALUE> singleUpdater;
     final NativeIndexHeaderWriter headerWriter;
 
     NativeIndexAccessor( PageCache pageCache, FileSystemAbstraction fs, File storeFile, IndexLayout<KEY,VALUE> layout,
             IndexProvider.Monitor monitor, StoreIndexDescriptor descriptor, Consumer<PageCursor> additionalHeaderWriter, boolean readOnly )
     {
         super( pageCache, fs, storeFile, layout, monitor, descriptor, readOnly );
-        singleUpdater = new NativeIndexUpdater<>( layout.newKey(), layout.newValue() );
         headerWriter = new NativeIndexHeaderWriter( BYTE_ONLINE, additionalHeaderWriter );
     }
 
@@ -76,7 +74,8 @@ public abstract class NativeIndexAccessor<KEY extends NativeIndexKey<KEY>, VALUE
         assertOpen();
         try
         {
-            return singleUpdater.initialize( tree.writer() );
+            // Updaters can be used concurrently, e.g. by transactions applied in parallel, each getting its own tree writer
+            return new NativeIndexUpdater<>( layout.newKey(), layout.newValue() ).initialize( tree.parallelWriter() );
         }
         catch ( IOException e )
         {
@@ -22,9 +22,10 @@ package org.neo4j.kernel.impl.locking;
 import java.time.Clock;
 
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.lock.ResourceType;
 
 public interface LocksFactory
 {
-    Locks newInstance( Config config, Clock clock, ResourceType[] resourceTypes );
+    Locks newInstance( Config config, Clock clock, ResourceType[] resourceTypes, JobScheduler scheduler );
 }
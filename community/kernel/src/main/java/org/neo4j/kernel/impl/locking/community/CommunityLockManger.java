@@ -21,17 +21,21 @@ package org.neo4j.kernel.impl.locking.community;
 
 import java.time.Clock;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.scheduler.JobScheduler;
 
 public class CommunityLockManger implements Locks
 {
     private final LockManagerImpl manager;
     private volatile boolean closed;
 
-    public CommunityLockManger( Config config, Clock clock )
+    public CommunityLockManger( Config config, Clock clock, JobScheduler scheduler )
     {
-        manager = new LockManagerImpl( new RagManager(), config, clock );
+        RagManager ragManager = new RagManager( scheduler,
+                config.get( GraphDatabaseSettings.community_lock_manager_deadlock_detection_interval ).toMillis() );
+        manager = new LockManagerImpl( ragManager, config, clock );
     }
 
     @Override
@@ -24,13 +24,14 @@ import java.time.Clock;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.LocksFactory;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.lock.ResourceType;
 
 public class CommunityLocksFactory implements LocksFactory
 {
     @Override
-    public Locks newInstance( Config config, Clock clock, ResourceType[] resourceTypes )
+    public Locks newInstance( Config config, Clock clock, ResourceType[] resourceTypes, JobScheduler scheduler )
     {
-        return new CommunityLockManger( config, clock );
+        return new CommunityLockManger( config, clock, scheduler );
     }
 }
@@ -20,9 +20,11 @@
 package org.neo4j.kernel.impl.locking.community;
 
 import java.time.Clock;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 
@@ -56,9 +58,12 @@ import static org.neo4j.kernel.impl.locking.LockType.WRITE;
  * by T1. T2 cannot wait on R1 because that would lead to a deadlock where T1
  * and T2 waits forever.
  * <p/>
- * Avoiding deadlocks can be done by keeping a resource allocation graph. This
- * class works together with the {@link RagManager} to make sure no deadlocks
- * occur.
+ * Such deadlocks are detected with a resource allocation graph. A transaction
+ * that has to wait registers itself with the {@link RagManager}, which
+ * periodically looks for cycles among the waiting transactions and the
+ * holders of the locks they wait for, see {@link #blockersOf(Object, LockType)},
+ * and {@link #deadlockDetected(RagManager.Waiter, String) wakes up} one
+ * transaction of each cycle to throw a {@link DeadlockDetectedException}.
  * <p/>
  * Waiting transactions are put into a queue and when some tx releases the lock
  * the queue is checked for waiting txs. This implementation tries to avoid lock
@@ -100,6 +105,10 @@ class RWLock
         private int requests;
         // flag indicate that current TxLockElement is terminated because owning client closed
         private boolean terminated;
+        // the registration of the current wait of the transaction for this lock, if any
+        private RagManager.Waiter waiter;
+        // description of the deadlock that the current wait is part of, once detected
+        private String deadlock;
 
         TxLockElement( Object tx )
         {
@@ -177,8 +186,8 @@ class RWLock
     /**
      * Tries to acquire read lock for a given transaction. If
      * <CODE>this.writeCount</CODE> is greater than the currents tx's write
-     * count the transaction has to wait and the {@link RagManager#checkWaitOn}
-     * method is invoked for deadlock detection.
+     * count the transaction has to wait, and is registered with the
+     * {@link RagManager} for deadlock detection.
      * <p/>
      * If the lock can be acquired the lock count is updated on <CODE>this</CODE>
      * and the transaction lock element (tle).
@@ -195,6 +204,7 @@ class RWLock
 
         LockRequest lockRequest = null;
         LockWaitEvent waitEvent = null;
+        RagManager.Waiter waiter = null;
         // used to track do we need to add lock request to a waiting queue or we still have it there
         boolean addLockRequest = true;
         try
@@ -206,7 +216,15 @@ class RWLock
             while ( !tle.isTerminated() && (totalWriteCount > tle.writeCount) )
             {
                 assertNotExpired( lockAcquisitionTimeBoundary );
-                ragManager.checkWaitOn( this, tx );
+                if ( tle.deadlock != null )
+                {
+                    throw new DeadlockDetectedException( tle.deadlock );
+                }
+                if ( waiter == null )
+                {
+                    waiter = ragManager.startWaitOn( this, tx, READ );
+                    tle.waiter = waiter;
+                }
 
                 if ( addLockRequest )
                 {
@@ -219,12 +237,11 @@ class RWLock
                     waitEvent = tracer.waitForLock( false, resource.type(), resource.resourceId() );
                 }
                 addLockRequest = waitUninterruptedly( lockAcquisitionTimeBoundary );
-                ragManager.stopWaitOn( this, tx );
             }
 
             if ( !tle.isTerminated() )
             {
-                registerReadLockAcquired( tx, tle );
+                registerReadLockAcquired( tle );
                 return true;
             }
             else
@@ -241,6 +258,12 @@ class RWLock
         }
         finally
         {
+            if ( waiter != null )
+            {
+                ragManager.stopWaitOn( waiter );
+                tle.waiter = null;
+                tle.deadlock = null;
+            }
             if ( waitEvent != null )
             {
                 waitEvent.close();
@@ -266,7 +289,7 @@ class RWLock
                 return false;
             }
 
-            registerReadLockAcquired( tx, tle );
+            registerReadLockAcquired( tle );
             return true;
         }
         finally
@@ -296,13 +319,9 @@ class RWLock
 
         totalReadCount = MathUtil.decrementExactNotPastZero( totalReadCount );
         tle.readCount = MathUtil.decrementExactNotPastZero( tle.readCount );
-        if ( tle.isFree() )
+        if ( tle.isFree() && tle.hasNoRequests() )
         {
-            ragManager.lockReleased( this, tx );
-            if ( tle.hasNoRequests() )
-            {
-                txLockElementMap.remove( tx );
-            }
+            txLockElementMap.remove( tx );
         }
         if ( !waitingThreadList.isEmpty() )
         {
@@ -365,8 +384,8 @@ class RWLock
      * Tries to acquire write lock for a given transaction. If
      * <CODE>this.writeCount</CODE> is greater than the currents tx's write
      * count or the read count is greater than the currents tx's read count the
-     * transaction has to wait and the {@link RagManager#checkWaitOn} method is
-     * invoked for deadlock detection.
+     * transaction has to wait, and is registered with the {@link RagManager}
+     * for deadlock detection.
      * <p/>
      * If the lock can be acquires the lock count is updated on <CODE>this</CODE>
      * and the transaction lock element (tle).
@@ -383,6 +402,7 @@ class RWLock
 
         LockRequest lockRequest = null;
         LockWaitEvent waitEvent = null;
+        RagManager.Waiter waiter = null;
         // used to track do we need to add lock request to a waiting queue or we still have it there
         boolean addLockRequest = true;
         try
@@ -394,7 +414,15 @@ class RWLock
             while ( !tle.isTerminated() && (totalWriteCount > tle.writeCount || totalReadCount > tle.readCount) )
             {
                 assertNotExpired( lockAcquisitionTimeBoundary );
-                ragManager.checkWaitOn( this, tx );
+                if ( tle.deadlock != null )
+                {
+                    throw new DeadlockDetectedException( tle.deadlock );
+                }
+                if ( waiter == null )
+                {
+                    waiter = ragManager.startWaitOn( this, tx, WRITE );
+                    tle.waiter = waiter;
+                }
 
                 if ( addLockRequest )
                 {
@@ -407,12 +435,11 @@ class RWLock
                     waitEvent = tracer.waitForLock( true, resource.type(), resource.resourceId() );
                 }
                 addLockRequest = waitUninterruptedly( lockAcquisitionTimeBoundary );
-                ragManager.stopWaitOn( this, tx );
             }
 
             if ( !tle.isTerminated() )
             {
-                registerWriteLockAcquired( tx, tle );
+                registerWriteLockAcquired( tle );
                 return true;
             }
             else
@@ -429,6 +456,12 @@ class RWLock
         }
         finally
         {
+            if ( waiter != null )
+            {
+                ragManager.stopWaitOn( waiter );
+                tle.waiter = null;
+                tle.deadlock = null;
+            }
             if ( waitEvent != null )
             {
                 waitEvent.close();
@@ -489,7 +522,7 @@ class RWLock
                 return false;
             }
 
-            registerWriteLockAcquired( tx, tle );
+            registerWriteLockAcquired( tle );
             return true;
         }
         finally
@@ -519,13 +552,9 @@ class RWLock
 
         totalWriteCount = MathUtil.decrementExactNotPastZero( totalWriteCount );
         tle.writeCount = MathUtil.decrementExactNotPastZero( tle.writeCount );
-        if ( tle.isFree() )
+        if ( tle.isFree() && tle.hasNoRequests() )
         {
-            ragManager.lockReleased( this, tx );
-            if ( tle.hasNoRequests() )
-            {
-                txLockElementMap.remove( tx );
-            }
+            txLockElementMap.remove( tx );
         }
 
         // the threads in the waitingList cannot be currentThread
@@ -638,6 +667,49 @@ class RWLock
         return System.currentTimeMillis() - max;
     }
 
+    /**
+     * @return the transactions that the given transaction would wait for to get the given type of lock: those that
+     * hold the write lock, and for a write lock also those that hold the read lock, other than the transaction itself.
+     */
+    synchronized List<Object> blockersOf( Object tx, LockType lockType )
+    {
+        List<Object> blockers = new ArrayList<>();
+        for ( TxLockElement tle : txLockElementMap.values() )
+        {
+            if ( !tle.tx.equals( tx ) && (tle.writeCount > 0 || (lockType == WRITE && tle.readCount > 0)) )
+            {
+                blockers.add( tle.tx );
+            }
+        }
+        return blockers;
+    }
+
+    /**
+     * Wake up the transaction of the given wait to throw a {@link DeadlockDetectedException}, if it is still waiting.
+     *
+     * @return whether the transaction was still waiting.
+     */
+    synchronized boolean deadlockDetected( RagManager.Waiter waiter, String description )
+    {
+        TxLockElement lockElement = txLockElementMap.get( waiter.tx );
+        if ( lockElement == null || lockElement.waiter != waiter )
+        {
+            return false;
+        }
+        lockElement.deadlock = description;
+        Iterator<LockRequest> requests = waitingThreadList.iterator();
+        while ( requests.hasNext() )
+        {
+            LockRequest lockRequest = requests.next();
+            if ( lockRequest.element == lockElement )
+            {
+                requests.remove();
+                lockRequest.waitingThread.interrupt();
+            }
+        }
+        return true;
+    }
+
     // for specified transaction object mark all lock elements as terminated
     // and interrupt all waiters
     synchronized void terminateLockRequestsForLockTransaction( Object lockTransaction )
@@ -662,28 +734,18 @@ class RWLock
         return "RWLock[" + resource + ", hash=" + hashCode() + "]";
     }
 
-    private void registerReadLockAcquired( Object tx, TxLockElement tle )
+    private void registerReadLockAcquired( TxLockElement tle )
     {
-        registerLockAcquired( tx, tle );
         totalReadCount = Math.incrementExact( totalReadCount );
         tle.readCount = Math.incrementExact( tle.readCount );
     }
 
-    private void registerWriteLockAcquired( Object tx, TxLockElement tle )
+    private void registerWriteLockAcquired( TxLockElement tle )
     {
-        registerLockAcquired( tx, tle );
         totalWriteCount = Math.incrementExact( totalWriteCount );
         tle.writeCount = Math.incrementExact( tle.writeCount );
     }
 
-    private void registerLockAcquired( Object tx, TxLockElement tle )
-    {
-        if ( tle.isFree() )
-        {
-            ragManager.lockAcquired( this, tx );
-        }
-    }
-
     private TxLockElement getLockElement( Object tx )
     {
         TxLockElement tle = txLockElementMap.get( tx );
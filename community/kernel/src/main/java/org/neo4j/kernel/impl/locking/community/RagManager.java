@@ -19,213 +19,264 @@
  */
 package org.neo4j.kernel.impl.locking.community;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.locking.LockType;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
 
 /**
- * The Resource Allocation Graph manager is used for deadlock detection. It
- * keeps track of all locked resources and transactions waiting for resources.
- * When a {@link RWLock} cannot give the lock to a transaction the tx has to
- * wait and that may lead to a deadlock. So before the tx is put into wait mode
- * the {@link RagManager#checkWaitOn} method is invoked to check if a wait of
- * this transaction will lead to a deadlock.
+ * The Resource Allocation Graph manager is used for deadlock detection. Think of the resource allocation graph as a
+ * graph with two node types, resources (R) and transactions (T). A resource that is locked by a transaction has a
+ * relationship to it (R->T), and a transaction that waits for a resource has a relationship to it (T->R). There is a
+ * deadlock if a transaction can reach itself in this graph: T1->R1->T2->R2->T1.
  * <p/>
- * The <CODE>checkWaitOn</CODE> throws a {@link DeadlockDetectedException} if
- * a deadlock would occur when the transaction would wait for the resource. That
- * will guarantee that a deadlock never occurs on a RWLock basis.
+ * The graph is not maintained as locks are acquired and released. Only transactions that actually have to wait
+ * {@link #startWaitOn(RWLock, Object, LockType) register} what they are waiting for, and the holders of the locks are
+ * read from the {@link RWLock}s themselves when needed. Instead of checking for a deadlock before every wait, a
+ * {@link Group#DEADLOCK_DETECTION} job periodically takes a snapshot of the waiting transactions and the holders of the locks they wait
+ * for, looks for cycles in it, and wakes up one transaction of each cycle found to throw a
+ * {@link DeadlockDetectedException}. That transaction is the one that started waiting last, i.e. the one that closed
+ * the cycle. Acquisitions that don't have to wait, or only wait for less than the detection interval, thus never
+ * touch the graph. The detector job is only running while there are waiting transactions.
  * <p/>
- * Think of the resource allocation graph as a graph. We have two node
- * types, resource nodes (R) and tx/process nodes (T). When a transaction
- * acquires lock on some resource a relationship is added from the resource to
- * the tx (R->T) and when a transaction waits for a resource a relationship is
- * added from the tx to the resource (T->R). The only thing we need to do to see
- * if a deadlock occurs when some transaction waits for a resource is to
- * traverse the graph starting on the resource and see if we can get back
- * to the tx ( T1 wants to wait on R1 and R1->T2->R2->T3->R8->T1 <==>
- * deadlock!).
+ * Since the snapshot is not taken atomically, a cycle is only reported if all of its transactions have been waiting
+ * since before the holders of the locks were read, and still are. A transaction that waits can't release any locks,
+ * so the cycle has then existed all along.
  */
 public class RagManager
 {
-    // if a runtime exception is thrown from any method it means that the
-    // RWLock class hasn't kept the contract to the RagManager
-    // The contract is:
-    // o When a transaction gets a lock on a resource and both the readCount and
-    // writeCount for that transaction on the resource was 0
-    // RagManager.lockAcquired( resource ) must be invoked
-    // o When a tx releases a lock on a resource and both the readCount and
-    // writeCount for that transaction on the resource goes down to zero
-    // RagManager.lockReleased( resource ) must be invoked
-    // o After invoke to the checkWaitOn( resource ) method that didn't result
-    // in a DeadlockDetectedException the transaction must wait
-    // o When the transaction wakes up from waiting on a resource the
-    // stopWaitOn( resource ) method must be invoked
-
-    private final Map<Object,List<Object>> resourceMap = new HashMap<>();
-    private final Map<Object, Object> waitingTxMap = new HashMap<>();
-
-    synchronized void lockAcquired( Object resource, Object tx )
+    private static final long DEFAULT_DETECTION_INTERVAL_MILLIS = 10;
+
+    private final Map<Object,Waiter> waitingTxMap = new ConcurrentHashMap<>();
+    private final AtomicLong waitSequence = new AtomicLong();
+    private final AtomicBoolean detectorRunning = new AtomicBoolean();
+    private final JobScheduler scheduler;
+    private final long detectionIntervalNanos;
+    // The RWLocks call into this class while holding their monitors, so detection must not hold a monitor that the
+    // RWLocks take, only this one, which only guards against concurrent detection.
+    private final Object detection = new Object();
+
+    public RagManager( JobScheduler scheduler )
     {
-        List<Object> lockingTxList = resourceMap.get( resource );
-        if ( lockingTxList != null )
-        {
-            assert !lockingTxList.contains( tx );
-            lockingTxList.add( tx );
-        }
-        else
-        {
-            lockingTxList = new LinkedList<>();
-            lockingTxList.add( tx );
-            resourceMap.put( resource, lockingTxList );
-        }
+        this( scheduler, DEFAULT_DETECTION_INTERVAL_MILLIS );
     }
 
-    synchronized void lockReleased( Object resource, Object tx )
+    public RagManager( JobScheduler scheduler, long detectionIntervalMillis )
     {
-        List<Object> lockingTxList = resourceMap.get( resource );
-        if ( lockingTxList == null )
-        {
-            throw new LockException( resource + " not found in resource map" );
-        }
+        this.scheduler = scheduler;
+        this.detectionIntervalNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 1, detectionIntervalMillis ) );
+    }
 
-        if ( !lockingTxList.remove( tx ) )
+    /**
+     * Register that the given transaction waits for the given lock, and make sure that the detector is running.
+     * Must be paired with a call to {@link #stopWaitOn(Waiter)} once the transaction stops waiting.
+     */
+    Waiter startWaitOn( RWLock lock, Object tx, LockType lockType )
+    {
+        Waiter waiter = new Waiter( lock, tx, lockType, waitSequence.incrementAndGet() );
+        if ( waitingTxMap.put( tx, waiter ) != null )
         {
-            throw new LockException( tx + "not found in locking tx list" );
+            throw new LockException( tx + " already waiting for resource" );
         }
-        if ( lockingTxList.size() == 0 )
+        if ( !detectorRunning.get() && detectorRunning.compareAndSet( false, true ) )
         {
-            resourceMap.remove( resource );
+            scheduler.schedule( Group.DEADLOCK_DETECTION, this::detectWhileWaiting );
         }
+        return waiter;
     }
 
-    synchronized void stopWaitOn( Object resource, Object tx )
+    void stopWaitOn( Waiter waiter )
     {
-        if ( waitingTxMap.remove( tx ) == null )
+        if ( !waitingTxMap.remove( waiter.tx, waiter ) )
         {
-            throw new LockException( tx + " not waiting on " + resource );
+            throw new LockException( waiter.tx + " not waiting on " + waiter.lock );
         }
     }
 
-    // after invoke the transaction must wait on the resource
-    synchronized void checkWaitOn( Object resource, Object tx )
-            throws DeadlockDetectedException
+    private void detectWhileWaiting()
     {
-        List<Object> lockingTxList = resourceMap.get( resource );
-        if ( lockingTxList == null )
+        while ( true )
         {
-            throw new LockException( "Illegal resource[" + resource
-                                     + "], not found in map" );
+            LockSupport.parkNanos( detectionIntervalNanos );
+            if ( waitingTxMap.isEmpty() )
+            {
+                detectorRunning.set( false );
+                // A transaction may have started waiting after the check above, but seen the detector as running
+                if ( waitingTxMap.isEmpty() || !detectorRunning.compareAndSet( false, true ) )
+                {
+                    return;
+                }
+            }
+            detectDeadlocks();
         }
+    }
 
-        if ( waitingTxMap.get( tx ) != null )
+    /**
+     * Look for cycles among the currently waiting transactions, and wake up one transaction of each cycle found to
+     * throw a {@link DeadlockDetectedException}.
+     *
+     * @return the number of deadlocks found.
+     */
+    int detectDeadlocks()
+    {
+        synchronized ( detection )
         {
-            throw new LockException( tx + " already waiting for resource" );
+            Map<Object,Waiter> waiters = new HashMap<>( waitingTxMap );
+            Map<Waiter,List<Waiter>> waitsFor = new HashMap<>();
+            for ( Waiter waiter : waiters.values() )
+            {
+                List<Waiter> blockingWaiters = new ArrayList<>();
+                for ( Object blocker : waiter.lock.blockersOf( waiter.tx, waiter.lockType ) )
+                {
+                    // Transactions that don't wait can't be part of a cycle
+                    Waiter blockingWaiter = waiters.get( blocker );
+                    if ( blockingWaiter != null )
+                    {
+                        blockingWaiters.add( blockingWaiter );
+                    }
+                }
+                waitsFor.put( waiter, blockingWaiters );
+            }
+
+            int deadlocks = 0;
+            List<Waiter> cycle;
+            while ( (cycle = findCycle( waitsFor )) != null )
+            {
+                Waiter victim = cycle.get( 0 );
+                for ( Waiter waiter : cycle )
+                {
+                    if ( waiter.sequence > victim.sequence )
+                    {
+                        victim = waiter;
+                    }
+                }
+                if ( stillWaiting( cycle ) && victim.lock.deadlockDetected( victim, describe( cycle, victim ) ) )
+                {
+                    deadlocks++;
+                }
+                waitsFor.remove( victim );
+            }
+            return deadlocks;
         }
+    }
 
-        Iterator<Object> itr = lockingTxList.iterator();
-        List<Object> checkedTransactions = new LinkedList<>();
-        final Deque<Object> graphStack = new ArrayDeque<>();
-        // has resource,transaction interleaved
-        graphStack.push( resource );
-        while ( itr.hasNext() )
+    private boolean stillWaiting( List<Waiter> cycle )
+    {
+        for ( Waiter waiter : cycle )
         {
-            Object lockingTx = itr.next();
-            // the if statement bellow is valid because:
-            // t1 -> r1 -> t1 (can happened with RW locks) is ok but,
-            // t1 -> r1 -> t1&t2 where t2 -> r1 is a deadlock
-            // think like this, we have two transactions and one resource
-            // o t1 takes read lock on r1
-            // o t2 takes read lock on r1
-            // o t1 wanna take write lock on r1 but has to wait for t2
-            // to release the read lock ( t1->r1->(t1&t2), ok not deadlock yet
-            // o t2 wanna take write lock on r1 but has to wait for t1
-            // to release read lock....
-            // DEADLOCK t1->r1->(t1&t2) and t2->r1->(t1&t2) ===>
-            // t1->r1->t2->r1->t1, t2->r1->t1->r1->t2 etc...
-            // to allow the first three steps above we check if lockingTx ==
-            // waitingTx on first level.
-            // because of this special case we have to keep track on the
-            // already "checked" tx since it is (now) legal for one type of
-            // circular reference to exist (t1->r1->t1) otherwise we may
-            // traverse t1->r1->t2->r1->t2->r1->t2... until SOE
-            // ... KISS to you too
-            if ( lockingTx.equals( tx ) )
+            if ( waitingTxMap.get( waiter.tx ) != waiter )
             {
-                continue;
+                return false;
             }
-            graphStack.push( lockingTx );
-            checkWaitOnRecursive( lockingTx, tx, checkedTransactions, graphStack );
-            graphStack.pop();
         }
-
-        // ok no deadlock, we can wait on resource
-        waitingTxMap.put( tx, resource );
+        return true;
     }
 
-    private synchronized void checkWaitOnRecursive( Object lockingTx,
-                                                    Object waitingTx, List<Object> checkedTransactions,
-                                                    Deque<Object> graphStack ) throws DeadlockDetectedException
+    /**
+     * @return the waiters of a cycle in the given graph, in the order they wait for each other, or {@code null} if
+     * there is no cycle.
+     */
+    private static List<Waiter> findCycle( Map<Waiter,List<Waiter>> waitsFor )
     {
-        if ( lockingTx.equals( waitingTx ) )
+        Set<Waiter> visited = new HashSet<>();
+        for ( Waiter start : waitsFor.keySet() )
         {
-            StringBuilder circle = null;
-            Object resource;
-            do
+            if ( !visited.contains( start ) )
             {
-                lockingTx = graphStack.pop();
-                resource = graphStack.pop();
-                if ( circle == null )
-                {
-                    circle = new StringBuilder();
-                    circle.append( lockingTx ).append( " <-[:HELD_BY]- " ).append( resource );
-                }
-                else
+                List<Waiter> path = new ArrayList<>();
+                List<Waiter> cycle = findCycle( start, waitsFor, visited, new HashSet<>(), path );
+                if ( cycle != null )
                 {
-                    circle.append( " <-[:WAITING_FOR]- " ).append( lockingTx ).append( " <-[:HELD_BY]- " )
-                          .append( resource );
+                    return cycle;
                 }
             }
-            while ( !graphStack.isEmpty() );
-            throw new DeadlockDetectedException(
-                    waitingTx + " can't wait on resource " + resource + " since => " + circle );
         }
-        checkedTransactions.add( lockingTx );
-        Object resource = waitingTxMap.get( lockingTx );
-        if ( resource != null )
+        return null;
+    }
+
+    private static List<Waiter> findCycle( Waiter waiter, Map<Waiter,List<Waiter>> waitsFor, Set<Waiter> visited,
+            Set<Waiter> onPath, List<Waiter> path )
+    {
+        visited.add( waiter );
+        onPath.add( waiter );
+        path.add( waiter );
+        List<Waiter> blockers = waitsFor.get( waiter );
+        if ( blockers != null )
         {
-            graphStack.push( resource );
-            // if the resource doesn't exist in resourceMap that means all the
-            // locks on the resource has been released
-            // it is possible when this tx was in RWLock.acquire and
-            // saw it had to wait for the lock the scheduler changes to some
-            // other tx that will release the locks on the resource and
-            // remove it from the map
-            // this is ok since current tx or any other tx will wake
-            // in the synchronized block and will be forced to do the deadlock
-            // check once more if lock cannot be acquired
-            List<Object> lockingTxList = resourceMap.get( resource );
-            if ( lockingTxList != null )
+            for ( Waiter blocker : blockers )
             {
-                for ( Object aLockingTxList : lockingTxList )
+                if ( !waitsFor.containsKey( blocker ) )
+                {
+                    // Already chosen as victim of another cycle
+                    continue;
+                }
+                if ( onPath.contains( blocker ) )
+                {
+                    return new ArrayList<>( path.subList( path.indexOf( blocker ), path.size() ) );
+                }
+                if ( !visited.contains( blocker ) )
                 {
-                    lockingTx = aLockingTxList;
-                    // so we don't
-                    if ( !checkedTransactions.contains( lockingTx ) )
+                    List<Waiter> cycle = findCycle( blocker, waitsFor, visited, onPath, path );
+                    if ( cycle != null )
                     {
-                        graphStack.push( lockingTx );
-                        checkWaitOnRecursive( lockingTx, waitingTx,
-                                checkedTransactions, graphStack );
-                        graphStack.pop();
+                        return cycle;
                     }
                 }
             }
-            graphStack.pop();
+        }
+        onPath.remove( waiter );
+        path.remove( path.size() - 1 );
+        return null;
+    }
+
+    private static String describe( List<Waiter> cycle, Waiter victim )
+    {
+        int start = cycle.indexOf( victim );
+        StringBuilder circle = new StringBuilder().append( victim.tx );
+        for ( int i = 0; i < cycle.size(); i++ )
+        {
+            Waiter waiter = cycle.get( (start + i) % cycle.size() );
+            Waiter holder = cycle.get( (start + i + 1) % cycle.size() );
+            circle.append( " -[:WAITING_FOR]-> " ).append( waiter.lock )
+                  .append( " -[:HELD_BY]-> " ).append( holder.tx );
+        }
+        return victim.tx + " can't wait on resource " + victim.lock + " since => " + circle;
+    }
+
+    /**
+     * A transaction waiting for a lock, from the time it found that it had to wait until it got the lock or gave up.
+     */
+    static final class Waiter
+    {
+        final RWLock lock;
+        final Object tx;
+        final LockType lockType;
+        final long sequence;
+
+        Waiter( RWLock lock, Object tx, LockType lockType, long sequence )
+        {
+            this.lock = lock;
+            this.tx = tx;
+            this.lockType = lockType;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public String toString()
+        {
+            return tx + " waiting for " + lockType + " lock on " + lock;
         }
     }
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * The lock of a single resource. All of its state is in one lock word that is only changed with compare-and-set:
+ * whether the lock is held exclusively, how many clients hold it shared, and whether the lock is dead.
+ * <p>
+ * A lock is dead once it has been released by its last holder, at which point it is removed from its lock map. A
+ * client that finds a dead lock looks it up again, and gets a new one.
+ * <p>
+ * The holders of the lock are also kept, but they are only read when a client has to wait for the lock, to look for
+ * deadlocks.
+ */
+final class StripedLock
+{
+    static final int ACQUIRED = 0;
+    static final int BUSY = 1;
+    static final int DIED = 2;
+
+    private static final long EXCLUSIVE = 1L << 63;
+    private static final long DEAD = 1L << 62;
+    private static final long SHARED_MASK = 0xFFFF_FFFFL;
+
+    private static final AtomicLongFieldUpdater<StripedLock> WORD =
+            AtomicLongFieldUpdater.newUpdater( StripedLock.class, "word" );
+
+    private final ResourceType resourceType;
+    private final long resourceId;
+    private final Set<StripedLockClient> sharedHolders = ConcurrentHashMap.newKeySet();
+    @SuppressWarnings( "unused" ) // accessed through the WORD field updater
+    private volatile long word;
+    private volatile StripedLockClient exclusiveHolder;
+
+    StripedLock( ResourceType resourceType, long resourceId )
+    {
+        this.resourceType = resourceType;
+        this.resourceId = resourceId;
+    }
+
+    ResourceType resourceType()
+    {
+        return resourceType;
+    }
+
+    long resourceId()
+    {
+        return resourceId;
+    }
+
+    /**
+     * @return {@link #ACQUIRED}, {@link #BUSY} if another client holds the lock exclusively, or {@link #DIED} if the
+     * lock must be looked up again.
+     */
+    int tryAcquireShared( StripedLockClient client )
+    {
+        long current;
+        do
+        {
+            current = word;
+            if ( (current & DEAD) != 0 )
+            {
+                return DIED;
+            }
+            if ( (current & EXCLUSIVE) != 0 && exclusiveHolder != client )
+            {
+                return BUSY;
+            }
+        }
+        while ( !WORD.compareAndSet( this, current, current + 1 ) );
+        sharedHolders.add( client );
+        return ACQUIRED;
+    }
+
+    /**
+     * @param holdsShared whether the client holds this lock shared, in which case the lock is upgraded.
+     * @return {@link #ACQUIRED}, {@link #BUSY} if any other client holds the lock, or {@link #DIED} if the lock must
+     * be looked up again.
+     */
+    int tryAcquireExclusive( StripedLockClient client, boolean holdsShared )
+    {
+        long current;
+        do
+        {
+            current = word;
+            if ( (current & DEAD) != 0 )
+            {
+                return DIED;
+            }
+            if ( (current & EXCLUSIVE) != 0 || (current & SHARED_MASK) != (holdsShared ? 1 : 0) )
+            {
+                return BUSY;
+            }
+        }
+        while ( !WORD.compareAndSet( this, current, current | EXCLUSIVE ) );
+        exclusiveHolder = client;
+        return ACQUIRED;
+    }
+
+    /**
+     * @return {@code true} if this was the last hold of the lock, which is then dead.
+     */
+    boolean releaseShared( StripedLockClient client )
+    {
+        sharedHolders.remove( client );
+        long current;
+        do
+        {
+            current = word;
+        }
+        while ( !WORD.compareAndSet( this, current, current - 1 ) );
+        return current - 1 == 0 && kill();
+    }
+
+    /**
+     * @return {@code true} if this was the last hold of the lock, which is then dead.
+     */
+    boolean releaseExclusive()
+    {
+        exclusiveHolder = null;
+        long current;
+        do
+        {
+            current = word;
+        }
+        while ( !WORD.compareAndSet( this, current, current & ~EXCLUSIVE ) );
+        return (current & ~EXCLUSIVE) == 0 && kill();
+    }
+
+    private boolean kill()
+    {
+        return WORD.compareAndSet( this, 0, DEAD );
+    }
+
+    boolean isHeld()
+    {
+        long current = word;
+        return (current & DEAD) == 0 && current != 0;
+    }
+
+    StripedLockClient exclusiveHolder()
+    {
+        return exclusiveHolder;
+    }
+
+    Set<StripedLockClient> sharedHolders()
+    {
+        return sharedHolders;
+    }
+
+    @Override
+    public String toString()
+    {
+        long current = word;
+        return "StripedLock[" + resourceType + "(" + resourceId + "), " +
+               ((current & DEAD) != 0 ? "dead" : "exclusive=" + exclusiveHolder + ", shared=" + sharedHolders) + "]";
+    }
+}
@@ -0,0 +1,554 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import org.eclipse.collections.api.map.primitive.MutableIntObjectMap;
+import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
+import org.eclipse.collections.impl.map.mutable.primitive.IntObjectHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.locking.ActiveLock;
+import org.neo4j.kernel.impl.locking.LockAcquisitionTimeoutException;
+import org.neo4j.kernel.impl.locking.LockClientStateHolder;
+import org.neo4j.kernel.impl.locking.LockClientStoppedException;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.storageengine.api.lock.LockTracer;
+import org.neo4j.storageengine.api.lock.LockWaitEvent;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+import static java.lang.String.format;
+import static org.neo4j.kernel.impl.locking.striped.StripedLock.ACQUIRED;
+import static org.neo4j.kernel.impl.locking.striped.StripedLock.DIED;
+
+/**
+ * A client of the {@link StripedLockManager}. Re-entrant acquisitions are counted locally, so only the first
+ * acquisition and the last release of a lock touch the shared lock word.
+ * <p>
+ * A client that has to wait for a lock publishes the lock it waits for, and then looks for a cycle in the wait-for
+ * graph made of the holders of that lock, the locks they wait for, and so on. Nothing of this is done when a lock is
+ * acquired without waiting. Since the graph is read without any locking, the search is repeated every
+ * {@link #DEADLOCK_CHECK_INTERVAL} wait iterations. Of the clients in a cycle, the one with the highest id is the one
+ * that gives up, so that a deadlock ends only one of the transactions involved.
+ */
+class StripedLockClient implements Locks.Client
+{
+    private static final int DEADLOCK_CHECK_INTERVAL = 64;
+
+    private final StripedLockManager manager;
+    private final int id;
+    private final Clock clock;
+    private final long lockAcquisitionTimeoutMillis;
+    private final MutableIntObjectMap<MutableLongObjectMap<Hold>> sharedLocks = new IntObjectHashMap<>();
+    private final MutableIntObjectMap<MutableLongObjectMap<Hold>> exclusiveLocks = new IntObjectHashMap<>();
+    private final LockClientStateHolder stateHolder = new LockClientStateHolder();
+    private volatile StripedLock waitingFor;
+
+    StripedLockClient( StripedLockManager manager, int id, Clock clock, long lockAcquisitionTimeoutMillis )
+    {
+        this.manager = manager;
+        this.id = id;
+        this.clock = clock;
+        this.lockAcquisitionTimeoutMillis = lockAcquisitionTimeoutMillis;
+    }
+
+    @Override
+    public void acquireShared( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongObjectMap<Hold> localLocks = localShared( resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                Hold hold = localLocks.get( resourceId );
+                if ( hold != null )
+                {
+                    hold.count++;
+                }
+                else
+                {
+                    localLocks.put( resourceId, new Hold( acquire( tracer, resourceType, resourceId, false ) ) );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void acquireExclusive( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongObjectMap<Hold> localLocks = localExclusive( resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                Hold hold = localLocks.get( resourceId );
+                if ( hold != null )
+                {
+                    hold.count++;
+                }
+                else
+                {
+                    localLocks.put( resourceId, new Hold( acquire( tracer, resourceType, resourceId, true ) ) );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean tryExclusiveLock( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongObjectMap<Hold> localLocks = localExclusive( resourceType );
+            Hold hold = localLocks.get( resourceId );
+            if ( hold != null )
+            {
+                hold.count++;
+                return true;
+            }
+            boolean holdsShared = localShared( resourceType ).containsKey( resourceId );
+            StripedLock lock = tryAcquire( resourceType, resourceId,
+                    candidate -> candidate.tryAcquireExclusive( this, holdsShared ) );
+            if ( lock != null )
+            {
+                localLocks.put( resourceId, new Hold( lock ) );
+                return true;
+            }
+            return false;
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean trySharedLock( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongObjectMap<Hold> localLocks = localShared( resourceType );
+            Hold hold = localLocks.get( resourceId );
+            if ( hold != null )
+            {
+                hold.count++;
+                return true;
+            }
+            StripedLock lock = tryAcquire( resourceType, resourceId, candidate -> candidate.tryAcquireShared( this ) );
+            if ( lock != null )
+            {
+                localLocks.put( resourceId, new Hold( lock ) );
+                return true;
+            }
+            return false;
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean reEnterShared( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            return reEnter( localShared( resourceType ), resourceId );
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean reEnterExclusive( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            return reEnter( localExclusive( resourceType ), resourceId );
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    private static boolean reEnter( MutableLongObjectMap<Hold> localLocks, long resourceId )
+    {
+        Hold hold = localLocks.get( resourceId );
+        if ( hold != null )
+        {
+            hold.count++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void releaseShared( ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongObjectMap<Hold> localLocks = localShared( resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                Hold hold = heldLock( localLocks, resourceType, resourceId, "shared" );
+                if ( --hold.count == 0 )
+                {
+                    localLocks.remove( resourceId );
+                    releaseShared( hold.lock );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void releaseExclusive( ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            MutableLongObjectMap<Hold> localLocks = localExclusive( resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                Hold hold = heldLock( localLocks, resourceType, resourceId, "exclusive" );
+                if ( --hold.count == 0 )
+                {
+                    localLocks.remove( resourceId );
+                    releaseExclusive( hold.lock );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    private Hold heldLock( MutableLongObjectMap<Hold> localLocks, ResourceType resourceType, long resourceId,
+            String lockType )
+    {
+        Hold hold = localLocks.get( resourceId );
+        if ( hold == null )
+        {
+            throw new IllegalStateException( format( "%s cannot release %s lock on %s(%d) that it does not hold.",
+                    this, lockType, resourceType, resourceId ) );
+        }
+        return hold;
+    }
+
+    private void releaseShared( StripedLock lock )
+    {
+        if ( lock.releaseShared( this ) )
+        {
+            manager.remove( lock );
+        }
+    }
+
+    private void releaseExclusive( StripedLock lock )
+    {
+        if ( lock.releaseExclusive() )
+        {
+            manager.remove( lock );
+        }
+    }
+
+    @Override
+    public void prepare()
+    {
+        stateHolder.prepare( this );
+    }
+
+    @Override
+    public void stop()
+    {
+        // Waiters notice that the client is stopped the next time they wake up, so all we need to do is to wait for
+        // them to leave.
+        if ( stateHolder.stopClient() )
+        {
+            waitForClientsToLeave();
+            releaseLocks();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        stateHolder.closeClient();
+        waitForClientsToLeave();
+        releaseLocks();
+    }
+
+    private void waitForClientsToLeave()
+    {
+        while ( stateHolder.hasActiveClients() )
+        {
+            LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 1 ) );
+        }
+    }
+
+    private synchronized void releaseLocks()
+    {
+        exclusiveLocks.forEachValue( localLocks -> localLocks.forEachValue( hold -> releaseExclusive( hold.lock ) ) );
+        sharedLocks.forEachValue( localLocks -> localLocks.forEachValue( hold -> releaseShared( hold.lock ) ) );
+        exclusiveLocks.clear();
+        sharedLocks.clear();
+    }
+
+    @Override
+    public int getLockSessionId()
+    {
+        return id;
+    }
+
+    @Override
+    public Stream<ActiveLock> activeLocks()
+    {
+        List<ActiveLock> locks = new ArrayList<>();
+        exclusiveLocks.forEachValue( localLocks -> localLocks.forEachValue(
+                hold -> locks.add( ActiveLock.exclusiveLock( hold.lock.resourceType(), hold.lock.resourceId() ) ) ) );
+        sharedLocks.forEachValue( localLocks -> localLocks.forEachValue(
+                hold -> locks.add( ActiveLock.sharedLock( hold.lock.resourceType(), hold.lock.resourceId() ) ) ) );
+        return locks.stream();
+    }
+
+    @Override
+    public long activeLockCount()
+    {
+        long count = 0;
+        for ( MutableLongObjectMap<Hold> localLocks : exclusiveLocks.values() )
+        {
+            count += localLocks.size();
+        }
+        for ( MutableLongObjectMap<Hold> localLocks : sharedLocks.values() )
+        {
+            count += localLocks.size();
+        }
+        return count;
+    }
+
+    private StripedLock tryAcquire( ResourceType resourceType, long resourceId, Attempt attempt )
+    {
+        while ( true )
+        {
+            StripedLock lock = manager.lock( resourceType, resourceId );
+            int result = attempt.tryAcquire( lock );
+            if ( result == ACQUIRED )
+            {
+                return lock;
+            }
+            if ( result != DIED )
+            {
+                return null;
+            }
+            manager.remove( lock );
+        }
+    }
+
+    private StripedLock acquire( LockTracer tracer, ResourceType resourceType, long resourceId, boolean exclusive )
+    {
+        boolean holdsShared = exclusive && localShared( resourceType ).containsKey( resourceId );
+        LockWaitEvent waitEvent = null;
+        long deadline = 0;
+        try
+        {
+            for ( int iteration = 0; ; iteration++ )
+            {
+                StripedLock lock = manager.lock( resourceType, resourceId );
+                int result = exclusive ? lock.tryAcquireExclusive( this, holdsShared ) : lock.tryAcquireShared( this );
+                if ( result == ACQUIRED )
+                {
+                    return lock;
+                }
+                if ( result == DIED )
+                {
+                    manager.remove( lock );
+                    continue;
+                }
+                if ( waitEvent == null )
+                {
+                    waitEvent = tracer.waitForLock( exclusive, resourceType, resourceId );
+                    deadline = lockAcquisitionTimeoutMillis > 0 ? clock.millis() + lockAcquisitionTimeoutMillis : 0;
+                }
+                waitFor( lock, exclusive, iteration, deadline );
+            }
+        }
+        finally
+        {
+            waitingFor = null;
+            if ( waitEvent != null )
+            {
+                waitEvent.close();
+            }
+        }
+    }
+
+    private void waitFor( StripedLock lock, boolean exclusive, int iteration, long deadline )
+    {
+        if ( stateHolder.isStopped() )
+        {
+            throw new LockClientStoppedException( this );
+        }
+        waitingFor = lock;
+        if ( iteration % DEADLOCK_CHECK_INTERVAL == 0 )
+        {
+            checkForDeadlock( lock, exclusive );
+        }
+        if ( deadline != 0 && clock.millis() > deadline )
+        {
+            throw new LockAcquisitionTimeoutException( lock.resourceType(), lock.resourceId(),
+                    lockAcquisitionTimeoutMillis );
+        }
+        lock.resourceType().waitStrategy().apply( iteration );
+    }
+
+    private void checkForDeadlock( StripedLock lock, boolean exclusive )
+    {
+        Deque<Object> cycle = new ArrayDeque<>();
+        if ( findCycle( lock, new HashSet<>(), cycle ) && isVictimOf( cycle ) )
+        {
+            StringBuilder description = new StringBuilder().append( this );
+            for ( Object element : cycle )
+            {
+                description.append( element instanceof StripedLock ? " -[:WAITING_FOR]-> " : " -[:HELD_BY]-> " )
+                        .append( element );
+            }
+            description.append( " -[:HELD_BY]-> " ).append( this );
+            throw new DeadlockDetectedException( format( "%s can't acquire %s lock on %s(%d) since => %s",
+                    this, exclusive ? "exclusive" : "shared", lock.resourceType(), lock.resourceId(), description ) );
+        }
+    }
+
+    /**
+     * Depth first search of the wait-for graph, from the given lock to this client, through the holders of the lock
+     * and the locks that they in turn wait for. If found, the cycle is left in {@code cycle}, as alternating locks
+     * and clients, starting with the given lock.
+     */
+    private boolean findCycle( StripedLock lock, Set<StripedLockClient> visited, Deque<Object> cycle )
+    {
+        cycle.addLast( lock );
+        List<StripedLockClient> holders = new ArrayList<>( lock.sharedHolders() );
+        StripedLockClient exclusiveHolder = lock.exclusiveHolder();
+        if ( exclusiveHolder != null )
+        {
+            holders.add( exclusiveHolder );
+        }
+        for ( StripedLockClient holder : holders )
+        {
+            if ( holder == this )
+            {
+                if ( cycle.size() > 1 )
+                {
+                    return true;
+                }
+                // This client holds the lock it waits for itself, when upgrading a shared lock
+                continue;
+            }
+            StripedLock heldWaitingFor = holder.waitingFor;
+            if ( heldWaitingFor != null && visited.add( holder ) )
+            {
+                cycle.addLast( holder );
+                if ( findCycle( heldWaitingFor, visited, cycle ) )
+                {
+                    return true;
+                }
+                cycle.removeLast();
+            }
+        }
+        cycle.removeLast();
+        return false;
+    }
+
+    private boolean isVictimOf( Deque<Object> cycle )
+    {
+        for ( Object element : cycle )
+        {
+            if ( element instanceof StripedLockClient && ((StripedLockClient) element).id > id )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MutableLongObjectMap<Hold> localShared( ResourceType resourceType )
+    {
+        return sharedLocks.getIfAbsentPut( resourceType.typeId(), LongObjectHashMap::new );
+    }
+
+    private MutableLongObjectMap<Hold> localExclusive( ResourceType resourceType )
+    {
+        return exclusiveLocks.getIfAbsentPut( resourceType.typeId(), LongObjectHashMap::new );
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "%s[%d]", getClass().getSimpleName(), getLockSessionId() );
+    }
+
+    @FunctionalInterface
+    private interface Attempt
+    {
+        int tryAcquire( StripedLock lock );
+    }
+
+    private static class Hold
+    {
+        final StripedLock lock;
+        int count = 1;
+
+        Hold( StripedLock lock )
+        {
+            this.lock = lock;
+        }
+    }
+}
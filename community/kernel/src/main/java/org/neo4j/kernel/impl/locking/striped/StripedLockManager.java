@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * A {@link Locks} implementation without any global monitor. The locks of each resource type are kept in a number of
+ * concurrent maps, stripes, chosen by resource id, and each lock is a {@link StripedLock} that is acquired and
+ * released with compare-and-set on its lock word.
+ * <p>
+ * Clients that find a lock held spin and back off according to the {@link ResourceType#waitStrategy() wait strategy}
+ * of the resource type, and only look for deadlocks once they actually have to wait, see {@link StripedLockClient}.
+ */
+public class StripedLockManager implements Locks
+{
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final ConcurrentMap<Long,StripedLock>[][] locks;
+    private final Clock clock;
+    private final long lockAcquisitionTimeoutMillis;
+    private final AtomicInteger clientIds = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @see GraphDatabaseSettings#lock_acquisition_timeout
+     */
+    @SuppressWarnings( "unchecked" )
+    public StripedLockManager( Config config, Clock clock, ResourceType... resourceTypes )
+    {
+        int maxTypeId = 0;
+        for ( ResourceType resourceType : resourceTypes )
+        {
+            maxTypeId = Math.max( maxTypeId, resourceType.typeId() );
+        }
+        this.locks = new ConcurrentMap[maxTypeId + 1][];
+        for ( ResourceType resourceType : resourceTypes )
+        {
+            ConcurrentMap<Long,StripedLock>[] stripes = new ConcurrentMap[STRIPES];
+            for ( int i = 0; i < STRIPES; i++ )
+            {
+                stripes[i] = new ConcurrentHashMap<>();
+            }
+            locks[resourceType.typeId()] = stripes;
+        }
+        this.clock = clock;
+        this.lockAcquisitionTimeoutMillis = config.get( GraphDatabaseSettings.lock_acquisition_timeout ).toMillis();
+    }
+
+    @Override
+    public Client newClient()
+    {
+        // As for the community lock manager, lock clients are pooled, so this volatile read is rare.
+        if ( closed )
+        {
+            throw new IllegalStateException( this + " already closed" );
+        }
+        return new StripedLockClient( this, clientIds.incrementAndGet(), clock, lockAcquisitionTimeoutMillis );
+    }
+
+    /**
+     * @return the current lock of the given resource, which is created if there is none. The lock may die before the
+     * caller gets to acquire it, in which case the caller must {@link #remove(StripedLock) remove} it and call this
+     * method again.
+     */
+    StripedLock lock( ResourceType resourceType, long resourceId )
+    {
+        return stripe( resourceType, resourceId ).computeIfAbsent( resourceId,
+                id -> new StripedLock( resourceType, id ) );
+    }
+
+    /**
+     * Remove a dead lock from its stripe, if it has not already been replaced by a new lock of the same resource.
+     */
+    void remove( StripedLock lock )
+    {
+        stripe( lock.resourceType(), lock.resourceId() ).remove( lock.resourceId(), lock );
+    }
+
+    private ConcurrentMap<Long,StripedLock> stripe( ResourceType resourceType, long resourceId )
+    {
+        ConcurrentMap<Long,StripedLock>[] stripes = locks[resourceType.typeId()];
+        // Fibonacci hashing, so that consecutive ids are spread over all stripes
+        return stripes[(int) ((resourceId * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - STRIPE_BITS))];
+    }
+
+    @Override
+    public void accept( Visitor visitor )
+    {
+        for ( ConcurrentMap<Long,StripedLock>[] stripes : locks )
+        {
+            if ( stripes == null )
+            {
+                continue;
+            }
+            for ( ConcurrentMap<Long,StripedLock> stripe : stripes )
+            {
+                for ( StripedLock lock : stripe.values() )
+                {
+                    if ( lock.isHeld() )
+                    {
+                        visitor.visit( lock.resourceType(), lock.resourceId(), lock.toString(), 0,
+                                System.identityHashCode( lock ) );
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+}
@@ -72,6 +72,9 @@ import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.util.Dependencies;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.register.Register;
+import org.neo4j.storageengine.api.AllNodeScan;
+import org.neo4j.storageengine.api.AllRelationshipsScan;
+import org.neo4j.storageengine.api.RelationshipTypeScan;
 import org.neo4j.storageengine.api.StorageReader;
 import org.neo4j.storageengine.api.StorageSchemaReader;
 import org.neo4j.storageengine.api.schema.CapableIndexDescriptor;
@@ -257,6 +260,24 @@ public class AllStoreHolder extends Read
         return storageReader.getLabelScanReader();
     }
 
+    @Override
+    AllNodeScan allNodeStoreScan()
+    {
+        return storageReader.allNodeScan();
+    }
+
+    @Override
+    AllRelationshipsScan allRelationshipStoreScan()
+    {
+        return storageReader.allRelationshipScan();
+    }
+
+    @Override
+    RelationshipTypeScan relationshipTypeStoreScan( int type )
+    {
+        return storageReader.relationshipTypeScan( type );
+    }
+
     @Override
     ExplicitIndex explicitNodeIndex( String indexName ) throws ExplicitIndexNotFoundKernelException
     {
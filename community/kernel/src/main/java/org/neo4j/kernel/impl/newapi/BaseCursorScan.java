@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.newapi;
+
+import org.eclipse.collections.api.iterator.LongIterator;
+import org.eclipse.collections.impl.iterator.ImmutableEmptyLongIterator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.internal.kernel.api.Cursor;
+import org.neo4j.internal.kernel.api.Scan;
+
+import static java.lang.Math.min;
+import static org.neo4j.collection.PrimitiveLongCollections.iterator;
+import static org.neo4j.util.Preconditions.requirePositive;
+
+/**
+ * Base for {@link Scan scans} which hand out disjoint batches of an underlying storage scan to cursors, possibly used from different threads.
+ * <p>
+ * Entities added in the transaction state are captured when the scan is created and are handed out before the store batches,
+ * at most {@code sizeHint} of them per reserved batch. The size hint of the store batch is reduced accordingly, such that
+ * every batch is roughly the requested size. Removals are filtered by the cursors themselves.
+ *
+ * @param <C> type of cursor initialized by this scan.
+ * @param <S> type of the underlying storage scan.
+ */
+abstract class BaseCursorScan<C extends Cursor, S> implements Scan<C>
+{
+    final S storageScan;
+    final Read read;
+    final boolean hasChanges;
+    private final long[] addedItems;
+    private final AtomicLong addedItemsStart = new AtomicLong();
+
+    /**
+     * @param storageScan the underlying storage scan to reserve batches from.
+     * @param read read of the transaction this scan belongs to.
+     * @param addedItems ids of the entities added in the transaction state which this scan should include.
+     */
+    BaseCursorScan( S storageScan, Read read, long[] addedItems )
+    {
+        this.storageScan = storageScan;
+        this.read = read;
+        this.hasChanges = read.hasTxStateWithChanges();
+        this.addedItems = addedItems;
+    }
+
+    @Override
+    public boolean reserveBatch( C cursor, int sizeHint )
+    {
+        requirePositive( sizeHint );
+
+        LongIterator addedBatch = ImmutableEmptyLongIterator.INSTANCE;
+        int storeSizeHint = sizeHint;
+        if ( addedItemsStart.get() < addedItems.length )
+        {
+            long reserved = addedItemsStart.getAndAdd( sizeHint );
+            if ( reserved < addedItems.length )
+            {
+                int start = (int) reserved;
+                int batchSize = min( sizeHint, addedItems.length - start );
+                addedBatch = iterator( Arrays.copyOfRange( addedItems, start, start + batchSize ) );
+                storeSizeHint -= batchSize;
+            }
+        }
+        return scanStore( cursor, storeSizeHint, addedBatch );
+    }
+
+    /**
+     * Initializes the {@code cursor} with the given batch of added entities and reserves the next batch of the storage scan.
+     *
+     * @param cursor cursor to initialize.
+     * @param sizeHint size hint for the storage batch, may be zero if the added entities alone make up the batch.
+     * @param addedItems added entities which this cursor should return, in addition to what is read from the store.
+     * @return {@code true} if the cursor has anything to read, otherwise {@code false}.
+     */
+    abstract boolean scanStore( C cursor, int sizeHint, LongIterator addedItems );
+}
@@ -31,6 +31,7 @@ import org.neo4j.internal.kernel.api.PropertyCursor;
 import org.neo4j.internal.kernel.api.RelationshipGroupCursor;
 import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
 import org.neo4j.kernel.api.txstate.TransactionState;
+import org.neo4j.storageengine.api.AllNodeScan;
 import org.neo4j.storageengine.api.StorageNodeCursor;
 import org.neo4j.storageengine.api.txstate.LongDiffSets;
 
@@ -61,6 +62,16 @@ class DefaultNodeCursor implements NodeCursor
         this.addedNodes = ImmutableEmptyLongIterator.INSTANCE;
     }
 
+    boolean scanBatch( Read read, AllNodeScan scan, int sizeHint, LongIterator addedNodes, boolean hasChanges )
+    {
+        this.read = read;
+        this.single = NO_ID;
+        this.hasChanges = hasChanges ? HasChanges.YES : HasChanges.NO;
+        this.addedNodes = addedNodes;
+        boolean scanBatch = storeCursor.scanBatch( scan, sizeHint );
+        return addedNodes.hasNext() || scanBatch;
+    }
+
     void single( long reference, Read read )
     {
         storeCursor.single( reference );
@@ -29,6 +29,7 @@ import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
 import org.neo4j.kernel.impl.index.labelscan.LabelScanValueIndexProgressor;
 import org.neo4j.storageengine.api.schema.IndexProgressor;
 import org.neo4j.storageengine.api.schema.IndexProgressor.NodeLabelClient;
+import org.neo4j.storageengine.api.schema.LabelScan;
 import org.neo4j.storageengine.api.txstate.LongDiffSets;
 
 import static org.neo4j.collection.PrimitiveLongCollections.mergeToSet;
@@ -61,6 +62,21 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<IndexProgressor>
             added = changes.augment( ImmutableEmptyLongIterator.INSTANCE );
             removed = mergeToSet( read.txState().addedAndRemovedNodes().getRemoved(), changes.getRemoved() );
         }
+        else
+        {
+            added = null;
+            removed = null;
+        }
+    }
+
+    boolean scanBatch( Read read, LabelScan labelScan, int sizeHint, LongIterator addedNodes, LongSet removedNodes )
+    {
+        this.read = read;
+        this.added = addedNodes;
+        this.removed = removedNodes;
+        IndexProgressor indexProgressor = labelScan.initializeBatch( this, sizeHint );
+        super.initialize( indexProgressor );
+        return indexProgressor != IndexProgressor.EMPTY || addedNodes.hasNext();
     }
 
     @Override
@@ -147,6 +163,7 @@ class DefaultNodeLabelIndexCursor extends IndexCursor<IndexProgressor>
             node = NO_ID;
             labels = null;
             read = null;
+            added = null;
             removed = null;
 
             pool.accept( this );
@@ -45,6 +45,17 @@ abstract class DefaultRelationshipCursor<STORECURSOR extends StorageRelationship
         this.checkHasChanges = true;
     }
 
+    /**
+     * Initializes this cursor with an already known answer to whether the transaction has changes, in which case
+     * no snapshot of the added relationships will be collected.
+     */
+    protected void init( Read read, boolean hasChanges )
+    {
+        this.read = read;
+        this.hasChanges = hasChanges;
+        this.checkHasChanges = false;
+    }
+
     @Override
     public long relationshipReference()
     {
@@ -20,12 +20,18 @@
 package org.neo4j.kernel.impl.newapi;
 
 import org.eclipse.collections.api.iterator.LongIterator;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
 import org.eclipse.collections.impl.iterator.ImmutableEmptyLongIterator;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 
 import org.neo4j.internal.kernel.api.RelationshipScanCursor;
+import org.neo4j.kernel.api.txstate.TransactionState;
+import org.neo4j.storageengine.api.AllRelationshipsScan;
+import org.neo4j.storageengine.api.RelationshipTypeScan;
 import org.neo4j.storageengine.api.StorageRelationshipScanCursor;
 
+import static org.neo4j.collection.PrimitiveLongCollections.iterator;
 import static org.neo4j.kernel.impl.store.record.AbstractBaseRecord.NO_ID;
 
 class DefaultRelationshipScanCursor extends DefaultRelationshipCursor<StorageRelationshipScanCursor> implements RelationshipScanCursor
@@ -48,6 +54,26 @@ class DefaultRelationshipScanCursor extends DefaultRelationshipCursor<StorageRel
         this.addedRelationships = ImmutableEmptyLongIterator.INSTANCE;
     }
 
+    boolean scanBatch( Read read, AllRelationshipsScan scan, int sizeHint, LongIterator addedRelationships, boolean hasChanges )
+    {
+        this.type = -1;
+        this.single = NO_ID;
+        init( read, hasChanges );
+        this.addedRelationships = addedRelationships;
+        boolean scanBatch = storeCursor.scanBatch( scan, sizeHint );
+        return addedRelationships.hasNext() || scanBatch;
+    }
+
+    boolean scanBatch( Read read, RelationshipTypeScan scan, int type, int sizeHint, LongIterator addedRelationships, boolean hasChanges )
+    {
+        this.type = type;
+        this.single = NO_ID;
+        init( read, hasChanges );
+        this.addedRelationships = addedRelationships;
+        boolean scanBatch = storeCursor.scanBatch( scan, sizeHint );
+        return addedRelationships.hasNext() || scanBatch;
+    }
+
     void single( long reference, Read read )
     {
         storeCursor.single( reference );
@@ -124,8 +150,34 @@ class DefaultRelationshipScanCursor extends DefaultRelationshipCursor<StorageRel
         }
         else
         {
-            addedRelationships = read.txState().addedAndRemovedRelationships().getAdded().longIterator();
+            addedRelationships = iterator( addedInTransaction( read.txState(), type ) );
+        }
+    }
+
+    /**
+     * @param type relationship type to include, or -1 for all relationships regardless of type.
+     * @return ids of the relationships of the given type which are added in the transaction state.
+     */
+    static long[] addedInTransaction( TransactionState txState, int type )
+    {
+        long[] added = txState.addedAndRemovedRelationships().getAdded().toArray();
+        if ( type == -1 )
+        {
+            return added;
+        }
+
+        MutableLongList addedOfType = new LongArrayList();
+        for ( long relationship : added )
+        {
+            txState.relationshipVisit( relationship, ( relationshipId, typeId, startNodeId, endNodeId ) ->
+            {
+                if ( typeId == type )
+                {
+                    addedOfType.add( relationshipId );
+                }
+            } );
         }
+        return addedOfType.toArray();
     }
 
     private boolean isSingle()
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.newapi;
+
+import org.eclipse.collections.api.iterator.LongIterator;
+import org.eclipse.collections.api.set.primitive.LongSet;
+import org.eclipse.collections.impl.factory.primitive.LongSets;
+
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.kernel.api.txstate.TransactionState;
+import org.neo4j.storageengine.api.schema.LabelScan;
+
+import static org.neo4j.collection.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+import static org.neo4j.collection.PrimitiveLongCollections.mergeToSet;
+
+final class NodeLabelIndexCursorScan extends BaseCursorScan<NodeLabelIndexCursor,LabelScan>
+{
+    private final LongSet removed;
+
+    NodeLabelIndexCursorScan( Read read, int label, LabelScan labelScan )
+    {
+        super( labelScan, read, addedInTransaction( read, label ) );
+        if ( hasChanges )
+        {
+            TransactionState txState = read.txState();
+            this.removed = mergeToSet( txState.addedAndRemovedNodes().getRemoved(), txState.nodesWithLabelChanged( label ).getRemoved() );
+        }
+        else
+        {
+            this.removed = LongSets.immutable.empty();
+        }
+    }
+
+    @Override
+    boolean scanStore( NodeLabelIndexCursor cursor, int sizeHint, LongIterator addedItems )
+    {
+        return ((DefaultNodeLabelIndexCursor) cursor).scanBatch( read, storageScan, sizeHint, addedItems, removed );
+    }
+
+    private static long[] addedInTransaction( Read read, int label )
+    {
+        return read.hasTxStateWithChanges() ? read.txState().nodesWithLabelChanged( label ).getAdded().toArray() : EMPTY_LONG_ARRAY;
+    }
+}
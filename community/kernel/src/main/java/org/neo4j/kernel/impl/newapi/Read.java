@@ -49,6 +49,9 @@ import org.neo4j.kernel.api.txstate.auxiliary.AuxiliaryTransactionState;
 import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.storageengine.api.AllNodeScan;
+import org.neo4j.storageengine.api.AllRelationshipsScan;
+import org.neo4j.storageengine.api.RelationshipTypeScan;
 import org.neo4j.storageengine.api.lock.LockTracer;
 import org.neo4j.storageengine.api.lock.ResourceType;
 import org.neo4j.storageengine.api.schema.IndexProgressor;
@@ -255,7 +258,7 @@ abstract class Read implements TxStateHolder,
     public final Scan<NodeLabelIndexCursor> nodeLabelScan( int label )
     {
         ktx.assertOpen();
-        throw new UnsupportedOperationException( "not implemented" );
+        return new NodeLabelIndexCursorScan( this, label, labelScanReader().nodeLabelScan( label ) );
     }
 
     @Override
@@ -269,7 +272,7 @@ abstract class Read implements TxStateHolder,
     public final Scan<NodeCursor> allNodesScan()
     {
         ktx.assertOpen();
-        throw new UnsupportedOperationException( "not implemented" );
+        return new NodeCursorScan( allNodeStoreScan(), this );
     }
 
     @Override
@@ -297,7 +300,7 @@ abstract class Read implements TxStateHolder,
     public final Scan<RelationshipScanCursor> allRelationshipsScan()
     {
         ktx.assertOpen();
-        throw new UnsupportedOperationException( "not implemented" );
+        return new RelationshipCursorScan( allRelationshipStoreScan(), this );
     }
 
     @Override
@@ -311,7 +314,7 @@ abstract class Read implements TxStateHolder,
     public final Scan<RelationshipScanCursor> relationshipTypeScan( int type )
     {
         ktx.assertOpen();
-        throw new UnsupportedOperationException( "not implemented" );
+        return new RelationshipTypeCursorScan( relationshipTypeStoreScan( type ), this, type );
     }
 
     @Override
@@ -462,6 +465,12 @@ abstract class Read implements TxStateHolder,
 
     abstract LabelScanReader labelScanReader();
 
+    abstract AllNodeScan allNodeStoreScan();
+
+    abstract AllRelationshipsScan allRelationshipStoreScan();
+
+    abstract RelationshipTypeScan relationshipTypeStoreScan( int type );
+
     abstract ExplicitIndex explicitNodeIndex( String indexName ) throws ExplicitIndexNotFoundKernelException;
 
     abstract ExplicitIndex explicitRelationshipIndex( String indexName ) throws ExplicitIndexNotFoundKernelException;
@@ -23,6 +23,7 @@ import org.neo4j.helpers.Service;
 import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.mem.MemoryPlacement;
 import org.neo4j.io.os.OsBeanUtil;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
@@ -37,6 +38,7 @@ import org.neo4j.memory.GlobalMemoryTracker;
 import org.neo4j.scheduler.JobScheduler;
 
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_huge_pages;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 import static org.neo4j.kernel.configuration.Settings.BYTES;
@@ -50,6 +52,7 @@ public class ConfiguringPageCacheFactory
     private final Log log;
     private final VersionContextSupplier versionContextSupplier;
     private PageCache pageCache;
+    private MemoryAllocator memoryAllocator;
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
     private final JobScheduler scheduler;
 
@@ -90,7 +93,7 @@ public class ConfiguringPageCacheFactory
     protected PageCache createPageCache()
     {
         checkPageSize( config );
-        MemoryAllocator memoryAllocator = buildMemoryAllocator( config );
+        memoryAllocator = buildMemoryAllocator( config );
         return new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer, pageCursorTracerSupplier,
                 versionContextSupplier, scheduler );
     }
@@ -108,9 +111,22 @@ public class ConfiguringPageCacheFactory
             pageCacheMemorySetting = "" + heuristic;
         }
 
+        if ( config.get( pagecache_huge_pages ) )
+        {
+            return MemoryAllocator.createHugePageAllocator( pageCacheMemorySetting, GlobalMemoryTracker.INSTANCE );
+        }
         return MemoryAllocator.createAllocator( pageCacheMemorySetting, GlobalMemoryTracker.INSTANCE );
     }
 
+    /**
+     * @return diagnostics of the memory that the page cache has obtained so far, or {@code null} if no page cache has
+     * been created yet.
+     */
+    public PageCacheMemoryDiagnostics memoryDiagnostics()
+    {
+        return memoryAllocator == null ? null : new PageCacheMemoryDiagnostics( memoryAllocator );
+    }
+
     public static long defaultHeuristicPageCacheMemory()
     {
         // First check if we have a default override...
@@ -179,6 +195,19 @@ public class ConfiguringPageCacheFactory
                      " Page cache: " + pageCacheMemory + ".";
 
         log.info( msg );
+        if ( config.get( pagecache_huge_pages ) )
+        {
+            String transparentHugePageMode = MemoryPlacement.transparentHugePageMode();
+            log.info( "Page cache huge pages: transparent huge page mode " +
+                      (transparentHugePageMode == null ? "?" : transparentHugePageMode) + ", " +
+                      MemoryPlacement.numaNodeCount() + " NUMA nodes." );
+            if ( transparentHugePageMode != null && !"always".equals( transparentHugePageMode ) )
+            {
+                log.warn( "The " + pagecache_huge_pages.name() + " setting is enabled, but transparent huge pages are " +
+                          "in the '" + transparentHugePageMode + "' mode, so the page cache will most likely not be " +
+                          "backed by huge pages." );
+            }
+        }
     }
 
     private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs, Config config, Log log )
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.neo4j.internal.diagnostics.DiagnosticsPhase;
+import org.neo4j.internal.diagnostics.DiagnosticsProvider;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.logging.Logger;
+
+/**
+ * Reports the memory that the page cache has obtained from the operating system so far. Page cache memory is
+ * allocated as pages are first used, so this is also dumped when diagnostics are explicitly requested, e.g. when the
+ * log is rotated, and not only when the database starts.
+ */
+public class PageCacheMemoryDiagnostics implements DiagnosticsProvider
+{
+    private final MemoryAllocator memoryAllocator;
+
+    PageCacheMemoryDiagnostics( MemoryAllocator memoryAllocator )
+    {
+        this.memoryAllocator = memoryAllocator;
+    }
+
+    @Override
+    public String getDiagnosticsIdentifier()
+    {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public void acceptDiagnosticsVisitor( Object visitor )
+    {
+        // nothing visits the page cache memory
+    }
+
+    @Override
+    public void dump( DiagnosticsPhase phase, Logger logger )
+    {
+        if ( phase.isInitialization() || phase.isExplicitlyRequested() )
+        {
+            logger.log( "Page cache memory: " + memoryAllocator.describeAllocatedMemory() );
+        }
+    }
+}
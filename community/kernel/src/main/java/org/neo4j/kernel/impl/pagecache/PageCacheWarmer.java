@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+
+/**
+ * Keeps a profile of which pages of the database files are in the page cache, and loads those pages back in when the
+ * database starts.
+ * <p>
+ * The profile of each mapped file is a gzipped bitmap with one bit per page, written to the {@value #PROFILES_DIRECTORY}
+ * directory under the database directory, at the same relative path as the file plus a {@value #PROFILE_SUFFIX}
+ * suffix. Profiles are written periodically, and a final time when the database stops.
+ * <p>
+ * On start, the profiled pages of all files are faulted in before the database becomes available. Each file is loaded
+ * by its own job, in ascending page order, so that the reads of a file are sequential and the files are read in
+ * parallel.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String PROFILES_DIRECTORY = "profiles";
+    public static final String PROFILE_SUFFIX = ".cacheprof";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final File databaseDirectory;
+    private final File profilesDirectory;
+    private final long profileIntervalMillis;
+    private final Monitor monitor;
+    private final Log log;
+    private volatile boolean stopped;
+    private JobHandle profileJob;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, File databaseDirectory,
+            long profileIntervalMillis, Monitor monitor, Log log )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.databaseDirectory = databaseDirectory;
+        this.profilesDirectory = new File( databaseDirectory, PROFILES_DIRECTORY );
+        this.profileIntervalMillis = profileIntervalMillis;
+        this.monitor = monitor;
+        this.log = log;
+    }
+
+    @Override
+    public synchronized void start() throws Exception
+    {
+        stopped = false;
+        long pagesLoaded = reheat();
+        monitor.warmupCompleted( pagesLoaded );
+        profileJob = scheduler.scheduleRecurring( Group.FILE_IO_HELPER, this::profileInBackground,
+                profileIntervalMillis, profileIntervalMillis, TimeUnit.MILLISECONDS );
+    }
+
+    @Override
+    public synchronized void stop() throws IOException
+    {
+        stopped = true;
+        if ( profileJob != null )
+        {
+            profileJob.cancel( false );
+            profileJob = null;
+        }
+        profile();
+    }
+
+    /**
+     * Load the profiled pages of all mapped database files into the page cache, one job per file.
+     *
+     * @return the number of pages that were loaded.
+     */
+    long reheat() throws IOException, InterruptedException
+    {
+        AtomicLong pagesLoaded = new AtomicLong();
+        List<JobHandle> jobs = new ArrayList<>();
+        for ( PagedFile pagedFile : databaseFiles() )
+        {
+            File profileFile = profileFile( pagedFile );
+            if ( fs.fileExists( profileFile ) )
+            {
+                jobs.add( scheduler.schedule( Group.FILE_IO_HELPER, () -> pagesLoaded.addAndGet( reheat( pagedFile, profileFile ) ) ) );
+            }
+        }
+        for ( JobHandle job : jobs )
+        {
+            try
+            {
+                job.waitTermination();
+            }
+            catch ( ExecutionException e )
+            {
+                log.warn( "Failed to warm up the page cache", e.getCause() );
+            }
+        }
+        return pagesLoaded.get();
+    }
+
+    private long reheat( PagedFile pagedFile, File profileFile )
+    {
+        long pagesLoaded = 0;
+        try ( InputStream input = new GZIPInputStream( new BufferedInputStream( fs.openAsInputStream( profileFile ) ) );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            long lastPageId = pagedFile.getLastPageId();
+            long pageId = 0;
+            int bits;
+            while ( !stopped && pageId <= lastPageId && (bits = input.read()) != -1 )
+            {
+                for ( int i = 0; i < Byte.SIZE && pageId <= lastPageId; i++, pageId++ )
+                {
+                    if ( (bits & (1 << i)) != 0 && cursor.next( pageId ) )
+                    {
+                        pagesLoaded++;
+                    }
+                }
+            }
+        }
+        catch ( IOException | IllegalStateException e )
+        {
+            // The profile is only a hint, so a broken profile or a file that was unmapped just means less is loaded.
+            log.debug( "Failed to load the profiled pages of " + pagedFile.file(), e );
+        }
+        return pagesLoaded;
+    }
+
+    private void profileInBackground()
+    {
+        try
+        {
+            profile();
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Failed to profile the page cache", e );
+        }
+    }
+
+    /**
+     * Write a profile of the pages currently in the page cache for all mapped database files.
+     *
+     * @return the number of pages that were in the page cache.
+     */
+    synchronized long profile() throws IOException
+    {
+        long pagesInMemory = 0;
+        for ( PagedFile pagedFile : databaseFiles() )
+        {
+            pagesInMemory += profile( pagedFile );
+        }
+        monitor.profileCompleted( pagesInMemory );
+        return pagesInMemory;
+    }
+
+    private long profile( PagedFile pagedFile ) throws IOException
+    {
+        File profileFile = profileFile( pagedFile );
+        File tempFile = new File( profileFile.getParentFile(), profileFile.getName() + TEMP_SUFFIX );
+        fs.mkdirs( profileFile.getParentFile() );
+        long pagesInMemory = 0;
+        try ( OutputStream output = new GZIPOutputStream( new BufferedOutputStream( fs.openAsOutputStream( tempFile, false ) ) );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+        {
+            long lastPageId = pagedFile.getLastPageId();
+            int bits = 0;
+            for ( long pageId = 0; pageId <= lastPageId; pageId++ )
+            {
+                if ( cursor.next( pageId ) && cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID )
+                {
+                    bits |= 1 << (int) (pageId % Byte.SIZE);
+                    pagesInMemory++;
+                }
+                if ( pageId % Byte.SIZE == Byte.SIZE - 1 )
+                {
+                    output.write( bits );
+                    bits = 0;
+                }
+            }
+            if ( (lastPageId + 1) % Byte.SIZE != 0 )
+            {
+                output.write( bits );
+            }
+        }
+        catch ( FileIsNotMappedException | IllegalStateException e )
+        {
+            // The file was unmapped while we profiled it, so there is nothing to keep a profile of.
+            fs.deleteFile( tempFile );
+            return 0;
+        }
+        fs.renameFile( tempFile, profileFile, ATOMIC_MOVE, REPLACE_EXISTING );
+        return pagesInMemory;
+    }
+
+    private List<PagedFile> databaseFiles() throws IOException
+    {
+        Path databasePath = databaseDirectory.toPath();
+        List<PagedFile> files = new ArrayList<>();
+        for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+        {
+            Path path = pagedFile.file().toPath();
+            if ( path.startsWith( databasePath ) && !path.startsWith( profilesDirectory.toPath() ) )
+            {
+                files.add( pagedFile );
+            }
+        }
+        return files;
+    }
+
+    private File profileFile( PagedFile pagedFile )
+    {
+        Path relativePath = databaseDirectory.toPath().relativize( pagedFile.file().toPath() );
+        return new File( profilesDirectory, relativePath + PROFILE_SUFFIX );
+    }
+
+    public interface Monitor
+    {
+        void warmupCompleted( long pagesLoaded );
+
+        void profileCompleted( long pagesInMemory );
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.storageengine.api.StorageEntityScanCursor;
+
+/**
+ * Base for scans over a record store which are split into disjoint batches, reserved concurrently by multiple cursors.
+ * Batches are always a whole number of pages in size and start at page boundaries, so that no two cursors
+ * will read records from the same page.
+ *
+ * @param <C> type of cursor reading the batches of this scan.
+ */
+abstract class BaseRecordScan<C extends StorageEntityScanCursor>
+{
+    private final AtomicLong nextStart = new AtomicLong( 0 );
+    private final int recordsPerPage;
+
+    BaseRecordScan( int recordsPerPage )
+    {
+        this.recordsPerPage = recordsPerPage;
+    }
+
+    /**
+     * Reserves the next batch of roughly {@code sizeHint} records and initializes the {@code cursor} to read it.
+     *
+     * @param sizeHint approximate number of records to reserve, rounded up to whole pages.
+     * @param cursor cursor to initialize with the reserved batch.
+     * @return {@code true} if a batch was reserved, or {@code false} if the scan has passed the end of the store.
+     */
+    boolean scanBatch( int sizeHint, C cursor )
+    {
+        if ( sizeHint <= 0 )
+        {
+            return scanRange( cursor, 0, 0 );
+        }
+        long pages = ((long) sizeHint + recordsPerPage - 1) / recordsPerPage;
+        long batchSize = pages * recordsPerPage;
+        long start = nextStart.getAndAdd( batchSize );
+        return scanRange( cursor, start, start + batchSize );
+    }
+
+    /**
+     * Initializes the {@code cursor} to read records in the range {@code [start, stop)}.
+     *
+     * @return {@code false} if the range is empty or {@code start} is beyond the highest record in the store, otherwise {@code true}.
+     */
+    abstract boolean scanRange( C cursor, long start, long stop );
+}
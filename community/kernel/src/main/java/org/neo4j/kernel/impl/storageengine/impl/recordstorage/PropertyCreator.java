@@ -23,6 +23,7 @@ import java.util.Iterator;
 import java.util.function.Consumer;
 
 import org.neo4j.kernel.impl.store.DynamicRecordAllocator;
+import org.neo4j.kernel.impl.store.DynamicValueCompression;
 import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.PropertyType;
 import org.neo4j.kernel.impl.store.id.IdSequence;
@@ -42,20 +43,23 @@ public class PropertyCreator
     private final IdSequence propertyRecordIdGenerator;
     private final PropertyTraverser traverser;
     private final boolean allowStorePointsAndTemporal;
+    private final DynamicValueCompression valueCompression;
 
     public PropertyCreator( PropertyStore propertyStore, PropertyTraverser traverser )
     {
-        this( propertyStore.getStringStore(), propertyStore.getArrayStore(), propertyStore, traverser, propertyStore.allowStorePointsAndTemporal() );
+        this( propertyStore.getStringStore(), propertyStore.getArrayStore(), propertyStore, traverser, propertyStore.allowStorePointsAndTemporal(),
+                propertyStore.valueCompression() );
     }
 
     PropertyCreator( DynamicRecordAllocator stringRecordAllocator, DynamicRecordAllocator arrayRecordAllocator, IdSequence propertyRecordIdGenerator,
-            PropertyTraverser traverser, boolean allowStorePointsAndTemporal )
+            PropertyTraverser traverser, boolean allowStorePointsAndTemporal, DynamicValueCompression valueCompression )
     {
         this.stringRecordAllocator = stringRecordAllocator;
         this.arrayRecordAllocator = arrayRecordAllocator;
         this.propertyRecordIdGenerator = propertyRecordIdGenerator;
         this.traverser = traverser;
         this.allowStorePointsAndTemporal = allowStorePointsAndTemporal;
+        this.valueCompression = valueCompression;
     }
 
     public <P extends PrimitiveRecord> void primitiveSetProperty(
@@ -195,7 +199,8 @@ public class PropertyCreator
 
     public PropertyBlock encodeValue( PropertyBlock block, int propertyKey, Value value )
     {
-        PropertyStore.encodeValue( block, propertyKey, value, stringRecordAllocator, arrayRecordAllocator, allowStorePointsAndTemporal );
+        PropertyStore.encodeValue( block, propertyKey, value, stringRecordAllocator, arrayRecordAllocator, allowStorePointsAndTemporal,
+                valueCompression );
         return block;
     }
 
@@ -25,6 +25,7 @@ import org.neo4j.kernel.impl.store.NodeLabelsField;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.RecordLoad;
+import org.neo4j.storageengine.api.AllNodeScan;
 import org.neo4j.storageengine.api.StorageNodeCursor;
 
 public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
@@ -33,6 +34,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
     private PageCursor pageCursor;
     private long next;
     private long highMark;
+    private long batchStop = NO_ID;
     private long nextStoreReference;
     private boolean open;
 
@@ -55,10 +57,41 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         }
         this.next = 0;
         this.highMark = nodeHighMark();
+        this.batchStop = NO_ID;
         this.nextStoreReference = NO_ID;
         this.open = true;
     }
 
+    @Override
+    public boolean scanBatch( AllNodeScan scan, int sizeHint )
+    {
+        return ((RecordNodeScan) scan).scanBatch( sizeHint, this );
+    }
+
+    /**
+     * Initializes this cursor to scan over the nodes with ids in the range {@code [start, stop)}.
+     *
+     * @return {@code false} if the range is empty or {@code start} is beyond the highest node id in use, otherwise {@code true}.
+     */
+    boolean scanRange( long start, long stop )
+    {
+        resetState();
+        if ( start >= stop || start > nodeHighMark() )
+        {
+            return false;
+        }
+        if ( pageCursor == null )
+        {
+            pageCursor = nodePage( start );
+        }
+        this.next = start;
+        this.batchStop = stop;
+        this.highMark = scanHighMark();
+        this.nextStoreReference = NO_ID;
+        this.open = true;
+        return true;
+    }
+
     @Override
     public void single( long reference )
     {
@@ -73,6 +106,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         this.next = reference >= 0 ? reference : NO_ID;
         //This marks the cursor as a "single cursor"
         this.highMark = NO_ID;
+        this.batchStop = NO_ID;
         this.nextStoreReference = NO_ID;
         this.open = true;
     }
@@ -164,7 +198,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
                 {
                     //we are a "scan cursor"
                     //Check if there is a new high mark
-                    highMark = nodeHighMark();
+                    highMark = scanHighMark();
                     if ( next > highMark )
                     {
                         next = NO_ID;
@@ -218,6 +252,7 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
             return "RecordNodeCursor[id=" + getId() +
                     ", open state with: highMark=" + highMark +
                     ", next=" + next +
+                    ", batchStop=" + batchStop +
                     ", underlying record=" + super.toString() + "]";
         }
     }
@@ -242,6 +277,12 @@ public class RecordNodeCursor extends NodeRecord implements StorageNodeCursor
         return read.getHighestPossibleIdInUse();
     }
 
+    private long scanHighMark()
+    {
+        long highMark = nodeHighMark();
+        return batchStop == NO_ID ? highMark : Math.min( highMark, batchStop - 1 );
+    }
+
     private void node( NodeRecord record, long reference, PageCursor pageCursor )
     {
         read.getRecordByCursor( reference, record, RecordLoad.CHECK, pageCursor );
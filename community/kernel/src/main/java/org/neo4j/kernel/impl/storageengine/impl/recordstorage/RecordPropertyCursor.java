@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
 import java.nio.ByteBuffer;
 
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.store.DynamicValueCompression;
 import org.neo4j.kernel.impl.store.GeometryType;
 import org.neo4j.kernel.impl.store.LongerShortString;
 import org.neo4j.kernel.impl.store.PropertyStore;
@@ -396,6 +397,11 @@ class RecordPropertyCursor extends PropertyRecord implements StoragePropertyCurs
     {
         ByteBuffer buffer = cursor.buffer = read.loadString( reference, cursor.buffer, page );
         buffer.flip();
+        if ( DynamicValueCompression.isCompressed( buffer.array(), buffer.limit() ) )
+        {
+            byte[] bytes = DynamicValueCompression.decompressValue( buffer.array(), buffer.limit() );
+            return Values.stringValue( UTF8.decode( bytes ) );
+        }
         return Values.stringValue( UTF8.decode( buffer.array(), 0, buffer.limit() ) );
     }
 
@@ -403,6 +409,11 @@ class RecordPropertyCursor extends PropertyRecord implements StoragePropertyCurs
     {
         ByteBuffer buffer = cursor.buffer = read.loadArray( reference, cursor.buffer, page );
         buffer.flip();
+        if ( DynamicValueCompression.isCompressed( buffer.array(), buffer.limit() ) )
+        {
+            byte[] bytes = DynamicValueCompression.decompressValue( buffer.array(), buffer.limit() );
+            return PropertyStore.readArrayFromBuffer( ByteBuffer.wrap( bytes ) );
+        }
         return PropertyStore.readArrayFromBuffer( buffer );
     }
 }
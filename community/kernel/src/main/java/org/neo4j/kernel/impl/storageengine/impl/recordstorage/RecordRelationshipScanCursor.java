@@ -19,24 +19,49 @@
  */
 package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
 
+import java.util.function.Supplier;
+
+import org.neo4j.internal.kernel.api.LabelSet;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.record.RecordLoad;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.storageengine.api.AllRelationshipsScan;
+import org.neo4j.storageengine.api.RelationshipTypeScan;
 import org.neo4j.storageengine.api.StorageRelationshipScanCursor;
+import org.neo4j.storageengine.api.schema.IndexProgressor;
+import org.neo4j.storageengine.api.schema.LabelScanReader;
 
 class RecordRelationshipScanCursor extends RecordRelationshipCursor implements StorageRelationshipScanCursor
 {
+    private final Supplier<LabelScanReader> relationshipTypeScanReader;
+    private final TypeScanClient typeScanClient = new TypeScanClient();
     private int filterType;
     private long next;
     private long highMark;
+    private long batchStop = NO_ID;
     private long nextStoreReference;
     private PageCursor pageCursor;
     private boolean open;
 
+    /**
+     * Relationship ids of the scanned type, fed from the relationship type scan store, if this cursor is a type scan.
+     */
+    private IndexProgressor typeScan;
+
     RecordRelationshipScanCursor( RelationshipStore relationshipStore )
+    {
+        this( relationshipStore, null );
+    }
+
+    /**
+     * @param relationshipTypeScanReader reader of the relationship type scan store, used for scanning relationships of a given type.
+     * If {@code null} then such scans will scan the whole relationship store and filter the relationships by type.
+     */
+    RecordRelationshipScanCursor( RelationshipStore relationshipStore, Supplier<LabelScanReader> relationshipTypeScanReader )
     {
         super( relationshipStore );
+        this.relationshipTypeScanReader = relationshipTypeScanReader;
     }
 
     @Override
@@ -48,7 +73,7 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
     @Override
     public void scan( int type )
     {
-        if ( getId() != NO_ID )
+        if ( getId() != NO_ID || typeScan != null )
         {
             resetState();
         }
@@ -56,17 +81,83 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
         {
             pageCursor = relationshipPage( 0 );
         }
+        if ( type != -1 && relationshipTypeScanReader != null )
+        {
+            relationshipTypeScanReader.get().nodesWithLabel( typeScanClient, type );
+        }
         this.next = 0;
         this.filterType = type;
         this.highMark = relationshipHighMark();
+        this.batchStop = NO_ID;
+        this.nextStoreReference = NO_ID;
+        this.open = true;
+    }
+
+    @Override
+    public boolean scanBatch( AllRelationshipsScan scan, int sizeHint )
+    {
+        this.filterType = -1;
+        return ((RecordRelationshipScan) scan).scanBatch( sizeHint, this );
+    }
+
+    @Override
+    public boolean scanBatch( RelationshipTypeScan scan, int sizeHint )
+    {
+        resetState();
+        RecordRelationshipTypeScan typeScan = (RecordRelationshipTypeScan) scan;
+        if ( typeScan.storeScan() != null )
+        {
+            boolean hasBatch = typeScan.storeScan().scanBatch( sizeHint, this );
+            this.filterType = typeScan.type();
+            return hasBatch;
+        }
+        IndexProgressor batch = typeScan.initializeBatch( typeScanClient, sizeHint );
+        if ( batch == IndexProgressor.EMPTY )
+        {
+            return false;
+        }
+        if ( pageCursor == null )
+        {
+            pageCursor = relationshipPage( 0 );
+        }
+        typeScanClient.scan( batch, false, typeScan.type() );
+        this.filterType = typeScan.type();
+        this.next = 0;
+        this.highMark = relationshipHighMark();
+        this.batchStop = NO_ID;
+        this.nextStoreReference = NO_ID;
+        this.open = true;
+        return true;
+    }
+
+    /**
+     * Initializes this cursor to scan over the relationships with ids in the range {@code [start, stop)}.
+     *
+     * @return {@code false} if the range is empty or {@code start} is beyond the highest relationship id in use, otherwise {@code true}.
+     */
+    boolean scanRange( long start, long stop )
+    {
+        resetState();
+        if ( start >= stop || start > relationshipHighMark() )
+        {
+            return false;
+        }
+        if ( pageCursor == null )
+        {
+            pageCursor = relationshipPage( start );
+        }
+        this.next = start;
+        this.batchStop = stop;
+        this.highMark = scanHighMark();
         this.nextStoreReference = NO_ID;
         this.open = true;
+        return true;
     }
 
     @Override
     public void single( long reference )
     {
-        if ( getId() != NO_ID )
+        if ( getId() != NO_ID || typeScan != null )
         {
             resetState();
         }
@@ -77,6 +168,7 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
         this.next = reference >= 0 ? reference : NO_ID;
         this.filterType = -1;
         this.highMark = NO_ID;
+        this.batchStop = NO_ID;
         this.nextStoreReference = NO_ID;
         this.open = true;
     }
@@ -84,6 +176,11 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
     @Override
     public boolean next()
     {
+        if ( typeScan != null )
+        {
+            return nextFromTypeScan();
+        }
+
         if ( next == NO_ID )
         {
             resetState();
@@ -116,7 +213,7 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
                 {
                     //we are a "scan cursor"
                     //Check if there is a new high mark
-                    highMark = relationshipHighMark();
+                    highMark = scanHighMark();
                     if ( next > highMark )
                     {
                         next = NO_ID;
@@ -129,6 +226,21 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
         return true;
     }
 
+    private boolean nextFromTypeScan()
+    {
+        // The progressor will place the next relationship id of the scanned type in typeScanClient
+        while ( typeScan.next() )
+        {
+            relationship( this, typeScanClient.reference, pageCursor );
+            if ( isWantedTypeAndInUse() )
+            {
+                return true;
+            }
+        }
+        resetState();
+        return false;
+    }
+
     private boolean isWantedTypeAndInUse()
     {
         return (filterType == -1 || type() == filterType) && inUse();
@@ -147,6 +259,11 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
     private void resetState()
     {
         setId( next = NO_ID );
+        if ( typeScan != null )
+        {
+            typeScan.close();
+            typeScan = null;
+        }
     }
 
     @Override
@@ -158,11 +275,17 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
         }
         else
         {
-            return "RelationshipScanCursor[id=" + getId() + ", open state with: highMark=" + highMark + ", next=" + next + ", type=" + filterType +
-                    ", underlying record=" + super.toString() + "]";
+            return "RelationshipScanCursor[id=" + getId() + ", open state with: highMark=" + highMark + ", next=" + next + ", batchStop=" + batchStop +
+                    ", type=" + filterType + ", typeScan=" + (typeScan != null) + ", underlying record=" + super.toString() + "]";
         }
     }
 
+    private long scanHighMark()
+    {
+        long highMark = relationshipHighMark();
+        return batchStop == NO_ID ? highMark : Math.min( highMark, batchStop - 1 );
+    }
+
     private boolean isSingle()
     {
         return highMark == NO_ID;
@@ -171,6 +294,7 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
     @Override
     public void close()
     {
+        resetState();
         if ( pageCursor != null )
         {
             pageCursor.close();
@@ -183,4 +307,37 @@ class RecordRelationshipScanCursor extends RecordRelationshipCursor implements S
         // When scanning, we inspect RelationshipRecord.inUse(), so using RecordLoad.CHECK is fine
         relationshipStore.nextRecordByCursor( record, RecordLoad.CHECK, pageCursor );
     }
+
+    /**
+     * Receives the relationship ids from the relationship type scan store, which is a label scan store in everything but name.
+     */
+    private class TypeScanClient implements IndexProgressor.NodeLabelClient
+    {
+        private long reference = NO_ID;
+
+        @Override
+        public void scan( IndexProgressor progressor, boolean providesLabels, int label )
+        {
+            typeScan = progressor;
+        }
+
+        @Override
+        public void unionScan( IndexProgressor progressor, boolean providesLabels, int... labels )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void intersectionScan( IndexProgressor progressor, boolean providesLabels, int... labels )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean acceptNode( long reference, LabelSet labels )
+        {
+            this.reference = reference;
+            return true;
+        }
+    }
 }
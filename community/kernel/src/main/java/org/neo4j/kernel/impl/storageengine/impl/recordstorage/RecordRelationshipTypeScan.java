@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.neo4j.storageengine.api.RelationshipTypeScan;
+import org.neo4j.storageengine.api.schema.IndexProgressor;
+import org.neo4j.storageengine.api.schema.LabelScan;
+
+/**
+ * Splits the relationships of a type, as found in the relationship type scan store, into batches. Without a relationship type scan store
+ * the batches are instead ranges of the relationship store, filtered by type.
+ */
+final class RecordRelationshipTypeScan implements RelationshipTypeScan
+{
+    private final LabelScan typeScan;
+    private final RecordRelationshipScan storeScan;
+    private final int type;
+
+    RecordRelationshipTypeScan( LabelScan typeScan, int type )
+    {
+        this.typeScan = typeScan;
+        this.storeScan = null;
+        this.type = type;
+    }
+
+    RecordRelationshipTypeScan( RecordRelationshipScan storeScan, int type )
+    {
+        this.typeScan = null;
+        this.storeScan = storeScan;
+        this.type = type;
+    }
+
+    IndexProgressor initializeBatch( IndexProgressor.NodeLabelClient client, int sizeHint )
+    {
+        return typeScan.initializeBatch( client, sizeHint );
+    }
+
+    /**
+     * @return the scan over the relationship store to filter by type, or {@code null} if the relationship type scan store is used.
+     */
+    RecordRelationshipScan storeScan()
+    {
+        return storeScan;
+    }
+
+    int type()
+    {
+        return type;
+    }
+}
@@ -59,7 +59,8 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
                 new StandardDynamicRecordAllocator( idBatches.idGenerator( StoreType.PROPERTY_ARRAY ),
                         neoStores.getPropertyStore().getArrayStore().getRecordDataSize() ),
                 idBatches.idGenerator( StoreType.PROPERTY ),
-                propertyTraverser, neoStores.getPropertyStore().allowStorePointsAndTemporal() );
+                propertyTraverser, neoStores.getPropertyStore().allowStorePointsAndTemporal(),
+                neoStores.getPropertyStore().valueCompression() );
     }
 
     public long nextId( StoreType storeType )
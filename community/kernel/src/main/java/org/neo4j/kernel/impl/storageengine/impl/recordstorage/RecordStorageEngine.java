@@ -62,6 +62,7 @@ import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.api.index.IndexingServiceFactory;
 import org.neo4j.kernel.impl.api.index.IndexingUpdateService;
 import org.neo4j.kernel.impl.api.scan.FullLabelStream;
+import org.neo4j.kernel.impl.api.scan.FullRelationshipTypeStream;
 import org.neo4j.kernel.impl.api.store.SchemaCache;
 import org.neo4j.kernel.impl.cache.BridgingCacheAccess;
 import org.neo4j.kernel.impl.constraints.ConstraintSemantics;
@@ -70,6 +71,7 @@ import org.neo4j.kernel.impl.core.TokenHolders;
 import org.neo4j.kernel.impl.factory.OperationalMode;
 import org.neo4j.kernel.impl.index.IndexConfigStore;
 import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
+import org.neo4j.kernel.impl.index.labelscan.NativeRelationshipTypeScanStore;
 import org.neo4j.kernel.impl.locking.LockGroup;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.id.IdController;
@@ -130,6 +132,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final IntegrityValidator integrityValidator;
     private final CacheAccessBackDoor cacheAccess;
     private final LabelScanStore labelScanStore;
+    private final NativeRelationshipTypeScanStore relationshipTypeScanStore;
     private final IndexProviderMap indexProviderMap;
     private final ExplicitIndexApplierLookup explicitIndexApplierLookup;
     private final SchemaState schemaState;
@@ -138,6 +141,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final IdOrderingQueue explicitIndexTransactionOrdering;
     private final LockService lockService;
     private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync;
+    private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> relationshipTypeScanStoreSync;
     private final CommandReaderFactory commandReaderFactory;
     private final WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync;
     private final IndexStoreView indexStoreView;
@@ -196,6 +200,9 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             monitors.addMonitorListener( new LoggingMonitor( logProvider.getLog( NativeLabelScanStore.class ) ) );
             labelScanStore = new NativeLabelScanStore( pageCache, databaseLayout, fs, new FullLabelStream( neoStoreIndexStoreView ),
                     readOnly, monitors, recoveryCleanupWorkCollector );
+            relationshipTypeScanStore = new NativeRelationshipTypeScanStore( pageCache, databaseLayout, fs,
+                    new FullRelationshipTypeStream( neoStores.getRelationshipStore() ), readOnly,
+                    logProvider.getLog( NativeRelationshipTypeScanStore.class ), recoveryCleanupWorkCollector );
 
             indexStoreView = new DynamicIndexStoreView( neoStoreIndexStoreView, labelScanStore, lockService, neoStores, logProvider );
             this.indexProviderMap = indexProviderMap;
@@ -210,6 +217,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             explicitIndexApplierLookup = new ExplicitIndexApplierLookup.Direct( explicitIndexProvider );
 
             labelScanStoreSync = new WorkSync<>( labelScanStore::newWriter );
+            relationshipTypeScanStoreSync = new WorkSync<>( relationshipTypeScanStore::newWriter );
 
             commandReaderFactory = new RecordStorageCommandReaderFactory();
             indexUpdatesSync = new WorkSync<>( indexingService );
@@ -229,7 +237,9 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         Supplier<IndexReaderFactory> indexReaderFactory = () -> new IndexReaderFactory.Caching( indexingService );
         return new RecordStorageReader( tokenHolders, schemaStorage, neoStores, indexingService,
-                schemaCache, indexReaderFactory, labelScanStore::newReader, allocateCommandCreationContext() );
+                schemaCache, indexReaderFactory, labelScanStore::newReader,
+                relationshipTypeScanStore.isAvailable() ? relationshipTypeScanStore::newReader : null,
+                allocateCommandCreationContext() );
     }
 
     @Override
@@ -331,7 +341,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             appliers.add( new CountsStoreBatchTransactionApplier( neoStores.getCounts(), mode ) );
 
             // Schema index application
-            appliers.add( new IndexBatchTransactionApplier( indexingService, labelScanStoreSync, indexUpdatesSync,
+            appliers.add( new IndexBatchTransactionApplier( indexingService, labelScanStoreSync, relationshipTypeScanStoreSync,
+                    indexUpdatesSync,
                     neoStores.getNodeStore(), neoStores.getRelationshipStore(),
                     neoStores.getPropertyStore(), indexActivator ) );
 
@@ -368,6 +379,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     public void init() throws Throwable
     {
         labelScanStore.init();
+        relationshipTypeScanStore.init();
     }
 
     @Override
@@ -377,6 +389,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         neoStores.startCountStore(); // TODO: move this to counts store lifecycle
         indexingService.start();
         labelScanStore.start();
+        relationshipTypeScanStore.start();
         idController.start();
     }
 
@@ -398,6 +411,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         indexingService.stop();
         labelScanStore.stop();
+        relationshipTypeScanStore.stop();
         idController.stop();
     }
 
@@ -406,6 +420,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         indexingService.shutdown();
         labelScanStore.shutdown();
+        relationshipTypeScanStore.shutdown();
         neoStores.close();
     }
 
@@ -414,6 +429,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         indexingService.forceAll( limiter );
         labelScanStore.force( limiter );
+        relationshipTypeScanStore.force( limiter );
         for ( IndexImplementation index : explicitIndexProviderLookup.allIndexProviders() )
         {
             index.force();
@@ -490,6 +506,14 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         return neoStores;
     }
 
+    /**
+     * @return the relationship type scan store, which isn't made available as a dependency since it's also a {@link LabelScanStore}.
+     */
+    public LabelScanStore relationshipTypeScanStore()
+    {
+        return relationshipTypeScanStore;
+    }
+
     @Override
     public StoreId getStoreId()
     {
@@ -43,12 +43,15 @@ import org.neo4j.kernel.impl.store.RelationshipGroupStore;
 import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.SchemaStorage;
 import org.neo4j.kernel.impl.store.StoreType;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.register.Register;
 import org.neo4j.register.Register.DoubleLongRegister;
+import org.neo4j.storageengine.api.AllNodeScan;
+import org.neo4j.storageengine.api.AllRelationshipsScan;
 import org.neo4j.storageengine.api.EntityType;
 import org.neo4j.storageengine.api.RelationshipVisitor;
+import org.neo4j.storageengine.api.RelationshipTypeScan;
 import org.neo4j.storageengine.api.StoragePropertyCursor;
 import org.neo4j.storageengine.api.StorageReader;
 import org.neo4j.storageengine.api.StorageRelationshipGroupCursor;
@@ -79,15 +82,17 @@ public class RecordStorageReader implements StorageReader
     private final RelationshipGroupStore relationshipGroupStore;
     private final PropertyStore propertyStore;
     private final SchemaStorage schemaStorage;
-    private final CountsTracker counts;
+    private final CountsStore counts;
     private final SchemaCache schemaCache;
 
     private final Supplier<IndexReaderFactory> indexReaderFactorySupplier;
     private final Supplier<LabelScanReader> labelScanReaderSupplier;
+    private final Supplier<LabelScanReader> relationshipTypeScanReaderSupplier;
     private final RecordStorageCommandCreationContext commandCreationContext;
 
     private IndexReaderFactory indexReaderFactory;
     private LabelScanReader labelScanReader;
+    private LabelScanReader relationshipTypeScanReader;
 
     private boolean acquired;
     private boolean closed;
@@ -97,6 +102,7 @@ public class RecordStorageReader implements StorageReader
             IndexingService indexService, SchemaCache schemaCache,
             Supplier<IndexReaderFactory> indexReaderFactory,
             Supplier<LabelScanReader> labelScanReaderSupplier,
+            Supplier<LabelScanReader> relationshipTypeScanReaderSupplier,
             RecordStorageCommandCreationContext commandCreationContext )
     {
         this.tokenHolders = tokenHolders;
@@ -111,6 +117,7 @@ public class RecordStorageReader implements StorageReader
         this.schemaCache = schemaCache;
         this.indexReaderFactorySupplier = indexReaderFactory;
         this.labelScanReaderSupplier = labelScanReaderSupplier;
+        this.relationshipTypeScanReaderSupplier = relationshipTypeScanReaderSupplier;
         this.commandCreationContext = commandCreationContext;
     }
 
@@ -120,7 +127,7 @@ public class RecordStorageReader implements StorageReader
      */
     public RecordStorageReader( NeoStores stores )
     {
-        this( null, null, stores, null, null, null, null, null );
+        this( null, null, stores, null, null, null, null, null, null );
     }
 
     @Override
@@ -409,6 +416,11 @@ public class RecordStorageReader implements StorageReader
             labelScanReader.close();
             labelScanReader = null;
         }
+        if ( relationshipTypeScanReader != null )
+        {
+            relationshipTypeScanReader.close();
+            relationshipTypeScanReader = null;
+        }
     }
 
     @Override
@@ -418,6 +430,12 @@ public class RecordStorageReader implements StorageReader
                labelScanReader : (labelScanReader = labelScanReaderSupplier.get());
     }
 
+    private LabelScanReader getRelationshipTypeScanReader()
+    {
+        return relationshipTypeScanReader != null ?
+               relationshipTypeScanReader : (relationshipTypeScanReader = relationshipTypeScanReaderSupplier.get());
+    }
+
     private IndexReaderFactory indexReaderFactory()
     {
         return indexReaderFactory != null ?
@@ -483,6 +501,12 @@ public class RecordStorageReader implements StorageReader
         return new RecordNodeCursor( nodeStore );
     }
 
+    @Override
+    public AllNodeScan allNodeScan()
+    {
+        return new RecordNodeScan( nodeStore.getRecordsPerPage() );
+    }
+
     @Override
     public StorageRelationshipGroupCursor allocateRelationshipGroupCursor()
     {
@@ -498,7 +522,24 @@ public class RecordStorageReader implements StorageReader
     @Override
     public RecordRelationshipScanCursor allocateRelationshipScanCursor()
     {
-        return new RecordRelationshipScanCursor( relationshipStore );
+        return new RecordRelationshipScanCursor( relationshipStore,
+                relationshipTypeScanReaderSupplier != null ? this::getRelationshipTypeScanReader : null );
+    }
+
+    @Override
+    public AllRelationshipsScan allRelationshipScan()
+    {
+        return new RecordRelationshipScan( relationshipStore.getRecordsPerPage() );
+    }
+
+    @Override
+    public RelationshipTypeScan relationshipTypeScan( int type )
+    {
+        if ( relationshipTypeScanReaderSupplier == null )
+        {
+            return new RecordRelationshipTypeScan( new RecordRelationshipScan( relationshipStore.getRecordsPerPage() ), type );
+        }
+        return new RecordRelationshipTypeScan( getRelationshipTypeScanReader().nodeLabelScan( type ), type );
     }
 
     @Override
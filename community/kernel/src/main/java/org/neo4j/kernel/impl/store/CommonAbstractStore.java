@@ -56,6 +56,7 @@ import static org.neo4j.io.pagecache.PageCacheOpenOptions.ANY_PAGE_SIZE;
 import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
 
@@ -425,7 +426,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         try
         {
             long pageId = pageIdForRecord( id );
-            return pagedFile.io( pageId, PF_SHARED_READ_LOCK );
+            return pagedFile.io( pageId, PF_SHARED_READ_LOCK | PF_READ_AHEAD );
         }
         catch ( IOException e )
         {
@@ -434,6 +435,23 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         }
     }
 
+    /**
+     * DANGER: make sure to always close this cursor.
+     */
+    @Override
+    public PageCursor openPageCursorForScanning( long id )
+    {
+        try
+        {
+            long pageId = pageIdForRecord( id );
+            return pagedFile.io( pageId, PF_SHARED_READ_LOCK | PF_READ_AHEAD | PF_TRANSIENT );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
     /**
      * Should rebuild the id generator from scratch.
      * <p>
@@ -28,6 +28,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetTime;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
 import java.util.Collection;
 
 import org.neo4j.helpers.collection.Pair;
@@ -87,6 +88,9 @@ import static java.lang.System.arraycopy;
  *             <li>Points: Stored as double[] using the same format as primitive arrays above, starting with the 3 byte header (see above)</li>
  *         </ul>
  *     </li>
+ *     <li>
+ *         Compressed arrays of any of the above, see {@link DynamicValueCompression}.
+ *     </li>
  * </ul>
  */
 public class DynamicArrayStore extends AbstractDynamicStore
@@ -213,16 +217,11 @@ public class DynamicArrayStore extends AbstractDynamicStore
         allocateRecordsFromBytes( target, bytes, recordAllocator );
     }
 
-    private static void allocateFromCompositeType(
-            Collection<DynamicRecord> target,
-            byte[] bytes,
-            DynamicRecordAllocator recordAllocator,
-            boolean allowsStorage,
-            Capability storageCapability )
+    private static byte[] encodeFromCompositeType( byte[] bytes, boolean allowsStorage, Capability storageCapability )
     {
         if ( allowsStorage )
         {
-            allocateRecordsFromBytes( target, bytes, recordAllocator );
+            return bytes;
         }
         else
         {
@@ -230,8 +229,7 @@ public class DynamicArrayStore extends AbstractDynamicStore
         }
     }
 
-    private static void allocateFromString( Collection<DynamicRecord> target, String[] array,
-            DynamicRecordAllocator recordAllocator )
+    private static byte[] encodeFromString( String[] array )
     {
         byte[][] stringsAsBytes = new byte[array.length][];
         int totalBytesRequired = STRING_HEADER_SIZE; // 1b type + 4b array length
@@ -251,7 +249,7 @@ public class DynamicArrayStore extends AbstractDynamicStore
             buf.putInt( stringAsBytes.length );
             buf.put( stringAsBytes );
         }
-        allocateRecordsFromBytes( target, buf.array(), recordAllocator );
+        return buf.array();
     }
 
     public void allocateRecords( Collection<DynamicRecord> target, Object array )
@@ -261,6 +259,14 @@ public class DynamicArrayStore extends AbstractDynamicStore
 
     public static void allocateRecords( Collection<DynamicRecord> target, Object array,
             DynamicRecordAllocator recordAllocator, boolean allowStorePointsAndTemporal )
+    {
+        allocateRecordsFromBytes( target, encode( array, allowStorePointsAndTemporal ), recordAllocator );
+    }
+
+    /**
+     * @return the header and data of the given array, as they are stored in dynamic records.
+     */
+    public static byte[] encode( Object array, boolean allowStorePointsAndTemporal )
     {
         if ( !array.getClass().isArray() )
         {
@@ -270,46 +276,46 @@ public class DynamicArrayStore extends AbstractDynamicStore
         Class<?> type = array.getClass().getComponentType();
         if ( type.equals( String.class ) )
         {
-            allocateFromString( target, (String[]) array, recordAllocator );
+            return encodeFromString( (String[]) array );
         }
         else if ( type.equals( PointValue.class ) )
         {
-            allocateFromCompositeType( target,GeometryType.encodePointArray( (PointValue[]) array ),
-                    recordAllocator, allowStorePointsAndTemporal, Capability.POINT_PROPERTIES );
+            return encodeFromCompositeType( GeometryType.encodePointArray( (PointValue[]) array ),
+                    allowStorePointsAndTemporal, Capability.POINT_PROPERTIES );
         }
         else if ( type.equals( LocalDate.class ) )
         {
-            allocateFromCompositeType( target, TemporalType.encodeDateArray( (LocalDate[]) array ),
-                    recordAllocator, allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
+            return encodeFromCompositeType( TemporalType.encodeDateArray( (LocalDate[]) array ),
+                    allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
         }
         else if ( type.equals( LocalTime.class ) )
         {
-            allocateFromCompositeType( target, TemporalType.encodeLocalTimeArray( (LocalTime[]) array ),
-                    recordAllocator, allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
+            return encodeFromCompositeType( TemporalType.encodeLocalTimeArray( (LocalTime[]) array ),
+                    allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
         }
         else if ( type.equals( LocalDateTime.class ) )
         {
-            allocateFromCompositeType( target, TemporalType.encodeLocalDateTimeArray( (LocalDateTime[]) array ),
-                    recordAllocator, allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
+            return encodeFromCompositeType( TemporalType.encodeLocalDateTimeArray( (LocalDateTime[]) array ),
+                    allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
         }
         else if ( type.equals( OffsetTime.class ) )
         {
-            allocateFromCompositeType( target, TemporalType.encodeTimeArray( (OffsetTime[]) array ),
-                    recordAllocator, allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
+            return encodeFromCompositeType( TemporalType.encodeTimeArray( (OffsetTime[]) array ),
+                    allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
         }
         else if ( type.equals( ZonedDateTime.class ) )
         {
-            allocateFromCompositeType( target, TemporalType.encodeDateTimeArray( (ZonedDateTime[]) array ),
-                    recordAllocator, allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
+            return encodeFromCompositeType( TemporalType.encodeDateTimeArray( (ZonedDateTime[]) array ),
+                    allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
         }
         else if ( type.equals( DurationValue.class ) )
         {
-            allocateFromCompositeType( target, TemporalType.encodeDurationArray( (DurationValue[]) array ),
-                    recordAllocator, allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
+            return encodeFromCompositeType( TemporalType.encodeDurationArray( (DurationValue[]) array ),
+                    allowStorePointsAndTemporal, Capability.TEMPORAL_PROPERTIES );
         }
         else
         {
-            allocateFromNumbers( target, array, recordAllocator );
+            return encodeFromNumbers( array, 0 );
         }
     }
 
@@ -318,7 +324,13 @@ public class DynamicArrayStore extends AbstractDynamicStore
         byte[] header = data.first();
         byte[] bArray = data.other();
         byte typeId = header[0];
-        if ( typeId == PropertyType.STRING.intValue() )
+        if ( typeId == DynamicValueCompression.MARKER )
+        {
+            byte[] value = DynamicValueCompression.decompressValue( header, bArray );
+            byte[] valueHeader = PropertyType.ARRAY.readDynamicRecordHeader( value );
+            return getRightArray( Pair.of( valueHeader, Arrays.copyOfRange( value, valueHeader.length, value.length ) ) );
+        }
+        else if ( typeId == PropertyType.STRING.intValue() )
         {
             ByteBuffer headerBuffer = ByteBuffer.wrap( header, 1/*skip the type*/, header.length - 1 );
             int arrayLength = headerBuffer.getInt();
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import com.github.luben.zstd.Zstd;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.neo4j.kernel.impl.store.format.Capability;
+import org.neo4j.kernel.impl.store.format.RecordFormats;
+
+/**
+ * The algorithms that large string and array property values can be compressed with before they are chunked into
+ * dynamic records by the {@link DynamicStringStore} and the {@link DynamicArrayStore}.
+ * <p>
+ * A compressed value starts with a 6 byte header:
+ * <ul>
+ *     <li>Byte 0: {@link #MARKER}, which neither the UTF-8 encoding of a string nor the header of an array starts with</li>
+ *     <li>Byte 1: The code of the algorithm, so that values can be decompressed regardless of configuration</li>
+ *     <li>Bytes 2 to 5: 32bit Int length of the uncompressed value</li>
+ * </ul>
+ * This is followed by the compressed bytes of the value as it would have been stored uncompressed, i.e. the UTF-8
+ * bytes of a string, or the header and data of an array.
+ */
+public enum DynamicValueCompression
+{
+    ZSTD( 1 )
+            {
+                // The fastest level, since compression is on the commit path.
+                private static final int LEVEL = 1;
+
+                @Override
+                byte[] compress( byte[] source )
+                {
+                    try
+                    {
+                        return Zstd.compress( source, LEVEL );
+                    }
+                    catch ( LinkageError e )
+                    {
+                        throw unavailable( e );
+                    }
+                    catch ( RuntimeException e )
+                    {
+                        throw new UnderlyingStorageException( "Failed to compress property value", e );
+                    }
+                }
+
+                @Override
+                byte[] decompress( byte[] source, int length )
+                {
+                    byte[] target;
+                    try
+                    {
+                        target = Zstd.decompress( source, length );
+                    }
+                    catch ( LinkageError e )
+                    {
+                        throw unavailable( e );
+                    }
+                    catch ( RuntimeException e )
+                    {
+                        throw new InvalidRecordException( "Failed to decompress property value", e );
+                    }
+                    if ( target.length != length )
+                    {
+                        throw new InvalidRecordException( "Expected " + length + " bytes of decompressed property value, " +
+                                "but got " + target.length );
+                    }
+                    return target;
+                }
+            };
+
+    /**
+     * The first byte of compressed values. UTF-8 never uses this byte, and the first byte of an array is the
+     * {@link PropertyType} of its items.
+     */
+    public static final byte MARKER = (byte) 0xFF;
+    public static final int HEADER_SIZE = 6;
+    // Shorter values take at most a couple of dynamic records with the default block sizes, so there's little to gain
+    private static final int MIN_COMPRESSED_LENGTH = 256;
+
+    private final byte code;
+
+    DynamicValueCompression( int code )
+    {
+        this.code = (byte) code;
+    }
+
+    abstract byte[] compress( byte[] source );
+
+    /**
+     * @param length the length of the decompressed value.
+     */
+    abstract byte[] decompress( byte[] source, int length );
+
+    /**
+     * @return the compression of values written to a property store with the given format, or {@code null} for no
+     * compression. Only formats with {@link Capability#COMPRESSED_PROPERTY_VALUES} compress values, so that stores with
+     * compressed values can't be opened by versions of Neo4j that can't read them.
+     */
+    static DynamicValueCompression forFormat( RecordFormats recordFormats )
+    {
+        return recordFormats.hasCapability( Capability.COMPRESSED_PROPERTY_VALUES ) ? ZSTD : null;
+    }
+
+    /**
+     * @param value the bytes of a string or array value, as they would have been stored uncompressed.
+     * @return the value compressed and with a header, or {@code value} itself if it's too small to be worth
+     * compressing or didn't get any smaller.
+     */
+    public byte[] compressValue( byte[] value )
+    {
+        if ( value.length < MIN_COMPRESSED_LENGTH )
+        {
+            return value;
+        }
+        byte[] compressed = compress( value );
+        if ( HEADER_SIZE + compressed.length >= value.length )
+        {
+            return value;
+        }
+        return ByteBuffer.allocate( HEADER_SIZE + compressed.length )
+                .put( MARKER )
+                .put( code )
+                .putInt( value.length )
+                .put( compressed )
+                .array();
+    }
+
+    /**
+     * @return whether the first {@code length} bytes of {@code value} is a compressed value.
+     */
+    public static boolean isCompressed( byte[] value, int length )
+    {
+        return length >= HEADER_SIZE && value[0] == MARKER;
+    }
+
+    /**
+     * Decompresses the value in the first {@code length} bytes of {@code value}, header included.
+     */
+    public static byte[] decompressValue( byte[] value, int length )
+    {
+        return decompressValue( Arrays.copyOf( value, HEADER_SIZE ), Arrays.copyOfRange( value, HEADER_SIZE, length ) );
+    }
+
+    /**
+     * Decompresses a value whose header has been read separately from its compressed bytes, as when reading the
+     * header of an array from its first dynamic record.
+     */
+    public static byte[] decompressValue( byte[] header, byte[] compressed )
+    {
+        ByteBuffer buffer = ByteBuffer.wrap( header );
+        if ( buffer.get() != MARKER )
+        {
+            throw new InvalidRecordException( "Property value is not compressed" );
+        }
+        DynamicValueCompression compression = byCode( buffer.get() );
+        return compression.decompress( compressed, buffer.getInt() );
+    }
+
+    private static DynamicValueCompression byCode( byte code )
+    {
+        for ( DynamicValueCompression compression : values() )
+        {
+            if ( compression.code == code )
+            {
+                return compression;
+            }
+        }
+        throw new InvalidRecordException( "Unknown compression of property value " + code );
+    }
+
+    private static UnderlyingStorageException unavailable( LinkageError e )
+    {
+        return new UnderlyingStorageException( "Compression of property values needs zstd-jni on the class path", e );
+    }
+}
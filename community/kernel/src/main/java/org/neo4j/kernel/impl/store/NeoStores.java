@@ -43,7 +43,9 @@ import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.kernel.NeoStoresDiagnostics;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.GBPTreeCountsStore;
 import org.neo4j.kernel.impl.store.counts.ReadOnlyCountsTracker;
 import org.neo4j.kernel.impl.store.format.CapabilityType;
 import org.neo4j.kernel.impl.store.format.FormatFamily;
@@ -245,7 +247,7 @@ public class NeoStores implements AutoCloseable
     {
         try
         {
-            CountsTracker counts = (CountsTracker) stores[StoreType.COUNTS.ordinal()];
+            CountsStore counts = (CountsStore) stores[StoreType.COUNTS.ordinal()];
             if ( counts != null )
             {
                 counts.rotate( getMetaDataStore().getLastCommittedTransactionId() );
@@ -423,9 +425,9 @@ public class NeoStores implements AutoCloseable
         return (SchemaStore) getStore( StoreType.SCHEMA );
     }
 
-    public CountsTracker getCounts()
+    public CountsStore getCounts()
     {
-        return (CountsTracker) getStore( StoreType.COUNTS );
+        return (CountsStore) getStore( StoreType.COUNTS );
     }
 
     private CountsTracker createWritableCountsTracker( DatabaseLayout databaseLayout )
@@ -439,6 +441,11 @@ public class NeoStores implements AutoCloseable
         return new ReadOnlyCountsTracker( logProvider, fileSystemAbstraction, pageCache, config, databaseLayout );
     }
 
+    private GBPTreeCountsStore createGBPTreeCountsStore( DatabaseLayout databaseLayout, boolean readOnly )
+    {
+        return new GBPTreeCountsStore( pageCache, fileSystemAbstraction, databaseLayout.countStoreTree(), readOnly );
+    }
+
     private Iterable<CommonAbstractStore> instantiatedRecordStores()
     {
         Iterator<StoreType> storeTypes = new FilteringIterator<>( iterator( STORE_TYPES ), INSTANTIATED_RECORD_STORES );
@@ -621,12 +628,30 @@ public class NeoStores implements AutoCloseable
                 TokenStore.NAME_STORE_BLOCK_SIZE );
     }
 
-    CountsTracker createCountStore()
+    CountsStore createCountStore()
     {
         boolean readOnly = config.get( GraphDatabaseSettings.read_only );
-        CountsTracker counts = readOnly
-                               ? createReadOnlyCountsTracker( layout )
-                               : createWritableCountsTracker( layout );
+        // Only one kind of counts store is kept up to date at a time, and a counts tree is removed when it isn't used,
+        // so a counts tree that exists is the one that is up to date
+        boolean countsTree = readOnly
+                             ? fileSystemAbstraction.fileExists( layout.countStoreTree() )
+                             : config.get( GraphDatabaseSettings.counts_store_gbptree );
+        CountsStore counts;
+        if ( countsTree )
+        {
+            counts = createGBPTreeCountsStore( layout, readOnly );
+        }
+        else
+        {
+            if ( !readOnly && fileSystemAbstraction.fileExists( layout.countStoreTree() ) )
+            {
+                // The counts tree has been used since the key/value counts store was last written to, rebuild it
+                deleteCountsStoreFiles( layout.countStoreTree(), layout.countStoreA(), layout.countStoreB() );
+            }
+            counts = readOnly
+                     ? createReadOnlyCountsTracker( layout )
+                     : createWritableCountsTracker( layout );
+        }
         NeoStores neoStores = this;
         counts.setInitializer( new DataInitializer<CountsAccessor.Updater>()
         {
@@ -650,6 +675,10 @@ public class NeoStores implements AutoCloseable
         try
         {
             counts.init(); // TODO: move this to LifeCycle
+            if ( countsTree && !readOnly )
+            {
+                migrateCountsTracker( (GBPTreeCountsStore) counts );
+            }
         }
         catch ( IOException e )
         {
@@ -658,6 +687,47 @@ public class NeoStores implements AutoCloseable
         return counts;
     }
 
+    /**
+     * Copies the key/value counts store into a counts tree that has just been created. This is done before any
+     * transactions are recovered, since a counts tree that is not initialized doesn't apply recovered transactions.
+     * The key/value counts store is deleted afterwards, since it won't be kept up to date.
+     */
+    private void migrateCountsTracker( GBPTreeCountsStore counts ) throws IOException
+    {
+        File[] countsTrackerFiles = {layout.countStoreA(), layout.countStoreB()};
+        if ( counts.needsInitialization() &&
+                (fileSystemAbstraction.fileExists( countsTrackerFiles[0] ) || fileSystemAbstraction.fileExists( countsTrackerFiles[1] )) )
+        {
+            Log log = logProvider.getLog( MetaDataStore.class );
+            CountsTracker existing = createReadOnlyCountsTracker( layout );
+            try
+            {
+                existing.init();
+                existing.start();
+                log.info( "Migrating counts store to a GBPTree." );
+                counts.initialize( GBPTreeCountsStore.migrationOf( existing ) );
+            }
+            catch ( IllegalStateException e )
+            {
+                // Thrown when starting a store that has no usable file, the counts tree is then rebuilt when started
+                log.warn( "Unable to read the counts store to migrate, rebuilding it instead.", e );
+            }
+            finally
+            {
+                existing.shutdown();
+            }
+        }
+        deleteCountsStoreFiles( countsTrackerFiles );
+    }
+
+    private void deleteCountsStoreFiles( File... files )
+    {
+        for ( File file : files )
+        {
+            fileSystemAbstraction.deleteFile( file );
+        }
+    }
+
     CommonAbstractStore createMetadataStore()
     {
         return initialize(
@@ -154,6 +154,8 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
     // this variable here can be removed once the support for older store versions (that do not have these two
     // capabilities) has ceased, the variable can be removed.
     private final boolean allowStorePointsAndTemporal;
+    // The compression of large string and array values that are written, or null for no compression
+    private final DynamicValueCompression valueCompression;
 
     public PropertyStore(
             File file,
@@ -175,6 +177,7 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
         this.arrayStore = arrayPropertyStore;
         allowStorePointsAndTemporal =
                 recordFormats.hasCapability( Capability.POINT_PROPERTIES ) && recordFormats.hasCapability( Capability.TEMPORAL_PROPERTIES );
+        valueCompression = DynamicValueCompression.forFormat( recordFormats );
     }
 
     @Override
@@ -294,23 +297,40 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
         return propertyBlock.getType().value( propertyBlock, this );
     }
 
-    private static void allocateStringRecords( Collection<DynamicRecord> target, byte[] chars, DynamicRecordAllocator allocator )
+    private static void allocateStringRecords( Collection<DynamicRecord> target, byte[] chars, DynamicRecordAllocator allocator,
+            DynamicValueCompression compression )
     {
-        AbstractDynamicStore.allocateRecordsFromBytes( target, chars, allocator );
+        AbstractDynamicStore.allocateRecordsFromBytes( target, compress( chars, compression ), allocator );
     }
 
-    private static void allocateArrayRecords( Collection<DynamicRecord> target, Object array, DynamicRecordAllocator allocator, boolean allowStorePoints )
+    private static void allocateArrayRecords( Collection<DynamicRecord> target, Object array, DynamicRecordAllocator allocator, boolean allowStorePoints,
+            DynamicValueCompression compression )
     {
-        DynamicArrayStore.allocateRecords( target, array, allocator, allowStorePoints );
+        byte[] bytes = DynamicArrayStore.encode( array, allowStorePoints );
+        AbstractDynamicStore.allocateRecordsFromBytes( target, compress( bytes, compression ), allocator );
+    }
+
+    private static byte[] compress( byte[] bytes, DynamicValueCompression compression )
+    {
+        return compression == null ? bytes : compression.compressValue( bytes );
     }
 
     public void encodeValue( PropertyBlock block, int keyId, Value value )
     {
-        encodeValue( block, keyId, value, stringStore, arrayStore, allowStorePointsAndTemporal );
+        encodeValue( block, keyId, value, stringStore, arrayStore, allowStorePointsAndTemporal, valueCompression );
     }
 
     public static void encodeValue( PropertyBlock block, int keyId, Value value, DynamicRecordAllocator stringAllocator, DynamicRecordAllocator arrayAllocator,
             boolean allowStorePointsAndTemporal )
+    {
+        encodeValue( block, keyId, value, stringAllocator, arrayAllocator, allowStorePointsAndTemporal, null );
+    }
+
+    /**
+     * @param compression the compression of large string and array values, or {@code null} for no compression.
+     */
+    public static void encodeValue( PropertyBlock block, int keyId, Value value, DynamicRecordAllocator stringAllocator, DynamicRecordAllocator arrayAllocator,
+            boolean allowStorePointsAndTemporal, DynamicValueCompression compression )
     {
         if ( value instanceof ArrayValue )
         {
@@ -324,7 +344,7 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
 
             // Fall back to dynamic array store
             List<DynamicRecord> arrayRecords = new ArrayList<>();
-            allocateArrayRecords( arrayRecords, asObject, arrayAllocator, allowStorePointsAndTemporal );
+            allocateArrayRecords( arrayRecords, asObject, arrayAllocator, allowStorePointsAndTemporal, compression );
             setSingleBlockValue( block, keyId, PropertyType.ARRAY, Iterables.first( arrayRecords ).getId() );
             for ( DynamicRecord valueRecord : arrayRecords )
             {
@@ -334,7 +354,7 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
         }
         else
         {
-            value.writeTo( new PropertyBlockValueWriter( block, keyId, stringAllocator, allowStorePointsAndTemporal ) );
+            value.writeTo( new PropertyBlockValueWriter( block, keyId, stringAllocator, allowStorePointsAndTemporal, compression ) );
         }
     }
 
@@ -406,12 +426,15 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
         private final int keyId;
         private final DynamicRecordAllocator stringAllocator;
         private final boolean allowStorePointsAndTemporal;
-        PropertyBlockValueWriter( PropertyBlock block, int keyId, DynamicRecordAllocator stringAllocator, boolean allowStorePointsAndTemporal )
+        private final DynamicValueCompression compression;
+        PropertyBlockValueWriter( PropertyBlock block, int keyId, DynamicRecordAllocator stringAllocator, boolean allowStorePointsAndTemporal,
+                DynamicValueCompression compression )
         {
             this.block = block;
             this.keyId = keyId;
             this.stringAllocator = stringAllocator;
             this.allowStorePointsAndTemporal = allowStorePointsAndTemporal;
+            this.compression = compression;
         }
 
         @Override
@@ -487,7 +510,7 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
             // Fall back to dynamic string store
             byte[] encodedString = encodeString( value );
             List<DynamicRecord> valueRecords = new ArrayList<>();
-            allocateStringRecords( valueRecords, encodedString, stringAllocator );
+            allocateStringRecords( valueRecords, encodedString, stringAllocator, compression );
             setSingleBlockValue( block, keyId, PropertyType.STRING, Iterables.first( valueRecords ).getId() );
             for ( DynamicRecord valueRecord : valueRecords )
             {
@@ -656,7 +679,12 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
     {
         Pair<byte[], byte[]> source = stringStore.readFullByteArray( dynamicRecords, PropertyType.STRING );
         // A string doesn't have a header in the data array
-        return decodeString( source.other() );
+        byte[] bytes = source.other();
+        if ( DynamicValueCompression.isCompressed( bytes, bytes.length ) )
+        {
+            bytes = DynamicValueCompression.decompressValue( bytes, bytes.length );
+        }
+        return decodeString( bytes );
     }
 
     Value getArrayFor( PropertyBlock propertyBlock )
@@ -701,6 +729,14 @@ public class PropertyStore extends CommonAbstractStore<PropertyRecord,NoStoreHea
         return allowStorePointsAndTemporal;
     }
 
+    /**
+     * @return the compression of large string and array values that are written, or {@code null} for no compression.
+     */
+    public DynamicValueCompression valueCompression()
+    {
+        return valueCompression;
+    }
+
     /**
      * @return a calculator of property value sizes. The returned instance is designed to be used multiple times by a single thread only.
      */
@@ -147,7 +147,11 @@ public enum PropertyType
         public byte[] readDynamicRecordHeader( byte[] recordBytes )
         {
             byte itemType = recordBytes[0];
-            if ( itemType == STRING.byteValue() )
+            if ( itemType == DynamicValueCompression.MARKER )
+            {
+                return headOf( recordBytes, DynamicValueCompression.HEADER_SIZE );
+            }
+            else if ( itemType == STRING.byteValue() )
             {
                 return headOf( recordBytes, DynamicArrayStore.STRING_HEADER_SIZE );
             }
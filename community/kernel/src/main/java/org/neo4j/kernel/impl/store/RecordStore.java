@@ -124,6 +124,16 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
      */
     PageCursor openPageCursorForReading( long id );
 
+    /**
+     * Opens a {@link PageCursor} on this store, like {@link #openPageCursorForReading(long)}, for scanning through
+     * large parts of the store. Pages read through this cursor are not considered recently used by the page cache,
+     * so a scan does not push the pages used by other work out of the cache.
+     *
+     * @param id cursor will initially be placed at the page containing this record id.
+     * @return PageCursor for scanning records.
+     */
+    PageCursor openPageCursorForScanning( long id );
+
     /**
      * Reads a record from the store into {@code target}, see
      * {@link RecordStore#getRecord(long, AbstractBaseRecord, RecordLoad)}.
@@ -309,6 +319,12 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
             return actual.openPageCursorForReading( id );
         }
 
+        @Override
+        public PageCursor openPageCursorForScanning( long id )
+        {
+            return actual.openPageCursorForScanning( id );
+        }
+
         @Override
         public void getRecordByCursor( long id, R target, RecordLoad mode, PageCursor cursor ) throws InvalidRecordException
         {
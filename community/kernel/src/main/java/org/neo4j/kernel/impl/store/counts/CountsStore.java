@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+
+/**
+ * The counts store of a database, either the {@link CountsTracker key/value store} or the
+ * {@link GBPTreeCountsStore GBPTree} one.
+ * <p>
+ * The store is {@link #init() initialized} when the other stores are opened and {@link #start() started} when they
+ * can be read, since a store that has to be created is populated by its {@link #setInitializer(DataInitializer)
+ * initializer} when started.
+ */
+public interface CountsStore extends CountsAccessor, Lifecycle
+{
+    CountsStore setInitializer( DataInitializer<CountsAccessor.Updater> initializer );
+
+    @Override
+    void init() throws IOException;
+
+    @Override
+    void start() throws IOException;
+
+    @Override
+    void shutdown() throws IOException;
+
+    /**
+     * @return an updater for the count deltas of the given transaction, or nothing if the transaction has already been
+     * applied, which it may have been when it's recovered.
+     */
+    Optional<CountsAccessor.Updater> apply( long txId );
+
+    CountsAccessor.IndexStatsUpdater updateIndexCounts();
+
+    /**
+     * @return an updater for counts that replace all counts in the store, as of the given transaction.
+     */
+    CountsAccessor.Updater reset( long txId );
+
+    /**
+     * @return the id of the last transaction that the durable counts include.
+     */
+    long txId();
+
+    /**
+     * Makes the applied counts durable.
+     *
+     * @param txId the lowest transaction id that must be included in the durable counts.
+     * @return the highest transaction id that was included in the durable counts.
+     */
+    long rotate( long txId ) throws IOException;
+
+    Iterable<File> allFiles();
+}
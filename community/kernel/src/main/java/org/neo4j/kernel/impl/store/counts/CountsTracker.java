@@ -74,8 +74,7 @@ import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.relations
  * {@code kvstore}-package, see {@link org.neo4j.kernel.impl.store.kvstore.KeyValueStoreFile} for a good entry point.
  */
 @Rotation( value = Rotation.Strategy.LEFT_RIGHT )
-public class CountsTracker extends AbstractKeyValueStore<CountsKey>
-        implements CountsVisitor.Visitable, CountsAccessor
+public class CountsTracker extends AbstractKeyValueStore<CountsKey> implements CountsStore
 {
     /** The format specifier for the current version of the store file format. */
     private static final byte[] FORMAT = {'N', 'e', 'o', 'C', 'o', 'u', 'n', 't',
@@ -98,6 +97,7 @@ public class CountsTracker extends AbstractKeyValueStore<CountsKey>
                 versionContextSupplier, 16, 16, HEADER_FIELDS );
     }
 
+    @Override
     public CountsTracker setInitializer( final DataInitializer<Updater> initializer )
     {
         setEntryUpdaterInitializer( new DataInitializer<EntryUpdater<CountsKey>>()
@@ -121,11 +121,13 @@ public class CountsTracker extends AbstractKeyValueStore<CountsKey>
      * @param txId the lowest transaction id that must be included in the snapshot created by the rotation.
      * @return the highest transaction id that was included in the snapshot created by the rotation.
      */
+    @Override
     public long rotate( long txId ) throws IOException
     {
         return prepareRotation( txId ).rotate();
     }
 
+    @Override
     public long txId()
     {
         return headers().get( FileVersion.FILE_VERSION ).txId;
@@ -173,16 +175,19 @@ public class CountsTracker extends AbstractKeyValueStore<CountsKey>
         return get( indexSampleKey( indexId ), target );
     }
 
+    @Override
     public Optional<CountsAccessor.Updater> apply( long txId )
     {
         return updater( txId ).map( CountsUpdater::new );
     }
 
+    @Override
     public CountsAccessor.IndexStatsUpdater updateIndexCounts()
     {
         return new CountsUpdater( updater() );
     }
 
+    @Override
     public CountsAccessor.Updater reset( long txId )
     {
         return new CountsUpdater( resetter( txId ) );
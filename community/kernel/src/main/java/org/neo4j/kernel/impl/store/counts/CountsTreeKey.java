@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.neo4j.kernel.impl.api.CountsVisitor;
+import org.neo4j.kernel.impl.store.counts.keys.CountsKeyType;
+
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyType.ENTITY_NODE;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyType.ENTITY_RELATIONSHIP;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyType.INDEX_SAMPLE;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyType.INDEX_STATISTICS;
+
+/**
+ * Key of a {@link GBPTreeCountsStore}, a {@link CountsKeyType key type} code followed by two longs:
+ * <ul>
+ * <li>node count: label id, 0</li>
+ * <li>relationship count: start label id in the high and type id in the low 32 bits, end label id</li>
+ * <li>index statistics and index sample: index id, 0</li>
+ * </ul>
+ * Keys used in the tree are mutable, whereas keys used as map keys must not be changed once created.
+ */
+class CountsTreeKey
+{
+    static final int SIZE = Byte.BYTES + Long.BYTES + Long.BYTES;
+
+    byte type;
+    long first;
+    long second;
+
+    CountsTreeKey()
+    {
+    }
+
+    private CountsTreeKey( CountsKeyType type, long first, long second )
+    {
+        this.type = type.code;
+        this.first = first;
+        this.second = second;
+    }
+
+    static CountsTreeKey nodeKey( long labelId )
+    {
+        return new CountsTreeKey( ENTITY_NODE, labelId, 0 );
+    }
+
+    static CountsTreeKey relationshipKey( long startLabelId, int typeId, long endLabelId )
+    {
+        return new CountsTreeKey( ENTITY_RELATIONSHIP, (startLabelId << Integer.SIZE) | (typeId & 0xFFFFFFFFL), endLabelId );
+    }
+
+    static CountsTreeKey indexStatisticsKey( long indexId )
+    {
+        return new CountsTreeKey( INDEX_STATISTICS, indexId, 0 );
+    }
+
+    static CountsTreeKey indexSampleKey( long indexId )
+    {
+        return new CountsTreeKey( INDEX_SAMPLE, indexId, 0 );
+    }
+
+    static CountsTreeKey lowest()
+    {
+        return new CountsTreeKey( CountsKeyType.EMPTY, Long.MIN_VALUE, Long.MIN_VALUE );
+    }
+
+    static CountsTreeKey highest()
+    {
+        CountsTreeKey key = new CountsTreeKey();
+        key.type = Byte.MAX_VALUE;
+        key.first = Long.MAX_VALUE;
+        key.second = Long.MAX_VALUE;
+        return key;
+    }
+
+    /**
+     * Visits the counts of this key, where node and relationship counts are in {@code second}, like in
+     * {@link CountsTracker}.
+     */
+    void accept( CountsVisitor visitor, long first, long second )
+    {
+        switch ( CountsKeyType.value( type ) )
+        {
+        case ENTITY_NODE:
+            visitor.visitNodeCount( (int) this.first, second );
+            break;
+        case ENTITY_RELATIONSHIP:
+            visitor.visitRelationshipCount( (int) (this.first >> Integer.SIZE), (int) this.first, (int) this.second, second );
+            break;
+        case INDEX_STATISTICS:
+            visitor.visitIndexStatistics( this.first, first, second );
+            break;
+        case INDEX_SAMPLE:
+            visitor.visitIndexSample( this.first, first, second );
+            break;
+        default:
+            throw new IllegalStateException( "Unknown key type " + type );
+        }
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        CountsTreeKey that = (CountsTreeKey) o;
+        return type == that.type && first == that.first && second == that.second;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = type;
+        result = 31 * result + Long.hashCode( first );
+        result = 31 * result + Long.hashCode( second );
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CountsTreeKey[type=" + type + ", first=" + first + ", second=" + second + "]";
+    }
+}
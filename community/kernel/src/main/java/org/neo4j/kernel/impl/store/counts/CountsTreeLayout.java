@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} of a {@link GBPTreeCountsStore}, keys are ordered by type, then by their two longs.
+ */
+class CountsTreeLayout extends Layout.Adapter<CountsTreeKey,CountsTreeValue>
+{
+    /**
+     * Name part of the {@link #identifier()} value.
+     */
+    private static final String IDENTIFIER_NAME = "CNT";
+
+    @Override
+    public int compare( CountsTreeKey o1, CountsTreeKey o2 )
+    {
+        int typeComparison = Byte.compare( o1.type, o2.type );
+        if ( typeComparison != 0 )
+        {
+            return typeComparison;
+        }
+        int firstComparison = Long.compare( o1.first, o2.first );
+        return firstComparison != 0 ? firstComparison : Long.compare( o1.second, o2.second );
+    }
+
+    @Override
+    public CountsTreeKey newKey()
+    {
+        return new CountsTreeKey();
+    }
+
+    @Override
+    public CountsTreeKey copyKey( CountsTreeKey key, CountsTreeKey into )
+    {
+        into.type = key.type;
+        into.first = key.first;
+        into.second = key.second;
+        return into;
+    }
+
+    @Override
+    public CountsTreeValue newValue()
+    {
+        return new CountsTreeValue();
+    }
+
+    @Override
+    public int keySize( CountsTreeKey key )
+    {
+        return CountsTreeKey.SIZE;
+    }
+
+    @Override
+    public int valueSize( CountsTreeValue value )
+    {
+        return CountsTreeValue.SIZE;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, CountsTreeKey key )
+    {
+        cursor.putByte( key.type );
+        cursor.putLong( key.first );
+        cursor.putLong( key.second );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, CountsTreeValue value )
+    {
+        cursor.putLong( value.first );
+        cursor.putLong( value.second );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, CountsTreeKey into, int keySize )
+    {
+        into.type = cursor.getByte();
+        into.first = cursor.getLong();
+        into.second = cursor.getLong();
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, CountsTreeValue into, int valueSize )
+    {
+        into.first = cursor.getLong();
+        into.second = cursor.getLong();
+    }
+
+    @Override
+    public boolean fixedSize()
+    {
+        return true;
+    }
+
+    @Override
+    public long identifier()
+    {
+        return Layout.namedIdentifier( IDENTIFIER_NAME, CountsTreeKey.SIZE );
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return 0;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return 1;
+    }
+}
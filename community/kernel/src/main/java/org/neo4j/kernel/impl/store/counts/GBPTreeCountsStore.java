@@ -0,0 +1,706 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Header;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.api.CountsVisitor;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.register.Register;
+
+import static org.neo4j.kernel.impl.store.counts.CountsTreeKey.indexSampleKey;
+import static org.neo4j.kernel.impl.store.counts.CountsTreeKey.indexStatisticsKey;
+import static org.neo4j.kernel.impl.store.counts.CountsTreeKey.nodeKey;
+import static org.neo4j.kernel.impl.store.counts.CountsTreeKey.relationshipKey;
+
+/**
+ * A counts store on a {@link GBPTree}, an alternative to {@link CountsTracker} that does not rewrite all counts when
+ * it is checkpointed.
+ * <p>
+ * Transactions apply their count deltas to an in-memory map of changes, concurrently with each other, and readers
+ * see the counts in the tree plus the changes. A {@link #checkpoint(IOLimiter) checkpoint} swaps out the map of
+ * changes, merges them into the tree and checkpoints the tree, which only flushes the pages that the changes dirtied.
+ * The merge and flush don't block transactions or readers, only the swap does, for as long as it takes to wait for the
+ * transactions that are applying their deltas at the time.
+ * <p>
+ * The ids of the transactions whose deltas are in the tree are kept in the tree header, as the highest id below which
+ * all transactions are included and the ids of the included transactions above it, so that transactions that are
+ * recovered after a crash are {@link #apply(long) applied} exactly once.
+ * <p>
+ * A store that is created is populated when {@link #start() started}, by its initializer, which is usually
+ * {@link org.neo4j.kernel.impl.store.CountsComputer}. Transactions recovered before that are not applied, since the
+ * initializer counts what is in the store after recovery. An existing {@link CountsTracker} is instead
+ * {@link #initialize(DataInitializer) copied} into a created store before recovery, see {@link #migrationOf(CountsTracker)}.
+ */
+public class GBPTreeCountsStore extends LifecycleAdapter implements CountsStore, Closeable
+{
+    private static final long NEEDS_INITIALIZATION = -1;
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final boolean readOnly;
+    private final ReadWriteLock changesLock = new ReentrantReadWriteLock();
+    private final Object checkpointLock = new Object();
+    private DataInitializer<CountsAccessor.Updater> initializer;
+    private GBPTree<CountsTreeKey,CountsTreeValue> tree;
+    // Null until the store has been initialized
+    private volatile AppliedTransactions appliedTransactions;
+    private volatile long checkpointedTxId;
+    private volatile Map<CountsTreeKey,Change> changes = new ConcurrentHashMap<>();
+    // Changes of an ongoing checkpoint that may not have been merged into the tree yet
+    private volatile Map<CountsTreeKey,Change> merging = Collections.emptyMap();
+
+    public GBPTreeCountsStore( PageCache pageCache, FileSystemAbstraction fs, File file, boolean readOnly )
+    {
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.file = file;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public GBPTreeCountsStore setInitializer( DataInitializer<CountsAccessor.Updater> initializer )
+    {
+        this.initializer = initializer;
+        return this;
+    }
+
+    /**
+     * Opens the tree, or creates it if it doesn't exist.
+     */
+    @Override
+    public void init()
+    {
+        AppliedTransactions.Reader header = new AppliedTransactions.Reader();
+        RecoveryCleanupWorkCollector cleanup = readOnly ? RecoveryCleanupWorkCollector.ignore() : RecoveryCleanupWorkCollector.immediate();
+        tree = new GBPTree<>( pageCache, file, new CountsTreeLayout(), 0, GBPTree.NO_MONITOR, header,
+                AppliedTransactions::writeUninitialized, cleanup, readOnly );
+        if ( header.applied != null && header.applied.highestGapFree != NEEDS_INITIALIZATION )
+        {
+            appliedTransactions = header.applied;
+            checkpointedTxId = header.applied.highestGapFree;
+        }
+    }
+
+    /**
+     * Populates the store with its initializer, if it has not been initialized.
+     */
+    @Override
+    public void start()
+    {
+        if ( needsInitialization() )
+        {
+            if ( initializer == null )
+            {
+                throw new IllegalStateException( "Counts store needs to be created, and no initializer is given." );
+            }
+            initialize( initializer );
+        }
+    }
+
+    /**
+     * @return whether the store was created, and has not been populated since.
+     */
+    public boolean needsInitialization()
+    {
+        return appliedTransactions == null;
+    }
+
+    /**
+     * Populates a store that {@link #needsInitialization() needs initialization} with the counts that the given
+     * initializer provides, and checkpoints it, unless it is read only.
+     */
+    public void initialize( DataInitializer<CountsAccessor.Updater> initializer )
+    {
+        try ( ChangesUpdater updater = new ChangesUpdater( 0 ) )
+        {
+            initializer.initialize( updater );
+        }
+        appliedTransactions = new AppliedTransactions( initializer.initialVersion(), new long[0] );
+        if ( !readOnly )
+        {
+            checkpoint( IOLimiter.UNLIMITED );
+        }
+    }
+
+    /**
+     * @return an initializer that copies the counts of {@code existing}, to migrate it to a {@link GBPTreeCountsStore}.
+     */
+    public static DataInitializer<CountsAccessor.Updater> migrationOf( CountsTracker existing )
+    {
+        return new DataInitializer<CountsAccessor.Updater>()
+        {
+            @Override
+            public void initialize( CountsAccessor.Updater updater )
+            {
+                // The updaters of this store also update index statistics
+                existing.accept( new CountsAccessor.Initializer( updater, (CountsAccessor.IndexStatsUpdater) updater ) );
+            }
+
+            @Override
+            public long initialVersion()
+            {
+                return existing.txId();
+            }
+        };
+    }
+
+    @Override
+    public Optional<CountsAccessor.Updater> apply( long txId )
+    {
+        AppliedTransactions applied = appliedTransactions;
+        if ( applied == null || applied.contains( txId ) )
+        {
+            // A store that needs initialization is populated after recovery, with the recovered transactions
+            return Optional.empty();
+        }
+        return Optional.of( new ChangesUpdater( txId ) );
+    }
+
+    @Override
+    public CountsAccessor.IndexStatsUpdater updateIndexCounts()
+    {
+        return new ChangesUpdater( 0 );
+    }
+
+    @Override
+    public CountsAccessor.Updater reset( long txId )
+    {
+        synchronized ( checkpointLock )
+        {
+            changesLock.writeLock().lock();
+            try
+            {
+                removeAll();
+                changes = new ConcurrentHashMap<>();
+                appliedTransactions = new AppliedTransactions( txId, new long[0] );
+            }
+            finally
+            {
+                changesLock.writeLock().unlock();
+            }
+        }
+        return new ChangesUpdater( 0 );
+    }
+
+    private void removeAll()
+    {
+        try
+        {
+            List<CountsTreeKey> keys = new ArrayList<>();
+            CountsTreeLayout layout = new CountsTreeLayout();
+            try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> seek =
+                    tree.seek( CountsTreeKey.lowest(), CountsTreeKey.highest() ) )
+            {
+                while ( seek.next() )
+                {
+                    keys.add( layout.copyKey( seek.get().key(), new CountsTreeKey() ) );
+                }
+            }
+            try ( Writer<CountsTreeKey,CountsTreeValue> writer = tree.writer() )
+            {
+                for ( CountsTreeKey key : keys )
+                {
+                    writer.remove( key );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    /**
+     * @return the highest transaction id below which all transactions were included in the last checkpoint.
+     */
+    @Override
+    public long txId()
+    {
+        return checkpointedTxId;
+    }
+
+    /**
+     * Checkpoints the store. Unlike {@link CountsTracker#rotate(long)} this doesn't wait for the transactions up to
+     * the given one to be applied, since the checkpoint records which transactions it includes, so that
+     * the others are applied when they are recovered.
+     */
+    @Override
+    public long rotate( long txId )
+    {
+        if ( !readOnly && !needsInitialization() )
+        {
+            checkpoint( IOLimiter.UNLIMITED );
+        }
+        return checkpointedTxId;
+    }
+
+    @Override
+    public Iterable<File> allFiles()
+    {
+        return fs.fileExists( file ) ? Collections.singletonList( file ) : Collections.emptyList();
+    }
+
+    /**
+     * Merges the changes applied since the last checkpoint into the tree, and checkpoints the tree together with the
+     * ids of the transactions that have been applied.
+     */
+    public void checkpoint( IOLimiter ioLimiter )
+    {
+        synchronized ( checkpointLock )
+        {
+            Map<CountsTreeKey,Change> toMerge;
+            AppliedTransactions applied;
+            changesLock.writeLock().lock();
+            try
+            {
+                toMerge = changes;
+                applied = appliedTransactions.snapshot();
+                merging = toMerge;
+                changes = new ConcurrentHashMap<>();
+            }
+            finally
+            {
+                changesLock.writeLock().unlock();
+            }
+
+            try
+            {
+                try ( Writer<CountsTreeKey,CountsTreeValue> writer = tree.writer() )
+                {
+                    CountsTreeValue value = new CountsTreeValue();
+                    for ( Map.Entry<CountsTreeKey,Change> entry : toMerge.entrySet() )
+                    {
+                        Change change = entry.getValue();
+                        synchronized ( change )
+                        {
+                            read( entry.getKey(), value );
+                            change.applyTo( value );
+                            if ( value.first == 0 && value.second == 0 )
+                            {
+                                writer.remove( entry.getKey() );
+                            }
+                            else
+                            {
+                                writer.put( entry.getKey(), value );
+                            }
+                            change.merged = true;
+                        }
+                    }
+                }
+                tree.checkpoint( ioLimiter, applied::write );
+                checkpointedTxId = applied.highestGapFree;
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+            finally
+            {
+                merging = Collections.emptyMap();
+            }
+        }
+    }
+
+    @Override
+    public Register.DoubleLongRegister nodeCount( int labelId, Register.DoubleLongRegister target )
+    {
+        return get( nodeKey( labelId ), target );
+    }
+
+    @Override
+    public Register.DoubleLongRegister relationshipCount( int startLabelId, int typeId, int endLabelId,
+            Register.DoubleLongRegister target )
+    {
+        return get( relationshipKey( startLabelId, typeId, endLabelId ), target );
+    }
+
+    @Override
+    public Register.DoubleLongRegister indexUpdatesAndSize( long indexId, Register.DoubleLongRegister target )
+    {
+        return get( indexStatisticsKey( indexId ), target );
+    }
+
+    @Override
+    public Register.DoubleLongRegister indexSample( long indexId, Register.DoubleLongRegister target )
+    {
+        return get( indexSampleKey( indexId ), target );
+    }
+
+    private Register.DoubleLongRegister get( CountsTreeKey key, Register.DoubleLongRegister target )
+    {
+        CountsTreeValue value = new CountsTreeValue();
+        Change pending;
+        Change current;
+        changesLock.readLock().lock();
+        try
+        {
+            pending = merging.get( key );
+            current = changes.get( key );
+        }
+        finally
+        {
+            changesLock.readLock().unlock();
+        }
+        readMerged( key, pending, value );
+        if ( current != null )
+        {
+            synchronized ( current )
+            {
+                current.applyTo( value );
+            }
+        }
+        target.write( value.first, value.second );
+        return target;
+    }
+
+    /**
+     * Reads the value of the given key in the tree, including the given changes of an ongoing checkpoint, unless
+     * they have already been merged into the tree.
+     */
+    private void readMerged( CountsTreeKey key, Change pending, CountsTreeValue into )
+    {
+        if ( pending == null )
+        {
+            read( key, into );
+            return;
+        }
+        synchronized ( pending )
+        {
+            read( key, into );
+            if ( !pending.merged )
+            {
+                pending.applyTo( into );
+            }
+        }
+    }
+
+    private void read( CountsTreeKey key, CountsTreeValue into )
+    {
+        try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> seek = tree.seek( key, key ) )
+        {
+            if ( seek.next() )
+            {
+                into.first = seek.get().value().first;
+                into.second = seek.get().value().second;
+            }
+            else
+            {
+                into.first = 0;
+                into.second = 0;
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public void accept( CountsVisitor visitor )
+    {
+        // No checkpoint can merge into the tree while visiting it
+        synchronized ( checkpointLock )
+        {
+            Map<CountsTreeKey,Change> currentChanges = changes;
+            Set<CountsTreeKey> visited = new HashSet<>();
+            CountsTreeLayout layout = new CountsTreeLayout();
+            CountsTreeValue value = new CountsTreeValue();
+            try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> seek =
+                    tree.seek( CountsTreeKey.lowest(), CountsTreeKey.highest() ) )
+            {
+                while ( seek.next() )
+                {
+                    CountsTreeKey key = layout.copyKey( seek.get().key(), new CountsTreeKey() );
+                    value.first = seek.get().value().first;
+                    value.second = seek.get().value().second;
+                    Change change = currentChanges.get( key );
+                    if ( change != null )
+                    {
+                        synchronized ( change )
+                        {
+                            change.applyTo( value );
+                        }
+                        visited.add( key );
+                    }
+                    visit( visitor, key, value );
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( e );
+            }
+
+            for ( Map.Entry<CountsTreeKey,Change> entry : currentChanges.entrySet() )
+            {
+                if ( !visited.contains( entry.getKey() ) )
+                {
+                    value.first = 0;
+                    value.second = 0;
+                    synchronized ( entry.getValue() )
+                    {
+                        entry.getValue().applyTo( value );
+                    }
+                    visit( visitor, entry.getKey(), value );
+                }
+            }
+        }
+    }
+
+    private static void visit( CountsVisitor visitor, CountsTreeKey key, CountsTreeValue value )
+    {
+        if ( value.first != 0 || value.second != 0 )
+        {
+            key.accept( visitor, value.first, value.second );
+        }
+    }
+
+    /**
+     * Closes the tree without checkpointing it, changes since the last {@link #checkpoint(IOLimiter) checkpoint} are
+     * recovered from the transaction log.
+     */
+    @Override
+    public void shutdown() throws IOException
+    {
+        if ( tree != null )
+        {
+            tree.close();
+            tree = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        shutdown();
+    }
+
+    private Change change( CountsTreeKey key )
+    {
+        return changes.computeIfAbsent( key, k -> new Change() );
+    }
+
+    /**
+     * The changes of a key since the last checkpoint, either deltas to add to the value in the tree, or a value that
+     * replaces it with deltas added to that. Guarded by itself.
+     */
+    private static final class Change
+    {
+        private boolean replace;
+        private long first;
+        private long second;
+        private boolean merged;
+
+        void applyTo( CountsTreeValue value )
+        {
+            value.first = replace ? first : value.first + first;
+            value.second = replace ? second : value.second + second;
+        }
+    }
+
+    /**
+     * Applies the changes of a transaction, or index statistics, which are not applied through transactions. Holds
+     * the read lock of the changes while open, so that a checkpoint includes either all or none of the changes of a
+     * transaction.
+     */
+    private class ChangesUpdater implements CountsAccessor.Updater, CountsAccessor.IndexStatsUpdater
+    {
+        private final long txId;
+
+        ChangesUpdater( long txId )
+        {
+            this.txId = txId;
+            changesLock.readLock().lock();
+        }
+
+        @Override
+        public void incrementNodeCount( long labelId, long delta )
+        {
+            increment( nodeKey( labelId ), 0, delta );
+        }
+
+        @Override
+        public void incrementRelationshipCount( long startLabelId, int typeId, long endLabelId, long delta )
+        {
+            increment( relationshipKey( startLabelId, typeId, endLabelId ), 0, delta );
+        }
+
+        @Override
+        public void incrementIndexUpdates( long indexId, long delta )
+        {
+            increment( indexStatisticsKey( indexId ), delta, 0 );
+        }
+
+        @Override
+        public void replaceIndexUpdateAndSize( long indexId, long updates, long size )
+        {
+            replace( indexStatisticsKey( indexId ), updates, size );
+        }
+
+        @Override
+        public void replaceIndexSample( long indexId, long unique, long size )
+        {
+            replace( indexSampleKey( indexId ), unique, size );
+        }
+
+        private void increment( CountsTreeKey key, long firstDelta, long secondDelta )
+        {
+            Change change = change( key );
+            synchronized ( change )
+            {
+                change.first += firstDelta;
+                change.second += secondDelta;
+            }
+        }
+
+        private void replace( CountsTreeKey key, long first, long second )
+        {
+            Change change = change( key );
+            synchronized ( change )
+            {
+                change.replace = true;
+                change.first = first;
+                change.second = second;
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            try
+            {
+                if ( txId != 0 )
+                {
+                    appliedTransactions.add( txId );
+                }
+            }
+            finally
+            {
+                changesLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The ids of the transactions that have been applied, as the highest id below which all transactions have been
+     * applied, and the applied ids above it. Written to, and read from, the header of the tree.
+     */
+    private static final class AppliedTransactions
+    {
+        private long highestGapFree;
+        private final LongHashSet above = new LongHashSet();
+
+        AppliedTransactions( long highestGapFree, long[] above )
+        {
+            this.highestGapFree = highestGapFree;
+            this.above.addAll( above );
+        }
+
+        synchronized boolean contains( long txId )
+        {
+            return txId <= highestGapFree || above.contains( txId );
+        }
+
+        synchronized long highestGapFree()
+        {
+            return highestGapFree;
+        }
+
+        synchronized void add( long txId )
+        {
+            if ( txId == highestGapFree + 1 )
+            {
+                highestGapFree++;
+                while ( above.remove( highestGapFree + 1 ) )
+                {
+                    highestGapFree++;
+                }
+            }
+            else if ( txId > highestGapFree )
+            {
+                above.add( txId );
+            }
+        }
+
+        synchronized AppliedTransactions snapshot()
+        {
+            return new AppliedTransactions( highestGapFree, above.toSortedArray() );
+        }
+
+        void write( PageCursor cursor )
+        {
+            cursor.putLong( highestGapFree );
+            cursor.putInt( above.size() );
+            above.forEach( cursor::putLong );
+        }
+
+        static void writeUninitialized( PageCursor cursor )
+        {
+            cursor.putLong( NEEDS_INITIALIZATION );
+            cursor.putInt( 0 );
+        }
+
+        static final class Reader implements Header.Reader
+        {
+            private AppliedTransactions applied;
+
+            @Override
+            public void read( ByteBuffer headerBytes )
+            {
+                long highestGapFree = headerBytes.getLong();
+                long[] above = new long[headerBytes.getInt()];
+                for ( int i = 0; i < above.length; i++ )
+                {
+                    above[i] = headerBytes.getLong();
+                }
+                applied = new AppliedTransactions( highestGapFree, above );
+            }
+        }
+    }
+}
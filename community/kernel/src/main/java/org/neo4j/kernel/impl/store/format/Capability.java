@@ -62,6 +62,11 @@ public enum Capability
      */
     TEMPORAL_PROPERTIES( true, CapabilityType.STORE ),
 
+    /**
+     * Large string and array property values can be compressed, which is an addition to the format, not a change
+     */
+    COMPRESSED_PROPERTY_VALUES( true, CapabilityType.STORE ),
+
     /**
      * Records can spill over into secondary units (another record with a header saying it's a secondary unit to another record).
      */
@@ -38,6 +38,7 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.store.MetaDataStore;
 import org.neo4j.kernel.impl.store.format.standard.MetaDataRecordFormat;
 import org.neo4j.kernel.impl.store.format.standard.Standard;
+import org.neo4j.kernel.impl.store.format.standard.StandardCompressedV3_5;
 import org.neo4j.kernel.impl.store.format.standard.StandardV2_3;
 import org.neo4j.kernel.impl.store.format.standard.StandardV3_0;
 import org.neo4j.kernel.impl.store.format.standard.StandardV3_2;
@@ -64,7 +65,8 @@ public class RecordFormatSelector
             StandardV2_3.RECORD_FORMATS,
             StandardV3_0.RECORD_FORMATS,
             StandardV3_2.RECORD_FORMATS,
-            StandardV3_4.RECORD_FORMATS
+            StandardV3_4.RECORD_FORMATS,
+            StandardCompressedV3_5.RECORD_FORMATS
     );
 
     private RecordFormatSelector()
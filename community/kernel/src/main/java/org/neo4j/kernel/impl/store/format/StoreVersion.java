@@ -28,6 +28,7 @@ public enum StoreVersion
     STANDARD_V3_0( "v0.A.7", "3.0.0" ),
     STANDARD_V3_2( "v0.A.8", "3.2.0" ),
     STANDARD_V3_4( "v0.A.9", "3.4.0" ),
+    STANDARD_COMPRESSED_V3_5( "v0.A.9c", "3.5.10" ),
 
     HIGH_LIMIT_V3_0_0( "vE.H.0", "3.0.0" ),
     HIGH_LIMIT_V3_0_6( "vE.H.0b", "3.0.6" ),
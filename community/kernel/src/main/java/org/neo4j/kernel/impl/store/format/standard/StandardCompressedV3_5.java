@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.format.standard;
+
+import org.neo4j.kernel.impl.store.DynamicValueCompression;
+import org.neo4j.kernel.impl.store.format.Capability;
+import org.neo4j.kernel.impl.store.format.FormatFamily;
+import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.format.StoreVersion;
+
+/**
+ * The {@link StandardV3_4} format, where large string and array property values are compressed before they are
+ * stored in the dynamic string and array stores, see {@link DynamicValueCompression}. The records themselves are the
+ * same, so when a {@link StandardV3_4} store is upgraded to this format its property stores are kept as they are. The
+ * store version and the {@link StandardCompressedFormatFamily format family} are different, so that versions of Neo4j
+ * that can't decompress the values refuse to open the store, and the standard format is never used to open it.
+ */
+public class StandardCompressedV3_5 extends StandardV3_4
+{
+    public static final String STORE_VERSION = StoreVersion.STANDARD_COMPRESSED_V3_5.versionString();
+    public static final RecordFormats RECORD_FORMATS = new StandardCompressedV3_5();
+    public static final String NAME = "standard_compressed";
+
+    public StandardCompressedV3_5()
+    {
+        super( STORE_VERSION, StoreVersion.STANDARD_COMPRESSED_V3_5.introductionVersion(), 9, Capability.SCHEMA,
+                Capability.DENSE_NODES, Capability.LUCENE_5, Capability.POINT_PROPERTIES, Capability.TEMPORAL_PROPERTIES,
+                Capability.COMPRESSED_PROPERTY_VALUES );
+    }
+
+    @Override
+    public String name()
+    {
+        return NAME;
+    }
+
+    @Override
+    public FormatFamily getFormatFamily()
+    {
+        return StandardCompressedFormatFamily.INSTANCE;
+    }
+}
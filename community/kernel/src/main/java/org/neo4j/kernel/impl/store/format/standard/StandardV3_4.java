@@ -42,10 +42,15 @@ public class StandardV3_4 extends BaseRecordFormats
 
     public StandardV3_4()
     {
-        super( STORE_VERSION, StoreVersion.STANDARD_V3_4.introductionVersion(), 8, Capability.SCHEMA,
+        this( STORE_VERSION, StoreVersion.STANDARD_V3_4.introductionVersion(), 8, Capability.SCHEMA,
                 Capability.DENSE_NODES, Capability.LUCENE_5, Capability.POINT_PROPERTIES, Capability.TEMPORAL_PROPERTIES );
     }
 
+    StandardV3_4( String storeVersion, String introductionVersion, int generation, Capability... capabilities )
+    {
+        super( storeVersion, introductionVersion, generation, capabilities );
+    }
+
     @Override
     public RecordFormat<NodeRecord> node()
     {
@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.eclipse.collections.api.LongIterable;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.store.id.validation.IdValidator;
+
+/**
+ * An {@link IdGenerator} that, unlike {@link IdGeneratorImpl}, has no monitor that every call has to go through, and
+ * whose free ids survive an unclean shutdown.
+ * <p>
+ * New ids are taken from the high id with a single atomic increment. Free ids are kept in a pool, but threads don't
+ * take them from the pool one by one. Each thread is assigned one of a number of stripes, and each stripe takes a
+ * batch of free ids at a time from the pool, so that threads that create a lot of records only meet on the pool
+ * monitor once per batch.
+ * <p>
+ * All free ids are kept in memory. Every id that is freed, and every batch of free ids that a stripe takes, is written
+ * to a {@link FreeIdJournal}. If the generator is not closed it is rebuilt after recovery, as any other id
+ * generator, but the free ids are then recovered from the journal instead of being lost. Free ids that were cached in
+ * a stripe at the time are lost.
+ */
+public class ConcurrentIdGenerator implements IdGenerator
+{
+    private static final int MAX_CACHED_IDS_PER_STRIPE = 1024;
+    private static final long MIN_ENTRIES_TO_COMPACT = 1_000_000;
+
+    private final File file;
+    private final IdType idType;
+    private final long max;
+    private final boolean aggressiveReuse;
+    private final AtomicLong highId;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final FreeIdJournal journal;
+    // Free ids that can be handed out, guarded by the journal
+    private final LongArrayList reusableIds = new LongArrayList();
+    // Free ids that can not be handed out until the next session, guarded by the journal
+    private final LongArrayList freedIds = new LongArrayList();
+    private volatile boolean hasReusableIds;
+    private volatile boolean closed;
+
+    /**
+     * Opens the id generator of the given file, which is created if it does not exist.
+     *
+     * @param grabSize the maximum number of free ids that a stripe takes from the pool at a time.
+     * @param max is the highest possible id to be returned by this id generator.
+     * @param aggressiveReuse will reuse ids during the same session, not requiring a restart to be able reuse ids
+     * freed with {@link #freeId(long)}.
+     * @param highId A supplier for the high id to be used if the id file does not exist.
+     * @throws InvalidIdGeneratorException if the id file was not closed cleanly.
+     */
+    public ConcurrentIdGenerator( FileSystemAbstraction fs, File file, int grabSize, long max, boolean aggressiveReuse,
+            IdType idType, LongSupplier highId )
+    {
+        if ( grabSize < 1 )
+        {
+            throw new IllegalArgumentException( "Illegal grabSize: " + grabSize );
+        }
+        this.file = file;
+        this.idType = idType;
+        this.max = max;
+        this.aggressiveReuse = aggressiveReuse;
+
+        int stripeCount = Integer.highestOneBit( Runtime.getRuntime().availableProcessors() ) << 1;
+        this.stripes = new Stripe[stripeCount];
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            stripes[i] = new Stripe( Math.min( grabSize, MAX_CACHED_IDS_PER_STRIPE ) );
+        }
+        this.stripeMask = stripeCount - 1;
+
+        boolean existed = fs.fileExists( file );
+        if ( !existed )
+        {
+            FreeIdJournal.create( fs, file, 0, false );
+        }
+        try
+        {
+            this.journal = new FreeIdJournal( fs, file, reusableIds );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to open id file " + file, e );
+        }
+        this.highId = new AtomicLong( existed ? journal.initialHighId() : highId.getAsLong() );
+        this.hasReusableIds = !reusableIds.isEmpty();
+    }
+
+    @Override
+    public long nextId()
+    {
+        assertStillOpen();
+        Stripe stripe = stripe();
+        if ( hasReusableIds || stripe.count > 0 )
+        {
+            synchronized ( stripe )
+            {
+                if ( stripe.count == 0 && hasReusableIds )
+                {
+                    stripe.count = takeReusableIds( stripe.ids, stripe.ids.length );
+                }
+                if ( stripe.count > 0 )
+                {
+                    return stripe.ids[--stripe.count];
+                }
+            }
+        }
+
+        long id = highId.getAndIncrement();
+        if ( IdValidator.isReservedId( id ) )
+        {
+            id = highId.getAndIncrement();
+        }
+        IdValidator.assertValidId( idType, id, max );
+        return id;
+    }
+
+    @Override
+    public IdRange nextIdBatch( int size )
+    {
+        assertStillOpen();
+        long[] reusable = new long[size];
+        int reused = hasReusableIds ? takeReusableIds( reusable, size ) : 0;
+        int sizeLeftForRange = size - reused;
+        long start = highId.getAndAdd( sizeLeftForRange );
+        IdValidator.assertIdWithinCapacity( idType, start + sizeLeftForRange, max );
+        return new IdRange( reused == size ? reusable : Arrays.copyOf( reusable, reused ), start, sizeLeftForRange );
+    }
+
+    /**
+     * Moves up to {@code count} reusable ids from the pool into {@code into}, and journals them as used before
+     * they are handed out.
+     *
+     * @return the number of ids that were moved.
+     */
+    private int takeReusableIds( long[] into, int count )
+    {
+        int taken = 0;
+        Flushable journaled = null;
+        try
+        {
+            synchronized ( journal )
+            {
+                while ( taken < count && !reusableIds.isEmpty() )
+                {
+                    long id = reusableIds.removeAtIndex( reusableIds.size() - 1 );
+                    journal.used( id );
+                    into[taken++] = id;
+                }
+                hasReusableIds = !reusableIds.isEmpty();
+                if ( taken > 0 )
+                {
+                    journaled = journal.flush();
+                }
+            }
+            // Force outside of the journal monitor, so that other threads can free ids and take reusable ids meanwhile
+            if ( journaled != null )
+            {
+                journaled.flush();
+            }
+            return taken;
+        }
+        catch ( IOException e )
+        {
+            // Neither hand out the ids nor put them back, since it's not known whether they were journaled
+            throw new UnderlyingStorageException( "Unable to write to id file " + file, e );
+        }
+    }
+
+    private Stripe stripe()
+    {
+        return stripes[(int) Thread.currentThread().getId() & stripeMask];
+    }
+
+    /**
+     * Sets the next free "high" id. This method should be called when an id generator has been rebuilt.
+     * {@code id} must not be higher than {@code max}.
+     *
+     * @param id The next free id returned from {@link #nextId()} if there are no existing free ids.
+     */
+    @Override
+    public void setHighId( long id )
+    {
+        IdValidator.assertIdWithinCapacity( idType, id, max );
+        highId.set( id );
+    }
+
+    @Override
+    public long getHighId()
+    {
+        return highId.get();
+    }
+
+    @Override
+    public long getHighestPossibleIdInUse()
+    {
+        return highId.get() - 1;
+    }
+
+    /**
+     * Frees the {@code id}, which is journaled right away. The id is handed out again in this session only if this
+     * generator reuses ids aggressively, otherwise only after it has been closed and opened again.
+     */
+    @Override
+    public void freeId( long id )
+    {
+        assertStillOpen();
+        if ( IdValidator.isReservedId( id ) )
+        {
+            return;
+        }
+        long currentHighId = highId.get();
+        if ( id < 0 || id >= currentHighId )
+        {
+            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + currentHighId );
+        }
+
+        synchronized ( journal )
+        {
+            try
+            {
+                journal.freed( id );
+                if ( aggressiveReuse )
+                {
+                    reusableIds.add( id );
+                    hasReusableIds = true;
+                }
+                else
+                {
+                    freedIds.add( id );
+                }
+                long freeIds = reusableIds.size() + freedIds.size();
+                if ( journal.entries() > Math.max( MIN_ENTRIES_TO_COMPACT, freeIds * 2 ) )
+                {
+                    journal.compact( allFreeIds( false ) );
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( "Unable to write to id file " + file, e );
+            }
+        }
+    }
+
+    /**
+     * Closes the id generator, writing all free ids, including the ones cached in stripes, to the id file and
+     * marking it as clean.
+     */
+    @Override
+    public void close()
+    {
+        if ( closed )
+        {
+            return;
+        }
+        closed = true;
+        synchronized ( journal )
+        {
+            try
+            {
+                journal.close( highId.get(), allFreeIds( true ) );
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( "Unable to close id file " + file, e );
+            }
+        }
+    }
+
+    /**
+     * @param includeCachedIds whether to include the free ids cached in stripes, which the journal regards as used.
+     * @return all free ids, sorted and without duplicates, which there may be if ids have been freed more than once,
+     * as when the id generator is rebuilt.
+     */
+    private LongIterable allFreeIds( boolean includeCachedIds )
+    {
+        LongHashSet ids = new LongHashSet( reusableIds.size() + freedIds.size() );
+        ids.addAll( reusableIds );
+        ids.addAll( freedIds );
+        if ( includeCachedIds )
+        {
+            for ( Stripe stripe : stripes )
+            {
+                synchronized ( stripe )
+                {
+                    for ( int i = 0; i < stripe.count; i++ )
+                    {
+                        ids.add( stripe.ids[i] );
+                    }
+                    stripe.count = 0;
+                }
+            }
+        }
+        return ids.toSortedList();
+    }
+
+    @Override
+    public long getNumberOfIdsInUse()
+    {
+        return highId.get() - getDefragCount();
+    }
+
+    @Override
+    public long getDefragCount()
+    {
+        long count = 0;
+        for ( Stripe stripe : stripes )
+        {
+            synchronized ( stripe )
+            {
+                count += stripe.count;
+            }
+        }
+        synchronized ( journal )
+        {
+            return count + reusableIds.size() + freedIds.size();
+        }
+    }
+
+    @Override
+    public void delete()
+    {
+        closed = true;
+        synchronized ( journal )
+        {
+            try
+            {
+                journal.delete();
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( "Unable to delete id file " + file, e );
+            }
+        }
+    }
+
+    private void assertStillOpen()
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( "Closed id file " + file );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConcurrentIdGenerator[file=" + file + ", highId=" + highId + ", max=" + max + ", aggressiveReuse=" +
+               aggressiveReuse + ", closed=" + closed + "]";
+    }
+
+    /**
+     * Free ids taken from the pool by the threads assigned to this stripe. Guarded by the stripe itself, except that
+     * {@link #count} may be read without it, to see if there is any point in taking the monitor.
+     */
+    private static final class Stripe
+    {
+        private final long[] ids;
+        private volatile int count;
+
+        Stripe( int size )
+        {
+            this.ids = new long[size];
+        }
+    }
+}
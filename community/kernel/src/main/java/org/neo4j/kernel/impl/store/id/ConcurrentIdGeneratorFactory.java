@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.util.function.LongSupplier;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfigurationProvider;
+
+/**
+ * Creates {@link ConcurrentIdGenerator concurrent id generators}. Cleanly closed id files are interchangeable with
+ * the ones of {@link DefaultIdGeneratorFactory}.
+ */
+public class ConcurrentIdGeneratorFactory extends DefaultIdGeneratorFactory
+{
+    private final FileSystemAbstraction fs;
+
+    public ConcurrentIdGeneratorFactory( FileSystemAbstraction fs )
+    {
+        super( fs );
+        this.fs = fs;
+    }
+
+    public ConcurrentIdGeneratorFactory( FileSystemAbstraction fs,
+            IdTypeConfigurationProvider idTypeConfigurationProvider )
+    {
+        super( fs, idTypeConfigurationProvider );
+        this.fs = fs;
+    }
+
+    @Override
+    protected IdGenerator instantiate( FileSystemAbstraction fs, File fileName, int grabSize, long maxValue,
+            boolean aggressiveReuse, IdType idType, LongSupplier highId )
+    {
+        return new ConcurrentIdGenerator( fs, fileName, grabSize, maxValue, aggressiveReuse, idType, highId );
+    }
+
+    /**
+     * Creates a new id file. If there is a file that was left behind by a concurrent id generator that was not
+     * closed cleanly, as when an id generator is rebuilt after recovery, its free ids are kept.
+     */
+    @Override
+    public void create( File fileName, long highId, boolean throwIfFileExists )
+    {
+        FreeIdJournal.create( fs, fileName, highId, throwIfFileExists );
+    }
+}
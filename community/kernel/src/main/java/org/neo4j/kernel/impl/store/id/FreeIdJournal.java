@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.eclipse.collections.api.LongIterable;
+import org.eclipse.collections.api.iterator.LongIterator;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The id file of a {@link ConcurrentIdGenerator}. A cleanly closed file has the same layout as the files of
+ * {@link IdContainer}: a status byte and the high id, followed by the free ids. While the generator is open the file
+ * is instead a journal, where every id that is freed, and every free id that is handed out again, is appended as an
+ * entry. Replaying the journal gives the free ids as of the last written entry, which is what makes the free ids
+ * survive an unclean shutdown, see {@link #create(FileSystemAbstraction, File, long, boolean)}.
+ * <p>
+ * A freed id is stored as {@code id + 1} and a handed out id as {@code -(id + 1)}, so that a zero, which is what a
+ * file that was extended but never written to contains, ends the journal. Free ids must be handed out only after
+ * {@link #flush() forcing} the entries that say so, otherwise the journal could claim that an id in use is
+ * free. Losing freed ids is harmless, it only means they will not be reused.
+ * <p>
+ * The file is only ever replaced as a whole, by writing a temporary file and moving it over the old one, so a crash
+ * while compacting or closing leaves either the old journal or the new file.
+ * <p>
+ * This class is <b>not thread-safe</b> and synchronization need to be handled by the caller.
+ */
+class FreeIdJournal
+{
+    // header format: status(byte), highId(long), same as IdContainer
+    static final int HEADER_SIZE = Byte.BYTES + Long.BYTES;
+
+    private static final byte CLEAN = (byte) 0;
+    private static final byte JOURNAL = (byte) 2;
+    private static final int BUFFERED_ENTRIES = 1024;
+
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final ByteBuffer buffer = ByteBuffer.allocate( BUFFERED_ENTRIES * Long.BYTES );
+    private final long initialHighId;
+    private StoreChannel channel;
+    private long entries;
+
+    /**
+     * Opens the id file, which must have been cleanly closed, reads its free ids into {@code freeIds} and turns it
+     * into a journal.
+     *
+     * @throws InvalidIdGeneratorException if the file was not closed cleanly.
+     */
+    FreeIdJournal( FileSystemAbstraction fs, File file, LongArrayList freeIds ) throws IOException
+    {
+        this.fs = fs;
+        this.file = file;
+        try ( StoreChannel channel = fs.open( file, OpenMode.READ ) )
+        {
+            ByteBuffer header = readHeader( channel, file );
+            if ( header.get() != CLEAN )
+            {
+                throw new InvalidIdGeneratorException( "Id file not properly shutdown [ " + file +
+                        " ], free ids will be recovered when the id generator is rebuilt" );
+            }
+            initialHighId = header.getLong();
+            readEntries( channel, false, freeIds, null );
+        }
+        compact( freeIds );
+    }
+
+    long initialHighId()
+    {
+        return initialHighId;
+    }
+
+    /**
+     * @return the number of entries in the journal, which is what it needs to be compacted at some point.
+     */
+    long entries()
+    {
+        return entries;
+    }
+
+    void freed( long id ) throws IOException
+    {
+        append( id + 1 );
+    }
+
+    void used( long id ) throws IOException
+    {
+        append( -(id + 1) );
+    }
+
+    private void append( long entry ) throws IOException
+    {
+        if ( !buffer.hasRemaining() )
+        {
+            write();
+        }
+        buffer.putLong( entry );
+        entries++;
+    }
+
+    /**
+     * Writes the buffered entries to the file, without forcing it.
+     *
+     * @return forces the entries written so far, which must be done before handing out ids that have been journaled
+     * as used. It doesn't need the synchronization of the caller, so that the force doesn't hold up other threads.
+     */
+    Flushable flush() throws IOException
+    {
+        write();
+        StoreChannel written = channel;
+        return () ->
+        {
+            try
+            {
+                written.force( false );
+            }
+            catch ( ClosedChannelException ignored )
+            {
+                // The journal has been replaced since, by a file that was forced before it replaced this one.
+            }
+        };
+    }
+
+    private void write() throws IOException
+    {
+        if ( buffer.position() > 0 )
+        {
+            buffer.flip();
+            channel.writeAll( buffer );
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Replaces the journal with one that only frees the given ids, which must be all the free ids.
+     */
+    void compact( LongIterable freeIds ) throws IOException
+    {
+        buffer.clear();
+        closeChannel();
+        writeFile( fs, file, JOURNAL, 0, freeIds );
+        channel = fs.open( file, OpenMode.READ_WRITE );
+        channel.position( channel.size() );
+        entries = freeIds.size();
+    }
+
+    /**
+     * Replaces the journal with a cleanly closed file, with the given high id and free ids.
+     */
+    void close( long highId, LongIterable freeIds ) throws IOException
+    {
+        buffer.clear();
+        closeChannel();
+        writeFile( fs, file, CLEAN, highId, freeIds );
+    }
+
+    /**
+     * Deletes the file without closing it cleanly, so that a crash in the middle leaves a file that must be rebuilt.
+     */
+    void delete() throws IOException
+    {
+        closeChannel();
+        if ( !fs.deleteFile( file ) )
+        {
+            throw new UnderlyingStorageException( "Unable to delete id file " + file );
+        }
+    }
+
+    private void closeChannel() throws IOException
+    {
+        if ( channel != null )
+        {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Creates a cleanly closed id file. If the file exists and is the journal of a generator that was not closed
+     * cleanly, the free ids in the journal that are at least {@code highId} are kept, and the high id of the new file
+     * is above all of them. Otherwise the new file has no free ids.
+     *
+     * @param throwIfFileExists if {@code true} will cause an {@link IllegalStateException} to be thrown if
+     * the file already exists.
+     */
+    static void create( FileSystemAbstraction fs, File file, long highId, boolean throwIfFileExists )
+    {
+        if ( throwIfFileExists && fs.fileExists( file ) )
+        {
+            throw new IllegalStateException( "Can't create id file [" + file + "], file already exists" );
+        }
+        try
+        {
+            LongArrayList freeIds = new LongArrayList();
+            long newHighId = highId;
+            for ( LongIterator ids = recoverFreeIds( fs, file ).longIterator(); ids.hasNext(); )
+            {
+                long id = ids.next();
+                if ( id >= highId )
+                {
+                    freeIds.add( id );
+                    newHighId = Math.max( newHighId, id + 1 );
+                }
+            }
+            writeFile( fs, file, CLEAN, newHighId, freeIds.sortThis() );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to create id file " + file, e );
+        }
+    }
+
+    private static LongHashSet recoverFreeIds( FileSystemAbstraction fs, File file ) throws IOException
+    {
+        LongHashSet freeIds = new LongHashSet();
+        if ( fs.fileExists( file ) && fs.getFileSize( file ) >= HEADER_SIZE )
+        {
+            try ( StoreChannel channel = fs.open( file, OpenMode.READ ) )
+            {
+                if ( readHeader( channel, file ).get() == JOURNAL )
+                {
+                    readEntries( channel, true, null, freeIds );
+                }
+            }
+        }
+        return freeIds;
+    }
+
+    private static ByteBuffer readHeader( StoreChannel channel, File file ) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+        try
+        {
+            channel.readAll( header );
+        }
+        catch ( IllegalStateException e )
+        {
+            throw new InvalidIdGeneratorException( "Unable to read header of id file " + file );
+        }
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Reads the entries after the header, either plain free ids into {@code freeIds}, or journal entries that are
+     * replayed onto {@code journaledFreeIds}. A trailing partial entry is ignored.
+     */
+    private static void readEntries( StoreChannel channel, boolean journal, LongArrayList freeIds,
+            LongHashSet journaledFreeIds ) throws IOException
+    {
+        ByteBuffer readBuffer = ByteBuffer.allocate( BUFFERED_ENTRIES * Long.BYTES );
+        while ( channel.read( readBuffer ) != -1 )
+        {
+            readBuffer.flip();
+            while ( readBuffer.remaining() >= Long.BYTES )
+            {
+                long entry = readBuffer.getLong();
+                if ( !journal )
+                {
+                    freeIds.add( entry );
+                }
+                else if ( entry > 0 )
+                {
+                    journaledFreeIds.add( entry - 1 );
+                }
+                else if ( entry < 0 )
+                {
+                    journaledFreeIds.remove( -entry - 1 );
+                }
+                else
+                {
+                    return;
+                }
+            }
+            readBuffer.compact();
+        }
+    }
+
+    private static void writeFile( FileSystemAbstraction fs, File file, byte status, long highId, LongIterable ids )
+            throws IOException
+    {
+        File tempFile = new File( file.getPath() + ".tmp" );
+        try ( StoreChannel channel = fs.create( tempFile ) )
+        {
+            channel.truncate( 0 );
+            ByteBuffer writeBuffer = ByteBuffer.allocate( BUFFERED_ENTRIES * Long.BYTES );
+            writeBuffer.put( status ).putLong( highId );
+            for ( LongIterator iterator = ids.longIterator(); iterator.hasNext(); )
+            {
+                if ( writeBuffer.remaining() < Long.BYTES )
+                {
+                    writeBuffer.flip();
+                    channel.writeAll( writeBuffer );
+                    writeBuffer.clear();
+                }
+                long id = iterator.next();
+                writeBuffer.putLong( status == JOURNAL ? id + 1 : id );
+            }
+            writeBuffer.flip();
+            channel.writeAll( writeBuffer );
+            channel.force( false );
+        }
+        fs.renameFile( tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING );
+    }
+}
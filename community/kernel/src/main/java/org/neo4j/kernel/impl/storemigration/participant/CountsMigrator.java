@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.storemigration.participant;
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseFile;
@@ -38,7 +39,9 @@ import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.StoreFailureException;
 import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.GBPTreeCountsStore;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.format.StoreVersion;
 import org.neo4j.kernel.impl.store.format.standard.StandardV2_3;
@@ -72,7 +75,7 @@ import static org.neo4j.kernel.impl.storemigration.participant.StoreMigratorFile
 public class CountsMigrator extends AbstractStoreMigrationParticipant
 {
     private static final Iterable<DatabaseFile> COUNTS_STORE_FILES = Iterables
-            .iterable( DatabaseFile.COUNTS_STORE_A, DatabaseFile.COUNTS_STORE_B );
+            .iterable( DatabaseFile.COUNTS_STORE_A, DatabaseFile.COUNTS_STORE_B, DatabaseFile.COUNTS_STORE_TREE );
 
     private final Config config;
     private final FileSystemAbstraction fileSystem;
@@ -173,8 +176,11 @@ public class CountsMigrator extends AbstractStoreMigrationParticipant
                 int highRelationshipTypeId = (int) neoStores.getRelationshipTypeTokenStore().getHighId();
                 CountsComputer initializer = new CountsComputer( lastTxId, nodeStore, relationshipStore, highLabelId, highRelationshipTypeId,
                         NumberArrayFactory.auto( pageCache, migrationStructure.databaseDirectory(), true, NumberArrayFactory.NO_MONITOR ), progressMonitor );
-                life.add( new CountsTracker( logProvider, fileSystem, pageCache, config,
-                        migrationStructure, EmptyVersionContextSupplier.EMPTY ).setInitializer( initializer ) );
+                CountsStore counts = config.get( GraphDatabaseSettings.counts_store_gbptree )
+                                     ? new GBPTreeCountsStore( pageCache, fileSystem, migrationStructure.countStoreTree(), false )
+                                     : new CountsTracker( logProvider, fileSystem, pageCache, config, migrationStructure,
+                                             EmptyVersionContextSupplier.EMPTY );
+                life.add( counts.setInitializer( initializer ) );
             }
         }
     }
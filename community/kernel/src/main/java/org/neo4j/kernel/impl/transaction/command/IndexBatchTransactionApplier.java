@@ -39,6 +39,7 @@ import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.record.ConstraintRule;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
 import org.neo4j.kernel.impl.transaction.state.IndexUpdates;
 import org.neo4j.kernel.impl.transaction.state.OnlineIndexUpdates;
@@ -48,31 +49,36 @@ import org.neo4j.storageengine.api.schema.StoreIndexDescriptor;
 import org.neo4j.util.concurrent.AsyncApply;
 import org.neo4j.util.concurrent.WorkSync;
 
+import static org.neo4j.collection.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
 import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
 
 /**
- * Gather node and property changes, converting them into logical updates to the indexes. {@link #close()} will actually
+ * Gather node, relationship and property changes, converting them into logical updates to the indexes. {@link #close()} will actually
  * apply the indexes.
  */
 public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapter
 {
     private final IndexingService indexingService;
     private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync;
+    private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> relationshipTypeScanStoreSync;
     private final WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync;
     private final SingleTransactionApplier transactionApplier;
     private final IndexActivator indexActivator;
     private final PropertyStore propertyStore;
 
     private List<NodeLabelUpdate> labelUpdates;
+    private List<NodeLabelUpdate> relationshipTypeUpdates;
     private IndexUpdates indexUpdates;
     private long txId;
 
     public IndexBatchTransactionApplier( IndexingService indexingService, WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync,
+            WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> relationshipTypeScanStoreSync,
             WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync, NodeStore nodeStore, RelationshipStore relationshipStore,
             PropertyStore propertyStore, IndexActivator indexActivator )
     {
         this.indexingService = indexingService;
         this.labelScanStoreSync = labelScanStoreSync;
+        this.relationshipTypeScanStoreSync = relationshipTypeScanStoreSync;
         this.indexUpdatesSync = indexUpdatesSync;
         this.propertyStore = propertyStore;
         this.transactionApplier = new SingleTransactionApplier( nodeStore, relationshipStore );
@@ -96,6 +102,13 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
             labelUpdatesApply = labelScanStoreSync.applyAsync( new LabelUpdateWork( labelUpdates ) );
             labelUpdates = null;
         }
+        AsyncApply relationshipTypeUpdatesApply = null;
+        if ( relationshipTypeUpdates != null )
+        {
+            // Same as for label updates, relationship commands are sorted by relationship id when extracting from TransactionRecordState
+            relationshipTypeUpdatesApply = relationshipTypeScanStoreSync.applyAsync( new LabelUpdateWork( relationshipTypeUpdates ) );
+            relationshipTypeUpdates = null;
+        }
         if ( indexUpdates != null && indexUpdates.hasUpdates() )
         {
             try
@@ -120,6 +133,17 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
                 throw new IOException( "Failed to flush label updates", e );
             }
         }
+        if ( relationshipTypeUpdatesApply != null )
+        {
+            try
+            {
+                relationshipTypeUpdatesApply.await();
+            }
+            catch ( ExecutionException e )
+            {
+                throw new IOException( "Failed to flush relationship type updates", e );
+            }
+        }
     }
 
     @Override
@@ -205,6 +229,20 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
         @Override
         public boolean visitRelationshipCommand( Command.RelationshipCommand command )
         {
+            // for relationship type store updates, the type of a relationship never changes so only creations and deletions matter
+            RelationshipRecord before = command.getBefore();
+            RelationshipRecord after = command.getAfter();
+            if ( before.inUse() != after.inUse() )
+            {
+                if ( relationshipTypeUpdates == null )
+                {
+                    relationshipTypeUpdates = new ArrayList<>();
+                }
+                long[] typesBefore = before.inUse() ? new long[]{before.getType()} : EMPTY_LONG_ARRAY;
+                long[] typesAfter = after.inUse() ? new long[]{after.getType()} : EMPTY_LONG_ARRAY;
+                relationshipTypeUpdates.add( NodeLabelUpdate.labelChanges( command.getKey(), typesBefore, typesAfter, txId ) );
+            }
+
             return indexUpdatesExtractor.visitRelationshipCommand( command );
         }
 
@@ -22,14 +22,19 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageWriteBarrier;
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompression;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
@@ -43,6 +48,12 @@ import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
 
 import static org.neo4j.kernel.impl.api.TransactionToApply.TRANSACTION_ID_NOT_SPECIFIED;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum;
@@ -50,8 +61,15 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
 /**
  * Concurrently appends transactions to the transaction log, while coordinating with the log rotation and forcing the
  * log file in batches for higher throughput in a concurrent scenario.
+ * <p>
+ * With asynchronous durability, committers don't wait for the log to be forced. They only write their transactions
+ * to the log file, and the log is forced by a background job at a fixed interval, or by the committer that makes the
+ * unforced part of the log exceed a threshold. The appender is then also the {@link PageWriteBarrier} of the page
+ * cache, so that the log is forced before any store page that may contain the changes of unforced transactions is
+ * written.
  */
-public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
+public class BatchingTransactionAppender extends LifecycleAdapter
+        implements TransactionAppender, LogForceWindow, PageWriteBarrier
 {
     // For the graph store and schema indexes order-of-updates are managed by the high level entity locks
     // such that changes are applied to the affected records in the same order that they are written to the
@@ -67,15 +85,65 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final LogEntryCompression compression;
+    private final ThreadLocal<List<TransactionLogBuffer>> serializationBuffers = ThreadLocal.withInitial( ArrayList::new );
+
+    private final JobScheduler scheduler;
+    private final PageCache pageCache;
+    private final Log log;
+    private final LogForceWindow.Monitor monitor;
+    private final boolean asyncDurability;
+    private final long asyncForceIntervalMillis;
+    private final long asyncForceThresholdBytes;
+
+    // The appended fields are updated under the logFile monitor, and the forced fields by the thread forcing the log.
+    private volatile long appendedBytes;
+    private volatile long lastAppendedTransactionId;
+    private volatile long forcedBytes;
+    private volatile long lastForcedTransactionId;
+    private volatile long lastForceNanos = System.nanoTime();
+    // What has been written to the log file with asynchronous durability, for the page write barrier to force.
+    private volatile WrittenLog writtenLog;
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
-    private IndexCommandDetector indexCommandDetector;
+    private JobHandle asyncForceJob;
 
     public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth )
     {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, null, null, 0, 0, null, NullLogProvider.getInstance(), LogForceWindow.Monitor.NO_MONITOR );
+    }
+
+    /**
+     * Create an appender with asynchronous durability, if a scheduler is given, and compression of the commands of
+     * transactions, if a compression is given.
+     *
+     * @param scheduler the scheduler of the background log force, or {@code null} for synchronous durability.
+     * @param pageCache the page cache of the store, which must not write pages before the log has been forced. Only
+     * needed for asynchronous durability.
+     * @param asyncForceIntervalMillis how often the background job forces the log.
+     * @param asyncForceThresholdBytes how much can be appended to the log before committers force it themselves.
+     * @param compression the compression of the commands of transactions, or {@code null} for no compression.
+     * @param logProvider for logging failures of the background log force.
+     * @param monitor told about every force of the log.
+     */
+    public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth, JobScheduler scheduler,
+            PageCache pageCache, long asyncForceIntervalMillis, long asyncForceThresholdBytes,
+            LogEntryCompression compression, LogProvider logProvider, LogForceWindow.Monitor monitor )
+    {
+        this.scheduler = scheduler;
+        this.pageCache = pageCache;
+        this.log = logProvider.getLog( getClass() );
+        this.monitor = monitor;
+        this.asyncDurability = scheduler != null;
+        this.asyncForceIntervalMillis = asyncForceIntervalMillis;
+        this.asyncForceThresholdBytes = asyncForceThresholdBytes;
+        this.compression = compression;
         this.logFile = logFiles.getLogFile();
         this.logRotation = logRotation;
         this.transactionIdStore = transactionIdStore;
@@ -88,25 +156,73 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     public void start()
     {
         this.writer = logFile.getWriter();
-        this.indexCommandDetector = new IndexCommandDetector();
         this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        this.lastAppendedTransactionId = transactionIdStore.getLastCommittedTransactionId();
+        this.lastForcedTransactionId = lastAppendedTransactionId;
+        if ( asyncDurability )
+        {
+            pageCache.setWriteBarrier( this );
+            asyncForceJob = scheduler.scheduleRecurring( Group.TRANSACTION_LOG_FORCE, this::forceInBackground,
+                    asyncForceIntervalMillis, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    @Override
+    public void stop() throws IOException
+    {
+        if ( asyncForceJob != null )
+        {
+            asyncForceJob.cancel( false );
+            asyncForceJob = null;
+        }
+        if ( asyncDurability )
+        {
+            // Force whatever is still unforced, since pages can be written without the barrier from now on.
+            if ( unforcedBytes() > 0 )
+            {
+                forceAfterAppend( LogAppendEvent.NULL );
+            }
+            pageCache.setWriteBarrier( PageWriteBarrier.NONE );
+        }
     }
 
     @Override
     public long append( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
     {
+        // Serialize the transactions before taking the logFile monitor, so that committers don't wait for each other's
+        // serialization. Under the monitor, each transaction is then copied into the log, followed by its commit entry,
+        // which is the only part that depends on the transaction id.
+        List<TransactionLogBuffer> buffers = serializationBuffers.get();
+        try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+        {
+            int index = 0;
+            for ( TransactionToApply tx = batch; tx != null; tx = tx.next(), index++ )
+            {
+                if ( index == buffers.size() )
+                {
+                    buffers.add( new TransactionLogBuffer( compression ) );
+                }
+                buffers.get( index ).serialize( tx.transactionRepresentation() );
+            }
+        }
+        catch ( Throwable e )
+        {
+            clear( buffers );
+            throw e;
+        }
+
         // Assigned base tx id just to make compiler happy
         long lastTransactionId = TransactionIdStore.BASE_TX_ID;
-        // Synchronized with logFile to get absolute control over concurrent rotations happening
-        synchronized ( logFile )
+        try
         {
-            // Assert that kernel is healthy before making any changes
-            databaseHealth.assertHealthy( IOException.class );
-            try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+            // Synchronized with logFile to get absolute control over concurrent rotations happening
+            synchronized ( logFile )
             {
+                // Assert that kernel is healthy before making any changes
+                databaseHealth.assertHealthy( IOException.class );
                 // Append all transactions in this batch to the log under the same logFile monitor
-                TransactionToApply tx = batch;
-                while ( tx != null )
+                int index = 0;
+                for ( TransactionToApply tx = batch; tx != null; tx = tx.next(), index++ )
                 {
                     long transactionId = transactionIdStore.nextCommittingTransactionId();
 
@@ -116,20 +232,34 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                     // really recover from and would point to a bug somewhere.
                     matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
 
-                    TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId );
+                    TransactionCommitment commitment =
+                            appendToLog( tx.transactionRepresentation(), buffers.get( index ), transactionId );
                     tx.commitment( commitment, transactionId );
                     tx.logPosition( commitment.logPosition() );
-                    tx = tx.next();
                     lastTransactionId = transactionId;
                 }
+                if ( asyncDurability )
+                {
+                    writeToLogFile();
+                }
             }
         }
+        finally
+        {
+            clear( buffers );
+        }
 
+        if ( asyncDurability && unforcedBytes() < asyncForceThresholdBytes )
+        {
+            // Our transactions have been written to the log file, which is all that asynchronous durability promises.
+            // The background job will get them forced.
+            logAppendEvent.setLogRotated( logRotation.rotateLogIfNeeded( logAppendEvent ) );
+        }
         // At this point we've appended all transactions in this batch, but we can't mark any of them
         // as committed since they haven't been forced to disk yet. So here we force, or potentially
         // piggy-back on another force, but anyway after this call below we can be sure that all our transactions
         // in this batch exist durably on disk.
-        if ( forceAfterAppend( logAppendEvent ) )
+        else if ( forceAfterAppend( logAppendEvent ) )
         {
             // We got lucky and were the one forcing the log. It's enough if ones of all doing concurrent committers
             // checks the need for log rotation.
@@ -143,6 +273,101 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         return lastTransactionId;
     }
 
+    /**
+     * Empty the log buffer into the log file without forcing it, so that the appended transactions survive a crash
+     * of this process. Must be called under the logFile monitor.
+     */
+    private void writeToLogFile() throws IOException
+    {
+        try
+        {
+            Flushable channel = writer.prepareForFlush();
+            writtenLog = new WrittenLog( channel, appendedBytes, lastAppendedTransactionId );
+        }
+        catch ( final Throwable panic )
+        {
+            databaseHealth.panic( panic );
+            throw panic;
+        }
+    }
+
+    /**
+     * Force the part of the log that has been written to the log file, if it isn't already, since the transactions in
+     * it may have been applied to the pages about to be written. This doesn't take the logFile monitor or the force
+     * lock, because the thread writing the pages may hold page locks that a thread holding either of them waits for.
+     */
+    @Override
+    public void beforePageWrite() throws IOException
+    {
+        WrittenLog written = writtenLog;
+        if ( written == null || written.bytes <= forcedBytes )
+        {
+            return;
+        }
+        try
+        {
+            written.channel.flush();
+        }
+        catch ( ClosedChannelException ignored )
+        {
+            // The log has been rotated since, which forced the channel before closing it.
+        }
+        catch ( final Throwable panic )
+        {
+            databaseHealth.panic( panic );
+            throw panic;
+        }
+        forced( written.bytes, written.transactionId );
+    }
+
+    private void forceInBackground()
+    {
+        if ( unforcedBytes() == 0 )
+        {
+            return;
+        }
+        try
+        {
+            if ( forceAfterAppend( LogAppendEvent.NULL ) )
+            {
+                logRotation.rotateLogIfNeeded( LogAppendEvent.NULL );
+            }
+        }
+        catch ( IOException e )
+        {
+            // A failure to force the log panics the database, which is how committers learn about it.
+            log.error( "Failed to force the transaction log in the background", e );
+        }
+    }
+
+    @Override
+    public long unforcedTransactions()
+    {
+        long forced = lastForcedTransactionId;
+        return lastAppendedTransactionId - forced;
+    }
+
+    @Override
+    public long unforcedBytes()
+    {
+        long forced = forcedBytes;
+        return appendedBytes - forced;
+    }
+
+    @Override
+    public long unforcedMillis()
+    {
+        return unforcedBytes() == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - lastForceNanos );
+    }
+
+    private static void clear( List<TransactionLogBuffer> buffers )
+    {
+        for ( TransactionLogBuffer buffer : buffers )
+        {
+            buffer.clear();
+        }
+    }
+
     private void matchAgainstExpectedTransactionIdIfAny( long transactionId, TransactionToApply tx )
     {
         long expectedTransactionId = tx.transactionId();
@@ -192,13 +417,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      * @return A TransactionCommitment instance with metadata about the committed transaction, such as whether or not
      * this transaction contains any explicit index changes.
      */
-    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId )
-            throws IOException
+    private TransactionCommitment appendToLog( TransactionRepresentation transaction, TransactionLogBuffer serialized,
+            long transactionId ) throws IOException
     {
-        // Reset command writer so that we, after we've written the transaction, can ask it whether or
-        // not any explicit index command was written. If so then there's additional ordering to care about below.
-        indexCommandDetector.reset();
-
         // The outcome of this try block is either of:
         // a) transaction successfully appended, at which point we return a Commitment to be used after force
         // b) transaction failed to be appended, at which point a kernel panic is issued
@@ -208,8 +429,11 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         try
         {
             LogPosition logPositionBeforeCommit = writer.getCurrentPosition( positionMarker ).newPosition();
-            transactionLogWriter.append( transaction, transactionId );
+            serialized.writeTo( writer );
+            transactionLogWriter.commit( transactionId, transaction.getTimeCommitted() );
             LogPosition logPositionAfterCommit = writer.getCurrentPosition( positionMarker ).newPosition();
+            appendedBytes += logPositionAfterCommit.getByteOffset() - logPositionBeforeCommit.getByteOffset();
+            lastAppendedTransactionId = transactionId;
 
             long transactionChecksum =
                     checksum( transaction.additionalHeader(), transaction.getMasterId(), transaction.getAuthorId() );
@@ -217,8 +441,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                     .cacheTransactionMetadata( transactionId, logPositionBeforeCommit, transaction.getMasterId(),
                             transaction.getAuthorId(), transactionChecksum, transaction.getTimeCommitted() );
 
-            transaction.accept( indexCommandDetector );
-            boolean hasExplicitIndexChanges = indexCommandDetector.hasWrittenAnyExplicitIndexCommand();
+            boolean hasExplicitIndexChanges = serialized.hasExplicitIndexChanges();
             if ( hasExplicitIndexChanges )
             {
                 // Offer this transaction id to the queue so that the explicit index applier can take part in the ordering
@@ -339,10 +562,14 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // on logFile because it would cause deadlocks. Synchronizing on writer assumes that appenders
         // also synchronize on writer.
         Flushable flushable;
+        long bytesToForce;
+        long transactionIdToForce;
         synchronized ( logFile )
         {
             databaseHealth.assertHealthy( IOException.class );
             flushable = writer.prepareForFlush();
+            bytesToForce = appendedBytes;
+            transactionIdToForce = lastAppendedTransactionId;
         }
         // Force the writer outside of the lock.
         // This allows other threads access to the buffer while the writer is being forced.
@@ -357,5 +584,41 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             // successful in emptying the buffer *UNDER THE LOCK* we know that the rotating thread included the changes
             // we emptied into the channel, and thus it is already flushed by that thread.
         }
+        forced( bytesToForce, transactionIdToForce );
+    }
+
+    /**
+     * Record that the log has been forced up to the given point. The log can be forced concurrently by the page write
+     * barrier and by a committer, so this never moves the forced point backwards.
+     */
+    private synchronized void forced( long bytes, long transactionId )
+    {
+        long now = System.nanoTime();
+        if ( bytes > forcedBytes )
+        {
+            monitor.logForced( transactionId - lastForcedTransactionId, bytes - forcedBytes,
+                    TimeUnit.NANOSECONDS.toMillis( now - lastForceNanos ) );
+            lastForcedTransactionId = transactionId;
+            forcedBytes = bytes;
+        }
+        lastForceNanos = now;
+    }
+
+    /**
+     * A channel of the log file, and how much had been appended to the log, and by which transaction, when it was last
+     * written to.
+     */
+    private static class WrittenLog
+    {
+        final Flushable channel;
+        final long bytes;
+        final long transactionId;
+
+        WrittenLog( Flushable channel, long bytes, long transactionId )
+        {
+            this.channel = channel;
+            this.bytes = bytes;
+            this.transactionId = transactionId;
+        }
     }
 }
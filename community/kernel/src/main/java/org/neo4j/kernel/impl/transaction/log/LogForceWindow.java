@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+/**
+ * The part of the transaction log that has been appended, but not yet forced to disk.
+ * <p>
+ * When transactions are committed with asynchronous durability, this is what can be lost if the operating system
+ * crashes. Otherwise, the window only holds transactions whose committers are still waiting for the log force.
+ */
+public interface LogForceWindow
+{
+    /**
+     * Listens to the forces of the transaction log, e.g. to keep metrics of how much every force makes durable.
+     * Register listeners with the {@link org.neo4j.kernel.monitoring.Monitors} of the database.
+     */
+    interface Monitor
+    {
+        Monitor NO_MONITOR = ( transactions, bytes, windowMillis ) ->
+        {
+        };
+
+        /**
+         * Called after a force of the log, that made more of it durable.
+         *
+         * @param transactions the number of transactions that the force made durable.
+         * @param bytes the number of bytes of transactions that the force made durable.
+         * @param windowMillis an upper bound on how long, in milliseconds, the oldest of those transactions waited for
+         * the force.
+         */
+        void logForced( long transactions, long bytes, long windowMillis );
+    }
+
+    /**
+     * @return the number of appended transactions that have not yet been forced.
+     */
+    long unforcedTransactions();
+
+    /**
+     * @return the number of bytes of appended transactions that have not yet been forced.
+     */
+    long unforcedBytes();
+
+    /**
+     * @return an upper bound on how long, in milliseconds, the oldest unforced transaction has been waiting for a
+     * force, or zero if there are no unforced transactions.
+     */
+    long unforcedMillis();
+}
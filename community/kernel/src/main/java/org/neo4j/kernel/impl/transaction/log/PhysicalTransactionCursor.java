@@ -28,6 +28,7 @@ import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -95,6 +96,11 @@ public class PhysicalTransactionCursor<T extends ReadableClosablePositionAwareCh
                     commitEntry = entry.as();
                     break;
                 }
+                if ( entry instanceof LogEntryCompressedCommands )
+                {
+                    entries.addAll( entry.<LogEntryCompressedCommands>as().getCommands() );
+                    continue;
+                }
 
                 LogEntryCommand command = entry.as();
                 entries.add( command.getCommand() );
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompression;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.storageengine.api.WritableChannel;
+
+/**
+ * A growable heap buffer that a transaction is serialized into, before it is appended to the log. This way the
+ * serialization of the commands does not happen while holding the log file monitor, and appending the transaction
+ * is just a copy of the buffer, followed by the commit entry.
+ * <p>
+ * Buffers are meant to be reused by the same thread for its following transactions, but buffers that have grown
+ * large from serializing big transactions are let go of when {@link #clear() cleared}.
+ * <p>
+ * With compression, the commands of transactions that are large enough to be worth it are first serialized into a
+ * separate buffer, and then written as a single compressed entry.
+ */
+class TransactionLogBuffer implements WritableChannel
+{
+    private static final int INITIAL_CAPACITY = (int) ByteUnit.kibiBytes( 4 );
+    private static final int MAX_RETAINED_CAPACITY = (int) ByteUnit.mebiBytes( 1 );
+    private static final int MIN_COMPRESSED_LENGTH = 512;
+
+    private final LogEntryWriter logEntryWriter = new LogEntryWriter( this );
+    private final TransactionLogWriter transactionLogWriter = new TransactionLogWriter( logEntryWriter );
+    private final IndexCommandDetector indexCommandDetector = new IndexCommandDetector();
+    private final LogEntryCompression compression;
+    private TransactionLogBuffer commands;
+    private byte[] compressionScratch = new byte[0];
+    private ByteBuffer buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+    private boolean hasExplicitIndexChanges;
+
+    /**
+     * @param compression the compression of the commands of transactions, or {@code null} for no compression.
+     */
+    TransactionLogBuffer( LogEntryCompression compression )
+    {
+        this.compression = compression;
+    }
+
+    /**
+     * Serialize everything but the commit entry of the given transaction into this buffer.
+     */
+    void serialize( TransactionRepresentation transaction ) throws IOException
+    {
+        if ( compression == null )
+        {
+            transactionLogWriter.serialize( transaction );
+        }
+        else
+        {
+            serializeCompressed( transaction );
+        }
+        indexCommandDetector.reset();
+        transaction.accept( indexCommandDetector );
+        hasExplicitIndexChanges = indexCommandDetector.hasWrittenAnyExplicitIndexCommand();
+    }
+
+    private void serializeCompressed( TransactionRepresentation transaction ) throws IOException
+    {
+        logEntryWriter.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                transaction.additionalHeader() );
+        if ( commands == null )
+        {
+            commands = new TransactionLogBuffer( null );
+        }
+        try
+        {
+            commands.logEntryWriter.serialize( transaction );
+            ByteBuffer serialized = commands.buffer;
+            if ( serialized.position() < MIN_COMPRESSED_LENGTH )
+            {
+                commands.writeTo( this );
+            }
+            else
+            {
+                compressionScratch = logEntryWriter.writeCompressedCommandsEntry( compression, serialized.array(),
+                        serialized.position(), compressionScratch );
+            }
+        }
+        finally
+        {
+            commands.clear();
+            if ( compressionScratch.length > MAX_RETAINED_CAPACITY )
+            {
+                compressionScratch = new byte[0];
+            }
+        }
+    }
+
+    boolean hasExplicitIndexChanges()
+    {
+        return hasExplicitIndexChanges;
+    }
+
+    void writeTo( WritableChannel channel ) throws IOException
+    {
+        channel.put( buffer.array(), buffer.position() );
+    }
+
+    void clear()
+    {
+        if ( buffer.capacity() > MAX_RETAINED_CAPACITY )
+        {
+            buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+        }
+        else
+        {
+            buffer.clear();
+        }
+        hasExplicitIndexChanges = false;
+    }
+
+    private ByteBuffer bufferWithSpace( int bytes )
+    {
+        if ( buffer.remaining() < bytes )
+        {
+            ByteBuffer grown = ByteBuffer.allocate( Math.max( buffer.capacity() * 2, buffer.position() + bytes ) );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    @Override
+    public WritableChannel put( byte value )
+    {
+        bufferWithSpace( Byte.BYTES ).put( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putShort( short value )
+    {
+        bufferWithSpace( Short.BYTES ).putShort( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putInt( int value )
+    {
+        bufferWithSpace( Integer.BYTES ).putInt( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putLong( long value )
+    {
+        bufferWithSpace( Long.BYTES ).putLong( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putFloat( float value )
+    {
+        bufferWithSpace( Float.BYTES ).putFloat( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel putDouble( double value )
+    {
+        bufferWithSpace( Double.BYTES ).putDouble( value );
+        return this;
+    }
+
+    @Override
+    public WritableChannel put( byte[] value, int length )
+    {
+        bufferWithSpace( length ).put( value, 0, length );
+        return this;
+    }
+}
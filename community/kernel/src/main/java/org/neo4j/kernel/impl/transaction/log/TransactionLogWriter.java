@@ -34,6 +34,17 @@ public class TransactionLogWriter
     }
 
     public void append( TransactionRepresentation transaction, long transactionId ) throws IOException
+    {
+        serialize( transaction );
+        commit( transactionId, transaction.getTimeCommitted() );
+    }
+
+    /**
+     * Write the start entry and the commands of the given transaction, which is all of it but the commit entry. The
+     * commit entry is the only part that depends on the transaction id, and is written with
+     * {@link #commit(long, long)}.
+     */
+    public void serialize( TransactionRepresentation transaction ) throws IOException
     {
         writer.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
                 transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
@@ -41,9 +52,12 @@ public class TransactionLogWriter
 
         // Write all the commands to the log channel
         writer.serialize( transaction );
+    }
 
+    public void commit( long transactionId, long timeCommitted ) throws IOException
+    {
         // Write commit record
-        writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
+        writer.writeCommitEntry( transactionId, timeCommitted );
     }
 
     public void checkPoint( LogPosition logPosition ) throws IOException
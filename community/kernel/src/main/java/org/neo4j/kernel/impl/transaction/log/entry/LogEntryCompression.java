@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import com.github.luben.zstd.Zstd;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The algorithms that the commands of a transaction can be compressed with, in a {@link LogEntryCompressedCommands}
+ * entry. The byte code of the algorithm is written in the entry, so that the entry can be decompressed regardless of
+ * how the database that reads it is configured.
+ */
+public enum LogEntryCompression
+{
+    ZSTD( 1 )
+            {
+                // The fastest level, since compression is on the commit path.
+                private static final int LEVEL = 1;
+
+                @Override
+                int maxCompressedLength( int length ) throws IOException
+                {
+                    try
+                    {
+                        return (int) Zstd.compressBound( length );
+                    }
+                    catch ( LinkageError e )
+                    {
+                        throw unavailable( e );
+                    }
+                }
+
+                @Override
+                int compress( byte[] source, int length, byte[] target ) throws IOException
+                {
+                    long compressedLength;
+                    try
+                    {
+                        compressedLength = Zstd.compress( target, Arrays.copyOf( source, length ), LEVEL );
+                    }
+                    catch ( LinkageError e )
+                    {
+                        throw unavailable( e );
+                    }
+                    if ( Zstd.isError( compressedLength ) )
+                    {
+                        throw new IOException( "Failed to compress commands: " + Zstd.getErrorName( compressedLength ) );
+                    }
+                    return (int) compressedLength;
+                }
+
+                @Override
+                void decompress( byte[] source, byte[] target ) throws IOException
+                {
+                    long decompressedLength;
+                    try
+                    {
+                        decompressedLength = Zstd.decompress( target, source );
+                    }
+                    catch ( LinkageError e )
+                    {
+                        throw unavailable( e );
+                    }
+                    if ( Zstd.isError( decompressedLength ) )
+                    {
+                        throw new IOException( "Failed to decompress commands: " + Zstd.getErrorName( decompressedLength ) );
+                    }
+                    if ( decompressedLength != target.length )
+                    {
+                        throw new IOException( "Expected " + target.length + " bytes of decompressed commands, but got " +
+                                decompressedLength );
+                    }
+                }
+            };
+
+    private final byte code;
+
+    LogEntryCompression( int code )
+    {
+        this.code = (byte) code;
+    }
+
+    public byte code()
+    {
+        return code;
+    }
+
+    /**
+     * @return an upper bound on the compressed length of {@code length} bytes.
+     */
+    abstract int maxCompressedLength( int length ) throws IOException;
+
+    /**
+     * Compress the first {@code length} bytes of {@code source} into {@code target}, which must be at least
+     * {@link #maxCompressedLength(int)} long.
+     *
+     * @return the number of compressed bytes written to {@code target}.
+     */
+    abstract int compress( byte[] source, int length, byte[] target ) throws IOException;
+
+    /**
+     * Decompress all of {@code source} into {@code target}, which must be exactly as long as the decompressed data.
+     */
+    abstract void decompress( byte[] source, byte[] target ) throws IOException;
+
+    static LogEntryCompression byCode( byte code ) throws IOException
+    {
+        for ( LogEntryCompression compression : values() )
+        {
+            if ( compression.code == code )
+            {
+                return compression;
+            }
+        }
+        throw new IOException( "Unknown compression of commands " + code );
+    }
+
+    private static IOException unavailable( LinkageError e )
+    {
+        return new IOException( "Compression of the transaction log needs zstd-jni on the class path", e );
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.unsafe.impl.batchimport.input.ByteBufferReadableChannel;
+
+public enum LogEntryParsersV3_5 implements LogEntryParser<LogEntry>
+{
+    COMPRESSED_COMMANDS
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    LogEntryCompression compression = LogEntryCompression.byCode( channel.get() );
+                    int length = channel.getInt();
+                    int compressedLength = channel.getInt();
+                    if ( length < 0 || compressedLength < 0 )
+                    {
+                        throw new IOException( "Invalid lengths of compressed commands, " + compressedLength +
+                                " bytes compressed from " + length );
+                    }
+                    byte[] compressed = new byte[compressedLength];
+                    channel.get( compressed, compressedLength );
+                    byte[] commands = new byte[length];
+                    compression.decompress( compressed, commands );
+
+                    // The decompressed bytes are ordinary command entries, each with its own version.
+                    ByteBuffer buffer = ByteBuffer.wrap( commands );
+                    ReadableClosableChannel commandChannel = new ByteBufferReadableChannel( buffer );
+                    List<StorageCommand> result = new ArrayList<>();
+                    while ( buffer.hasRemaining() )
+                    {
+                        LogEntryVersion commandVersion = LogEntryVersion.byVersion( commandChannel.get() );
+                        byte type = commandChannel.get();
+                        if ( type != LogEntryByteCodes.COMMAND )
+                        {
+                            throw new IOException( "Expected only command entries in compressed commands, but found " +
+                                    "entry type " + type );
+                        }
+                        LogEntry entry = commandVersion.entryParser( type ).parse( commandVersion, commandChannel,
+                                marker, commandReader );
+                        if ( entry != null )
+                        {
+                            result.add( entry.<LogEntryCommand>as().getCommand() );
+                        }
+                    }
+                    return new LogEntryCompressedCommands( version, result );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMPRESSED_COMMANDS;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            }
+}
@@ -30,9 +30,11 @@ import org.neo4j.storageengine.api.StorageCommand;
 import org.neo4j.storageengine.api.WritableChannel;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.CHECK_POINT;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMPRESSED_COMMANDS;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_COMMIT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_START;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.CURRENT;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.V3_5_COMPRESSED;
 
 public class LogEntryWriter
 {
@@ -99,6 +101,30 @@ public class LogEntryWriter
         }
     }
 
+    /**
+     * Write the command entries of a transaction, as serialized by {@link #serialize(TransactionRepresentation)},
+     * compressed into a single entry.
+     *
+     * @param compression the compression to use.
+     * @param commands the serialized command entries.
+     * @param length the number of bytes of serialized command entries.
+     * @param scratch a buffer to compress into, which is grown if it is too small.
+     * @return the scratch buffer, possibly grown, for reuse.
+     */
+    public byte[] writeCompressedCommandsEntry( LogEntryCompression compression, byte[] commands, int length,
+            byte[] scratch ) throws IOException
+    {
+        int maxCompressedLength = compression.maxCompressedLength( length );
+        if ( scratch.length < maxCompressedLength )
+        {
+            scratch = new byte[maxCompressedLength];
+        }
+        int compressedLength = compression.compress( commands, length, scratch );
+        channel.put( V3_5_COMPRESSED.byteCode() ).put( COMPRESSED_COMMANDS );
+        channel.put( compression.code() ).putInt( length ).putInt( compressedLength ).put( scratch, compressedLength );
+        return scratch;
+    }
+
     public void writeCheckPointEntry( LogPosition logPosition ) throws IOException
     {
         writeLogEntryHeader( CHECK_POINT, channel );
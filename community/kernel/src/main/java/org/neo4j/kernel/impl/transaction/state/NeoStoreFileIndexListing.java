@@ -44,14 +44,17 @@ import static org.neo4j.helpers.collection.Iterators.resourceIterator;
 public class NeoStoreFileIndexListing
 {
     private final LabelScanStore labelScanStore;
+    private final LabelScanStore relationshipTypeScanStore;
     private final IndexingService indexingService;
     private final ExplicitIndexProvider explicitIndexProviders;
 
     private static final Function<File,StoreFileMetadata> toStoreFileMetatadata = file -> new StoreFileMetadata( file, RecordFormat.NO_RECORD_SIZE );
 
-    NeoStoreFileIndexListing( LabelScanStore labelScanStore, IndexingService indexingService, ExplicitIndexProvider explicitIndexProviders )
+    NeoStoreFileIndexListing( LabelScanStore labelScanStore, LabelScanStore relationshipTypeScanStore, IndexingService indexingService,
+            ExplicitIndexProvider explicitIndexProviders )
     {
         this.labelScanStore = labelScanStore;
+        this.relationshipTypeScanStore = relationshipTypeScanStore;
         this.indexingService = indexingService;
         this.explicitIndexProviders = explicitIndexProviders;
     }
@@ -70,13 +73,21 @@ public class NeoStoreFileIndexListing
         return snapshot;
     }
 
+    /**
+     * Gathers the files of both the label scan store and the relationship type scan store, which are built and copied the same way.
+     */
     Resource gatherLabelScanStoreFiles( Collection<StoreFileMetadata> targetFiles )
     {
-        ResourceIterator<File> snapshot = labelScanStore.snapshotStoreFiles();
-        getSnapshotFilesMetadata( snapshot, targetFiles );
+        final Collection<ResourceIterator<File>> snapshots = new ArrayList<>();
+        for ( LabelScanStore store : new LabelScanStore[]{labelScanStore, relationshipTypeScanStore} )
+        {
+            ResourceIterator<File> snapshot = store.snapshotStoreFiles();
+            snapshots.add( snapshot );
+            getSnapshotFilesMetadata( snapshot, targetFiles );
+        }
         // Intentionally don't close the snapshot here, return it for closing by the consumer of
         // the targetFiles list.
-        return snapshot;
+        return new MultiResource( snapshots );
     }
 
     Resource gatherExplicitIndexFiles( Collection<StoreFileMetadata> files ) throws IOException
@@ -57,13 +57,14 @@ public class NeoStoreFileListing
     private final Collection<StoreFileProvider> additionalProviders;
 
     public NeoStoreFileListing( DatabaseLayout databaseLayout, LogFiles logFiles,
-            LabelScanStore labelScanStore, IndexingService indexingService,
+            LabelScanStore labelScanStore, LabelScanStore relationshipTypeScanStore, IndexingService indexingService,
             ExplicitIndexProvider explicitIndexProviders, StorageEngine storageEngine )
     {
         this.databaseLayout = databaseLayout;
         this.logFiles = logFiles;
         this.storageEngine = storageEngine;
-        this.neoStoreFileIndexListing = new NeoStoreFileIndexListing( labelScanStore, indexingService, explicitIndexProviders );
+        this.neoStoreFileIndexListing = new NeoStoreFileIndexListing( labelScanStore, relationshipTypeScanStore, indexingService,
+                explicitIndexProviders );
         this.additionalProviders = new CopyOnWriteArraySet<>();
     }
 
@@ -185,7 +185,8 @@ public abstract class KernelDiagnostics implements DiagnosticsProvider
             boolean canBeManagedByPageCache( File storeFile )
             {
                 boolean isLabelScanStore = layout.labelScanStore().equals( storeFile );
-                return isLabelScanStore || mappedCandidates.contains( storeFile );
+                boolean isRelationshipTypeScanStore = layout.relationshipTypeScanStore().equals( storeFile );
+                return isLabelScanStore || isRelationshipTypeScanStore || mappedCandidates.contains( storeFile );
             }
         }
     }
@@ -31,6 +31,7 @@ import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 
@@ -43,15 +44,36 @@ public class DefaultRecoveryService implements RecoveryService
     private final TransactionIdStore transactionIdStore;
     private final LogicalTransactionStore logicalTransactionStore;
     private final LogVersionRepository logVersionRepository;
+    private final JobScheduler scheduler;
+    private final int batchSize;
+    private final int applyThreads;
 
     public DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner,
             TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
             LogVersionRepository logVersionRepository, RecoveryStartInformationProvider.Monitor monitor )
+    {
+        this( storageEngine, logTailScanner, transactionIdStore, logicalTransactionStore, logVersionRepository, monitor,
+                null, 0, 1 );
+    }
+
+    /**
+     * @param scheduler the scheduler of the threads that read ahead in the log and apply transactions, when batching.
+     * @param batchSize the maximum number of transactions to read ahead of, and apply together to, the store, or zero
+     * to read and apply the transactions one by one.
+     * @param applyThreads the number of threads to apply transactions that change disjoint records on, when batching.
+     */
+    public DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner,
+            TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
+            LogVersionRepository logVersionRepository, RecoveryStartInformationProvider.Monitor monitor,
+            JobScheduler scheduler, int batchSize, int applyThreads )
     {
         this.storageEngine = storageEngine;
         this.transactionIdStore = transactionIdStore;
         this.logicalTransactionStore = logicalTransactionStore;
         this.logVersionRepository = logVersionRepository;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.applyThreads = applyThreads;
         this.recoveryStartInformationProvider = new RecoveryStartInformationProvider( logTailScanner, monitor );
     }
 
@@ -75,19 +97,25 @@ public class DefaultRecoveryService implements RecoveryService
     @Override
     public RecoveryApplier getRecoveryApplier( TransactionApplicationMode mode ) throws Exception
     {
-        return new RecoveryVisitor( storageEngine, mode );
+        return batchSize > 0 ? new ParallelRecoveryApplier( storageEngine, mode, scheduler, batchSize, applyThreads )
+                             : new RecoveryVisitor( storageEngine, mode );
     }
 
     @Override
     public TransactionCursor getTransactions( LogPosition position ) throws IOException
     {
-        return logicalTransactionStore.getTransactions( position );
+        return prefetching( logicalTransactionStore.getTransactions( position ) );
     }
 
     @Override
     public TransactionCursor getTransactionsInReverseOrder( LogPosition position ) throws IOException
     {
-        return logicalTransactionStore.getTransactionsInReverseOrder( position );
+        return prefetching( logicalTransactionStore.getTransactionsInReverseOrder( position ) );
+    }
+
+    private TransactionCursor prefetching( TransactionCursor transactions )
+    {
+        return batchSize > 0 ? new PrefetchingTransactionCursor( transactions, scheduler, batchSize ) : transactions;
     }
 
     @Override
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.eclipse.collections.api.iterator.LongIterator;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+
+import static org.neo4j.kernel.impl.transaction.log.Commitment.NO_COMMITMENT;
+
+/**
+ * Applies recovered transactions to the store in batches, instead of one by one. Each batch is applied with a single
+ * {@link StorageEngine#apply(org.neo4j.storageengine.api.CommandsToApply, TransactionApplicationMode) apply}, so the
+ * index, label scan store and high id updates of all of its transactions are made together.
+ * <p>
+ * With more than one thread, a batch is split into groups of transactions that change disjoint records, as told by
+ * {@link TransactionRecordKeys}, and the groups are spread over that many {@link Group#RECOVERY} jobs of the scheduler.
+ * Transactions within a group are applied in the order they were committed. Transactions that are barriers, e.g. token
+ * and schema changes, are applied on their own, after everything before them and before everything after them.
+ */
+class ParallelRecoveryApplier implements RecoveryApplier
+{
+    private final StorageEngine storageEngine;
+    private final TransactionApplicationMode mode;
+    private final int batchSize;
+    private final int threads;
+    private final Executor appliers;
+    private List<CommittedTransactionRepresentation> pending = new ArrayList<>();
+
+    ParallelRecoveryApplier( StorageEngine storageEngine, TransactionApplicationMode mode, JobScheduler scheduler,
+            int batchSize, int threads )
+    {
+        this.storageEngine = storageEngine;
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.threads = threads;
+        this.appliers = threads > 1 ? scheduler.executor( Group.RECOVERY ) : null;
+    }
+
+    @Override
+    public boolean visit( CommittedTransactionRepresentation transaction ) throws Exception
+    {
+        pending.add( transaction );
+        if ( pending.size() >= batchSize )
+        {
+            applyPending();
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        applyPending();
+    }
+
+    private void applyPending() throws Exception
+    {
+        List<CommittedTransactionRepresentation> batch = pending;
+        pending = new ArrayList<>( batchSize );
+        if ( batch.isEmpty() )
+        {
+            return;
+        }
+        if ( appliers == null )
+        {
+            storageEngine.apply( chain( batch ), mode );
+            return;
+        }
+
+        List<CommittedTransactionRepresentation> independent = new ArrayList<>();
+        List<MutableLongSet> independentKeys = new ArrayList<>();
+        for ( CommittedTransactionRepresentation transaction : batch )
+        {
+            MutableLongSet keys = TransactionRecordKeys.of( transaction.getTransactionRepresentation() );
+            if ( keys == null )
+            {
+                applyInParallel( independent, independentKeys );
+                independent.clear();
+                independentKeys.clear();
+                storageEngine.apply( chain( Collections.singletonList( transaction ) ), mode );
+            }
+            else
+            {
+                independent.add( transaction );
+                independentKeys.add( keys );
+            }
+        }
+        applyInParallel( independent, independentKeys );
+    }
+
+    private void applyInParallel( List<CommittedTransactionRepresentation> transactions, List<MutableLongSet> keys )
+            throws Exception
+    {
+        if ( transactions.isEmpty() )
+        {
+            return;
+        }
+        List<List<CommittedTransactionRepresentation>> lanes = lanes( transactions, keys );
+        if ( lanes.size() == 1 )
+        {
+            storageEngine.apply( chain( transactions ), mode );
+            return;
+        }
+
+        List<Future<?>> applied = new ArrayList<>( lanes.size() );
+        for ( List<CommittedTransactionRepresentation> lane : lanes )
+        {
+            FutureTask<Void> task = new FutureTask<>( () ->
+            {
+                storageEngine.apply( chain( lane ), mode );
+                return null;
+            } );
+            appliers.execute( task );
+            applied.add( task );
+        }
+        // Wait for all lanes, even if one of them failed, so that nothing is still being applied once we return.
+        Exception failure = null;
+        for ( Future<?> future : applied )
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( ExecutionException e )
+            {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if ( failure == null )
+                {
+                    failure = cause;
+                }
+                else
+                {
+                    failure.addSuppressed( cause );
+                }
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Group the transactions that share records, and spread the groups over at most {@link #threads} lanes, keeping
+     * the commit order of the transactions within each lane.
+     */
+    private List<List<CommittedTransactionRepresentation>> lanes( List<CommittedTransactionRepresentation> transactions,
+            List<MutableLongSet> keys )
+    {
+        int[] groups = new int[transactions.size()];
+        LongIntHashMap firstWriters = new LongIntHashMap();
+        for ( int i = 0; i < groups.length; i++ )
+        {
+            groups[i] = i;
+            LongIterator recordKeys = keys.get( i ).longIterator();
+            while ( recordKeys.hasNext() )
+            {
+                long key = recordKeys.next();
+                int firstWriter = firstWriters.getIfAbsent( key, -1 );
+                if ( firstWriter == -1 )
+                {
+                    firstWriters.put( key, i );
+                }
+                else
+                {
+                    union( groups, firstWriter, i );
+                }
+            }
+        }
+
+        int[] laneOfGroup = new int[groups.length];
+        int[] laneSizes = new int[Math.min( threads, groups.length )];
+        List<List<CommittedTransactionRepresentation>> lanes = new ArrayList<>();
+        for ( int i = 0; i < groups.length; i++ )
+        {
+            int group = find( groups, i );
+            int lane;
+            if ( group == i )
+            {
+                // The first transaction of a group, put the group in the lane with the fewest transactions so far.
+                lane = 0;
+                for ( int candidate = 1; candidate < laneSizes.length; candidate++ )
+                {
+                    if ( laneSizes[candidate] < laneSizes[lane] )
+                    {
+                        lane = candidate;
+                    }
+                }
+                laneOfGroup[group] = lane;
+            }
+            else
+            {
+                lane = laneOfGroup[group];
+            }
+            while ( lanes.size() <= lane )
+            {
+                lanes.add( new ArrayList<>() );
+            }
+            lanes.get( lane ).add( transactions.get( i ) );
+            laneSizes[lane]++;
+        }
+        return lanes;
+    }
+
+    /**
+     * Join the groups of the two transactions, with the root of the joined group being its earliest transaction.
+     */
+    private static void union( int[] groups, int a, int b )
+    {
+        int rootA = find( groups, a );
+        int rootB = find( groups, b );
+        if ( rootA != rootB )
+        {
+            groups[Math.max( rootA, rootB )] = Math.min( rootA, rootB );
+        }
+    }
+
+    private static int find( int[] groups, int transaction )
+    {
+        int root = transaction;
+        while ( groups[root] != root )
+        {
+            root = groups[root];
+        }
+        while ( groups[transaction] != root )
+        {
+            int next = groups[transaction];
+            groups[transaction] = root;
+            transaction = next;
+        }
+        return root;
+    }
+
+    private static TransactionToApply chain( List<CommittedTransactionRepresentation> transactions )
+    {
+        TransactionToApply first = null;
+        TransactionToApply last = null;
+        for ( CommittedTransactionRepresentation transaction : transactions )
+        {
+            long txId = transaction.getCommitEntry().getTxId();
+            TransactionToApply tx = new TransactionToApply( transaction.getTransactionRepresentation(), txId );
+            tx.commitment( NO_COMMITMENT, txId );
+            tx.logPosition( transaction.getStartEntry().getStartPosition() );
+            if ( first == null )
+            {
+                first = tx;
+            }
+            else
+            {
+                last.next( tx );
+            }
+            last = tx;
+        }
+        return first;
+    }
+}
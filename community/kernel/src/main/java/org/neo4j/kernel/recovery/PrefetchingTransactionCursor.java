@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A {@link TransactionCursor} that reads and decodes the transactions of another cursor in a {@link Group#RECOVERY}
+ * job, ahead of the transactions being consumed, such that reading the log overlaps with applying the transactions to
+ * the store.
+ * <p>
+ * A failure to read from the wrapped cursor is handed over to the consuming thread, and thrown from {@link #next()}
+ * in the order it happened, after the transactions that were read before it.
+ */
+class PrefetchingTransactionCursor implements TransactionCursor
+{
+    private static final long OFFER_TIMEOUT_MILLIS = 10;
+
+    private final TransactionCursor source;
+    private final BlockingQueue<Prefetched> prefetched;
+    private final JobHandle reader;
+    private volatile boolean closed;
+    private CommittedTransactionRepresentation current;
+    private LogPosition position;
+    private boolean exhausted;
+
+    PrefetchingTransactionCursor( TransactionCursor source, JobScheduler scheduler, int capacity )
+    {
+        this.source = source;
+        this.prefetched = new ArrayBlockingQueue<>( capacity );
+        this.position = source.position();
+        this.reader = scheduler.schedule( Group.RECOVERY, this::readAhead );
+    }
+
+    private void readAhead()
+    {
+        try
+        {
+            while ( !closed && source.next() )
+            {
+                if ( !offer( new Prefetched( source.get(), source.position(), null ) ) )
+                {
+                    return;
+                }
+            }
+            offer( new Prefetched( null, source.position(), null ) );
+        }
+        catch ( Throwable t )
+        {
+            offer( new Prefetched( null, null, t ) );
+        }
+    }
+
+    private boolean offer( Prefetched item )
+    {
+        try
+        {
+            while ( !closed )
+            {
+                if ( prefetched.offer( item, OFFER_TIMEOUT_MILLIS, MILLISECONDS ) )
+                {
+                    return true;
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        if ( exhausted )
+        {
+            return false;
+        }
+        Prefetched next;
+        try
+        {
+            next = prefetched.take();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for transactions to be read from the log", e );
+        }
+        if ( next.failure != null )
+        {
+            exhausted = true;
+            current = null;
+            if ( next.failure instanceof IOException )
+            {
+                throw (IOException) next.failure;
+            }
+            if ( next.failure instanceof Error )
+            {
+                throw (Error) next.failure;
+            }
+            if ( next.failure instanceof RuntimeException )
+            {
+                throw (RuntimeException) next.failure;
+            }
+            throw new IOException( next.failure );
+        }
+        position = next.position;
+        current = next.transaction;
+        exhausted = current == null;
+        return !exhausted;
+    }
+
+    @Override
+    public CommittedTransactionRepresentation get()
+    {
+        return current;
+    }
+
+    @Override
+    public LogPosition position()
+    {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        try
+        {
+            reader.waitTermination();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for the log reader to stop", e );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new IOException( "The log reader failed", e.getCause() );
+        }
+        finally
+        {
+            prefetched.clear();
+        }
+        source.close();
+    }
+
+    private static class Prefetched
+    {
+        private final CommittedTransactionRepresentation transaction;
+        private final LogPosition position;
+        private final Throwable failure;
+
+        Prefetched( CommittedTransactionRepresentation transaction, LogPosition position, Throwable failure )
+        {
+            this.transaction = transaction;
+            this.position = position;
+            this.failure = failure;
+        }
+    }
+}
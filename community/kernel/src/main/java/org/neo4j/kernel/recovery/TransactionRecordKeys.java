@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipGroupCommand;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * The records that a transaction changes, as far as recovery needs to know to tell whether two transactions can be
+ * applied to the store in parallel. Two transactions are independent if they have no key in common.
+ * <p>
+ * Properties and relationship groups are also keyed by the entity that owns them, since applying them updates the
+ * indexes of the owning entity, which reads all of its properties. Dynamic records are keyed too, since their ids can
+ * be reused by a later transaction in the same batch.
+ * <p>
+ * Transactions with any other commands than those for nodes, relationships, relationship groups, properties and
+ * counts, e.g. token, schema or explicit index commands, are barriers that must be applied on their own, in order.
+ */
+final class TransactionRecordKeys
+{
+    private static final int KEY_TYPE_SHIFT = 56;
+    private static final long NODE = 1L << KEY_TYPE_SHIFT;
+    private static final long RELATIONSHIP = 2L << KEY_TYPE_SHIFT;
+    private static final long PROPERTY = 3L << KEY_TYPE_SHIFT;
+    private static final long RELATIONSHIP_GROUP = 4L << KEY_TYPE_SHIFT;
+    private static final long NODE_LABELS = 5L << KEY_TYPE_SHIFT;
+    private static final long PROPERTY_VALUE = 6L << KEY_TYPE_SHIFT;
+
+    private TransactionRecordKeys()
+    {
+    }
+
+    /**
+     * @return the keys of the records changed by the given transaction, or {@code null} if the transaction is a
+     * barrier that cannot be applied in parallel with any other transaction.
+     */
+    static MutableLongSet of( TransactionRepresentation transaction ) throws IOException
+    {
+        MutableLongSet keys = new LongHashSet();
+        boolean independent = !transaction.accept( command -> !addKeys( command, keys ) );
+        return independent ? keys : null;
+    }
+
+    private static boolean addKeys( StorageCommand command, MutableLongSet keys )
+    {
+        if ( command instanceof NodeCommand )
+        {
+            NodeCommand nodeCommand = (NodeCommand) command;
+            keys.add( NODE | nodeCommand.getKey() );
+            addLabelKeys( nodeCommand.getBefore(), keys );
+            addLabelKeys( nodeCommand.getAfter(), keys );
+        }
+        else if ( command instanceof RelationshipCommand )
+        {
+            keys.add( RELATIONSHIP | ((RelationshipCommand) command).getKey() );
+        }
+        else if ( command instanceof RelationshipGroupCommand )
+        {
+            RelationshipGroupCommand groupCommand = (RelationshipGroupCommand) command;
+            keys.add( RELATIONSHIP_GROUP | groupCommand.getKey() );
+            addOwnerKey( NODE, groupCommand.getBefore().getOwningNode(), keys );
+            addOwnerKey( NODE, groupCommand.getAfter().getOwningNode(), keys );
+        }
+        else if ( command instanceof PropertyCommand )
+        {
+            PropertyCommand propertyCommand = (PropertyCommand) command;
+            keys.add( PROPERTY | propertyCommand.getKey() );
+            addPropertyKeys( propertyCommand.getBefore(), keys );
+            addPropertyKeys( propertyCommand.getAfter(), keys );
+        }
+        else
+        {
+            // Counts are deltas that can be applied in any order, anything else must be applied on its own.
+            return command instanceof NodeCountsCommand || command instanceof RelationshipCountsCommand;
+        }
+        return true;
+    }
+
+    private static void addLabelKeys( NodeRecord node, MutableLongSet keys )
+    {
+        for ( DynamicRecord labels : node.getDynamicLabelRecords() )
+        {
+            keys.add( NODE_LABELS | labels.getId() );
+        }
+    }
+
+    private static void addPropertyKeys( PropertyRecord property, MutableLongSet keys )
+    {
+        addOwnerKey( NODE, property.getNodeId(), keys );
+        addOwnerKey( RELATIONSHIP, property.getRelId(), keys );
+        for ( PropertyBlock block : property )
+        {
+            for ( DynamicRecord value : block.getValueRecords() )
+            {
+                keys.add( PROPERTY_VALUE | value.getId() );
+            }
+        }
+        for ( DynamicRecord value : property.getDeletedRecords() )
+        {
+            keys.add( PROPERTY_VALUE | value.getId() );
+        }
+    }
+
+    private static void addOwnerKey( long type, long owner, MutableLongSet keys )
+    {
+        if ( owner >= 0 )
+        {
+            keys.add( type | owner );
+        }
+    }
+}
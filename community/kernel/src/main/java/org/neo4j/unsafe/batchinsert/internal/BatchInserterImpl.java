@@ -83,6 +83,7 @@ import org.neo4j.kernel.impl.api.index.IndexStoreView;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.api.index.IndexingServiceFactory;
 import org.neo4j.kernel.impl.api.scan.FullLabelStream;
+import org.neo4j.kernel.impl.api.scan.FullRelationshipTypeStream;
 import org.neo4j.kernel.impl.api.store.SchemaCache;
 import org.neo4j.kernel.impl.constraints.ConstraintSemantics;
 import org.neo4j.kernel.impl.core.DelegatingTokenHolder;
@@ -100,6 +101,7 @@ import org.neo4j.kernel.impl.coreapi.schema.UniquenessConstraintDefinition;
 import org.neo4j.kernel.impl.factory.DatabaseInfo;
 import org.neo4j.kernel.impl.index.IndexConfigStore;
 import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
+import org.neo4j.kernel.impl.index.labelscan.NativeRelationshipTypeScanStore;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.NoOpClient;
 import org.neo4j.kernel.impl.pagecache.ConfiguringPageCacheFactory;
@@ -125,7 +127,7 @@ import org.neo4j.kernel.impl.store.RelationshipTypeTokenStore;
 import org.neo4j.kernel.impl.store.SchemaStore;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
@@ -206,6 +208,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
     private final Monitors monitors;
     private final JobScheduler jobScheduler;
     private boolean labelsTouched;
+    private boolean relationshipsTouched;
     private boolean isShutdown;
 
     private final LongFunction<Label> labelIdToLabelFunction = new LongFunction<Label>()
@@ -562,7 +565,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
 
     private void rebuildCounts()
     {
-        CountsTracker counts = neoStores.getCounts();
+        CountsStore counts = neoStores.getCounts();
         try
         {
             counts.start();
@@ -840,6 +843,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
         long id = relationshipStore.nextId();
         int typeId = getOrCreateRelationshipTypeId( type.name() );
         relationshipCreator.relationshipCreate( id, typeId, node1, node2, recordAccess, noopLockClient );
+        relationshipsTouched = true;
         if ( properties != null && !properties.isEmpty() )
         {
             RelationshipRecord record = recordAccess.getRelRecords().getOrLoad( id, null ).forChangingData();
@@ -970,6 +974,7 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
         {
             NativeLabelScanStore labelIndex = buildLabelIndex();
             repopulateAllIndexes( labelIndex );
+            buildRelationshipTypeIndex();
         }
         catch ( IOException e )
         {
@@ -1007,6 +1012,20 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
         return labelIndex;
     }
 
+    private void buildRelationshipTypeIndex() throws IOException
+    {
+        NativeRelationshipTypeScanStore relationshipTypeIndex =
+                new NativeRelationshipTypeScanStore( pageCache, databaseLayout, fileSystem,
+                        new FullRelationshipTypeStream( neoStores.getRelationshipStore() ), false,
+                        logService.getInternalLog( NativeRelationshipTypeScanStore.class ), RecoveryCleanupWorkCollector.immediate() );
+        if ( relationshipsTouched )
+        {
+            relationshipTypeIndex.drop();
+        }
+        // Rebuild will happen as part of this call if it was dropped
+        life.add( relationshipTypeIndex );
+    }
+
     @Override
     public String toString()
     {
@@ -37,12 +37,14 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.neo4j.collection.PrimitiveLongCollections;
 import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.internal.kernel.api.IndexCapability;
 import org.neo4j.internal.kernel.api.IndexOrder;
 import org.neo4j.internal.kernel.api.IndexQuery;
@@ -59,6 +61,8 @@ import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.IndexSample;
 import org.neo4j.storageengine.api.schema.IndexSampler;
 import org.neo4j.storageengine.api.schema.SimpleNodeValueClient;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.concurrent.OtherThreadRule;
 import org.neo4j.values.storable.CoordinateReferenceSystem;
 import org.neo4j.values.storable.PointValue;
 import org.neo4j.values.storable.RandomValues;
@@ -82,6 +86,7 @@ import static org.neo4j.kernel.api.index.IndexEntryUpdate.change;
 import static org.neo4j.kernel.api.index.IndexEntryUpdate.remove;
 import static org.neo4j.kernel.impl.api.index.IndexUpdateMode.ONLINE;
 import static org.neo4j.kernel.impl.index.schema.ValueCreatorUtil.countUniqueValues;
+import static org.neo4j.test.Race.throwing;
 import static org.neo4j.values.storable.Values.of;
 
 /**
@@ -99,6 +104,8 @@ public abstract class NativeIndexAccessorTests<KEY extends NativeIndexKey<KEY>,
 
     @Rule
     public ExpectedException expected = ExpectedException.none();
+    @Rule
+    public final OtherThreadRule<Void> checkpointer = new OtherThreadRule<>();
 
     @Before
     public void setupAccessor() throws IOException
@@ -547,17 +554,65 @@ public abstract class NativeIndexAccessorTests<KEY extends NativeIndexKey<KEY>,
     }
 
     @Test
-    public void requestForSecondUpdaterMustThrow() throws Exception
+    public void shouldHandleMultipleConcurrentUpdaters() throws Throwable
     {
         // given
-        try ( IndexUpdater ignored = accessor.newUpdater( ONLINE ) )
+        IndexEntryUpdate<IndexDescriptor>[] updates = someUpdatesSingleType();
+        int updaters = 4;
+
+        // when
+        Race race = new Race();
+        for ( int i = 0; i < updaters; i++ )
         {
-            // then
-            expected.expect( IllegalStateException.class );
+            int offset = i;
+            race.addContestant( throwing( () ->
+            {
+                try ( IndexUpdater updater = accessor.newUpdater( ONLINE ) )
+                {
+                    for ( int j = offset; j < updates.length; j += updaters )
+                    {
+                        updater.process( updates[j] );
+                    }
+                }
+            } ) );
+        }
+        race.go();
+
+        // then
+        forceAndCloseAccessor();
+        verifyUpdates( updates );
+    }
+
+    @Test
+    public void shouldOpenSecondUpdaterInSameThreadWhileCheckpointIsWaiting() throws Throwable
+    {
+        // given
+        IndexEntryUpdate<IndexDescriptor>[] updates = someUpdatesSingleType();
+        Future<Object> checkpoint;
+        try ( IndexUpdater firstUpdater = accessor.newUpdater( ONLINE ) )
+        {
+            checkpoint = checkpointer.execute( state ->
+            {
+                accessor.force( IOLimiter.UNLIMITED );
+                return null;
+            } );
+            checkpointer.get().waitUntilWaiting( details -> details.isAt( GBPTree.class, "checkpoint" ) );
 
             // when
-            accessor.newUpdater( ONLINE );
+            try ( IndexUpdater secondUpdater = accessor.newUpdater( ONLINE ) )
+            {
+                for ( int i = 0; i < updates.length; i++ )
+                {
+                    (i % 2 == 0 ? firstUpdater : secondUpdater).process( updates[i] );
+                }
+            }
+            assertFalse( checkpoint.isDone() );
         }
+
+        // then
+        checkpoint.get();
+        forceAndCloseAccessor();
+        verifyUpdates( updates );
     }
 
     @Test
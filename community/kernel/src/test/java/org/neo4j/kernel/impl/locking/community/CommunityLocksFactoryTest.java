@@ -24,11 +24,13 @@ import org.junit.jupiter.api.Test;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.Clocks;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.Mockito.mock;
 
 class CommunityLocksFactoryTest
 {
@@ -37,8 +39,9 @@ class CommunityLocksFactoryTest
     void createDifferentCommunityLockManagers()
     {
         CommunityLocksFactory factory = new CommunityLocksFactory();
-        Locks locks1 = factory.newInstance( Config.defaults(), Clocks.systemClock(), ResourceTypes.values() );
-        Locks locks2 = factory.newInstance( Config.defaults(), Clocks.systemClock(), ResourceTypes.values() );
+        JobScheduler scheduler = mock( JobScheduler.class );
+        Locks locks1 = factory.newInstance( Config.defaults(), Clocks.systemClock(), ResourceTypes.values(), scheduler );
+        Locks locks2 = factory.newInstance( Config.defaults(), Clocks.systemClock(), ResourceTypes.values(), scheduler );
         assertNotSame( locks1, locks2 );
         assertThat( locks1, instanceOf( CommunityLockManger.class ) );
         assertThat( locks2, instanceOf( CommunityLockManger.class ) );
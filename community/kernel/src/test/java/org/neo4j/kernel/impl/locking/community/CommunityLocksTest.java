@@ -24,14 +24,18 @@ import java.time.Clock;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.LockingCompatibilityTestSuite;
 import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
 import org.neo4j.test.OtherThreadExecutor.WaitDetails;
 
 public class CommunityLocksTest extends LockingCompatibilityTestSuite
 {
+    // Only runs deadlock detection, which stops when no transaction waits for locks, so it is never shut down
+    private static final ThreadPoolJobScheduler scheduler = new ThreadPoolJobScheduler();
+
     @Override
     protected Locks createLockManager( Config config, Clock clock )
     {
-        return new CommunityLockManger( config, clock );
+        return new CommunityLockManger( config, clock, scheduler );
     }
 
     @Override
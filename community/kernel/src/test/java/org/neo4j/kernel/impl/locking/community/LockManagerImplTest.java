@@ -26,11 +26,13 @@ import org.mockito.Mockito;
 
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.lock.LockTracer;
 import org.neo4j.time.Clocks;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 public class LockManagerImplTest
 {
@@ -38,6 +40,9 @@ public class LockManagerImplTest
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    // None of the tests wait for locks, so no deadlock detection is scheduled
+    private final JobScheduler scheduler = mock( JobScheduler.class );
+
     @Test
     public void shouldAllowGetReadWriteLocks()
     {
@@ -110,7 +115,7 @@ public class LockManagerImplTest
         LockResource node = new LockResource( ResourceTypes.NODE, 1L );
         LockTransaction lockTransaction = new LockTransaction();
         RWLock rwLock = Mockito.mock( RWLock.class );
-        LockManagerImpl lockManager = new MockedLockLockManager( new RagManager(), rwLock );
+        LockManagerImpl lockManager = new MockedLockLockManager( new RagManager( scheduler ), rwLock );
 
         // expect
         lockManager.tryReadLock( node, lockTransaction );
@@ -123,7 +128,7 @@ public class LockManagerImplTest
 
     private LockManagerImpl createLockManager()
     {
-        return new LockManagerImpl( new RagManager(), Config.defaults(), Clocks.systemClock() );
+        return new LockManagerImpl( new RagManager( scheduler ), Config.defaults(), Clocks.systemClock() );
     }
 
     private int countLocks( LockManagerImpl lockManager )
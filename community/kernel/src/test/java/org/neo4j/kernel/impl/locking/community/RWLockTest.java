@@ -27,11 +27,14 @@ import org.mockito.Mockito;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.locking.LockType;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
 import org.neo4j.storageengine.api.lock.LockTracer;
 import org.neo4j.time.Clocks;
 
@@ -45,11 +48,13 @@ public class RWLockTest
     private static final long TEST_TIMEOUT_MILLIS = 10_000;
 
     private static ExecutorService executor;
+    private static ThreadPoolJobScheduler scheduler;
 
     @BeforeClass
     public static void initExecutor()
     {
         executor = Executors.newCachedThreadPool();
+        scheduler = new ThreadPoolJobScheduler();
     }
 
     @AfterClass
@@ -57,12 +62,13 @@ public class RWLockTest
     {
         executor.shutdown();
         executor.awaitTermination( 2, TimeUnit.SECONDS );
+        scheduler.close();
     }
 
     @Test
     public void assertWriteLockDoesNotLeakMemory()
     {
-        final RagManager ragManager = new RagManager();
+        final RagManager ragManager = new RagManager( scheduler );
         final LockResource resource = new LockResource( ResourceTypes.NODE, 0 );
         final RWLock lock = createRWLock( ragManager, resource );
         final Transaction tx1 = mock( Transaction.class );
@@ -79,7 +85,7 @@ public class RWLockTest
     @Test
     public void assertReadLockDoesNotLeakMemory()
     {
-        final RagManager ragManager = new RagManager();
+        final RagManager ragManager = new RagManager( scheduler );
         final LockResource resource = new LockResource( ResourceTypes.NODE, 0 );
         final RWLock lock = createRWLock( ragManager, resource );
         final Transaction tx1 = mock( Transaction.class );
@@ -100,7 +106,7 @@ public class RWLockTest
     @Test( timeout = TEST_TIMEOUT_MILLIS )
     public void testWaitingWriterLock() throws InterruptedException
     {
-        RagManager ragManager = new RagManager();
+        RagManager ragManager = new RagManager( scheduler );
         LockResource resource = new LockResource( ResourceTypes.NODE, 1L );
         final RWLock lock = createRWLock( ragManager, resource );
         final LockTransaction lockTransaction = new LockTransaction();
@@ -145,7 +151,7 @@ public class RWLockTest
     @Test( timeout = TEST_TIMEOUT_MILLIS )
     public void testWaitingReaderLock() throws InterruptedException
     {
-        RagManager ragManager = new RagManager();
+        RagManager ragManager = new RagManager( scheduler );
         LockResource resource = new LockResource( ResourceTypes.NODE, 1L );
         final RWLock lock = createRWLock( ragManager, resource );
         final LockTransaction transaction = new LockTransaction();
@@ -193,11 +199,8 @@ public class RWLockTest
         final CountDownLatch exceptionLatch = new CountDownLatch( 1 );
         final CountDownLatch completionLatch = new CountDownLatch( 1 );
 
-        Mockito.doNothing().doAnswer( invocation ->
-        {
-            exceptionLatch.countDown();
-            throw new DeadlockDetectedException( "Deadlock" );
-        } ).when( ragManager ).checkWaitOn( lock, lockTransaction );
+        RagManager.Waiter waiter = new RagManager.Waiter( lock, lockTransaction, LockType.WRITE, 1 );
+        Mockito.when( ragManager.startWaitOn( lock, lockTransaction, LockType.WRITE ) ).thenReturn( waiter );
 
         lock.mark();
         lock.mark();
@@ -205,8 +208,7 @@ public class RWLockTest
         lock.acquireReadLock( LockTracer.NONE, anotherTransaction );
 
         // writer will be added to a waiting list
-        // then spurious wake up will be simulated
-        // and deadlock will be detected
+        // then the deadlock detector will find it deadlocked
         Runnable writer = () ->
         {
             try
@@ -216,7 +218,7 @@ public class RWLockTest
             }
             catch ( DeadlockDetectedException ignored )
             {
-                // ignored
+                exceptionLatch.countDown();
             }
             completionLatch.countDown();
         };
@@ -224,28 +226,23 @@ public class RWLockTest
 
         waitWaitingThreads( lock, 1 );
 
-        // sending notify for all threads till our writer will not cause deadlock exception
-        do
-        {
-            //noinspection SynchronizationOnLocalVariableOrMethodParameter
-            synchronized ( lock )
-            {
-                lock.notifyAll();
-            }
-        }
-        while ( exceptionLatch.getCount() == 1 );
+        assertTrue( lock.deadlockDetected( waiter, "Deadlock" ) );
 
         // waiting for writer to finish
         completionLatch.await();
 
-        assertEquals( "In case of deadlock caused by spurious wake up " +
-                      "thread should be removed from waiting list", 0, lock.getWaitingThreadsCount() );
+        assertEquals( "Writer should have been told about the deadlock", 0, exceptionLatch.getCount() );
+        assertEquals( "In case of deadlock thread should be removed from waiting list",
+                0, lock.getWaitingThreadsCount() );
+        Mockito.verify( ragManager ).stopWaitOn( waiter );
+        assertFalse( "Deadlock should not be reported for a wait that has ended",
+                lock.deadlockDetected( waiter, "Deadlock" ) );
     }
 
     @Test
     public void testLockCounters() throws InterruptedException
     {
-        RagManager ragManager = new RagManager();
+        RagManager ragManager = new RagManager( scheduler );
         LockResource resource = new LockResource( ResourceTypes.NODE, 1L );
         final RWLock lock = createRWLock( ragManager, resource );
         LockTransaction lockTransaction = new LockTransaction();
@@ -297,7 +294,7 @@ public class RWLockTest
     @Test( timeout = TEST_TIMEOUT_MILLIS )
     public void testDeadlockDetection() throws InterruptedException
     {
-        RagManager ragManager = new RagManager();
+        RagManager ragManager = new RagManager( scheduler );
         LockResource node1 = new LockResource( ResourceTypes.NODE, 1L );
         LockResource node2 = new LockResource( ResourceTypes.NODE, 2L );
         LockResource node3 = new LockResource( ResourceTypes.NODE, 3L );
@@ -335,11 +332,50 @@ public class RWLockTest
         lockNode1.releaseWriteLock( client1Transaction );
     }
 
+    @Test( timeout = TEST_TIMEOUT_MILLIS )
+    public void shouldReportDeadlockToTransactionThatStartedWaitingLast() throws Exception
+    {
+        // given a detector that only runs when asked to
+        RagManager ragManager = new RagManager( scheduler, TimeUnit.HOURS.toMillis( 1 ) );
+        final RWLock lockNode1 = createRWLock( ragManager, new LockResource( ResourceTypes.NODE, 1L ) );
+        final RWLock lockNode2 = createRWLock( ragManager, new LockResource( ResourceTypes.NODE, 2L ) );
+        final LockTransaction client1Transaction = new LockTransaction();
+        final LockTransaction client2Transaction = new LockTransaction();
+        final CountDownLatch client1Deadlock = new CountDownLatch( 1 );
+        final CountDownLatch client2Deadlock = new CountDownLatch( 1 );
+
+        lockNode1.mark();
+        lockNode1.acquireWriteLock( LockTracer.NONE, client1Transaction );
+        lockNode2.mark();
+        lockNode2.acquireWriteLock( LockTracer.NONE, client2Transaction );
+
+        Future<?> client1 = executor.submit( createReaderForDeadlock( lockNode2, client1Transaction, client1Deadlock ) );
+        waitWaitingThreads( lockNode2, 1 );
+        executor.execute( createReaderForDeadlock( lockNode1, client2Transaction, client2Deadlock ) );
+        waitWaitingThreads( lockNode1, 1 );
+
+        // when
+        assertEquals( 1, ragManager.detectDeadlocks() );
+
+        // then
+        client2Deadlock.await();
+        assertEquals( 0, ragManager.detectDeadlocks() );
+        assertEquals( 1, client1Deadlock.getCount() );
+
+        lockNode2.releaseWriteLock( client2Transaction );
+        client1.get();
+        assertEquals( 1, client1Deadlock.getCount() );
+        assertEquals( 1, lockNode2.getReadCount() );
+
+        lockNode2.releaseReadLock( client1Transaction );
+        lockNode1.releaseWriteLock( client1Transaction );
+    }
+
     @Test( timeout = TEST_TIMEOUT_MILLIS )
     public void testLockRequestsTermination() throws InterruptedException
     {
         // given
-        RagManager ragManager = new RagManager();
+        RagManager ragManager = new RagManager( scheduler );
         LockResource node1 = new LockResource( ResourceTypes.NODE, 1L );
         final RWLock lock = createRWLock( ragManager, node1 );
         final LockTransaction mainTransaction = new LockTransaction();
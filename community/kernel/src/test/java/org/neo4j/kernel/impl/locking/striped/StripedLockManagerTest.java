@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import org.junit.Test;
+
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.time.Clocks;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+import static org.neo4j.storageengine.api.lock.LockTracer.NONE;
+
+public class StripedLockManagerTest
+{
+    private final StripedLockManager manager =
+            new StripedLockManager( Config.defaults(), Clocks.systemClock(), ResourceTypes.values() );
+
+    @Test
+    public void shouldRemoveLockOnceReleasedByItsLastHolder()
+    {
+        // GIVEN
+        try ( Locks.Client first = manager.newClient(); Locks.Client second = manager.newClient() )
+        {
+            first.acquireShared( NONE, NODE, 1 );
+            second.acquireShared( NONE, NODE, 1 );
+            StripedLock lock = manager.lock( NODE, 1 );
+
+            // WHEN
+            first.releaseShared( NODE, 1 );
+
+            // THEN
+            assertSame( lock, manager.lock( NODE, 1 ) );
+            assertTrue( lock.isHeld() );
+
+            // WHEN
+            second.releaseShared( NODE, 1 );
+
+            // THEN
+            assertFalse( lock.isHeld() );
+            assertNotSame( lock, manager.lock( NODE, 1 ) );
+        }
+    }
+
+    @Test
+    public void shouldRemoveUpgradedLockOnceBothHoldsAreReleased()
+    {
+        // GIVEN
+        try ( Locks.Client client = manager.newClient(); Locks.Client other = manager.newClient() )
+        {
+            client.acquireShared( NONE, NODE, 1 );
+            client.acquireExclusive( NONE, NODE, 1 );
+            StripedLock lock = manager.lock( NODE, 1 );
+            assertSame( client, lock.exclusiveHolder() );
+
+            // WHEN
+            client.releaseShared( NODE, 1 );
+            client.releaseExclusive( NODE, 1 );
+
+            // THEN
+            assertFalse( lock.isHeld() );
+            assertNotSame( lock, manager.lock( NODE, 1 ) );
+            assertTrue( other.tryExclusiveLock( NODE, 1 ) );
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.locking.LockCountVisitor;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.test.Race;
+import org.neo4j.time.Clocks;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+import static org.neo4j.storageengine.api.lock.LockTracer.NONE;
+
+/**
+ * Runs many clients of the {@link StripedLockManager} against a few contended locks, and checks that the locks stay
+ * mutually exclusive and that every deadlock between the clients is detected.
+ */
+public class StripedLocksContentionIT
+{
+    private static final int CLIENTS = 16;
+    private static final int OPERATIONS_PER_CLIENT = 2_000;
+    private static final int NODES = 8;
+
+    private final StripedLockManager locks =
+            new StripedLockManager( Config.defaults(), Clocks.systemClock(), ResourceTypes.values() );
+    private final AtomicInteger[] exclusiveHolders = counters();
+    private final AtomicInteger[] sharedHolders = counters();
+
+    @After
+    public void closeLocks()
+    {
+        locks.close();
+    }
+
+    @Test
+    public void exclusiveLocksMustExcludeAllOtherHoldersUnderContention() throws Throwable
+    {
+        // GIVEN
+        long[] unguardedCounts = new long[NODES];
+        LongAdder exclusiveOperations = new LongAdder();
+        Race race = new Race();
+        race.addContestants( CLIENTS, () ->
+        {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try ( Locks.Client client = locks.newClient() )
+            {
+                for ( int i = 0; i < OPERATIONS_PER_CLIENT; i++ )
+                {
+                    int node = random.nextInt( NODES );
+                    if ( random.nextBoolean() )
+                    {
+                        client.acquireExclusive( NONE, NODE, node );
+                        enterExclusive( node );
+                        // Only safe under the exclusive lock, which must also publish the count to the next holder.
+                        unguardedCounts[node]++;
+                        exitExclusive( node );
+                        client.releaseExclusive( NODE, node );
+                        exclusiveOperations.increment();
+                    }
+                    else
+                    {
+                        client.acquireShared( NONE, NODE, node );
+                        enterShared( node );
+                        exitShared( node );
+                        client.releaseShared( NODE, node );
+                    }
+                }
+            }
+        } );
+
+        // WHEN
+        race.go( 5, MINUTES );
+
+        // THEN
+        long total = 0;
+        for ( long count : unguardedCounts )
+        {
+            total += count;
+        }
+        assertEquals( exclusiveOperations.sum(), total );
+        assertNoLocksHeld();
+    }
+
+    @Test
+    public void mustDetectEveryDeadlockBetweenManyClients() throws Throwable
+    {
+        // GIVEN
+        LongAdder deadlocks = new LongAdder();
+        LongAdder committed = new LongAdder();
+        Race race = new Race();
+        race.addContestants( CLIENTS, () ->
+        {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try ( Locks.Client client = locks.newClient() )
+            {
+                for ( int i = 0; i < OPERATIONS_PER_CLIENT; i++ )
+                {
+                    // Lock a few nodes in random order, like a transaction updating them would, which deadlocks often.
+                    List<Long> locked = new ArrayList<>();
+                    try
+                    {
+                        for ( int j = 0; j < 3; j++ )
+                        {
+                            long node = random.nextInt( NODES );
+                            if ( !locked.contains( node ) )
+                            {
+                                client.acquireExclusive( NONE, NODE, node );
+                                locked.add( node );
+                            }
+                        }
+                        for ( long node : locked )
+                        {
+                            enterExclusive( (int) node );
+                        }
+                        for ( long node : locked )
+                        {
+                            exitExclusive( (int) node );
+                        }
+                        committed.increment();
+                    }
+                    catch ( DeadlockDetectedException e )
+                    {
+                        deadlocks.increment();
+                    }
+                    finally
+                    {
+                        for ( long node : locked )
+                        {
+                            client.releaseExclusive( NODE, node );
+                        }
+                    }
+                }
+            }
+        } );
+
+        // WHEN
+        // An undetected deadlock leaves clients waiting forever, which fails the race when it times out.
+        race.go( 5, MINUTES );
+
+        // THEN
+        assertEquals( CLIENTS * OPERATIONS_PER_CLIENT, committed.sum() + deadlocks.sum() );
+        assertThat( deadlocks.sum(), greaterThan( 0L ) );
+        assertThat( committed.sum(), greaterThan( 0L ) );
+        assertNoLocksHeld();
+    }
+
+    private void enterExclusive( int node )
+    {
+        assertEquals( "Exclusive holders of exclusively locked " + node, 1, exclusiveHolders[node].incrementAndGet() );
+        assertEquals( "Shared holders of exclusively locked " + node, 0, sharedHolders[node].get() );
+    }
+
+    private void exitExclusive( int node )
+    {
+        exclusiveHolders[node].decrementAndGet();
+    }
+
+    private void enterShared( int node )
+    {
+        sharedHolders[node].incrementAndGet();
+        assertEquals( "Exclusive holders of shared locked " + node, 0, exclusiveHolders[node].get() );
+    }
+
+    private void exitShared( int node )
+    {
+        sharedHolders[node].decrementAndGet();
+    }
+
+    private void assertNoLocksHeld()
+    {
+        LockCountVisitor lockCount = new LockCountVisitor();
+        locks.accept( lockCount );
+        assertEquals( 0, lockCount.getLockCount() );
+    }
+
+    private static AtomicInteger[] counters()
+    {
+        AtomicInteger[] counters = new AtomicInteger[NODES];
+        for ( int i = 0; i < counters.length; i++ )
+        {
+            counters[i] = new AtomicInteger();
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.logging.NullLog;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+public class PageCacheWarmerTest
+{
+    private static final int PAGES = 100;
+
+    private final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( fs );
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule( fs ).around( directory ).around( pageCacheRule );
+
+    private final AtomicLong pagesLoaded = new AtomicLong( -1 );
+    private final PageCacheWarmer.Monitor monitor = new PageCacheWarmer.Monitor()
+    {
+        @Override
+        public void warmupCompleted( long pages )
+        {
+            pagesLoaded.set( pages );
+        }
+
+        @Override
+        public void profileCompleted( long pagesInMemory )
+        {
+        }
+    };
+    private ThreadPoolJobScheduler scheduler;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        scheduler = new ThreadPoolJobScheduler();
+        file = directory.databaseLayout().file( "store" );
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < PAGES; i++ )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        scheduler.close();
+    }
+
+    @Test
+    public void shouldReloadProfiledPagesOnStart() throws Exception
+    {
+        long[] touched = {0, 7, 8, 42, PAGES - 1};
+
+        // Given a profile of a few touched pages
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( long pageId : touched )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                }
+            }
+            assertEquals( touched.length, warmer( pageCache ).profile() );
+        }
+
+        // When starting with a cold page cache
+        pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer = warmer( pageCache );
+            warmer.start();
+
+            // Then exactly the profiled pages are loaded
+            assertEquals( touched.length, pagesLoaded.get() );
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                int inMemory = 0;
+                for ( long pageId = 0; pageId < PAGES; pageId++ )
+                {
+                    if ( cursor.next( pageId ) && cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID )
+                    {
+                        inMemory++;
+                    }
+                }
+                assertEquals( touched.length, inMemory );
+            }
+            warmer.stop();
+        }
+    }
+
+    @Test
+    public void shouldLoadNothingWithoutProfile() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile ignored = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer = warmer( pageCache );
+            warmer.start();
+            assertEquals( 0, pagesLoaded.get() );
+            warmer.stop();
+        }
+    }
+
+    private PageCacheWarmer warmer( PageCache pageCache )
+    {
+        return new PageCacheWarmer( fs, pageCache, scheduler, directory.databaseDir(), HOURS.toMillis( 1 ), monitor,
+                NullLog.getInstance() );
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Random;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.format.standard.Standard;
+import org.neo4j.kernel.impl.store.format.standard.StandardCompressedV3_5;
+import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.rule.PageCacheAndDependenciesRule;
+import org.neo4j.unsafe.batchinsert.internal.DirectRecordAccessSet;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.helpers.collection.Iterators.iterator;
+
+/**
+ * Compares the size of the dynamic string and array stores of the standard record format and the one that compresses
+ * property values, and checks that both formats read back the values that were written. The values are JSON
+ * documents with a handful of fields, as text properties often are, and arrays of such documents.
+ */
+public class PropertyValueCompressionIT
+{
+    private static final int ENTITIES = 2_000;
+    private static final String[] FIELDS = {"id", "name", "description", "created", "tags", "status"};
+
+    @Rule
+    public final PageCacheAndDependenciesRule storage = new PageCacheAndDependenciesRule();
+
+    @Test
+    public void shouldStoreDocumentsInLessSpaceWithCompressedFormatAndReadThemBack()
+    {
+        Value[][] values = values( new Random( 42 ) );
+
+        long standardSize = writeAndReadBack( Standard.LATEST_NAME, values );
+        long compressedSize = writeAndReadBack( StandardCompressedV3_5.NAME, values );
+
+        assertTrue( format( "Expected the dynamic stores of the compressed format (%d bytes) to be at most three quarters " +
+                "of those of the standard format (%d bytes)", compressedSize, standardSize ), compressedSize * 4 <= standardSize * 3 );
+    }
+
+    private long writeAndReadBack( String recordFormat, Value[][] values )
+    {
+        Config config = Config.defaults( GraphDatabaseSettings.record_format, recordFormat );
+        try ( NeoStores neoStores = new StoreFactory( storage.directory().databaseLayout( recordFormat ), config,
+                new DefaultIdGeneratorFactory( storage.fileSystem() ), storage.pageCache(), storage.fileSystem(),
+                NullLogProvider.getInstance(), EmptyVersionContextSupplier.EMPTY ).openAllNeoStores( true ) )
+        {
+            long[] firstPropertyIds = write( neoStores, values );
+            PropertyStore propertyStore = neoStores.getPropertyStore();
+            assertReadBack( propertyStore, firstPropertyIds, values );
+            return propertyStore.getStringStore().getHighId() * propertyStore.getStringStore().getRecordSize() +
+                    propertyStore.getArrayStore().getHighId() * propertyStore.getArrayStore().getRecordSize();
+        }
+    }
+
+    private static long[] write( NeoStores neoStores, Value[][] values )
+    {
+        PropertyCreator creator = new PropertyCreator( neoStores.getPropertyStore(), new PropertyTraverser() );
+        NodeRecord owner = neoStores.getNodeStore().newRecord();
+        long[] firstPropertyIds = new long[values.length];
+        DirectRecordAccessSet access = new DirectRecordAccessSet( neoStores );
+        for ( int i = 0; i < values.length; i++ )
+        {
+            PropertyBlock text = creator.encodePropertyValue( 0, values[i][0] );
+            PropertyBlock array = creator.encodePropertyValue( 1, values[i][1] );
+            firstPropertyIds[i] = creator.createPropertyChain( owner, iterator( text, array ), access.getPropertyRecords() );
+        }
+        access.close();
+        return firstPropertyIds;
+    }
+
+    private static void assertReadBack( PropertyStore propertyStore, long[] firstPropertyIds, Value[][] values )
+    {
+        try ( RecordPropertyCursor cursor = new RecordPropertyCursor( propertyStore ) )
+        {
+            for ( int i = 0; i < firstPropertyIds.length; i++ )
+            {
+                cursor.init( firstPropertyIds[i] );
+                int properties = 0;
+                while ( cursor.next() )
+                {
+                    assertEquals( values[i][cursor.propertyKey()], cursor.propertyValue() );
+                    properties++;
+                }
+                assertEquals( 2, properties );
+            }
+        }
+    }
+
+    private static Value[][] values( Random random )
+    {
+        Value[][] values = new Value[ENTITIES][];
+        for ( int i = 0; i < ENTITIES; i++ )
+        {
+            String[] documents = new String[4];
+            for ( int j = 0; j < documents.length; j++ )
+            {
+                documents[j] = document( random );
+            }
+            values[i] = new Value[]{Values.stringValue( document( random ) ), Values.stringArray( documents )};
+        }
+        return values;
+    }
+
+    private static String document( Random random )
+    {
+        StringBuilder builder = new StringBuilder( "{" );
+        for ( int i = 0; i < FIELDS.length; i++ )
+        {
+            builder.append( i == 0 ? "" : ", " ).append( '"' ).append( FIELDS[i] ).append( "\": \"" );
+            int words = 1 + random.nextInt( 8 );
+            for ( int j = 0; j < words; j++ )
+            {
+                builder.append( j == 0 ? "" : " " ).append( FIELDS[random.nextInt( FIELDS.length )] ).append( random.nextInt( 100 ) );
+            }
+            builder.append( '"' );
+        }
+        return builder.append( '}' ).toString();
+    }
+}
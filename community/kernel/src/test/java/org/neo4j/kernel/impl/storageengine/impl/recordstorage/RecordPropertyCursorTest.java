@@ -24,28 +24,45 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
 import org.neo4j.helpers.collection.IteratorWrapper;
+import org.neo4j.io.layout.DatabaseLayout;
 import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.store.DynamicValueCompression;
+import org.neo4j.kernel.impl.store.MetaDataStore;
 import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.format.standard.Standard;
+import org.neo4j.kernel.impl.store.format.standard.StandardCompressedV3_5;
 import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.test.rule.PageCacheAndDependenciesRule;
 import org.neo4j.test.rule.RandomRule;
 import org.neo4j.unsafe.batchinsert.internal.DirectRecordAccessSet;
+import org.neo4j.values.storable.CoordinateReferenceSystem;
+import org.neo4j.values.storable.PointValue;
 import org.neo4j.values.storable.RandomValues;
 import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.neo4j.helpers.collection.Iterators.iterator;
+import static org.neo4j.kernel.impl.store.MetaDataStore.Position.STORE_VERSION;
 
 public class RecordPropertyCursorTest
 {
@@ -67,12 +84,23 @@ public class RecordPropertyCursorTest
     @Before
     public void setup()
     {
-        neoStores = new StoreFactory( storage.directory().databaseLayout(), Config.defaults(), new DefaultIdGeneratorFactory( storage.fileSystem() ),
-                storage.pageCache(), storage.fileSystem(), NullLogProvider.getInstance(), EmptyVersionContextSupplier.EMPTY ).openAllNeoStores( true );
+        openStores( storage.directory().databaseLayout(), Standard.LATEST_RECORD_FORMATS );
+    }
+
+    private void openStores( DatabaseLayout databaseLayout, RecordFormats recordFormats )
+    {
+        neoStores = new StoreFactory( databaseLayout, Config.defaults(), new DefaultIdGeneratorFactory( storage.fileSystem() ), storage.pageCache(),
+                storage.fileSystem(), recordFormats, NullLogProvider.getInstance(), EmptyVersionContextSupplier.EMPTY ).openAllNeoStores( true );
         creator = new PropertyCreator( neoStores.getPropertyStore(), new PropertyTraverser() );
         owner = neoStores.getNodeStore().newRecord();
     }
 
+    private void openCompressedStores()
+    {
+        neoStores.close();
+        openStores( storage.directory().databaseLayout( StandardCompressedV3_5.NAME ), StandardCompressedV3_5.RECORD_FORMATS );
+    }
+
     @After
     public void closeStore()
     {
@@ -105,6 +133,113 @@ public class RecordPropertyCursorTest
         assertPropertyChain( valuesB, firstPropertyIdB, cursor );
     }
 
+    @Test
+    public void shouldReadCompressedPropertyChain()
+    {
+        // given
+        openCompressedStores();
+        Value[] values = createValues();
+        long firstPropertyId = storeValuesAsPropertyChain( creator, owner, values );
+        Value[] compressibleValues = compressibleValues();
+        long compressiblePropertyId = storeValuesAsPropertyChain( creator, owner, compressibleValues );
+
+        // then
+        assertStoredCompressed( true, compressiblePropertyId );
+        RecordPropertyCursor cursor = createCursor();
+        assertPropertyChain( values, firstPropertyId, cursor );
+        assertPropertyChain( compressibleValues, compressiblePropertyId, cursor );
+        assertPropertyStoreValues( values, firstPropertyId );
+        assertPropertyStoreValues( compressibleValues, compressiblePropertyId );
+    }
+
+    @Test
+    public void shouldOnlyCompressValuesOfAtLeast256Bytes()
+    {
+        // given
+        openCompressedStores();
+        Value[] values = {
+                Values.stringValue( repeat( "a", 255 ) ),
+                Values.stringValue( repeat( "a", 256 ) ),
+                // 5 bytes of array header and 4 bytes of string length
+                Values.stringArray( repeat( "a", 246 ) ),
+                Values.stringArray( repeat( "a", 247 ) )};
+
+        // when
+        long firstPropertyId = storeValuesAsPropertyChain( creator, owner, values );
+
+        // then
+        Map<Integer,Boolean> compressed = storedCompressed( firstPropertyId );
+        assertFalse( compressed.get( 0 ) );
+        assertTrue( compressed.get( 1 ) );
+        assertFalse( compressed.get( 2 ) );
+        assertTrue( compressed.get( 3 ) );
+        assertPropertyChain( values, firstPropertyId, createCursor() );
+        assertPropertyStoreValues( values, firstPropertyId );
+    }
+
+    @Test
+    public void shouldStoreValuesThatDoNotGetSmallerUncompressed()
+    {
+        // given
+        openCompressedStores();
+        byte[] bytes = new byte[10_000];
+        random.nextBytes( bytes );
+        Value[] values = {Values.byteArray( bytes )};
+        Value[] compressibleValues = compressibleValues();
+
+        // when
+        long firstPropertyId = storeValuesAsPropertyChain( creator, owner, values );
+        long compressiblePropertyId = storeValuesAsPropertyChain( creator, owner, compressibleValues );
+
+        // then
+        assertFalse( storedCompressed( firstPropertyId ).get( 0 ) );
+        assertStoredCompressed( true, compressiblePropertyId );
+        RecordPropertyCursor cursor = createCursor();
+        assertPropertyChain( values, firstPropertyId, cursor );
+        assertPropertyChain( compressibleValues, compressiblePropertyId, cursor );
+        assertPropertyStoreValues( values, firstPropertyId );
+    }
+
+    @Test
+    public void shouldReadUncompressedAndCompressedValuesAfterUpgradeToCompressedFormat() throws IOException
+    {
+        // given values stored before the upgrade
+        Value[] values = compressibleValues();
+        long uncompressedPropertyId = storeValuesAsPropertyChain( creator, owner, values );
+        neoStores.close();
+        DatabaseLayout databaseLayout = storage.directory().databaseLayout();
+        MetaDataStore.setRecord( storage.pageCache(), databaseLayout.metadataStore(), STORE_VERSION,
+                MetaDataStore.versionStringToLong( StandardCompressedV3_5.STORE_VERSION ) );
+        openStores( databaseLayout, StandardCompressedV3_5.RECORD_FORMATS );
+
+        // when
+        long compressedPropertyId = storeValuesAsPropertyChain( creator, owner, values );
+
+        // then
+        assertStoredCompressed( false, uncompressedPropertyId );
+        assertStoredCompressed( true, compressedPropertyId );
+        RecordPropertyCursor cursor = createCursor();
+        assertPropertyChain( values, uncompressedPropertyId, cursor );
+        assertPropertyChain( values, compressedPropertyId, cursor );
+        assertPropertyStoreValues( values, uncompressedPropertyId );
+        assertPropertyStoreValues( values, compressedPropertyId );
+    }
+
+    @Test
+    public void shouldStoreCompressedValuesInFewerDynamicRecords()
+    {
+        // given
+        Value value = Values.stringValue( repeat( "{\"name\": \"value\"}", 100 ) );
+        long uncompressedRecords = storeValueAndCountStringRecords( value );
+        openCompressedStores();
+
+        // when
+        long compressedRecords = storeValueAndCountStringRecords( value );
+
+        // then
+        assertTrue( compressedRecords + " < " + uncompressedRecords, compressedRecords < uncompressedRecords );
+    }
+
     @Test
     public void closeShouldBeIdempotent()
     {
@@ -154,6 +289,85 @@ public class RecordPropertyCursorTest
         return firstPropertyId;
     }
 
+    private void assertPropertyStoreValues( Value[] values, long firstPropertyId )
+    {
+        PropertyStore propertyStore = neoStores.getPropertyStore();
+        for ( PropertyRecord record : propertyStore.getPropertyRecordChain( firstPropertyId ) )
+        {
+            for ( PropertyBlock block : record )
+            {
+                assertEquals( values[block.getKeyIndexId()], propertyStore.getValue( block ) );
+            }
+        }
+    }
+
+    private void assertStoredCompressed( boolean expected, long firstPropertyId )
+    {
+        for ( Map.Entry<Integer,Boolean> compressed : storedCompressed( firstPropertyId ).entrySet() )
+        {
+            assertEquals( "Value of key " + compressed.getKey(), expected, compressed.getValue() );
+        }
+    }
+
+    /**
+     * @return whether the value of each property key in the chain that is stored in dynamic records is compressed.
+     */
+    private Map<Integer,Boolean> storedCompressed( long firstPropertyId )
+    {
+        PropertyStore propertyStore = neoStores.getPropertyStore();
+        Map<Integer,Boolean> compressed = new HashMap<>();
+        for ( PropertyRecord record : propertyStore.getPropertyRecordChain( firstPropertyId ) )
+        {
+            for ( PropertyBlock block : record )
+            {
+                propertyStore.ensureHeavy( block );
+                if ( !block.getValueRecords().isEmpty() )
+                {
+                    byte firstByte = block.getValueRecords().get( 0 ).getData()[0];
+                    compressed.put( block.getKeyIndexId(), firstByte == DynamicValueCompression.MARKER );
+                }
+            }
+        }
+        return compressed;
+    }
+
+    private static Value[] compressibleValues()
+    {
+        PointValue[] points = new PointValue[100];
+        LocalDate[] dates = new LocalDate[100];
+        ZonedDateTime[] dateTimes = new ZonedDateTime[100];
+        for ( int i = 0; i < points.length; i++ )
+        {
+            points[i] = Values.pointValue( CoordinateReferenceSystem.WGS84, 12.97, 56.7 );
+            dates[i] = LocalDate.of( 2019, 1, 1 + i % 28 );
+            dateTimes[i] = ZonedDateTime.of( 2019, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC );
+        }
+        return new Value[]{
+                Values.stringValue( repeat( "{\"name\": \"value\"}", 100 ) ),
+                Values.stringArray( repeat( "text", 100 ).split( "x" ) ),
+                Values.doubleArray( new double[1_000] ),
+                Values.pointArray( points ),
+                Values.dateArray( dates ),
+                Values.dateTimeArray( dateTimes )};
+    }
+
+    private long storeValueAndCountStringRecords( Value value )
+    {
+        long highIdBefore = neoStores.getPropertyStore().getStringStore().getHighId();
+        storeValuesAsPropertyChain( creator, owner, new Value[]{value} );
+        return neoStores.getPropertyStore().getStringStore().getHighId() - highIdBefore;
+    }
+
+    private static String repeat( String string, int times )
+    {
+        StringBuilder builder = new StringBuilder();
+        for ( int i = 0; i < times; i++ )
+        {
+            builder.append( string );
+        }
+        return builder.toString();
+    }
+
     private Map<Integer,Value> asMap( Value[] values )
     {
         Map<Integer,Value> map = new HashMap<>();
@@ -145,6 +145,42 @@ public class RecordRelationshipScanCursorTest
         assertSeesRelationships( expected, theType );
     }
 
+    @Test
+    public void shouldScanBatchesOfRelationshipsOfCertainTypeWithoutRelationshipTypeScanStore()
+    {
+        // given
+        RelationshipStore relationshipStore = neoStores.getRelationshipStore();
+        int count = 1_000;
+        relationshipStore.setHighId( count );
+        Set<Long> expected = new HashSet<>();
+        int theType = 1;
+        for ( long id = 0; id < count; id++ )
+        {
+            boolean inUse = random.nextBoolean();
+            int type = random.nextInt( 3 );
+            createRelationshipRecord( id, type, relationshipStore, inUse );
+            if ( inUse && type == theType )
+            {
+                expected.add( id );
+            }
+        }
+
+        // when
+        RecordRelationshipTypeScan scan = new RecordRelationshipTypeScan( new RecordRelationshipScan( relationshipStore.getRecordsPerPage() ), theType );
+        try ( RecordRelationshipScanCursor cursor = createRelationshipCursor() )
+        {
+            while ( cursor.scanBatch( scan, 100 ) )
+            {
+                while ( cursor.next() )
+                {
+                    // then
+                    assertTrue( cursor.toString(), expected.remove( cursor.entityReference() ) );
+                }
+            }
+        }
+        assertTrue( expected.isEmpty() );
+    }
+
     private void assertSeesRelationships( Set<Long> expected, int type )
     {
         try ( RecordRelationshipScanCursor cursor = createRelationshipCursor() )
@@ -55,7 +55,7 @@ import org.neo4j.kernel.impl.locking.LockGroup;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command;
@@ -167,7 +167,7 @@ public class RecordStorageEngineTest
         Exception applicationError = executeFailingTransaction( engine );
         assertNotNull( applicationError );
 
-        CountsTracker countsStore = engine.testAccessNeoStores().getCounts();
+        CountsStore countsStore = engine.testAccessNeoStores().getCounts();
         // possible to obtain a resetting updater that internally has a write lock on the counts store
         try ( CountsAccessor.Updater updater = countsStore.reset( 0 ) )
         {
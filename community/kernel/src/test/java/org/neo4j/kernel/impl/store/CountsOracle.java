@@ -24,7 +24,7 @@ import java.util.List;
 import org.neo4j.kernel.impl.api.CountsAccessor;
 import org.neo4j.kernel.impl.api.CountsRecordState;
 import org.neo4j.kernel.impl.api.CountsVisitor;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.register.Register;
 
 import static org.junit.Assert.assertEquals;
@@ -65,7 +65,7 @@ public class CountsOracle
         state.replaceIndexSample( indexId, unique, size );
     }
 
-    public void update( CountsTracker target, long txId )
+    public void update( CountsStore target, long txId )
     {
         try ( CountsAccessor.Updater updater = target.apply( txId ).get();
               CountsAccessor.IndexStatsUpdater stats = target.updateIndexCounts() )
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import org.neo4j.string.UTF8;
+import org.neo4j.test.rule.RandomRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.store.DynamicValueCompression.HEADER_SIZE;
+import static org.neo4j.kernel.impl.store.DynamicValueCompression.MARKER;
+import static org.neo4j.kernel.impl.store.DynamicValueCompression.ZSTD;
+
+public class DynamicValueCompressionTest
+{
+    @Rule
+    public final RandomRule random = new RandomRule();
+
+    @Test
+    public void shouldNotCompressValuesShorterThan256Bytes()
+    {
+        // given
+        byte[] value = new byte[255];
+
+        // when
+        byte[] stored = ZSTD.compressValue( value );
+
+        // then
+        assertSame( value, stored );
+    }
+
+    @Test
+    public void shouldCompressValuesOf256Bytes()
+    {
+        // given
+        byte[] value = new byte[256];
+
+        // when
+        byte[] stored = ZSTD.compressValue( value );
+
+        // then
+        assertTrue( stored.length < value.length );
+        assertEquals( MARKER, stored[0] );
+        assertTrue( DynamicValueCompression.isCompressed( stored, stored.length ) );
+        assertArrayEquals( value, DynamicValueCompression.decompressValue( stored, stored.length ) );
+    }
+
+    @Test
+    public void shouldNotCompressValuesThatDoNotGetSmaller()
+    {
+        // given
+        byte[] value = new byte[10_000];
+        random.nextBytes( value );
+
+        // when
+        byte[] stored = ZSTD.compressValue( value );
+
+        // then
+        assertSame( value, stored );
+    }
+
+    @Test
+    public void shouldDecompressValueWithHeaderReadSeparately()
+    {
+        // given
+        byte[] value = new byte[1_000];
+        for ( int i = 0; i < value.length; i++ )
+        {
+            value[i] = (byte) random.nextInt( 4 );
+        }
+        byte[] stored = ZSTD.compressValue( value );
+
+        // when
+        byte[] decompressed = DynamicValueCompression.decompressValue( Arrays.copyOf( stored, HEADER_SIZE ),
+                Arrays.copyOfRange( stored, HEADER_SIZE, stored.length ) );
+
+        // then
+        assertArrayEquals( value, decompressed );
+    }
+
+    @Test
+    public void shouldDecompressValueInPrefixOfLargerArray()
+    {
+        // given
+        byte[] value = new byte[1_000];
+        byte[] stored = ZSTD.compressValue( value );
+        byte[] buffer = Arrays.copyOf( stored, stored.length + 100 );
+
+        // when
+        byte[] decompressed = DynamicValueCompression.decompressValue( buffer, stored.length );
+
+        // then
+        assertArrayEquals( value, decompressed );
+    }
+
+    @Test
+    public void shouldNotSeeUncompressedValuesAsCompressed()
+    {
+        assertFalse( DynamicValueCompression.isCompressed( UTF8.encode( "{\"name\": \"value\"}" ), 17 ) );
+        assertFalse( DynamicValueCompression.isCompressed( new byte[]{PropertyType.STRING.byteValue(), 0, 0, 0, 0, 0}, 6 ) );
+        assertFalse( DynamicValueCompression.isCompressed( new byte[]{MARKER}, 1 ) );
+    }
+
+    @Test( expected = InvalidRecordException.class )
+    public void shouldFailOnUnknownCompression()
+    {
+        byte[] stored = ZSTD.compressValue( new byte[1_000] );
+        stored[1] = 42;
+        DynamicValueCompression.decompressValue( stored, stored.length );
+    }
+
+    @Test( expected = InvalidRecordException.class )
+    public void shouldFailOnUnexpectedDecompressedLength()
+    {
+        byte[] stored = ZSTD.compressValue( new byte[1_000] );
+        stored[5]++;
+        DynamicValueCompression.decompressValue( stored, stored.length );
+    }
+}
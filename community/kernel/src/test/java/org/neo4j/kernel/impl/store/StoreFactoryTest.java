@@ -37,6 +37,8 @@ import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.configuration.Settings;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.format.standard.StandardCompressedV3_5;
+import org.neo4j.kernel.impl.store.format.standard.StandardV3_4;
 import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.logging.LogProvider;
@@ -149,6 +151,28 @@ public class StoreFactoryTest
         assertEquals( 0, fsRule.get().listFiles( testDirectory.databaseDir() ).length );
     }
 
+    @Test( expected = UnexpectedStoreVersionException.class )
+    public void shouldNotOpenStoreWithCompressedPropertyValuesWithFormatThatCanNotReadThem()
+    {
+        // given
+        storeFactory( Config.defaults( GraphDatabaseSettings.record_format, StandardCompressedV3_5.NAME ) ).openAllNeoStores( true ).close();
+
+        // when
+        new StoreFactory( testDirectory.databaseLayout(), Config.defaults(), idGeneratorFactory, pageCache, fsRule.get(), StandardV3_4.RECORD_FORMATS,
+                NullLogProvider.getInstance(), EmptyVersionContextSupplier.EMPTY ).openAllNeoStores().close();
+    }
+
+    @Test( expected = UnexpectedStoreVersionException.class )
+    public void shouldNotOpenStandardStoreWithCompressedFormatWithoutUpgrade()
+    {
+        // given
+        storeFactory( Config.defaults( GraphDatabaseSettings.record_format, StandardV3_4.NAME ) ).openAllNeoStores( true ).close();
+
+        // when
+        new StoreFactory( testDirectory.databaseLayout(), Config.defaults(), idGeneratorFactory, pageCache, fsRule.get(),
+                StandardCompressedV3_5.RECORD_FORMATS, NullLogProvider.getInstance(), EmptyVersionContextSupplier.EMPTY ).openAllNeoStores().close();
+    }
+
     @Test
     public void shouldHandleStoreConsistingOfOneEmptyFile() throws Exception
     {
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.api.CountsVisitor;
+import org.neo4j.kernel.impl.store.CountsOracle;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.test.rule.Resources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.register.Registers.newDoubleLongRegister;
+import static org.neo4j.test.rule.Resources.InitialLifecycle.STARTED;
+
+public class GBPTreeCountsStoreTest
+{
+    @Rule
+    public final Resources resourceManager = new Resources();
+
+    @Test
+    public void shouldReadAppliedCountsBeforeAndAfterCheckpoint() throws IOException
+    {
+        try ( GBPTreeCountsStore store = openStore() )
+        {
+            // given
+            CountsOracle oracle = someData();
+
+            // when
+            oracle.update( store, 2 );
+
+            // then
+            oracle.verify( store );
+
+            // when
+            store.checkpoint( IOLimiter.UNLIMITED );
+
+            // then
+            oracle.verify( store );
+
+            // when
+            try ( CountsAccessor.IndexStatsUpdater updater = store.updateIndexCounts() )
+            {
+                updater.incrementIndexUpdates( 0, 2 );
+            }
+
+            // then
+            oracle.indexUpdatesAndSize( 0, 12, 2 );
+            oracle.verify( store );
+        }
+    }
+
+    @Test
+    public void shouldRemoveCountsThatDropToZero() throws IOException
+    {
+        try ( GBPTreeCountsStore store = openStore() )
+        {
+            // given
+            increment( store, 2, 1 );
+            store.checkpoint( IOLimiter.UNLIMITED );
+
+            // when
+            increment( store, 3, -1 );
+            store.checkpoint( IOLimiter.UNLIMITED );
+
+            // then
+            assertEquals( 0, store.nodeCount( 1, newDoubleLongRegister() ).readSecond() );
+            store.accept( new CountsVisitor.Adapter()
+            {
+                @Override
+                public void visitNodeCount( int labelId, long count )
+                {
+                    throw new AssertionError( "Should not visit zero count of label " + labelId );
+                }
+            } );
+        }
+    }
+
+    @Test
+    public void shouldApplyEachTransactionOnlyOnceAcrossRestarts() throws IOException
+    {
+        // given
+        try ( GBPTreeCountsStore store = openStore() )
+        {
+            increment( store, 2, 5 );
+            increment( store, 4, 7 );
+            store.checkpoint( IOLimiter.UNLIMITED );
+        }
+
+        try ( GBPTreeCountsStore store = openStore() )
+        {
+            // then
+            assertEquals( 2, store.txId() );
+            assertFalse( store.apply( 2 ).isPresent() );
+            assertFalse( store.apply( 4 ).isPresent() );
+            assertEquals( 12, store.nodeCount( 1, newDoubleLongRegister() ).readSecond() );
+
+            // when
+            increment( store, 3, 1 );
+
+            // then
+            assertEquals( 13, store.nodeCount( 1, newDoubleLongRegister() ).readSecond() );
+            assertEquals( 2, store.txId() );
+            store.checkpoint( IOLimiter.UNLIMITED );
+            assertEquals( 4, store.txId() );
+        }
+    }
+
+    @Test
+    public void shouldOpenAtLastCheckpointIfNotCheckpointedBeforeClose() throws IOException
+    {
+        // given
+        try ( GBPTreeCountsStore store = openStore() )
+        {
+            increment( store, 2, 5 );
+            store.checkpoint( IOLimiter.UNLIMITED );
+            increment( store, 3, 7 );
+        }
+
+        // when
+        try ( GBPTreeCountsStore store = openStore() )
+        {
+            // then
+            assertEquals( 5, store.nodeCount( 1, newDoubleLongRegister() ).readSecond() );
+            assertTrue( store.apply( 3 ).isPresent() );
+        }
+    }
+
+    @Test
+    @Resources.Life( STARTED )
+    public void shouldMigrateCountsFromCountsTracker() throws Exception
+    {
+        // given
+        CountsTracker tracker = resourceManager.managed( new CountsTracker( resourceManager.logProvider(),
+                resourceManager.fileSystem(), resourceManager.pageCache(), Config.defaults(),
+                resourceManager.testDirectory().databaseLayout(), EmptyVersionContextSupplier.EMPTY )
+                .setInitializer( initializer( TransactionIdStore.BASE_TX_ID ) ) );
+        CountsOracle oracle = someData();
+        oracle.update( tracker, 2 );
+        tracker.rotate( 2 );
+
+        // when
+        try ( GBPTreeCountsStore store = openStore( GBPTreeCountsStore.migrationOf( tracker ) ) )
+        {
+            // then
+            oracle.verify( store );
+            assertEquals( 2, store.txId() );
+            assertFalse( store.apply( 2 ).isPresent() );
+        }
+    }
+
+    @Test
+    public void shouldNotApplyTransactionsToCreatedStoreBeforeItIsInitialized() throws IOException
+    {
+        // given
+        try ( GBPTreeCountsStore store = newStore().setInitializer( initializer( 5 ) ) )
+        {
+            store.init();
+            assertTrue( store.needsInitialization() );
+
+            // when recovering a transaction that the initializer will count
+            assertFalse( store.apply( 5 ).isPresent() );
+
+            // then
+            store.start();
+            assertFalse( store.needsInitialization() );
+            assertEquals( 5, store.txId() );
+            assertFalse( store.apply( 5 ).isPresent() );
+            assertTrue( store.apply( 6 ).isPresent() );
+        }
+    }
+
+    @Test
+    public void shouldReplaceAllCountsOnReset() throws IOException
+    {
+        try ( GBPTreeCountsStore store = openStore() )
+        {
+            // given
+            someData().update( store, 2 );
+            store.checkpoint( IOLimiter.UNLIMITED );
+
+            // when
+            try ( CountsAccessor.Updater updater = store.reset( 10 ) )
+            {
+                updater.incrementNodeCount( 7, 3 );
+            }
+            store.checkpoint( IOLimiter.UNLIMITED );
+
+            // then
+            assertEquals( 3, store.nodeCount( 7, newDoubleLongRegister() ).readSecond() );
+            assertEquals( 0, store.nodeCount( 1, newDoubleLongRegister() ).readSecond() );
+            store.accept( new CountsVisitor.Adapter()
+            {
+                @Override
+                public void visitNodeCount( int labelId, long count )
+                {
+                    assertEquals( 7, labelId );
+                }
+
+                @Override
+                public void visitRelationshipCount( int startLabelId, int typeId, int endLabelId, long count )
+                {
+                    throw new AssertionError( "Should not visit relationship counts from before the reset" );
+                }
+            } );
+            assertEquals( 10, store.txId() );
+            assertFalse( store.apply( 10 ).isPresent() );
+            assertTrue( store.apply( 11 ).isPresent() );
+        }
+    }
+
+    private GBPTreeCountsStore openStore() throws IOException
+    {
+        return openStore( initializer( TransactionIdStore.BASE_TX_ID ) );
+    }
+
+    private GBPTreeCountsStore openStore( DataInitializer<CountsAccessor.Updater> initializer ) throws IOException
+    {
+        GBPTreeCountsStore store = newStore().setInitializer( initializer );
+        store.init();
+        store.start();
+        return store;
+    }
+
+    private GBPTreeCountsStore newStore()
+    {
+        return new GBPTreeCountsStore( resourceManager.pageCache(), resourceManager.fileSystem(), file(), false );
+    }
+
+    private File file()
+    {
+        return resourceManager.testDirectory().file( "counts.db" );
+    }
+
+    private static void increment( GBPTreeCountsStore store, long txId, long delta )
+    {
+        try ( CountsAccessor.Updater updater = store.apply( txId ).get() )
+        {
+            updater.incrementNodeCount( 1, delta );
+        }
+    }
+
+    private static CountsOracle someData()
+    {
+        CountsOracle oracle = new CountsOracle();
+        CountsOracle.Node n0 = oracle.node( 0, 1 );
+        CountsOracle.Node n1 = oracle.node( 0, 3 );
+        CountsOracle.Node n2 = oracle.node( 2, 3 );
+        CountsOracle.Node n3 = oracle.node( 2 );
+        oracle.relationship( n0, 1, n2 );
+        oracle.relationship( n1, 1, n3 );
+        oracle.relationship( n1, 1, n2 );
+        oracle.relationship( n0, 1, n3 );
+        oracle.indexUpdatesAndSize( 0, 10, 2 );
+        oracle.indexSampling( 0, 2, 2 );
+        return oracle;
+    }
+
+    private static DataInitializer<CountsAccessor.Updater> initializer( long txId )
+    {
+        return new DataInitializer<CountsAccessor.Updater>()
+        {
+            @Override
+            public void initialize( CountsAccessor.Updater updater )
+            {
+            }
+
+            @Override
+            public long initialVersion()
+            {
+                return txId;
+            }
+        };
+    }
+}
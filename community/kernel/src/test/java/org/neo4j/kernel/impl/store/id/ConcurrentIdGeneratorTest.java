@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
+import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.concurrent.OtherThreadRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentIdGeneratorTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsr = new EphemeralFileSystemRule();
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+    @Rule
+    public final OtherThreadRule<Void> t2 = new OtherThreadRule<>( "forcing", 1, TimeUnit.MINUTES );
+
+    private final File file = new File( "ids" );
+
+    @Test
+    public void shouldReuseFreedIdsInSameSessionWhenAggressive()
+    {
+        // GIVEN
+        IdGenerator idGenerator = open( 10, true, 20 );
+
+        // WHEN
+        idGenerator.freeId( 5 );
+
+        // THEN
+        assertEquals( 1, idGenerator.getDefragCount() );
+        assertEquals( 5, idGenerator.nextId() );
+        assertEquals( 20, idGenerator.nextId() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldReuseFreedIdsOnlyInNextSessionWhenNotAggressive()
+    {
+        // GIVEN
+        IdGenerator idGenerator = open( 10, false, 20 );
+
+        // WHEN
+        idGenerator.freeId( 5 );
+
+        // THEN
+        assertEquals( 20, idGenerator.nextId() );
+        idGenerator.close();
+        IdGenerator reopened = open( 10, false, 0 );
+        assertEquals( 21, reopened.getHighId() );
+        assertEquals( 5, reopened.nextId() );
+        assertEquals( 21, reopened.nextId() );
+        reopened.close();
+    }
+
+    @Test
+    public void shouldKeepIdsCachedByThreadsWhenClosed()
+    {
+        // GIVEN
+        IdGenerator idGenerator = open( 10, true, 20 );
+        idGenerator.freeId( 3 );
+        idGenerator.freeId( 4 );
+        idGenerator.freeId( 5 );
+
+        // WHEN
+        assertEquals( 3, idGenerator.nextId() );
+        idGenerator.close();
+
+        // THEN
+        IdGenerator reopened = open( 10, true, 0 );
+        assertEquals( 2, reopened.getDefragCount() );
+        reopened.close();
+    }
+
+    @Test
+    public void shouldNotOpenFileThatWasNotClosed()
+    {
+        // GIVEN
+        open( 10, true, 20 );
+
+        // THEN
+        expectedException.expect( InvalidIdGeneratorException.class );
+        open( 10, true, 0 );
+    }
+
+    @Test
+    public void shouldRecoverJournaledFreeIdsWhenRebuilt()
+    {
+        // GIVEN a generator that hands out one free id and then is not closed
+        IdGenerator idGenerator = open( 1, true, 20 );
+        idGenerator.freeId( 10 );
+        idGenerator.freeId( 11 );
+        idGenerator.freeId( 12 );
+        assertEquals( 12, idGenerator.nextId() );
+
+        // WHEN rebuilt, as a store does after recovery
+        new ConcurrentIdGeneratorFactory( fsr.get() ).create( file, 0, false );
+        IdGenerator rebuilt = open( 1, true, 0 );
+        rebuilt.setHighId( 20 );
+
+        // THEN
+        assertEquals( 2, rebuilt.getDefragCount() );
+        assertEquals( 11, rebuilt.nextId() );
+        assertEquals( 10, rebuilt.nextId() );
+        assertEquals( 20, rebuilt.nextId() );
+        rebuilt.close();
+    }
+
+    @Test
+    public void shouldKeepRecoveredFreeIdsBelowHighId()
+    {
+        // GIVEN
+        IdGenerator idGenerator = open( 1, true, 20 );
+        idGenerator.freeId( 15 );
+        idGenerator.freeId( 16 );
+        assertEquals( 16, idGenerator.nextId() );
+
+        // WHEN rebuilt, and the store has no records in use above the free ids
+        new ConcurrentIdGeneratorFactory( fsr.get() ).create( file, 0, false );
+        IdGenerator rebuilt = open( 1, true, 0 );
+
+        // THEN
+        assertEquals( 16, rebuilt.getHighId() );
+        assertEquals( 15, rebuilt.nextId() );
+        assertEquals( 16, rebuilt.nextId() );
+        rebuilt.close();
+    }
+
+    @Test
+    public void shouldWriteFilesThatIdGeneratorImplCanRead()
+    {
+        // GIVEN
+        IdGenerator idGenerator = open( 10, true, 20 );
+        idGenerator.freeId( 7 );
+        idGenerator.close();
+
+        // WHEN
+        IdGenerator idGeneratorImpl = new IdGeneratorImpl( fsr.get(), file, 10, 100, true, IdType.NODE, () -> 0L );
+
+        // THEN
+        assertEquals( 20, idGeneratorImpl.getHighId() );
+        assertEquals( 1, idGeneratorImpl.getDefragCount() );
+        assertEquals( 7, idGeneratorImpl.nextId() );
+        idGeneratorImpl.close();
+    }
+
+    @Test
+    public void shouldReadFilesWrittenByIdGeneratorImpl()
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 20, false );
+        IdGenerator idGeneratorImpl = new IdGeneratorImpl( fsr.get(), file, 10, 100, true, IdType.NODE, () -> 0L );
+        idGeneratorImpl.freeId( 7 );
+        idGeneratorImpl.close();
+
+        // WHEN
+        IdGenerator idGenerator = open( 10, true, 0 );
+
+        // THEN
+        assertEquals( 20, idGenerator.getHighId() );
+        assertEquals( 7, idGenerator.nextId() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldNeverHandOutSameIdToConcurrentThreads() throws Throwable
+    {
+        // GIVEN
+        IdGenerator idGenerator = open( 100, true, 1_000 );
+        for ( long id = 0; id < 1_000; id++ )
+        {
+            idGenerator.freeId( id );
+        }
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int idsPerThread = 1_000;
+
+        // WHEN
+        Race race = new Race();
+        race.addContestants( threads, () ->
+        {
+            for ( int i = 0; i < idsPerThread; i++ )
+            {
+                assertTrue( ids.add( idGenerator.nextId() ) );
+            }
+        } );
+        race.go();
+
+        // THEN
+        assertEquals( threads * idsPerThread, ids.size() );
+        assertEquals( threads * idsPerThread, idGenerator.getNumberOfIdsInUse() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldFreeAndTakeIdsWhileAnotherThreadForcesTheJournal() throws Exception
+    {
+        // GIVEN a file system where forcing the journal blocks until released
+        CountDownLatch forcing = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        FileSystemAbstraction fs = new DelegatingFileSystemAbstraction( fsr.get() )
+        {
+            @Override
+            public StoreChannel open( File fileName, OpenMode openMode ) throws IOException
+            {
+                return new DelegatingStoreChannel( super.open( fileName, openMode ) )
+                {
+                    @Override
+                    public void force( boolean metaData ) throws IOException
+                    {
+                        if ( forcing.getCount() > 0 )
+                        {
+                            forcing.countDown();
+                            awaitUninterruptibly( release );
+                        }
+                        super.force( metaData );
+                    }
+                };
+            }
+        };
+        IdGenerator idGenerator = new ConcurrentIdGenerator( fs, file, 1, 100_000, true, IdType.NODE, () -> 20L );
+        idGenerator.freeId( 5 );
+        idGenerator.freeId( 6 );
+
+        // WHEN one thread takes a free id and blocks forcing the journal
+        Future<Long> blocked = t2.execute( state -> idGenerator.nextId() );
+        forcing.await();
+
+        // THEN other threads can still free and take ids, here without a stripe that the blocked thread may hold
+        idGenerator.freeId( 7 );
+        IdRange taken = idGenerator.nextIdBatch( 1 );
+        release.countDown();
+        assertArrayEquals( new long[]{7}, taken.getDefragIds() );
+        assertEquals( 6, blocked.get().longValue() );
+        idGenerator.close();
+    }
+
+    private static void awaitUninterruptibly( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( e );
+        }
+    }
+
+    private IdGenerator open( int grabSize, boolean aggressiveReuse, long highId )
+    {
+        return new ConcurrentIdGenerator( fsr.get(), file, grabSize, 100_000, aggressiveReuse, IdType.NODE,
+                () -> highId );
+    }
+}
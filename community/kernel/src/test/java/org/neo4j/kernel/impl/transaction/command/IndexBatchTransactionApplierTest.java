@@ -41,7 +41,9 @@ import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.RelationshipStore;
 import org.neo4j.kernel.impl.store.record.DynamicRecord;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
 import org.neo4j.storageengine.api.EntityType;
 import org.neo4j.storageengine.api.schema.SchemaRule;
 import org.neo4j.storageengine.api.schema.StoreIndexDescriptor;
@@ -51,6 +53,7 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -71,11 +74,13 @@ public class IndexBatchTransactionApplierTest
         LabelScanWriter writer = new OrderVerifyingLabelScanWriter( 10, 15, 20 );
         WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanSync =
                 spy( new WorkSync<>( singletonProvider( writer ) ) );
+        WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> relationshipTypeScanSync =
+                new WorkSync<>( singletonProvider( mock( LabelScanWriter.class ) ) );
         WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync = new WorkSync<>( indexing );
         TransactionToApply tx = mock( TransactionToApply.class );
         PropertyStore propertyStore = mock( PropertyStore.class );
-        try ( IndexBatchTransactionApplier applier = new IndexBatchTransactionApplier( indexing, labelScanSync, indexUpdatesSync, mock( NodeStore.class ),
-                mock( RelationshipStore.class ), propertyStore, new IndexActivator( indexing ) ) )
+        try ( IndexBatchTransactionApplier applier = new IndexBatchTransactionApplier( indexing, labelScanSync, relationshipTypeScanSync, indexUpdatesSync,
+                mock( NodeStore.class ), mock( RelationshipStore.class ), propertyStore, new IndexActivator( indexing ) ) )
         {
             try ( TransactionApplier txApplier = applier.startTx( tx ) )
             {
@@ -89,6 +94,36 @@ public class IndexBatchTransactionApplierTest
         verify( labelScanSync ).applyAsync( any() );
     }
 
+    @Test
+    public void shouldProvideRelationshipTypeScanStoreUpdatesForCreatedAndDeletedRelationships() throws Exception
+    {
+        // GIVEN
+        IndexingService indexing = mock( IndexingService.class );
+        when( indexing.convertToIndexUpdates( any(), eq( EntityType.RELATIONSHIP ) ) ).thenAnswer( o -> Iterables.empty() );
+        WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanSync =
+                spy( new WorkSync<>( singletonProvider( mock( LabelScanWriter.class ) ) ) );
+        LabelScanWriter writer = new OrderVerifyingLabelScanWriter( 10, 15 );
+        WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> relationshipTypeScanSync =
+                spy( new WorkSync<>( singletonProvider( writer ) ) );
+        WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync = new WorkSync<>( indexing );
+        TransactionToApply tx = mock( TransactionToApply.class );
+        PropertyStore propertyStore = mock( PropertyStore.class );
+        try ( IndexBatchTransactionApplier applier = new IndexBatchTransactionApplier( indexing, labelScanSync, relationshipTypeScanSync,
+                indexUpdatesSync, mock( NodeStore.class ), mock( RelationshipStore.class ), propertyStore, new IndexActivator( indexing ) ) )
+        {
+            try ( TransactionApplier txApplier = applier.startTx( tx ) )
+            {
+                // WHEN
+                txApplier.visitRelationshipCommand( relationship( 15, true, false ) );
+                txApplier.visitRelationshipCommand( relationship( 20, true, true ) );
+                txApplier.visitRelationshipCommand( relationship( 10, false, true ) );
+            }
+        }
+        // THEN all assertions happen inside the LabelScanWriter#write and #close
+        verify( relationshipTypeScanSync ).applyAsync( any() );
+        verify( labelScanSync, never() ).applyAsync( any() );
+    }
+
     @Test
     public void shouldRegisterIndexesToActivateIntoTheActivator() throws Exception
     {
@@ -97,6 +132,8 @@ public class IndexBatchTransactionApplierTest
         LabelScanWriter writer = new OrderVerifyingLabelScanWriter( 10, 15, 20 );
         WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanSync =
                 spy( new WorkSync<>( singletonProvider( writer ) ) );
+        WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> relationshipTypeScanSync =
+                new WorkSync<>( singletonProvider( mock( LabelScanWriter.class ) ) );
         WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync = new WorkSync<>( indexing );
         PropertyStore propertyStore = mock( PropertyStore.class );
         TransactionToApply tx = mock( TransactionToApply.class );
@@ -111,7 +148,7 @@ public class IndexBatchTransactionApplierTest
         StoreIndexDescriptor rule1 = uniqueForSchema( forLabel( 1, 1 ), providerDescriptor ).withIds( indexId1, constraintId1 );
         StoreIndexDescriptor rule2 = uniqueForSchema( forLabel( 2, 1 ), providerDescriptor ).withIds( indexId2, constraintId2 );
         StoreIndexDescriptor rule3 = uniqueForSchema( forLabel( 3, 1 ), providerDescriptor ).withIds( indexId3, constraintId3 );
-        try ( IndexBatchTransactionApplier applier = new IndexBatchTransactionApplier( indexing, labelScanSync,
+        try ( IndexBatchTransactionApplier applier = new IndexBatchTransactionApplier( indexing, labelScanSync, relationshipTypeScanSync,
                 indexUpdatesSync, mock( NodeStore.class ), mock( RelationshipStore.class ),
                 propertyStore, indexActivator ) )
         {
@@ -163,6 +200,15 @@ public class IndexBatchTransactionApplierTest
         return new NodeCommand( new NodeRecord( nodeId ), after );
     }
 
+    private RelationshipCommand relationship( long relationshipId, boolean inUseBefore, boolean inUseAfter )
+    {
+        RelationshipRecord before = new RelationshipRecord( relationshipId, 1, 2, 3 );
+        before.setInUse( inUseBefore );
+        RelationshipRecord after = new RelationshipRecord( relationshipId, 1, 2, 3 );
+        after.setInUse( inUseAfter );
+        return new RelationshipCommand( before, after );
+    }
+
     private static class OrderVerifyingLabelScanWriter implements LabelScanWriter
     {
         private final long[] expectedNodeIds;
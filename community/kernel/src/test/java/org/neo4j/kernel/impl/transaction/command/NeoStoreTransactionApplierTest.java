@@ -110,6 +110,8 @@ public class NeoStoreTransactionApplierTest
     private final DynamicRecord three = DynamicRecord.dynamicRecord( 3, true );
     private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork>
             labelScanStoreSynchronizer = new WorkSync<>( labelScanStore );
+    private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork>
+            relationshipTypeScanStoreSynchronizer = new WorkSync<>( labelScanStore );
     private final TransactionToApply transactionToApply = mock( TransactionToApply.class );
     private final WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync = new WorkSync<>( indexingService );
     private final IndexActivator indexActivator = new IndexActivator( indexingService );
@@ -907,7 +909,7 @@ public class NeoStoreTransactionApplierTest
     private BatchTransactionApplier newIndexApplier()
     {
         return new IndexBatchTransactionApplier( indexingService, labelScanStoreSynchronizer,
-                indexUpdatesSync, nodeStore, neoStores.getRelationshipStore(), propertyStore, indexActivator );
+                relationshipTypeScanStoreSynchronizer, indexUpdatesSync, nodeStore, neoStores.getRelationshipStore(), propertyStore, indexActivator );
     }
 
     private boolean apply( BatchTransactionApplier applier, ApplyFunction function, TransactionToApply transactionToApply ) throws Exception
@@ -63,6 +63,8 @@ public class NeoTransactionIndexApplierTest
     private final Collection<DynamicRecord> emptyDynamicRecords = Collections.emptySet();
     private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSynchronizer =
             new WorkSync<>( labelScanStore );
+    private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> relationshipTypeScanStoreSynchronizer =
+            new WorkSync<>( labelScanStore );
     private final WorkSync<IndexingUpdateService,IndexUpdatesWork> indexUpdatesSync = new WorkSync<>( indexingService );
     private final TransactionToApply transactionToApply = mock( TransactionToApply.class );
 
@@ -100,8 +102,8 @@ public class NeoTransactionIndexApplierTest
     private IndexBatchTransactionApplier newIndexTransactionApplier()
     {
         PropertyStore propertyStore = mock( PropertyStore.class );
-        return new IndexBatchTransactionApplier( indexingService, labelScanStoreSynchronizer, indexUpdatesSync, mock( NodeStore.class ),
-                mock( RelationshipStore.class ), propertyStore, new IndexActivator( indexingService ) );
+        return new IndexBatchTransactionApplier( indexingService, labelScanStoreSynchronizer, relationshipTypeScanStoreSynchronizer,
+                indexUpdatesSync, mock( NodeStore.class ), mock( RelationshipStore.class ), propertyStore, new IndexActivator( indexingService ) );
     }
 
     @Test
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.core.DatabasePanicEventGenerator;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache.TransactionMetadata;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompression;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.logging.NullLog;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createNode;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createProperty;
+import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_ID;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
+import static org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent.NULL;
+import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
+import static org.neo4j.test.Race.throwing;
+
+/**
+ * Checks that the transactions appended by {@link BatchingTransactionAppender} from many concurrent committers all end
+ * up in the log, in the order of their transaction ids, with the headers and checksums they were committed with, and
+ * that a compressed log holds all the transactions appended to it.
+ */
+public class BatchingTransactionAppenderConcurrentCommitIT
+{
+    private static final int COMMITTERS = 16;
+    private static final int TRANSACTIONS_PER_COMMITTER = 500;
+    private static final int COMMANDS_PER_TRANSACTION = 20;
+    private static final int SEQUENTIAL_TRANSACTIONS = 2_000;
+    private static final int MASTER_ID = 1;
+
+    private final TestDirectory directory = TestDirectory.testDirectory();
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    @Rule
+    public final RuleChain chain = outerRule( directory ).around( fileSystemRule );
+
+    @Test
+    public void concurrentCommittersMustProduceLogInCommitOrderWithIntactChecksums() throws Throwable
+    {
+        LifeSupport life = new LifeSupport();
+        try
+        {
+            LogFiles logFiles = LogFilesBuilder.builder( directory.databaseLayout(), fileSystemRule.get() )
+                    .withLogVersionRepository( new SimpleLogVersionRepository() )
+                    .withTransactionIdStore( new SimpleTransactionIdStore() ).build();
+            life.add( logFiles );
+            DatabaseHealth health = new DatabaseHealth( mock( DatabasePanicEventGenerator.class ), NullLog.getInstance() );
+            TransactionMetadataCache metadataCache = new TransactionMetadataCache();
+            TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                    metadataCache, new SimpleTransactionIdStore(), BYPASS, health ) );
+            life.start();
+
+            // when
+            long[][] committedTxIds = new long[COMMITTERS][TRANSACTIONS_PER_COMMITTER];
+            Race race = new Race();
+            for ( int committer = 0; committer < COMMITTERS; committer++ )
+            {
+                int authorId = committer;
+                race.addContestant( throwing( () ->
+                {
+                    for ( int sequence = 0; sequence < TRANSACTIONS_PER_COMMITTER; sequence++ )
+                    {
+                        committedTxIds[authorId][sequence] = appender.append(
+                                new TransactionToApply( transaction( authorId, sequence ) ), NULL );
+                    }
+                } ) );
+            }
+            race.go();
+
+            // then
+            assertLogInCommitOrder( logFiles, metadataCache, committedTxIds );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    public void compressedLogMustHoldAllTransactionsInLessSpace() throws Throwable
+    {
+        long uncompressedSize = appendSequentially( null );
+        long compressedSize = appendSequentially( LogEntryCompression.ZSTD );
+
+        assertThat( compressedSize, lessThan( uncompressedSize ) );
+    }
+
+    /**
+     * @return the size of the log that the transactions were appended to.
+     */
+    private long appendSequentially( LogEntryCompression compression ) throws Throwable
+    {
+        String name = compression == null ? "uncompressed" : compression.name().toLowerCase();
+        LifeSupport life = new LifeSupport();
+        try
+        {
+            LogFiles logFiles = LogFilesBuilder.builder( directory.databaseLayout( name ), fileSystemRule.get() )
+                    .withLogVersionRepository( new SimpleLogVersionRepository() )
+                    .withTransactionIdStore( new SimpleTransactionIdStore() ).build();
+            life.add( logFiles );
+            DatabaseHealth health = new DatabaseHealth( mock( DatabasePanicEventGenerator.class ), NullLog.getInstance() );
+            TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                    new TransactionMetadataCache(), new SimpleTransactionIdStore(), BYPASS, health, null, null, 0, 0,
+                    compression, NullLogProvider.getInstance(), LogForceWindow.Monitor.NO_MONITOR ) );
+            life.start();
+
+            for ( int i = 0; i < SEQUENTIAL_TRANSACTIONS; i++ )
+            {
+                appender.append( new TransactionToApply( transactionWithStrings( i ) ), NULL );
+            }
+
+            assertEquals( SEQUENTIAL_TRANSACTIONS, committedTransactionsIn( logFiles ) );
+            return fileSystemRule.get().getFileSize( logFiles.getHighestLogFile() );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    private static void assertLogInCommitOrder( LogFiles logFiles, TransactionMetadataCache metadataCache,
+            long[][] committedTxIds ) throws IOException
+    {
+        long expectedTxId = BASE_TX_ID + 1;
+        int[] nextSequenceOfCommitter = new int[COMMITTERS];
+        try ( ReadableLogChannel reader = logFiles.getLogFile().getReader( new LogPosition( 0, LOG_HEADER_SIZE ) ) )
+        {
+            VersionAwareLogEntryReader<ReadableLogChannel> entryReader = new VersionAwareLogEntryReader<>();
+            LogEntryStart start = null;
+            int commands = 0;
+            LogEntry entry;
+            while ( (entry = entryReader.readLogEntry( reader )) != null )
+            {
+                if ( entry instanceof LogEntryStart )
+                {
+                    assertNull( "Transaction started before the previous one committed", start );
+                    start = (LogEntryStart) entry;
+                    commands = 0;
+                }
+                else if ( entry instanceof LogEntryCommand )
+                {
+                    commands++;
+                }
+                else if ( entry instanceof LogEntryCommit )
+                {
+                    assertNotNull( "Transaction committed without being started", start );
+                    long txId = ((LogEntryCommit) entry).getTxId();
+                    assertEquals( expectedTxId, txId );
+                    assertEquals( COMMANDS_PER_TRANSACTION, commands );
+
+                    // Every committer appends its transactions one after the other, so they must be in the log in that order.
+                    int committer = start.getLocalId();
+                    int sequence = ByteBuffer.wrap( start.getAdditionalHeader() ).getInt();
+                    assertEquals( nextSequenceOfCommitter[committer]++, sequence );
+                    assertEquals( committedTxIds[committer][sequence], txId );
+
+                    assertEquals( checksum( additionalHeader( sequence ), MASTER_ID, committer ), start.checksum() );
+                    TransactionMetadata metadata = metadataCache.getTransactionMetadata( txId );
+                    assertEquals( start.checksum(), metadata.getChecksum() );
+                    assertEquals( start.getStartPosition(), metadata.getStartPosition() );
+                    expectedTxId++;
+                    start = null;
+                }
+            }
+            assertNull( "Transaction started but never committed", start );
+        }
+        assertEquals( COMMITTERS * TRANSACTIONS_PER_COMMITTER, expectedTxId - BASE_TX_ID - 1 );
+    }
+
+    private static long committedTransactionsIn( LogFiles logFiles ) throws IOException
+    {
+        long transactions = 0;
+        try ( ReadableLogChannel reader = logFiles.getLogFile().getReader( new LogPosition( 0, LOG_HEADER_SIZE ) ) )
+        {
+            VersionAwareLogEntryReader<ReadableLogChannel> entryReader = new VersionAwareLogEntryReader<>();
+            LogEntry entry;
+            while ( (entry = entryReader.readLogEntry( reader )) != null )
+            {
+                if ( entry instanceof LogEntryCommit )
+                {
+                    transactions++;
+                }
+            }
+        }
+        return transactions;
+    }
+
+    private static TransactionRepresentation transaction( int authorId, int sequence )
+    {
+        Collection<StorageCommand> commands = new ArrayList<>( COMMANDS_PER_TRANSACTION );
+        for ( int i = 0; i < COMMANDS_PER_TRANSACTION / 2; i++ )
+        {
+            commands.add( createNode( i ) );
+            commands.add( createProperty( i, PropertyType.INT, 0 ) );
+        }
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+        tx.setHeader( additionalHeader( sequence ), MASTER_ID, authorId, 0, 0, 0, 0 );
+        return tx;
+    }
+
+    private static byte[] additionalHeader( int sequence )
+    {
+        return ByteBuffer.allocate( Integer.BYTES ).putInt( sequence ).array();
+    }
+
+    private static TransactionRepresentation transactionWithStrings( int seed )
+    {
+        Collection<StorageCommand> commands = new ArrayList<>( COMMANDS_PER_TRANSACTION );
+        for ( int i = 0; i < COMMANDS_PER_TRANSACTION; i++ )
+        {
+            long id = (long) seed * COMMANDS_PER_TRANSACTION + i;
+            PropertyBlock block = new PropertyBlock();
+            PropertyStore.setSingleBlockValue( block, 0, PropertyType.STRING, id );
+            DynamicRecord value = new DynamicRecord( id );
+            value.setInUse( true );
+            value.setCreated();
+            value.setStartRecord( true );
+            value.setType( PropertyType.STRING.intValue() );
+            value.setData( ("a string property value of node " + id + " that is much like the others ")
+                    .getBytes( StandardCharsets.UTF_8 ) );
+            block.setValueRecords( Collections.singletonList( value ) );
+            PropertyRecord after = new PropertyRecord( id );
+            after.setInUse( true );
+            after.setCreated();
+            after.addPropertyBlock( block );
+            commands.add( new PropertyCommand( new PropertyRecord( id ), after ) );
+        }
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+        tx.setHeader( new byte[0], 0, 0, 0, 0, 0, 0 );
+        return tx;
+    }
+}
@@ -24,17 +24,26 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompression;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
@@ -45,8 +54,11 @@ import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.logging.NullLogProvider;
 import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.OnDemandJobScheduler;
 import org.neo4j.test.rule.CleanupRule;
+import org.neo4j.test.rule.PageCacheAndDependenciesRule;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertArrayEquals;
@@ -54,10 +66,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyByte;
-import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.RETURNS_MOCKS;
@@ -68,7 +80,10 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
 import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
 
@@ -78,6 +93,8 @@ public class BatchingTransactionAppenderTest
     public final LifeRule life = new LifeRule( true );
     @Rule
     public final CleanupRule cleanup = new CleanupRule();
+    @Rule
+    public final PageCacheAndDependenciesRule storage = new PageCacheAndDependenciesRule();
 
     private final InMemoryVersionableReadableClosablePositionAwareChannel channel =
             new InMemoryVersionableReadableClosablePositionAwareChannel();
@@ -87,6 +104,7 @@ public class BatchingTransactionAppenderTest
     private final LogFiles logFiles = mock( TransactionLogFiles.class );
     private final TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
     private final TransactionMetadataCache positionCache = new TransactionMetadataCache();
+    private final PageCache pageCache = mock( PageCache.class );
 
     @Before
     public void setUp()
@@ -246,7 +264,8 @@ public class BatchingTransactionAppenderTest
         FlushablePositionAwareChannel channel =
                 spy( new PositionAwarePhysicalFlushableChannel( mock( PhysicalLogVersionedStoreChannel.class ) ) );
         IOException failure = new IOException( failureMessage );
-        when( channel.putInt( anyInt() ) ).thenThrow( failure );
+        // Transactions are serialized before the log file is locked, so fail when writing the commit entry
+        when( channel.putLong( anyLong() ) ).thenThrow( failure );
         when( logFile.getWriter() ).thenReturn( channel );
         when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( txId );
         Mockito.reset( databaseHealth );
@@ -311,6 +330,168 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    public void shouldAppendCompressedTransaction() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 15L );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, null, null, 0, 0, LogEntryCompression.ZSTD,
+                NullLogProvider.getInstance(), LogForceWindow.Monitor.NO_MONITOR ) );
+        Collection<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            commands.addAll( singleCreateNodeCommand( i ) );
+        }
+
+        // WHEN
+        TransactionRepresentation transaction = transaction( commands, new byte[]{1, 2, 5}, 2, 1, 12345, 4545, 12345 + 10 );
+        appender.append( new TransactionToApply( transaction ), logAppendEvent );
+
+        // THEN
+        LogEntryReader<ReadableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        try ( PhysicalTransactionCursor<ReadableLogChannel> reader =
+                      new PhysicalTransactionCursor<>( channel, logEntryReader ) )
+        {
+            assertTrue( reader.next() );
+            CommittedTransactionRepresentation committed = reader.get();
+            TransactionRepresentation result = committed.getTransactionRepresentation();
+            assertEquals( 15L, committed.getCommitEntry().getTxId() );
+            assertArrayEquals( transaction.additionalHeader(), result.additionalHeader() );
+            assertEquals( transaction.getTimeStarted(), result.getTimeStarted() );
+            List<StorageCommand> resultCommands = new ArrayList<>();
+            result.accept( command -> !resultCommands.add( command ) );
+            assertEquals( new ArrayList<>( commands ), resultCommands );
+        }
+    }
+
+    @Test
+    public void shouldNotWaitForLogForceWithAsyncDurability() throws Exception
+    {
+        // GIVEN
+        FlushablePositionAwareChannel channel = spy( new InMemoryClosableChannel() );
+        Flushable flushable = flushableOf( channel );
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 1L );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L, 3L );
+        OnDemandJobScheduler scheduler = new OnDemandJobScheduler( false );
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, scheduler, pageCache, 10, ByteUnit.mebiBytes( 1 ), null,
+                NullLogProvider.getInstance(), LogForceWindow.Monitor.NO_MONITOR ) );
+
+        // WHEN
+        appender.append( batchOf(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ),
+                transaction( singleCreateNodeCommand( 1 ), new byte[0], 0, 0, 0, 1, 0 ) ), logAppendEvent );
+
+        // THEN
+        verify( transactionIdStore ).transactionCommitted( eq( 3L ), anyLong(), anyLong() );
+        verify( channel ).prepareForFlush();
+        verify( flushable, never() ).flush();
+        assertEquals( 2, appender.unforcedTransactions() );
+        assertTrue( appender.unforcedBytes() > 0 );
+
+        // WHEN
+        scheduler.runJob();
+
+        // THEN
+        verify( flushable ).flush();
+        assertEquals( 0, appender.unforcedTransactions() );
+        assertEquals( 0, appender.unforcedBytes() );
+        assertEquals( 0, appender.unforcedMillis() );
+    }
+
+    @Test
+    public void shouldTellMonitorWhatEachLogForceMadeDurable() throws Exception
+    {
+        // GIVEN
+        FlushablePositionAwareChannel channel = spy( new InMemoryClosableChannel() );
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 1L );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L, 3L );
+        OnDemandJobScheduler scheduler = new OnDemandJobScheduler( false );
+        LogForceWindow.Monitor monitor = mock( LogForceWindow.Monitor.class );
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, scheduler, pageCache, 10, ByteUnit.mebiBytes( 1 ), null,
+                NullLogProvider.getInstance(), monitor ) );
+        appender.append( batchOf(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ),
+                transaction( singleCreateNodeCommand( 1 ), new byte[0], 0, 0, 0, 1, 0 ) ), logAppendEvent );
+        long unforcedBytes = appender.unforcedBytes();
+        verifyZeroInteractions( monitor );
+
+        // WHEN
+        scheduler.runJob();
+        scheduler.runJob();
+
+        // THEN
+        verify( monitor ).logForced( eq( 2L ), eq( unforcedBytes ), anyLong() );
+        verifyNoMoreInteractions( monitor );
+    }
+
+    @Test
+    public void shouldForceLogWhenAsyncDurabilityThresholdIsReached() throws Exception
+    {
+        // GIVEN
+        FlushablePositionAwareChannel channel = spy( new InMemoryClosableChannel() );
+        Flushable flushable = flushableOf( channel );
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L );
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, new OnDemandJobScheduler( false ), pageCache, 10, 1,
+                null, NullLogProvider.getInstance(), LogForceWindow.Monitor.NO_MONITOR ) );
+
+        // WHEN
+        appender.append( new TransactionToApply(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ) ), logAppendEvent );
+
+        // THEN
+        verify( flushable ).flush();
+        assertEquals( 0, appender.unforcedBytes() );
+    }
+
+    @Test
+    public void shouldForceLogBeforePagesAreWrittenWithAsyncDurability() throws Exception
+    {
+        // GIVEN
+        FlushablePositionAwareChannel channel = spy( new InMemoryClosableChannel() );
+        Flushable flushable = flushableOf( channel );
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L );
+        PageCache storePageCache = storage.pageCache();
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, new OnDemandJobScheduler( false ), storePageCache,
+                10, ByteUnit.mebiBytes( 1 ), null, NullLogProvider.getInstance(), LogForceWindow.Monitor.NO_MONITOR ) );
+        appender.append( new TransactionToApply(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ) ), logAppendEvent );
+        assertTrue( appender.unforcedBytes() > 0 );
+
+        File file = storage.directory().file( "store" );
+        FileSystemAbstraction fs = storage.fileSystem();
+        doAnswer( invocation ->
+        {
+            assertEquals( "The page must not be written before the log is forced", 0, fs.getFileSize( file ) );
+            return null;
+        } ).when( flushable ).flush();
+        try ( PagedFile pagedFile = storePageCache.map( file, storePageCache.pageSize(), StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( 42 );
+            }
+
+            // WHEN
+            pagedFile.flushAndForce();
+        }
+
+        // THEN
+        verify( flushable ).flush();
+        assertEquals( 0, appender.unforcedBytes() );
+        assertEquals( storePageCache.pageSize(), fs.getFileSize( file ) );
+    }
+
     @Test
     public void shouldBeAbleToWriteACheckPoint() throws Throwable
     {
@@ -382,6 +563,17 @@ public class BatchingTransactionAppenderTest
 
     }
 
+    private static Flushable flushableOf( FlushablePositionAwareChannel channel ) throws IOException
+    {
+        Flushable flushable = mock( Flushable.class );
+        doAnswer( invocation ->
+        {
+            invocation.callRealMethod();
+            return flushable;
+        } ).when( channel ).prepareForFlush();
+        return flushable;
+    }
+
     private BatchingTransactionAppender createTransactionAppender()
     {
         return new BatchingTransactionAppender( logFiles, NO_ROTATION, positionCache, transactionIdStore, BYPASS, databaseHealth );
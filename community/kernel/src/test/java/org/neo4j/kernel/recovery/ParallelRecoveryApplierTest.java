@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.storageengine.api.CommandsToApply;
+import org.neo4j.storageengine.api.StorageEngine;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createLabelToken;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createNode;
+import static org.neo4j.kernel.impl.transaction.command.Commands.transactionRepresentation;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
+
+public class ParallelRecoveryApplierTest
+{
+    private final StorageEngine storageEngine = mock( StorageEngine.class );
+    private final List<List<Long>> appliedBatches = new CopyOnWriteArrayList<>();
+    private final ThreadPoolJobScheduler scheduler = new ThreadPoolJobScheduler();
+
+    @Before
+    public void recordAppliedBatches() throws Exception
+    {
+        doAnswer( invocation ->
+        {
+            List<Long> batch = new ArrayList<>();
+            for ( CommandsToApply tx = invocation.getArgument( 0 ); tx != null; tx = tx.next() )
+            {
+                batch.add( tx.transactionId() );
+            }
+            appliedBatches.add( batch );
+            return null;
+        } ).when( storageEngine ).apply( any(), eq( RECOVERY ) );
+    }
+
+    @After
+    public void shutdownScheduler()
+    {
+        scheduler.close();
+    }
+
+    @Test
+    public void shouldApplyTransactionsInBatches() throws Exception
+    {
+        // GIVEN
+        ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, RECOVERY, scheduler, 2, 1 );
+
+        // WHEN
+        for ( long txId = 1; txId <= 5; txId++ )
+        {
+            applier.visit( transaction( txId, createNode( txId ) ) );
+        }
+        assertEquals( asList( asList( 1L, 2L ), asList( 3L, 4L ) ), appliedBatches );
+        applier.close();
+
+        // THEN
+        assertEquals( asList( asList( 1L, 2L ), asList( 3L, 4L ), Collections.singletonList( 5L ) ), appliedBatches );
+    }
+
+    @Test
+    public void shouldApplyTransactionsOfDisjointRecordsInParallel() throws Exception
+    {
+        // GIVEN
+        ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, RECOVERY, scheduler, 10, 2 );
+
+        // WHEN
+        applier.visit( transaction( 1, createNode( 1 ) ) );
+        applier.visit( transaction( 2, createNode( 2 ) ) );
+        applier.visit( transaction( 3, createNode( 1 ) ) );
+        applier.visit( transaction( 4, createNode( 2 ), createNode( 3 ) ) );
+        applier.visit( transaction( 5, createNode( 3 ) ) );
+        applier.close();
+
+        // THEN
+        assertThat( appliedBatches, containsInAnyOrder( asList( 1L, 3L ), asList( 2L, 4L, 5L ) ) );
+    }
+
+    @Test
+    public void shouldApplyBarrierTransactionsOnTheirOwn() throws Exception
+    {
+        // GIVEN
+        ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, RECOVERY, scheduler, 10, 2 );
+
+        // WHEN
+        applier.visit( transaction( 1, createNode( 1 ) ) );
+        applier.visit( transaction( 2, createNode( 2 ) ) );
+        applier.visit( transaction( 3, createLabelToken( 0, 0 ) ) );
+        applier.visit( transaction( 4, createNode( 1 ) ) );
+        applier.close();
+
+        // THEN
+        assertEquals( 4, appliedBatches.size() );
+        assertThat( appliedBatches.subList( 0, 2 ),
+                containsInAnyOrder( Collections.singletonList( 1L ), Collections.singletonList( 2L ) ) );
+        assertEquals( Collections.singletonList( 3L ), appliedBatches.get( 2 ) );
+        assertEquals( Collections.singletonList( 4L ), appliedBatches.get( 3 ) );
+    }
+
+    @Test
+    public void shouldApplyPendingTransactionsOnCloseEvenIfNothingElseWasApplied() throws Exception
+    {
+        // GIVEN
+        ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, RECOVERY, scheduler, 10, 1 );
+        applier.visit( transaction( 1, createNode( 1 ) ) );
+        assertTrue( appliedBatches.isEmpty() );
+
+        // WHEN
+        applier.close();
+
+        // THEN
+        assertEquals( Collections.singletonList( Collections.singletonList( 1L ) ), appliedBatches );
+    }
+
+    private static CommittedTransactionRepresentation transaction( long txId, Command... commands )
+    {
+        return new CommittedTransactionRepresentation( new LogEntryStart( 0, 0, 0, 0, new byte[0], LogPosition.UNSPECIFIED ),
+                transactionRepresentation( commands ), new LogEntryCommit( txId, 0 ) );
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2002-2019 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+import org.neo4j.scheduler.ThreadPoolJobScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class PrefetchingTransactionCursorTest
+{
+    private final ThreadPoolJobScheduler scheduler = new ThreadPoolJobScheduler();
+
+    @After
+    public void shutdownScheduler()
+    {
+        scheduler.close();
+    }
+
+    @Test
+    public void shouldReturnTransactionsAndPositionsOfSourceInOrder() throws IOException
+    {
+        // GIVEN
+        CommittedTransactionRepresentation[] transactions = transactions( 100 );
+        FakeTransactionCursor source = new FakeTransactionCursor( transactions, null );
+
+        // WHEN
+        try ( PrefetchingTransactionCursor cursor = new PrefetchingTransactionCursor( source, scheduler, 4 ) )
+        {
+            // THEN
+            assertEquals( new LogPosition( 0, 0 ), cursor.position() );
+            for ( int i = 0; i < transactions.length; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertSame( transactions[i], cursor.get() );
+                assertEquals( new LogPosition( 0, i + 1 ), cursor.position() );
+            }
+            assertFalse( cursor.next() );
+            assertFalse( cursor.next() );
+            assertEquals( new LogPosition( 0, transactions.length ), cursor.position() );
+        }
+        assertTrue( source.closed );
+    }
+
+    @Test
+    public void shouldThrowReadFailureAfterTransactionsReadBeforeIt() throws IOException
+    {
+        // GIVEN
+        CommittedTransactionRepresentation[] transactions = transactions( 3 );
+        IOException failure = new IOException( "corrupt log" );
+        FakeTransactionCursor source = new FakeTransactionCursor( transactions, failure );
+
+        try ( PrefetchingTransactionCursor cursor = new PrefetchingTransactionCursor( source, scheduler, 2 ) )
+        {
+            for ( CommittedTransactionRepresentation transaction : transactions )
+            {
+                assertTrue( cursor.next() );
+                assertSame( transaction, cursor.get() );
+            }
+
+            // WHEN
+            try
+            {
+                cursor.next();
+                fail( "Should have failed" );
+            }
+            catch ( IOException e )
+            {
+                // THEN
+                assertSame( failure, e );
+            }
+            assertEquals( new LogPosition( 0, transactions.length ), cursor.position() );
+        }
+    }
+
+    @Test
+    public void shouldStopReadingAheadWhenClosedEarly() throws IOException
+    {
+        // GIVEN
+        FakeTransactionCursor source = new FakeTransactionCursor( transactions( 1_000 ), null );
+        PrefetchingTransactionCursor cursor = new PrefetchingTransactionCursor( source, scheduler, 2 );
+        assertTrue( cursor.next() );
+
+        // WHEN
+        cursor.close();
+
+        // THEN
+        assertTrue( source.closed );
+        assertTrue( source.read < 1_000 );
+    }
+
+    private static CommittedTransactionRepresentation[] transactions( int count )
+    {
+        CommittedTransactionRepresentation[] transactions = new CommittedTransactionRepresentation[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            transactions[i] = mock( CommittedTransactionRepresentation.class );
+        }
+        return transactions;
+    }
+
+    private static class FakeTransactionCursor implements TransactionCursor
+    {
+        private final CommittedTransactionRepresentation[] transactions;
+        private final IOException failure;
+        private volatile int read;
+        private volatile boolean closed;
+
+        FakeTransactionCursor( CommittedTransactionRepresentation[] transactions, IOException failure )
+        {
+            this.transactions = transactions;
+            this.failure = failure;
+        }
+
+        @Override
+        public boolean next() throws IOException
+        {
+            if ( read == transactions.length )
+            {
+                if ( failure != null )
+                {
+                    throw failure;
+                }
+                return false;
+            }
+            read++;
+            return true;
+        }
+
+        @Override
+        public CommittedTransactionRepresentation get()
+        {
+            return transactions[read - 1];
+        }
+
+        @Override
+        public LogPosition position()
+        {
+            return new LogPosition( 0, read );
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
@@ -396,6 +396,12 @@ public class StubStorageCursors implements StorageReader
         return new StubStorageNodeCursor();
     }
 
+    @Override
+    public AllNodeScan allNodeScan()
+    {
+        throw new UnsupportedOperationException( "Not implemented yet" );
+    }
+
     @Override
     public StoragePropertyCursor allocatePropertyCursor()
     {
@@ -420,6 +426,18 @@ public class StubStorageCursors implements StorageReader
         return new StubStorageRelationshipScanCursor();
     }
 
+    @Override
+    public AllRelationshipsScan allRelationshipScan()
+    {
+        throw new UnsupportedOperationException( "Not implemented yet" );
+    }
+
+    @Override
+    public RelationshipTypeScan relationshipTypeScan( int type )
+    {
+        throw new UnsupportedOperationException( "Not implemented yet" );
+    }
+
     @Override
     public StorageSchemaReader schemaSnapshot()
     {
@@ -482,6 +500,12 @@ public class StubStorageCursors implements StorageReader
             this.iterator = nodeData.keySet().iterator();
         }
 
+        @Override
+        public boolean scanBatch( AllNodeScan scan, int sizeHint )
+        {
+            throw new UnsupportedOperationException( "Not implemented yet" );
+        }
+
         @Override
         public void single( long reference )
         {
@@ -597,6 +621,18 @@ public class StubStorageCursors implements StorageReader
             next = NO_ID;
         }
 
+        @Override
+        public boolean scanBatch( AllRelationshipsScan scan, int sizeHint )
+        {
+            throw new UnsupportedOperationException( "Not implemented yet" );
+        }
+
+        @Override
+        public boolean scanBatch( RelationshipTypeScan scan, int sizeHint )
+        {
+            throw new UnsupportedOperationException( "Not implemented yet" );
+        }
+
         @Override
         public void single( long reference )
         {
@@ -31,13 +31,15 @@ import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.LocksFactory;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.kernel.impl.locking.community.CommunityLocksFactory;
+import org.neo4j.kernel.impl.locking.striped.StripedLocksFactory;
 import org.neo4j.logging.internal.LogService;
+import org.neo4j.scheduler.JobScheduler;
 
 public final class EditionLocksFactories
 {
-    public static Locks createLockManager( LocksFactory locksFactory, Config config, Clock clock )
+    public static Locks createLockManager( LocksFactory locksFactory, Config config, Clock clock, JobScheduler scheduler )
     {
-        return locksFactory.newInstance( config, clock, ResourceTypes.values() );
+        return locksFactory.newInstance( config, clock, ResourceTypes.values(), scheduler );
     }
 
     public static LocksFactory createLockFactory( Config config, LogService logging )
@@ -62,6 +64,10 @@ public final class EditionLocksFactories
         {
             return new CommunityLocksFactory();
         }
+        else if ( "striped".equals( key ) )
+        {
+            return new StripedLocksFactory();
+        }
         else if ( StringUtils.isEmpty( key ) )
         {
             logging.getInternalLog( CommunityEditionModule.class )
@@ -48,6 +48,7 @@ import org.neo4j.kernel.impl.core.DatabasePanicEventGenerator;
 import org.neo4j.kernel.impl.factory.DatabaseInfo;
 import org.neo4j.kernel.impl.pagecache.ConfiguringPageCacheFactory;
 import org.neo4j.kernel.impl.pagecache.PageCacheLifecycle;
+import org.neo4j.kernel.impl.pagecache.PageCacheMemoryDiagnostics;
 import org.neo4j.kernel.impl.query.QueryEngineProvider;
 import org.neo4j.kernel.impl.scheduler.JobSchedulerFactory;
 import org.neo4j.kernel.impl.security.URLAccessRules;
@@ -199,7 +200,7 @@ public class PlatformModule
 
         versionContextSupplier = createCursorContextSupplier( config );
 
-        collectionsFactorySupplier = createCollectionsFactorySupplier( config, life );
+        collectionsFactorySupplier = dependencies.satisfyDependency( createCollectionsFactorySupplier( config, life ) );
 
         dependencies.satisfyDependency( versionContextSupplier );
         pageCache = dependencies.satisfyDependency( createPageCache( fileSystem, config, logging, tracers, versionContextSupplier, jobScheduler ) );
@@ -209,6 +210,7 @@ public class PlatformModule
         diagnosticsManager = life.add( dependencies
                 .satisfyDependency( new DiagnosticsManager( logging.getInternalLog( DiagnosticsManager.class ) ) ) );
         SystemDiagnostics.registerWith( diagnosticsManager );
+        dependencies.resolveTypeDependencies( PageCacheMemoryDiagnostics.class ).forEach( diagnosticsManager::appendProvider );
 
         dependencies.satisfyDependency( dataSourceManager );
 
@@ -339,6 +341,7 @@ public class PlatformModule
                 fileSystem, config, tracers.pageCacheTracer, tracers.pageCursorTracerSupplier, pageCacheLog,
                 versionContextSupplier, jobScheduler );
         PageCache pageCache = pageCacheFactory.getOrCreatePageCache();
+        dependencies.satisfyDependency( pageCacheFactory.memoryDiagnostics() );
 
         if ( config.get( GraphDatabaseSettings.dump_configuration ) )
         {
@@ -59,6 +59,9 @@ import org.neo4j.kernel.impl.locking.LocksFactory;
 import org.neo4j.kernel.impl.locking.SimpleStatementLocksFactory;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.impl.store.id.ConcurrentIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.id.configuration.CommunityIdTypeConfigurationProvider;
+import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfigurationProvider;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.log.files.TransactionLogFiles;
 import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
@@ -98,7 +101,7 @@ public class CommunityEditionModule extends DefaultEditionModule
                 SslPolicyLoader.create( config, logging.getInternalLogProvider() ) ); // for bolt and web server
 
         LocksFactory lockFactory = createLockFactory( config, logging );
-        locksSupplier = () -> createLockManager( lockFactory, config, platformModule.clock );
+        locksSupplier = () -> createLockManager( lockFactory, config, platformModule.clock, platformModule.jobScheduler );
         statementLocksFactoryProvider = locks -> createStatementLocksFactory( locks, config, logging );
 
         threadToTransactionBridge = dependencies.satisfyDependency(
@@ -140,7 +143,20 @@ public class CommunityEditionModule extends DefaultEditionModule
 
     protected IdContextFactory createIdContextFactory( PlatformModule platformModule, FileSystemAbstraction fileSystem )
     {
-        return IdContextFactoryBuilder.of( fileSystem, platformModule.jobScheduler ).build();
+        IdTypeConfigurationProvider idTypeConfigurationProvider = createIdTypeConfigurationProvider( platformModule.config );
+        IdContextFactoryBuilder builder = IdContextFactoryBuilder.of( idTypeConfigurationProvider, platformModule.jobScheduler )
+                .withFileSystem( fileSystem );
+        if ( platformModule.config.get( GraphDatabaseSettings.concurrent_id_generator ) )
+        {
+            builder.withIdGenerationFactoryProvider(
+                    databaseName -> new ConcurrentIdGeneratorFactory( fileSystem, idTypeConfigurationProvider ) );
+        }
+        return builder.build();
+    }
+
+    protected IdTypeConfigurationProvider createIdTypeConfigurationProvider( Config config )
+    {
+        return new CommunityIdTypeConfigurationProvider();
     }
 
     protected Predicate<String> fileWatcherFileNameFilter()
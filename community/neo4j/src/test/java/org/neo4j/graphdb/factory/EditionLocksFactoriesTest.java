@@ -27,7 +27,9 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.locking.LocksFactory;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.kernel.impl.locking.community.CommunityLocksFactory;
+import org.neo4j.kernel.impl.locking.striped.StripedLocksFactory;
 import org.neo4j.logging.internal.NullLogService;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.Clocks;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -49,10 +51,11 @@ class EditionLocksFactoriesTest
         LocksFactory lockFactory = mock( LocksFactory.class );
         Config config = Config.defaults();
         Clock clock = Clocks.systemClock();
+        JobScheduler scheduler = mock( JobScheduler.class );
 
-        createLockManager( lockFactory, config, clock );
+        createLockManager( lockFactory, config, clock, scheduler );
 
-        verify( lockFactory ).newInstance( eq( config ), eq( clock ), eq( ResourceTypes.values() ) );
+        verify( lockFactory ).newInstance( eq( config ), eq( clock ), eq( ResourceTypes.values() ), eq( scheduler ) );
     }
 
     @Test
@@ -74,6 +77,16 @@ class EditionLocksFactoriesTest
         assertThat( lockFactory, instanceOf( CommunityLocksFactory.class ) );
     }
 
+    @Test
+    void createStripedLocksFactoryWhenSpecified()
+    {
+        Config config = Config.defaults( GraphDatabaseSettings.lock_manager, "striped" );
+
+        LocksFactory lockFactory = createLockFactory( config, NullLogService.getInstance() );
+
+        assertThat( lockFactory, instanceOf( StripedLocksFactory.class ) );
+    }
+
     @Test
     void failToCreateWhenConfiguredFactoryNotFound()
     {
@@ -23,8 +23,10 @@ import sun.misc.Unsafe;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -84,6 +86,9 @@ public final class UnsafeUtil
     private static final long directByteBufferLimitOffset;
     private static final long directByteBufferCapacityOffset;
     private static final long directByteBufferAddressOffset;
+    // Java 8: DirectByteBuffer.cleaner() and Cleaner.clean(). Java 9 and later: null and Unsafe.invokeCleaner(ByteBuffer).
+    private static final MethodHandle directByteBufferCleaner;
+    private static final MethodHandle cleanerClean;
 
     private static final int pageSize;
 
@@ -141,6 +146,10 @@ public final class UnsafeUtil
         directByteBufferAddressOffset = dbbAddressOffset;
         pageSize = ps;
 
+        MethodHandle[] cleanerHandles = getDirectByteBufferCleanerMethodHandles( lookup, dbbClass );
+        directByteBufferCleaner = cleanerHandles[0];
+        cleanerClean = cleanerHandles[1];
+
         // See java.nio.Bits.unaligned() and its uses.
         String alignmentProperty = System.getProperty( allowUnalignedMemoryAccessProperty );
         if ( alignmentProperty != null &&
@@ -239,6 +248,30 @@ public final class UnsafeUtil
         }
     }
 
+    private static MethodHandle[] getDirectByteBufferCleanerMethodHandles( MethodHandles.Lookup lookup, Class<?> dbbClass )
+    {
+        try
+        {
+            MethodHandle invokeCleaner = lookup.findVirtual( Unsafe.class, "invokeCleaner", MethodType.methodType( void.class, ByteBuffer.class ) );
+            return new MethodHandle[]{null, invokeCleaner.bindTo( unsafe )};
+        }
+        catch ( NoSuchMethodException | IllegalAccessException e )
+        {
+            // Fall back to the cleaner of the buffer, as on Java 8
+        }
+        try
+        {
+            Method cleanerMethod = dbbClass.getDeclaredMethod( "cleaner" );
+            cleanerMethod.setAccessible( true );
+            Method cleanMethod = Class.forName( "sun.misc.Cleaner" ).getDeclaredMethod( "clean" );
+            return new MethodHandle[]{lookup.unreflect( cleanerMethod ), lookup.unreflect( cleanMethod )};
+        }
+        catch ( Exception e )
+        {
+            return new MethodHandle[]{null, null};
+        }
+    }
+
     /**
      * Get the object-relative field offset.
      */
@@ -1005,6 +1038,43 @@ public final class UnsafeUtil
         return unsafe.getLong( dbb, directByteBufferAddressOffset );
     }
 
+    /**
+     * Releases the memory of the given direct byte buffer, or unmaps it if it's a {@link java.nio.MappedByteBuffer},
+     * without waiting for it to be garbage collected. This works on Java 8 as well as on Java 9 and later, where the
+     * cleaner of the buffer is no longer accessible.
+     * <p>
+     * <strong>NOTE:</strong> the buffer must not be accessed after this call, and must not be a slice or duplicate
+     * of another buffer.
+     *
+     * @param dbb The direct byte buffer to release.
+     */
+    public static void invokeCleaner( ByteBuffer dbb )
+    {
+        if ( cleanerClean == null )
+        {
+            throw new LinkageError( "Unable to find cleaner methods of java.nio.DirectByteBuffer" );
+        }
+        try
+        {
+            if ( directByteBufferCleaner == null )
+            {
+                cleanerClean.invoke( dbb );
+            }
+            else
+            {
+                Object cleaner = directByteBufferCleaner.invoke( dbb );
+                if ( cleaner != null )
+                {
+                    cleanerClean.invoke( cleaner );
+                }
+            }
+        }
+        catch ( Throwable throwable )
+        {
+            throw new LinkageError( "Unable to clean direct byte buffer.", throwable );
+        }
+    }
+
     /**
      * Change if native access checking is enabled by setting it to the given new setting, and returning the old
      * setting.
@@ -21,7 +21,13 @@ package org.neo4j.unsafe.impl.internal.dragons;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -557,6 +563,32 @@ class UnsafeUtilTest
         }
     }
 
+    @Test
+    void invokeCleanerMustUnmapMappedByteBuffer() throws IOException
+    {
+        File file = File.createTempFile( "mapped", ".tmp" );
+        try
+        {
+            try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE ) )
+            {
+                MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_WRITE, 0, 8 );
+                buffer.putLong( 0, 42 );
+                UnsafeUtil.invokeCleaner( buffer );
+            }
+            assertEquals( 42, ByteBuffer.wrap( Files.readAllBytes( file.toPath() ) ).getLong() );
+        }
+        finally
+        {
+            assertTrue( file.delete() );
+        }
+    }
+
+    @Test
+    void invokeCleanerMustFreeDirectByteBuffer()
+    {
+        UnsafeUtil.invokeCleaner( ByteBuffer.allocateDirect( 8 ) );
+    }
+
     @Test
     void getAddressOfDirectByteBuffer()
     {